@@ -7,21 +7,37 @@ import java.io.OutputStream;
 import java.nio.charset.Charset;
 import java.util.List;
 
+import org.unclazz.jp1ajs2.unitdef.parser.LazyUnitParser;
 import org.unclazz.jp1ajs2.unitdef.parser.ParseResult;
+import org.unclazz.jp1ajs2.unitdef.parser.UnitEventHandler;
+import org.unclazz.jp1ajs2.unitdef.parser.UnitEventParser;
+import org.unclazz.jp1ajs2.unitdef.parser.UnitFileLoadResult;
+import org.unclazz.jp1ajs2.unitdef.parser.UnitFileLoader;
 import org.unclazz.jp1ajs2.unitdef.parser.UnitParser;
 import org.unclazz.jp1ajs2.unitdef.util.Formatters;
 
 /**
  * {@link Unit}のためのユーティリティ・クラス.
+ * <p>このクラスの静的メソッドは複数のスレッドから同時に呼び出すことができる。</p>
  */
 public final class Units {
+	/**
+	 * 共有のパーサー.
+	 * {@link UnitParser}はスレッドセーフであるため各スレッドで共有して使用する。
+	 */
 	private static final UnitParser parser = new UnitParser();
+	/**
+	 * 共有の遅延パーサー.
+	 */
+	private static final LazyUnitParser lazyParser = new LazyUnitParser();
 	
 	private Units() {}
 
 	/**
 	 * ファイルからユニット定義情報を読み取る.
 	 * システム・デフォルトのキャラクターセットを使用する。
+	 * ファイルはメモリにマップされブロック単位でデコードされる。
+	 * gzip形式もしくはzip形式で圧縮されたファイルは展開しながら読み取られる（{@link org.unclazz.jp1ajs2.unitdef.parser.Input#fromFile(File, Charset)}を参照）。
 	 * @param f ファイル
 	 * @return ユニット定義
 	 * @throws IllegalArgumentException 構文エラーが検出された場合
@@ -37,6 +53,8 @@ public final class Units {
 
 	/**
 	 * ファイルからユニット定義情報を読み取る.
+	 * ファイルはメモリにマップされブロック単位でデコードされる。
+	 * gzip形式もしくはzip形式で圧縮されたファイルは展開しながら読み取られる（{@link org.unclazz.jp1ajs2.unitdef.parser.Input#fromFile(File, Charset)}を参照）。
 	 * @param f ファイル
 	 * @param charset キャラクターセット
 	 * @return ユニット定義
@@ -51,6 +69,26 @@ public final class Units {
 		}
 	}
 
+	/**
+	 * ファイルからユニット定義情報を遅延して読み取る.
+	 * <p>このメソッドはルート・ユニットの範囲とユニット定義属性のみを読み取り、
+	 * それぞれのルート・ユニットのプロキシを格納したリストを返す。
+	 * プロキシのパラメータやサブユニットが最初に参照された時点で、そのルート・ユニットの範囲だけがパースされる
+	 * （{@link LazyUnitParser}を参照）。</p>
+	 * @param f ファイル
+	 * @param charset キャラクターセット
+	 * @return ユニット定義
+	 * @throws IllegalArgumentException ユニット定義の境界やユニット定義属性に構文エラーが検出された場合
+	 */
+	public static List<Unit> lazyFromFile(final File f, final Charset charset) {
+		final ParseResult<List<Unit>> res = lazyParser.parse(f, charset);
+		if (res.isSuccessful()) {
+			return res.get();
+		} else {
+			throw new IllegalArgumentException(res.getError());
+		}
+	}
+
 	/**
 	 * 入力ストリームからユニット定義情報を読み取る.
 	 * システム・デフォルトのキャラクターセットを使用する。
@@ -100,6 +138,104 @@ public final class Units {
 		}
 	}
 	
+	/**
+	 * zipアーカイブに含まれるすべてのエントリからユニット定義情報を読み取る.
+	 * <p>エントリは{@link UnitFileLoader#loadZip(File, Charset)}により並列に読み取られる。
+	 * 戻り値のリストにおけるユニットの順序はアーカイブ内のエントリの順序に従う。
+	 * エントリごとの結果や処理時間が必要な場合は{@link UnitFileLoader}を直接使用すること。</p>
+	 * @param zip zipアーカイブのファイル
+	 * @param charset キャラクターセット
+	 * @return ユニット定義
+	 * @throws IllegalArgumentException アーカイブを開くことができない場合や構文エラーが検出された場合
+	 */
+	public static List<Unit> fromZipEntries(final File zip, final Charset charset) {
+		final UnitFileLoadResult res = new UnitFileLoader().loadZip(zip, charset);
+		if (res.isSuccessful()) {
+			return res.getUnits();
+		} else {
+			final UnitFileLoadResult.FileResult failure = res.getFailures().get(0);
+			throw new IllegalArgumentException(String.format("Cannot load %s.", failure.getFile()),
+					failure.getResult().getError());
+		}
+	}
+	
+	/**
+	 * ディレクトリ直下のすべてのファイルからユニット定義情報を読み取る.
+	 * <p>ファイルは{@link UnitFileLoader}により並列に読み取られる。
+	 * 戻り値のリストにおけるユニットの順序はファイル名の昇順に従う。
+	 * ファイルごとの結果や処理時間が必要な場合は{@link UnitFileLoader}を直接使用すること。</p>
+	 * @param dir ディレクトリ
+	 * @param charset キャラクターセット
+	 * @return ユニット定義
+	 * @throws IllegalArgumentException ディレクトリが存在しない場合や構文エラーが検出された場合
+	 */
+	public static List<Unit> fromDirectory(final File dir, final Charset charset) {
+		final UnitFileLoadResult res = new UnitFileLoader().load(dir, charset);
+		if (res.isSuccessful()) {
+			return res.getUnits();
+		} else {
+			final UnitFileLoadResult.FileResult failure = res.getFailures().get(0);
+			throw new IllegalArgumentException(String.format("Cannot load %s.", failure.getFile()),
+					failure.getResult().getError());
+		}
+	}
+	
+	/**
+	 * ファイルからユニット定義情報を読み取りイベントとしてハンドラーに通知する.
+	 * <p>{@link #fromFile(File, Charset)}と異なりユニットのツリーを構築しないため、
+	 * ファイルの大きさにかかわらずメモリ使用量はおおむね一定となる。</p>
+	 * @param f ファイル
+	 * @param charset キャラクターセット
+	 * @param handler イベント・ハンドラー
+	 * @return 読み取ったユニットの数
+	 * @throws IllegalArgumentException 構文エラーが検出された場合
+	 */
+	public static int fromFile(final File f, final Charset charset, final UnitEventHandler handler) {
+		final ParseResult<Integer> res = new UnitEventParser(handler).parse(f, charset);
+		if (res.isSuccessful()) {
+			return res.get();
+		} else {
+			throw new IllegalArgumentException(res.getError());
+		}
+	}
+
+	/**
+	 * 入力ストリームからユニット定義情報を読み取りイベントとしてハンドラーに通知する.
+	 * <p>{@link #fromStream(InputStream, Charset)}と異なりユニットのツリーを構築しないため、
+	 * ストリームの大きさにかかわらずメモリ使用量はおおむね一定となる。</p>
+	 * @param s ストリーム
+	 * @param charset キャラクターセット
+	 * @param handler イベント・ハンドラー
+	 * @return 読み取ったユニットの数
+	 * @throws IOException I/Oエラーが発生した場合
+	 * @throws IllegalArgumentException 構文エラーが検出された場合
+	 */
+	public static int fromStream(final InputStream s, final Charset charset,
+			final UnitEventHandler handler) throws IOException {
+		final ParseResult<Integer> res = new UnitEventParser(handler).parse(s, charset);
+		if (res.isSuccessful()) {
+			return res.get();
+		} else {
+			throw new IllegalArgumentException(res.getError());
+		}
+	}
+
+	/**
+	 * 文字列からユニット定義情報を読み取りイベントとしてハンドラーに通知する.
+	 * @param s 文字列
+	 * @param handler イベント・ハンドラー
+	 * @return 読み取ったユニットの数
+	 * @throws IllegalArgumentException 構文エラーが検出された場合
+	 */
+	public static int fromCharSequence(final CharSequence s, final UnitEventHandler handler) {
+		final ParseResult<Integer> res = new UnitEventParser(handler).parse(s);
+		if (res.isSuccessful()) {
+			return res.get();
+		} else {
+			throw new IllegalArgumentException(res.getError());
+		}
+	}
+	
 	/**
 	 * ユニット定義を文字列化して出力ストリームに書き出す.
 	 * @param unit ユニット定義
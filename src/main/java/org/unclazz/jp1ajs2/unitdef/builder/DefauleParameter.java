@@ -1,6 +1,5 @@
 package org.unclazz.jp1ajs2.unitdef.builder;
 
-import java.util.Collections;
 import java.util.List;
 
 import org.unclazz.jp1ajs2.unitdef.util.StringUtils;
@@ -14,7 +13,7 @@ class DefauleParameter implements Parameter {
 	private final List<ParameterValue> values;
 	
 	DefauleParameter(final CharSequence name, final List<ParameterValue> values) {
-		this.values = Collections.unmodifiableList(values);
+		this.values = ImmutableArrayList.copyOf(values);
 		this.name = name.toString();
 	}
 
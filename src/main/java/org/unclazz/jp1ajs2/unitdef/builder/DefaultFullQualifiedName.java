@@ -1,7 +1,5 @@
 package org.unclazz.jp1ajs2.unitdef.builder;
 
-import java.util.Collections;
-import java.util.LinkedList;
 import java.util.List;
 
 import org.unclazz.jp1ajs2.unitdef.FullQualifiedName;
@@ -11,18 +9,22 @@ final class DefaultFullQualifiedName implements FullQualifiedName {
 	private String stringCache;
 	
 	DefaultFullQualifiedName(List<CharSequence> fragments) {
-		this.fragments = fragments;
+		this.fragments = ImmutableArrayList.copyOf(fragments);
+	}
+	
+	private DefaultFullQualifiedName(Object[] fragments) {
+		this.fragments = ImmutableArrayList.wrap(fragments);
 	}
 	
 	public List<CharSequence> getFragments() {
-		return Collections.unmodifiableList(fragments);
+		return fragments;
 	}
 	public DefaultFullQualifiedName getSuperUnitName() {
 		final int len = fragments.size();
 		if (len == 1) {
 			return null;
 		}
-		return new DefaultFullQualifiedName(fragments.subList(0, len - 1));
+		return new DefaultFullQualifiedName(fragments.subList(0, len - 1).toArray());
 	}
 	public DefaultFullQualifiedName getSubUnitName(final CharSequence fragment) {
 		if (fragment == null) {
@@ -31,8 +33,9 @@ final class DefaultFullQualifiedName implements FullQualifiedName {
 		if (fragment.length() == 0) {
 			throw new IllegalArgumentException("fragment of fqn must not be empty.");
 		}
-		final List<CharSequence> newFragments = new LinkedList<CharSequence>(fragments);
-		newFragments.add(fragment);
+		final int len = fragments.size();
+		final Object[] newFragments = fragments.toArray(new Object[len + 1]);
+		newFragments[len] = fragment;
 		return new DefaultFullQualifiedName(newFragments);
 	}
 	@Override
@@ -15,7 +15,7 @@ final class DefaultTuple implements Tuple, Component {
 	private final List<Entry> values;
 
 	DefaultTuple(final List<Entry> list) {
-		this.values = list;
+		this.values = ImmutableArrayList.copyOf(list);
 	}
 
 	@Override
@@ -1,7 +1,8 @@
 package org.unclazz.jp1ajs2.unitdef.builder;
 
-import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.unclazz.jp1ajs2.unitdef.Attributes;
 import org.unclazz.jp1ajs2.unitdef.Component;
@@ -16,6 +17,12 @@ import org.unclazz.jp1ajs2.unitdef.util.Formatters;
 import org.unclazz.jp1ajs2.unitdef.Unit;
 
 final class DefaultUnit implements Unit {
+	/**
+	 * {@link #getSubUnit(String)}がユニット名による索引を使用するサブユニット数の下限.
+	 * これより少ない場合は索引を作成せずサブユニットのリストを先頭から走査する。
+	 */
+	static final int SUB_UNIT_INDEX_THRESHOLD = 16;
+	
 	private static final Query<Unit, UnitType> tyQueryStatic = 
 			Queries.ty().one();
 	private static final Query<Unit, CharSequence> cmQueryStatic = 
@@ -28,13 +35,19 @@ final class DefaultUnit implements Unit {
 	private final Query<Unit, UnitType> tyQuery = CachedQuery.wrap(tyQueryStatic);
 	private final Query<Unit, CharSequence> cmQuery = CachedQuery.wrap(cmQueryStatic);
 	private CharSequence serialized = null;
+	/**
+	 * ユニット名をキーとするサブユニットの索引.
+	 * 初回の{@link #getSubUnit(String)}呼び出しの際に作成され、以降は変更されない。
+	 * 複数のスレッドが同時に作成した場合はいずれか1つが残るが、内容はいずれも同じである。
+	 */
+	private volatile Map<String, Unit> subUnitIndex = null;
 	
 	DefaultUnit(FullQualifiedName fqn, Attributes attributes,
 			List<Parameter> parameterList, List<Unit> subUnitList) {
 		this.fqn = fqn;
 		this.attributes = attributes;
-		this.parameterList = parameterList;
-		this.subUnitList = Collections.unmodifiableList(subUnitList);
+		this.parameterList = ParameterList.of(parameterList);
+		this.subUnitList = ImmutableArrayList.copyOf(subUnitList);
 	}
 	
 	@Override
@@ -55,9 +68,8 @@ final class DefaultUnit implements Unit {
 	}
 	@Override
 	public List<Parameter> getParameters() {
-		return Collections.unmodifiableList(parameterList);
+		return parameterList;
 	}
-
 	@Override
 	public <R> R query(Query<Unit,R> r) {
 		return r.queryFrom(this);
@@ -70,6 +82,14 @@ final class DefaultUnit implements Unit {
 
 	@Override
 	public Unit getSubUnit(String name) {
+		if (subUnitList.size() >= SUB_UNIT_INDEX_THRESHOLD) {
+			Map<String, Unit> index = subUnitIndex;
+			if (index == null) {
+				index = makeSubUnitIndex();
+				subUnitIndex = index;
+			}
+			return index.get(name);
+		}
 		for (final Unit s : subUnitList) {
 			if (s.getName().equals(name)) {
 				return s;
@@ -78,6 +98,18 @@ final class DefaultUnit implements Unit {
 		return null;
 	}
 
+	private Map<String, Unit> makeSubUnitIndex() {
+		final Map<String, Unit> index = new HashMap<String, Unit>(subUnitList.size() * 4 / 3 + 1);
+		for (final Unit s : subUnitList) {
+			// 名前が重複する場合もリストを走査した場合と同じく先頭のものを返す
+			final String name = s.getName();
+			if (!index.containsKey(name)) {
+				index.put(name, s);
+			}
+		}
+		return index;
+	}
+
 	@Override
 	public CharSequence getComment() {
 		return query(cmQuery);
@@ -1,6 +1,6 @@
 package org.unclazz.jp1ajs2.unitdef.builder;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
 import java.util.List;
 
 import org.unclazz.jp1ajs2.unitdef.FullQualifiedName;
@@ -12,7 +12,7 @@ import org.unclazz.jp1ajs2.unitdef.util.StringUtils;
 public final class FullQualifiedNameBuilder {
 	FullQualifiedNameBuilder() {}
 	
-	private final List<CharSequence> list = new LinkedList<CharSequence>();
+	private final List<CharSequence> list = new ArrayList<CharSequence>();
 	
 	/**
 	 * 完全名のフラグメントを追加する.
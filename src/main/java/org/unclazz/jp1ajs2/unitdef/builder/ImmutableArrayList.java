@@ -0,0 +1,60 @@
+package org.unclazz.jp1ajs2.unitdef.builder;
+
+import java.util.AbstractList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * ちょうどの長さの配列をラップする変更不可能なリスト.
+ * <p>ユニットやパラメータなど一度構築されたら変更されないモデルの要素を保持するために使用する。
+ * {@link java.util.LinkedList}のように要素ごとのノードを持たず、
+ * {@link java.util.ArrayList}のように余剰の容量も持たない。
+ * {@link #get(int)}は定数時間で要素にアクセスする。</p>
+ *
+ * @param <E> 要素の型
+ */
+class ImmutableArrayList<E> extends AbstractList<E> implements RandomAccess {
+	/**
+	 * コレクションの要素をコピーして変更不可能なリストを生成する.
+	 * コレクションが空の場合は共有の空リストを返す。
+	 * @param c コレクション
+	 * @return 変更不可能なリスト
+	 */
+	static <E> List<E> copyOf(final Collection<? extends E> c) {
+		if (c.isEmpty()) {
+			return Collections.emptyList();
+		}
+		return new ImmutableArrayList<E>(c.toArray());
+	}
+	/**
+	 * 配列をそのままラップして変更不可能なリストを生成する.
+	 * 呼び出し側は以降配列を変更してはならない。
+	 * @param array 配列
+	 * @return 変更不可能なリスト
+	 */
+	static <E> List<E> wrap(final Object[] array) {
+		if (array.length == 0) {
+			return Collections.emptyList();
+		}
+		return new ImmutableArrayList<E>(array);
+	}
+
+	private final Object[] array;
+
+	ImmutableArrayList(final Object[] array) {
+		this.array = array;
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public E get(final int index) {
+		return (E) array[index];
+	}
+
+	@Override
+	public int size() {
+		return array.length;
+	}
+}
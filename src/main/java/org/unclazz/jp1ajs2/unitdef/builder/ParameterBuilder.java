@@ -1,6 +1,6 @@
 package org.unclazz.jp1ajs2.unitdef.builder;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
 import java.util.List;
 
 import org.unclazz.jp1ajs2.unitdef.Parameter;
@@ -11,7 +11,7 @@ public final class ParameterBuilder {
 	ParameterBuilder() {}
 	
 	private String name;
-	private final List<ParameterValue> valueList = new LinkedList<ParameterValue>();
+	private final List<ParameterValue> valueList = new ArrayList<ParameterValue>();
 	
 	public ParameterBuilder setName(String name) {
 		this.name = name;
@@ -0,0 +1,101 @@
+package org.unclazz.jp1ajs2.unitdef.builder;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.unclazz.jp1ajs2.unitdef.Parameter;
+
+/**
+ * パラメータ名をキーとするユニット定義パラメータの索引.
+ * <p>オープン・アドレス法によるハッシュ表でパラメータ名ごとのパラメータのリストを保持する。
+ * リストの要素の順序はユニット定義における出現順序と同じである。
+ * インスタンスは生成後に変更されない。</p>
+ */
+final class ParameterIndex {
+	/**
+	 * ユニット定義パラメータのリストから索引を生成する.
+	 * @param parameters ユニット定義パラメータのリスト
+	 * @return 索引
+	 */
+	static ParameterIndex of(final List<Parameter> parameters) {
+		// パラメータの数に応じた表でパラメータ名ごとにまとめた後
+		// パラメータ名の数に応じた大きさの表に詰め替える
+		final ParameterIndex work = new ParameterIndex(parameters.size());
+		int count = 0;
+		for (final Parameter p : parameters) {
+			if (work.add(p)) {
+				count ++;
+			}
+		}
+		final ParameterIndex result = new ParameterIndex(count);
+		for (int i = 0; i < work.keys.length; i ++) {
+			final List<Parameter> list = work.values[i];
+			if (list != null) {
+				final int j = result.slot(work.keys[i]);
+				result.keys[j] = work.keys[i];
+				result.values[j] = list.size() == 1 ? list : ImmutableArrayList.copyOf(list);
+			}
+		}
+		return result;
+	}
+
+	private final String[] keys;
+	private final List<Parameter>[] values;
+	private final int mask;
+
+	private ParameterIndex(final int capacity) {
+		// 負荷率が1/2以下となる2のべき乗の大きさの表を用意する
+		int size = 4;
+		while (size < capacity * 2) {
+			size <<= 1;
+		}
+		keys = new String[size];
+		values = newTable(size);
+		mask = size - 1;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static List<Parameter>[] newTable(final int size) {
+		return (List<Parameter>[]) new List<?>[size];
+	}
+
+	private boolean add(final Parameter p) {
+		final String name = p.getName();
+		final int i = slot(name);
+		final List<Parameter> list = values[i];
+		if (list == null) {
+			keys[i] = name;
+			values[i] = Collections.singletonList(p);
+			return true;
+		}
+		if (list.size() == 1) {
+			final List<Parameter> newList = new ArrayList<Parameter>();
+			newList.add(list.get(0));
+			newList.add(p);
+			values[i] = newList;
+		} else {
+			list.add(p);
+		}
+		return false;
+	}
+
+	/**
+	 * パラメータ名が一致するユニット定義パラメータのリストを返す.
+	 * @param name パラメータ名
+	 * @return ユニット定義パラメータのリスト（該当するものがない場合は空のリスト）
+	 */
+	List<Parameter> get(final String name) {
+		final List<Parameter> list = values[slot(name)];
+		return list == null ? Collections.<Parameter>emptyList() : list;
+	}
+
+	private int slot(final String name) {
+		final int h = name.hashCode();
+		int i = (h ^ (h >>> 16)) & mask;
+		while (keys[i] != null && !keys[i].equals(name)) {
+			i = (i + 1) & mask;
+		}
+		return i;
+	}
+}
@@ -0,0 +1,83 @@
+package org.unclazz.jp1ajs2.unitdef.builder;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import org.unclazz.jp1ajs2.unitdef.Parameter;
+
+/**
+ * パラメータ名による検索のための索引を持つユニット定義パラメータの変更不可能なリスト.
+ * <p>{@link DefaultUnit#getParameters()}が返すリストの実装である。
+ * ユニットを遅延評価でラップする実装も最終的にはこのリストを返すため、
+ * {@link ParameterLookup}はユニットの実装クラスによらずこのリストの索引を使用できる。</p>
+ */
+final class ParameterList extends ImmutableArrayList<Parameter> {
+	/**
+	 * {@link #getParameters(String)}がパラメータ名による索引を使用するパラメータ数の下限.
+	 * これより少ない場合は索引を作成せずパラメータのリストを先頭から走査する。
+	 */
+	static final int PARAMETER_INDEX_THRESHOLD = 8;
+
+	/**
+	 * コレクションの要素をコピーしてパラメータのリストを生成する.
+	 * コレクションが空の場合は共有の空リストを返す。
+	 * @param c コレクション
+	 * @return 変更不可能なリスト
+	 */
+	static List<Parameter> of(final Collection<? extends Parameter> c) {
+		if (c.isEmpty()) {
+			return Collections.emptyList();
+		}
+		return new ParameterList(c.toArray());
+	}
+
+	/**
+	 * パラメータ名をキーとするパラメータの索引.
+	 * 初回の{@link #getParameters(String)}呼び出しの際に作成される。
+	 * 複数のスレッドが同時に作成した場合はいずれか1つが残るが、内容はいずれも同じである。
+	 */
+	private volatile ParameterIndex index = null;
+
+	private ParameterList(final Object[] array) {
+		super(array);
+	}
+
+	/**
+	 * 名前が一致するユニット定義パラメータのリストを返す.
+	 * {@link ParameterLookup#getParameters(org.unclazz.jp1ajs2.unitdef.Unit, String)}から呼び出される。
+	 * @param name パラメータ名
+	 * @return ユニット定義パラメータ・リスト
+	 */
+	List<Parameter> getParameters(final String name) {
+		if (size() >= PARAMETER_INDEX_THRESHOLD) {
+			ParameterIndex i = index;
+			if (i == null) {
+				i = ParameterIndex.of(this);
+				index = i;
+			}
+			return i.get(name);
+		}
+		Parameter first = null;
+		List<Parameter> result = null;
+		for (final Parameter p : this) {
+			if (!p.getName().equals(name)) {
+				continue;
+			}
+			if (first == null) {
+				first = p;
+			} else {
+				if (result == null) {
+					result = new ArrayList<Parameter>();
+					result.add(first);
+				}
+				result.add(p);
+			}
+		}
+		if (result != null) {
+			return Collections.unmodifiableList(result);
+		}
+		return first == null ? Collections.<Parameter>emptyList() : Collections.singletonList(first);
+	}
+}
@@ -0,0 +1,44 @@
+package org.unclazz.jp1ajs2.unitdef.builder;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.unclazz.jp1ajs2.unitdef.Parameter;
+import org.unclazz.jp1ajs2.unitdef.Unit;
+
+/**
+ * パラメータ名によるユニット定義パラメータの検索を行うユーティリティ.
+ * <p><strong>このクラスはライブラリ内部で使用するためのものであり、公開APIではない。</strong>
+ * パッケージをまたいでクエリの実装から呼び出すために{@code public}としているが、
+ * 将来のバージョンで予告なく変更・削除される可能性がある。</p>
+ * <p>{@link Unit#getParameters()}が返すリストがこのライブラリのビルダーにより構築されたものである場合
+ * ──遅延評価されるユニットが実体化された後のものを含む──はリストごとの索引を使用し、
+ * それ以外の場合はリストを先頭から走査する。</p>
+ */
+public final class ParameterLookup {
+	private ParameterLookup() {}
+
+	/**
+	 * 名前が一致するユニット定義パラメータのリストを返す.
+	 * <p>リストの要素の順序は{@link Unit#getParameters()}が返すリストにおける順序と同じである。
+	 * 名前が一致するパラメータが存在しない場合、このメソッドは空のリストを返す。
+	 * 返されるリストは変更できない。</p>
+	 * @param unit ユニット
+	 * @param name パラメータ名
+	 * @return ユニット定義パラメータ・リスト
+	 */
+	public static List<Parameter> getParameters(final Unit unit, final String name) {
+		final List<Parameter> all = unit.getParameters();
+		if (all instanceof ParameterList) {
+			return ((ParameterList) all).getParameters(name);
+		}
+		final List<Parameter> result = new ArrayList<Parameter>();
+		for (final Parameter p : all) {
+			if (p.getName().equals(name)) {
+				result.add(p);
+			}
+		}
+		return result.isEmpty() ? Collections.<Parameter>emptyList() : Collections.unmodifiableList(result);
+	}
+}
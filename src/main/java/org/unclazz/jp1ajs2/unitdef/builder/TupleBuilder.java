@@ -1,18 +1,24 @@
 package org.unclazz.jp1ajs2.unitdef.builder;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
 import java.util.List;
 import org.unclazz.jp1ajs2.unitdef.Tuple;
 
 public final class TupleBuilder {
 	TupleBuilder() {}
-	private final List<Tuple.Entry> entryList = new LinkedList<Tuple.Entry>();
+	private final List<Tuple.Entry> entryList = new ArrayList<Tuple.Entry>();
 	
 	public TupleBuilder add(final String key, final String value) {
+		return add((CharSequence) key, (CharSequence) value);
+	}
+	public TupleBuilder add(final String value) {
+		return add((CharSequence) value);
+	}
+	public TupleBuilder add(final CharSequence key, final CharSequence value) {
 		entryList.add(new DefaultTuple.DefaultTupleEntry(key, value));
 		return this;
 	}
-	public TupleBuilder add(final String value) {
+	public TupleBuilder add(final CharSequence value) {
 		entryList.add(new DefaultTuple.DefaultTupleEntry(value));
 		return this;
 	}
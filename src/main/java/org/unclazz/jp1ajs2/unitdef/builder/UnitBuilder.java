@@ -1,7 +1,7 @@
 package org.unclazz.jp1ajs2.unitdef.builder;
 
 import java.util.HashSet;
-import java.util.LinkedList;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
 
@@ -21,8 +21,8 @@ public final class UnitBuilder {
 	UnitBuilder() {}
 	private FullQualifiedName fqn;
 	private Attributes attributes;
-	private final List<Parameter> parameterList = new LinkedList<Parameter>();
-	private final List<Unit> subUnitList = new LinkedList<Unit>();
+	private final List<Parameter> parameterList = new ArrayList<Parameter>();
+	private final List<Unit> subUnitList = new ArrayList<Unit>();
 	private final Set<String> subUnitNameSet = new HashSet<String>();
 	
 	/**
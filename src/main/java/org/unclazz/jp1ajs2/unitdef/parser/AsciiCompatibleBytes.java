@@ -0,0 +1,105 @@
+package org.unclazz.jp1ajs2.unitdef.parser;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+
+/**
+ * ASCII互換のキャラクターセットでエンコードされたバイト・シーケンスをデコードせずに読み取るためのユーティリティ.
+ * <p>ユニット定義の構文を構成する文字（{@code "unit="}、{@code ';'}、{@code '{'}、{@code '"'}など）はすべてASCII文字である。
+ * このクラスはバイト・シーケンスの各バイトをそのまま1つの{@code char}に拡張した文字配列（以下、バイト文字配列）を作成する。
+ * パーサーはバイト文字配列上で構文を読み取り、名前や値の内容のみを本来のキャラクターセットでデコードする。</p>
+ * <p>Shift_JISの2バイト文字の2バイト目は{@code '{'}や{@code '}'}などのASCII文字と同じ値を取り得る。
+ * そこでShift_JISの場合は2バイト文字の2バイト目に{@link #TRAIL_BYTE_MARK}を付与して
+ * ASCII文字と区別できるようにする。EUC-JPとUTF-8のマルチバイト文字を構成するバイトはすべて{@code 0x80}以上であるため、
+ * このような処理は必要ない。</p>
+ */
+final class AsciiCompatibleBytes {
+	/**
+	 * Shift_JISの2バイト文字の2バイト目に付与される値.
+	 */
+	private static final char TRAIL_BYTE_MARK = 0x100;
+
+	private AsciiCompatibleBytes() {}
+
+	/**
+	 * キャラクターセットがバイト文字配列による読み取りに対応しているかどうかを判定する.
+	 * @param charset キャラクターセット
+	 * @return 対応している場合{@code true}
+	 */
+	static boolean supports(final Charset charset) {
+		final String name = charset.name();
+		return name.equals("US-ASCII") || name.equals("ISO-8859-1") || name.equals("UTF-8")
+				|| name.equals("EUC-JP") || isShiftJIS(charset);
+	}
+
+	private static boolean isShiftJIS(final Charset charset) {
+		final String name = charset.name();
+		return name.equals("Shift_JIS") || name.equals("windows-31j");
+	}
+
+	/**
+	 * バイト・シーケンスの現在位置から末尾までをバイト文字配列に変換する.
+	 * @param bytes バイト・シーケンス
+	 * @param charset キャラクターセット
+	 * @return バイト文字配列
+	 */
+	static char[] widen(final ByteBuffer bytes, final Charset charset) {
+		final int len = bytes.remaining();
+		final char[] result = new char[len];
+		if (isShiftJIS(charset)) {
+			for (int i = 0; i < len; i ++) {
+				final int b = bytes.get() & 0xff;
+				result[i] = (char) b;
+				// 2バイト文字の1バイト目（0x81-0x9F、0xE0-0xFC）であれば2バイト目に印を付ける
+				if (((0x81 <= b && b <= 0x9f) || (0xe0 <= b && b <= 0xfc)) && i + 1 < len) {
+					result[++ i] = (char) (TRAIL_BYTE_MARK | (bytes.get() & 0xff));
+				}
+			}
+		} else {
+			for (int i = 0; i < len; i ++) {
+				result[i] = (char) (bytes.get() & 0xff);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * バイト文字配列の一部をデコードして文字列を返す.
+	 * 対象範囲がASCII文字のみで構成されている場合はキャラクターセットによるデコードを行わない。
+	 * @param chars バイト文字配列
+	 * @param offset 開始位置
+	 * @param length 文字数
+	 * @param charset キャラクターセット
+	 * @return 文字列
+	 */
+	static String decode(final char[] chars, final int offset, final int length, final Charset charset) {
+		final int end = offset + length;
+		for (int i = offset; i < end; i ++) {
+			if (chars[i] >= 0x80) {
+				final byte[] bytes = new byte[length];
+				for (int j = 0; j < length; j ++) {
+					bytes[j] = (byte) chars[offset + j];
+				}
+				final CharBuffer decoded = charset.decode(ByteBuffer.wrap(bytes));
+				return decoded.toString();
+			}
+		}
+		return new String(chars, offset, length);
+	}
+
+	/**
+	 * バイト文字配列の内容を持つ文字列をデコードして文字列を返す.
+	 * @param s 文字列
+	 * @param charset キャラクターセット
+	 * @return 文字列
+	 */
+	static String decode(final String s, final Charset charset) {
+		for (int i = 0; i < s.length(); i ++) {
+			if (s.charAt(i) >= 0x80) {
+				return decode(s.toCharArray(), 0, s.length(), charset);
+			}
+		}
+		return s;
+	}
+}
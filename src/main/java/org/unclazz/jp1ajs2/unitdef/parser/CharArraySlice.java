@@ -0,0 +1,49 @@
+package org.unclazz.jp1ajs2.unitdef.parser;
+
+/**
+ * 文字配列の一部を参照する文字シーケンス.
+ * <p>文字配列の内容はコピーされずそのまま参照される。
+ * {@link #toString()}が呼び出されてはじめて文字列が生成され、以降はその文字列が再利用される。</p>
+ * <p>参照先の文字配列は変更されないことが前提である。</p>
+ */
+final class CharArraySlice implements CharSequence {
+	private final char[] array;
+	private final int offset;
+	private final int length;
+	private String cachedString = null;
+
+	CharArraySlice(final char[] array, final int offset, final int length) {
+		this.array = array;
+		this.offset = offset;
+		this.length = length;
+	}
+
+	@Override
+	public int length() {
+		return length;
+	}
+
+	@Override
+	public char charAt(final int index) {
+		if (index < 0 || length <= index) {
+			throw new IndexOutOfBoundsException();
+		}
+		return array[offset + index];
+	}
+
+	@Override
+	public CharSequence subSequence(final int start, final int end) {
+		if (start < 0 || end > length || start > end) {
+			throw new IndexOutOfBoundsException();
+		}
+		return new CharArraySlice(array, offset + start, end - start);
+	}
+
+	@Override
+	public String toString() {
+		if (cachedString == null) {
+			cachedString = new String(array, offset, length);
+		}
+		return cachedString;
+	}
+}
@@ -0,0 +1,159 @@
+package org.unclazz.jp1ajs2.unitdef.parser;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * 圧縮されたユニット定義ファイルを扱うためのユーティリティ.
+ * <p>ファイルの形式は拡張子ではなく先頭のバイト（マジック・ナンバー）によって判定する。
+ * gzip形式は{@code 1F 8B}、zip形式は{@code 50 4B 03 04}（空のアーカイブの場合は{@code 50 4B 05 06}）で始まる。</p>
+ */
+final class CompressedFiles {
+	/**
+	 * 圧縮されていないファイル.
+	 */
+	static final int NONE = 0;
+	/**
+	 * gzip形式のファイル.
+	 */
+	static final int GZIP = 1;
+	/**
+	 * zip形式のファイル.
+	 */
+	static final int ZIP = 2;
+	/**
+	 * 圧縮されたデータを読み取る際のバッファ・サイズ.
+	 */
+	static final int BUFFER_SIZE = 65536;
+
+	private CompressedFiles() {}
+
+	/**
+	 * ファイルの形式を判定する.
+	 * @param f ファイル
+	 * @return {@link #NONE}、{@link #GZIP}、{@link #ZIP}のいずれか
+	 * @throws IOException ファイルの読み取りに失敗した場合
+	 */
+	static int format(final File f) throws IOException {
+		final byte[] magic = new byte[4];
+		final InputStream in = new FileInputStream(f);
+		int len = 0;
+		try {
+			while (len < magic.length) {
+				final int n = in.read(magic, len, magic.length - len);
+				if (n == -1) {
+					break;
+				}
+				len += n;
+			}
+		} finally {
+			in.close();
+		}
+		if (len >= 2 && magic[0] == (byte) 0x1f && magic[1] == (byte) 0x8b) {
+			return GZIP;
+		}
+		if (len == 4 && magic[0] == 'P' && magic[1] == 'K'
+				&& ((magic[2] == 3 && magic[3] == 4) || (magic[2] == 5 && magic[3] == 6))) {
+			return ZIP;
+		}
+		return NONE;
+	}
+
+	/**
+	 * 圧縮されたファイルの内容を展開しながら読み取るストリームを返す.
+	 * <p>gzip形式の場合は展開したデータをそのまま返す。
+	 * zip形式の場合はディレクトリ以外のすべてのエントリの内容をアーカイブ内の順序で連結して返す。
+	 * エントリの間には改行文字（CR LF）のバイトが挿入される。</p>
+	 * @param f ファイル
+	 * @param format {@link #format(File)}で判定したファイルの形式
+	 * @return ストリーム
+	 * @throws IOException ファイルの読み取りに失敗した場合
+	 */
+	static InputStream open(final File f, final int format) throws IOException {
+		final InputStream in = new FileInputStream(f);
+		try {
+			if (format == GZIP) {
+				return new GZIPInputStream(in, BUFFER_SIZE);
+			} else {
+				return new ZipEntriesInputStream(new ZipInputStream(new BufferedInputStream(in, BUFFER_SIZE)));
+			}
+		} catch (final IOException e) {
+			in.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * zipアーカイブのすべてのエントリの内容を連結して読み取るストリーム.
+	 */
+	private static final class ZipEntriesInputStream extends InputStream {
+		private static final byte[] SEPARATOR = {'\r', '\n'};
+		private final ZipInputStream zip;
+		private boolean inEntry = false;
+		private int separatorPending = 0;
+		private boolean first = true;
+		private boolean end = false;
+
+		ZipEntriesInputStream(final ZipInputStream zip) {
+			this.zip = zip;
+		}
+
+		@Override
+		public int read() throws IOException {
+			final byte[] b = new byte[1];
+			return read(b, 0, 1) == -1 ? -1 : b[0] & 0xff;
+		}
+
+		@Override
+		public int read(final byte[] b, final int off, final int len) throws IOException {
+			if (len == 0) {
+				return 0;
+			}
+			while (!end) {
+				if (separatorPending > 0) {
+					b[off] = SEPARATOR[SEPARATOR.length - separatorPending];
+					separatorPending --;
+					return 1;
+				}
+				if (!inEntry) {
+					if (!nextEntry()) {
+						end = true;
+						break;
+					}
+					continue;
+				}
+				final int n = zip.read(b, off, len);
+				if (n != -1) {
+					return n;
+				}
+				inEntry = false;
+			}
+			return -1;
+		}
+
+		private boolean nextEntry() throws IOException {
+			ZipEntry e;
+			while ((e = zip.getNextEntry()) != null) {
+				if (!e.isDirectory()) {
+					inEntry = true;
+					separatorPending = first ? 0 : SEPARATOR.length;
+					first = false;
+					return true;
+				}
+			}
+			return false;
+		}
+
+		@Override
+		public void close() throws IOException {
+			end = true;
+			zip.close();
+		}
+	}
+}
@@ -0,0 +1,47 @@
+package org.unclazz.jp1ajs2.unitdef.parser;
+
+import java.nio.charset.Charset;
+
+/**
+ * バイト文字配列の一部を参照し、その内容が必要とされた時点ではじめてデコードを行う文字シーケンス.
+ * <p>バイト文字配列については{@link AsciiCompatibleBytes}を参照。
+ * いずれかのメソッドが呼び出されてはじめて参照範囲がデコードされ、以降はその文字列が再利用される。</p>
+ * <p>参照先の文字配列は変更されないことが前提である。</p>
+ */
+final class DecodingCharArraySlice implements CharSequence {
+	private final char[] array;
+	private final int offset;
+	private final int length;
+	private final Charset charset;
+	private String cachedString = null;
+
+	DecodingCharArraySlice(final char[] array, final int offset, final int length, final Charset charset) {
+		this.array = array;
+		this.offset = offset;
+		this.length = length;
+		this.charset = charset;
+	}
+
+	@Override
+	public int length() {
+		return toString().length();
+	}
+
+	@Override
+	public char charAt(final int index) {
+		return toString().charAt(index);
+	}
+
+	@Override
+	public CharSequence subSequence(final int start, final int end) {
+		return toString().subSequence(start, end);
+	}
+
+	@Override
+	public String toString() {
+		if (cachedString == null) {
+			cachedString = AsciiCompatibleBytes.decode(array, offset, length, charset);
+		}
+		return cachedString;
+	}
+}
@@ -1,6 +1,5 @@
 package org.unclazz.jp1ajs2.unitdef.parser;
 
-import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
@@ -8,12 +7,12 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
-import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
 import java.util.regex.Pattern;
 
-import org.unclazz.jp1ajs2.unitdef.util.StringUtils;
-
 /**
  * 入力データをあらわすオブジェクト.
  * <p>{@link InputStream}や{@link File}を使って初期化を行った場合は
@@ -25,19 +24,50 @@ import org.unclazz.jp1ajs2.unitdef.util.StringUtils;
 public final class Input {
 	
 	private static final Pattern CRLF_EOL = Pattern.compile("(\r\n|\r|\n)$");
-	private static final int CR = (int) '\r';
-	private static final int LF = (int) '\n';
+	private static final char CR = '\r';
+	private static final char LF = '\n';
 	private static final char NULL = '\u0000';
 	private static final String EMPTY = "";
+	/**
+	 * {@link Reader}から読み取った文字を格納するブロック・バッファの初期サイズ.
+	 */
+	private static final int READER_BLOCK_SIZE = 8192;
+	/**
+	 * ファイルをメモリマップして読み取る場合のブロック・バッファの初期サイズ.
+	 */
+	private static final int MAPPED_FILE_BLOCK_SIZE = 65536;
 	
-	private final StringBuilder lineBuff = StringUtils.builder();
 	private final Reader reader;
+	/**
+	 * ブロック・バッファがバイト文字配列である場合のキャラクターセット.
+	 * デコード済みの文字を格納している場合は{@code null}.
+	 */
+	private final Charset byteCharset;
+	/**
+	 * デコード済みの文字を格納するブロック・バッファ.
+	 * 現在の行は{@code block[lineStart]}から{@code block[lineEnd - 1]}までの範囲に格納される。
+	 */
+	private char[] block;
+	private int blockEnd = 0;
+	private int lineStart = 0;
+	private int lineEnd = 0;
 
 	private int position = -1;
 	private char current = NULL;
 	private boolean eof = false;
 	private boolean closed = false;
 	private int lineNumber = 0;
+	/**
+	 * {@code block[0]}の位置にある文字の入力データの先頭からの位置.
+	 * ストリームから読み取る場合はブロック・バッファの内容が移動されるたびに加算される。
+	 */
+	private long offsetBase = 0;
+	/**
+	 * {@link #mark()}により固定されたブロック・バッファ上の位置.
+	 * 固定されていない場合は{@code -1}.
+	 * この位置以降の内容は次のブロックを読み取る際にも破棄されない。
+	 */
+	private int pinned = -1;
 	
 	/**
 	 * 文字列を使って初期化を行う.
@@ -68,28 +98,17 @@ public final class Input {
 	 * @throws InputExeption 初期化中にエラーが発生した場合
 	 */
 	public static Input fromStream(final InputStream s, final Charset charset) throws InputExeption {
-		try {
-			return new Input(s, charset);
-		} catch (final IOException e) {
-			throw new InputExeption(e);
-		}
+		return new Input(new InputStreamReader(s, charset), READER_BLOCK_SIZE);
 	}
-	
+
 	/**
-	 * コンストラクタ.
-	 * @param stream 入力ストリーム
-	 * @param charset キャラクターセット
-	 * @throws IOException 初期化中にIOエラーが発生した場合
+	 * リーダーを使って初期化を行う.
+	 * @param r リーダー
+	 * @return インスタンス
 	 * @throws InputExeption 初期化中にエラーが発生した場合
 	 */
-	private Input(final InputStream stream, final Charset charset)
-			throws IOException, InputExeption {
-		reader = new BufferedReader(new InputStreamReader(stream, charset));
-		next();
-	}
-
 	public static Input fromReader(final Reader r) throws InputExeption {
-		return new Input(r);
+		return new Input(r, READER_BLOCK_SIZE);
 	}
 
 	/**
@@ -105,6 +124,14 @@ public final class Input {
 	
 	/**
 	 * ファイルを使って初期化を行う.
+	 * <p>ファイルの内容は{@link java.nio.channels.FileChannel#map}によりメモリにマップされ、
+	 * 大きなブロック単位でデコードされながら読み取られる。
+	 * 1文字ずつストリームから読み取る{@link #fromStream(InputStream, Charset)}と比べて
+	 * 巨大なファイルを読み取る場合のオーバーヘッドが小さい。</p>
+	 * <p>ファイルがgzip形式もしくはzip形式で圧縮されている場合、その内容は一時ファイルを介さずに展開しながら読み取られる。
+	 * 圧縮されているかどうかは拡張子ではなくファイルの先頭のバイトによって判定される。
+	 * zip形式の場合はディレクトリ以外のすべてのエントリの内容がアーカイブ内の順序で連結して読み取られ、
+	 * エントリの間には改行文字（CR LF）が挿入される。</p>
 	 * @param f ファイル
 	 * @param charset キャラクターセット
 	 * @return インスタンス
@@ -112,7 +139,12 @@ public final class Input {
 	 */
 	public static Input fromFile(final File f, final Charset charset) throws InputExeption {
 		try {
-			return new Input(new FileInputStream(f), charset);
+			final int format = CompressedFiles.format(f);
+			if (format != CompressedFiles.NONE) {
+				return new Input(new InputStreamReader(CompressedFiles.open(f, format), charset),
+						MAPPED_FILE_BLOCK_SIZE);
+			}
+			return new Input(new MappedFileReader(f, charset), MAPPED_FILE_BLOCK_SIZE);
 		} catch (final FileNotFoundException e) {
 			throw new InputExeption(e);
 		} catch (final IOException e) {
@@ -120,17 +152,159 @@ public final class Input {
 		}
 	}
 	
+	/**
+	 * ファイルをバイト・シーケンスのまま読み取るインスタンスを返す.
+	 * <p>キャラクターセットがASCII互換である場合（{@link AsciiCompatibleBytes#supports(Charset)}）、
+	 * ファイルの内容はデコードされずにバイト文字配列としてブロック・バッファに格納される。
+	 * この場合{@link #current()}などが返す文字はデコード前のバイトの値となるため、
+	 * 文字列の内容を必要とする読み取り処理は{@link #decode(String)}や{@link #slice(int, int)}によりデコードを行わなければならない。
+	 * キャラクターセットがASCII互換でない場合はファイルの内容全体をデコードした文字配列で初期化する。</p>
+	 * <p>{@link #fromFile(File, Charset)}と異なりブロック単位の読み取りは行わない。
+	 * いずれの場合もファイル全体を1つの文字配列に格納するため、ファイルのバイト数のおよそ2倍のヒープを使用する。</p>
+	 * <p>圧縮されたファイルの扱いは{@link #fromFile(File, Charset)}と同じである。</p>
+	 * @param f ファイル
+	 * @param charset キャラクターセット
+	 * @return インスタンス
+	 * @throws InputExeption 初期化中にエラーが発生した場合
+	 */
+	static Input fromFileBytes(final File f, final Charset charset) throws InputExeption {
+		try {
+			final int format = CompressedFiles.format(f);
+			if (format != CompressedFiles.NONE) {
+				return fromStreamBytes(CompressedFiles.open(f, format), charset);
+			}
+			final FileChannel channel = new FileInputStream(f).getChannel();
+			try {
+				return fromBytes(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), charset);
+			} finally {
+				channel.close();
+			}
+		} catch (final IOException e) {
+			throw new InputExeption(e);
+		}
+	}
+	
+	/**
+	 * 入力ストリームをバイト・シーケンスのまま読み取るインスタンスを返す.
+	 * 入力ストリームは末尾まで読み取られた上でクローズされる。
+	 * 文字配列に加え、読み取りの間は入力ストリームの内容全体を格納するバイト配列も使用する。
+	 * @param s 入力ストリーム
+	 * @param charset キャラクターセット
+	 * @return インスタンス
+	 * @throws InputExeption 初期化中にエラーが発生した場合
+	 * @see #fromFileBytes(File, Charset)
+	 */
+	static Input fromStreamBytes(final InputStream s, final Charset charset) throws InputExeption {
+		try {
+			try {
+				byte[] buff = new byte[READER_BLOCK_SIZE];
+				int length = 0;
+				while (true) {
+					if (length == buff.length) {
+						final byte[] newBuff = new byte[buff.length * 2];
+						System.arraycopy(buff, 0, newBuff, 0, length);
+						buff = newBuff;
+					}
+					final int len = s.read(buff, length, buff.length - length);
+					if (len == -1) {
+						break;
+					}
+					length += len;
+				}
+				return fromBytes(ByteBuffer.wrap(buff, 0, length), charset);
+			} finally {
+				s.close();
+			}
+		} catch (final IOException e) {
+			throw new InputExeption(e);
+		}
+	}
+	
+	private static Input fromBytes(final ByteBuffer bytes, final Charset charset) throws InputExeption {
+		if (AsciiCompatibleBytes.supports(charset)) {
+			final char[] chars = AsciiCompatibleBytes.widen(bytes, charset);
+			return new Input(chars, 0, chars.length, 0, 0, charset);
+		}
+		final CharBuffer chars = charset.decode(bytes);
+		return new Input(chars.array(), chars.arrayOffset(), chars.remaining(), 0, -chars.arrayOffset(), null);
+	}
+	
 	/**
 	 * コンストラクタ.
+	 * 文字列の内容をそのままブロック・バッファとして使用する。
 	 * @param s 文字列
 	 * @throws InputExeption 初期化中にエラーが発生した場合
 	 */
 	private Input(final CharSequence s) throws InputExeption {
-		this(new StringReader(s.toString()));
+		this(s.toString().toCharArray(), 0, s.length(), 0, 0, null);
+	}
+	
+	/**
+	 * 文字配列の一部を使って初期化を行う.
+	 * 文字配列はコピーされずそのままブロック・バッファとして使用されるが、その内容が変更されることはない。
+	 * そのため複数のインスタンスで1つの文字配列を共有することができる。
+	 * @param chars 文字配列
+	 * @param offset 読み取りを開始する位置
+	 * @param length 読み取る文字数
+	 * @param lineNumberOffset 行数に加算される値（読み取り開始位置より前にある行の数）
+	 * @return インスタンス
+	 * @throws InputExeption 初期化中にエラーが発生した場合
+	 */
+	static Input fromCharArray(final char[] chars, final int offset, final int length,
+			final int lineNumberOffset) throws InputExeption {
+		return new Input(chars, offset, length, lineNumberOffset, 0, null);
+	}
+	
+	/**
+	 * 文字配列の一部を使って初期化を行う.
+	 * {@link #offset()}が返す値は文字配列上の添字に{@code offsetBase}を加算したものとなる。
+	 * @param chars 文字配列
+	 * @param offset 読み取りを開始する位置
+	 * @param length 読み取る文字数
+	 * @param lineNumberOffset 行数に加算される値（読み取り開始位置より前にある行の数）
+	 * @param offsetBase 文字配列の先頭の文字の入力データの先頭からの位置
+	 * @return インスタンス
+	 * @throws InputExeption 初期化中にエラーが発生した場合
+	 */
+	static Input fromCharArray(final char[] chars, final int offset, final int length,
+			final int lineNumberOffset, final long offsetBase) throws InputExeption {
+		return new Input(chars, offset, length, lineNumberOffset, offsetBase, null);
+	}
+	
+	/**
+	 * コンストラクタ.
+	 * 文字配列の内容をそのままブロック・バッファとして使用する。
+	 * @param chars 文字配列
+	 * @param offset 読み取りを開始する位置
+	 * @param length 読み取る文字数
+	 * @param lineNumberOffset 行数に加算される値
+	 * @param offsetBase 文字配列の先頭の文字の入力データの先頭からの位置
+	 * @param byteCharset 文字配列がバイト文字配列である場合のキャラクターセット
+	 * @throws InputExeption 初期化中にエラーが発生した場合
+	 */
+	private Input(final char[] chars, final int offset, final int length,
+			final int lineNumberOffset, final long offsetBase, final Charset byteCharset) throws InputExeption {
+		reader = null;
+		this.byteCharset = byteCharset;
+		this.offsetBase = offsetBase;
+		block = chars;
+		lineStart = offset;
+		lineEnd = offset;
+		blockEnd = offset + length;
+		lineNumber = lineNumberOffset;
+		next();
 	}
 	
-	private Input(final Reader r) throws InputExeption {
+	/**
+	 * コンストラクタ.
+	 * @param r リーダー
+	 * @param blockSize ブロック・バッファの初期サイズ
+	 * @throws InputExeption 初期化中にエラーが発生した場合
+	 */
+	private Input(final Reader r, final int blockSize) throws InputExeption {
 		reader = r;
+		byteCharset = null;
+		block = new char[blockSize];
 		next();
 	}
 	
@@ -152,6 +326,17 @@ public final class Input {
 		return position + 1;
 	}
 	
+	/**
+	 * 現在読み取り位置の入力データの先頭からの位置を返す.
+	 * 位置は入力データの先頭の文字を{@code 0}とする文字単位の値である。
+	 * ただしバイト・シーケンスのまま読み取るインスタンスの場合はバイト単位の値となる。
+	 * EOFに到達済みの場合は入力データの長さを返す。
+	 * @return 位置
+	 */
+	public long offset() {
+		return offsetBase + (eof ? blockEnd : lineStart + position);
+	}
+	
 	/**
 	 * 現在の行を返す.
 	 * EOFに到達済みの場合は{@code null}を返す。
@@ -160,7 +345,7 @@ public final class Input {
 	 * @return 行文字列
 	 */
 	public String line() {
-		return eof ? null : lineBuff.toString();
+		return eof ? null : lineString(0);
 	}
 	
 	/**
@@ -171,7 +356,7 @@ public final class Input {
 	 * @return 行文字列
 	 */
 	public String line(boolean chomp) {
-		return eof ? null : (chomp ? CRLF_EOL.matcher(lineBuff).replaceAll(EMPTY) : lineBuff.toString());
+		return eof ? null : (chomp ? CRLF_EOL.matcher(lineString(0)).replaceAll(EMPTY) : lineString(0));
 	}
 	
 	/**
@@ -188,7 +373,7 @@ public final class Input {
 	 * @return 現在読み取り位置以降の行末までの文字列
 	 */
 	public String restOfLine() {
-		return lineBuff.substring(position);
+		return lineString(position);
 	}
 	
 	/**
@@ -198,7 +383,7 @@ public final class Input {
 	 * @return 現在読み取り位置以降の行末までの文字列
 	 */
 	public String restOfLine(boolean chomp) {
-		final String sub = lineBuff.substring(position);
+		final String sub = lineString(position);
 		if (chomp) {
 			return CRLF_EOL.matcher(sub).replaceAll(EMPTY);
 		} else {
@@ -209,11 +394,63 @@ public final class Input {
 	/**
 	 * 現在読み取り位置に引数で指定された文字列があるかどうか判定する（前方一致判定する）.
 	 * このメソッドの判定結果は{@code Input#restOfLine().startsWith(String)}と同じ結果となる。
+	 * ただしEOFに到達済みの場合は常に{@code false}を返す。
+	 * 判定にあたって新しい文字列が生成されることはない。
 	 * @param prefix 前方一致判定に使用される文字列
 	 * @return 判定結果
 	 */
 	public boolean restStartsWith(final String prefix) {
-		return lineBuff.substring(position).startsWith(prefix);
+		return matchesAt(0, prefix);
+	}
+	
+	/**
+	 * 現在読み取り位置から数えて{@code offset}文字先の位置に引数で指定された文字シーケンスがあるかどうか判定する.
+	 * 判定は現在の行の範囲内で行われる。EOFに到達済みの場合は常に{@code false}を返す。
+	 * 判定にあたって新しい文字列が生成されることはなく、読み取り位置も移動しない。
+	 * @param offset 現在読み取り位置からのオフセット
+	 * @param s 判定に使用される文字シーケンス
+	 * @return 判定結果
+	 */
+	public boolean matchesAt(final int offset, final CharSequence s) {
+		if (eof || offset < 0) {
+			return false;
+		}
+		final int start = lineStart + position + offset;
+		final int len = s.length();
+		if (start + len > lineEnd) {
+			return false;
+		}
+		for (int i = 0; i < len; i ++) {
+			if (block[start + i] != s.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	/**
+	 * 現在読み取り位置から数えて{@code n}文字先にある文字を返す.
+	 * {@code peek(0)}は{@link #current()}と同じ文字を返す。
+	 * 参照する位置が現在の行の範囲外となる場合やEOFに到達済みの場合は{@code '\u0000'}を返す。
+	 * 読み取り位置は移動しない。
+	 * @param n 現在読み取り位置からのオフセット
+	 * @return 文字
+	 */
+	public char peek(final int n) {
+		if (eof || n < 0) {
+			return NULL;
+		}
+		final int i = lineStart + position + n;
+		return i < lineEnd ? block[i] : NULL;
+	}
+	
+	/**
+	 * 現在読み取り位置以降の行末までの文字数を返す.
+	 * この文字数には改行文字も含まれる。EOFに到達済みの場合は{@code 0}を返す。
+	 * @return 文字数
+	 */
+	public int restLength() {
+		return eof ? 0 : lineEnd - lineStart - position;
 	}
 	
 	/**
@@ -262,11 +499,12 @@ public final class Input {
 			// EOF到達前なら次の文字を取得する処理に入る
 			// まず現在位置をインクリメント
 			position += 1;
-			// 現在位置が行バッファの末尾より後方にあるかチェック
-			if (position >= lineBuff.length()) {
+			// 現在位置が行の末尾より後方にあるかチェック
+			if (lineStart + position >= lineEnd) {
 				// ストリームの状態をチェック
-				if (closed) {
-					// すでにストリームが閉じられているならEOF
+				// ＊reset(Mark)で戻った場合はストリームが閉じられていてもブロック・バッファに後続の行が残っている
+				if (closed && lineEnd >= blockEnd) {
+					// すでにストリームが閉じられていて後続の行もないならEOF
 					eof = true;
 					current = NULL;
 					position = 0;
@@ -283,66 +521,336 @@ public final class Input {
 			} else {
 				// EOF到達前の場合
 				// 現在文字に新しく取得した文字を設定
-				current = lineBuff.charAt(position);
+				current = block[lineStart + position];
 				// 現在文字を返す
 				return current;
 			}
 		}
 	}
 	
-	private void loadLine() throws InputExeption {
-		try {
-			// 現在位置を初期化
-			position = 0;
-			lineNumber += 1;
-			// 行バッファをクリアする
-			lineBuff.setLength(0);
-			// 繰り返し処理
-			while (!closed) {
-				// 次の文字を取得
-				final int c0 = reader.read();
-				// 文字のコード値が-1であるかどうか判定
-				if (c0 == -1) {
-					// 文字のコード値が−1ならストリームの終了
-					// ストリームを即座にクローズする
-					closed = true;
+	/**
+	 * 現在読み取り位置からEOFまでの文字をすべて読み取って返す.
+	 * 読み取り後、このオブジェクトはEOFに到達済みの状態となる。
+	 * 戻り値のバッファの{@link CharBuffer#array()}は読み取った文字のみを格納する配列であり、
+	 * その長さは{@link CharBuffer#limit()}以上となる。
+	 * @return 読み取った文字を格納したバッファ
+	 * @throws InputExeption 入力データ読み取り中にエラーが発生した場合
+	 */
+	CharBuffer readToEnd() throws InputExeption {
+		if (eof) {
+			return CharBuffer.wrap(new char[0]);
+		}
+		final int from = lineStart + position;
+		char[] result = new char[Math.max(blockEnd - from, READER_BLOCK_SIZE)];
+		int length = blockEnd - from;
+		System.arraycopy(block, from, result, 0, length);
+		if (reader != null && !closed) {
+			try {
+				while (true) {
+					if (length == result.length) {
+						final char[] newResult = new char[result.length * 2];
+						System.arraycopy(result, 0, newResult, 0, length);
+						result = newResult;
+					}
+					final int len = reader.read(result, length, result.length - length);
+					if (len == -1) {
+						break;
+					}
+					length += len;
+				}
+				closed = true;
+				reader.close();
+			} catch (IOException e0) {
+				try {
 					reader.close();
-					// バッファが空ならEOFでもある
-					eof = lineBuff.length() == 0;
+				} catch (IOException e1) {
+					throw new InputExeption(this, e1);
+				}
+				throw new InputExeption(this, e0);
+			}
+		}
+		// EOFに到達済みの状態とする
+		closed = true;
+		eof = true;
+		current = NULL;
+		position = 0;
+		lineStart = lineEnd = blockEnd;
+		return CharBuffer.wrap(result, 0, length);
+	}
+	
+	/**
+	 * 入力データ全体を1つの文字配列として保持するインスタンスを返す.
+	 * <p>このオブジェクトが文字配列もしくは文字列で初期化されたものである場合はこのオブジェクト自身を返す。
+	 * そうでない場合は{@link #readToEnd()}により現在読み取り位置以降の文字をすべて読み取り、
+	 * その文字配列で初期化した新しいインスタンスを返す（このオブジェクトはEOFに到達済みの状態となる）。</p>
+	 * @return インスタンス
+	 * @throws InputExeption 入力データ読み取り中にエラーが発生した場合
+	 */
+	Input toArrayBacked() throws InputExeption {
+		if (reader == null) {
+			return this;
+		}
+		final int lineNumberOffset = Math.max(lineNumber - 1, 0);
+		final long offset = offset();
+		final CharBuffer text = readToEnd();
+		return new Input(text.array(), 0, text.limit(), lineNumberOffset, offset, null);
+	}
+	
+	/**
+	 * {@link #array()}の一部を読み取る新しいインスタンスを返す.
+	 * 新しいインスタンスはこのオブジェクトと文字配列を共有し、
+	 * {@link #byteCharset()}と{@link #offset()}の基準もこのオブジェクトと同じとなる。
+	 * @param offset 読み取りを開始する位置の{@link #array()}上の添字
+	 * @param length 読み取る文字数
+	 * @param lineNumberOffset 行数に加算される値（読み取り開始位置より前にある行の数）
+	 * @return インスタンス
+	 * @throws InputExeption 初期化中にエラーが発生した場合
+	 * @throws IllegalStateException このオブジェクトが文字配列を保持していない場合
+	 */
+	Input region(final int offset, final int length, final int lineNumberOffset) throws InputExeption {
+		if (reader != null) {
+			throw new IllegalStateException("Input is not array-backed.");
+		}
+		return new Input(block, offset, length, lineNumberOffset, offsetBase, byteCharset);
+	}
+	
+	/**
+	 * {@link #mark()}で記録された読み取りの状態.
+	 * 位置はブロック・バッファの内容が移動されても変わらないよう入力データの先頭からの位置で保持する。
+	 */
+	static final class Mark {
+		private final long lineStart;
+		private final long lineEnd;
+		private final int position;
+		private final char current;
+		private final boolean eof;
+		private final int lineNumber;
+		private Mark(final Input in) {
+			lineStart = in.offsetBase + in.lineStart;
+			lineEnd = in.offsetBase + in.lineEnd;
+			position = in.position;
+			current = in.current;
+			eof = in.eof;
+			lineNumber = in.lineNumber;
+		}
+	}
+	
+	/**
+	 * 現在の読み取りの状態を記録する.
+	 * <p>記録した状態には{@link #reset(Mark)}により戻ることができる。
+	 * ストリームから読み取るインスタンスの場合、現在の行の先頭以降の内容は
+	 * {@link #unmark()}が呼び出されるまでブロック・バッファから破棄されなくなる。
+	 * そのため記録してから戻るまでの範囲はパラメータ1つ程度の短いものとしなければならない。</p>
+	 * <p>記録できる状態は1つのみであり、このメソッドを再び呼び出すとそれ以前に記録した状態には戻れなくなる。</p>
+	 * @return 読み取りの状態
+	 */
+	Mark mark() {
+		pinned = lineStart;
+		return new Mark(this);
+	}
+	
+	/**
+	 * {@link #mark()}で記録された読み取りの状態に戻る.
+	 * @param mark このオブジェクトの{@link #mark()}が最後に返した読み取りの状態
+	 * @throws IllegalStateException 記録された状態がすでに破棄されている場合
+	 */
+	void reset(final Mark mark) {
+		if (pinned == -1 || offsetBase + pinned != mark.lineStart) {
+			throw new IllegalStateException("Mark is no longer valid.");
+		}
+		lineStart = (int) (mark.lineStart - offsetBase);
+		lineEnd = (int) (mark.lineEnd - offsetBase);
+		position = mark.position;
+		current = mark.current;
+		eof = mark.eof;
+		lineNumber = mark.lineNumber;
+	}
+	
+	/**
+	 * {@link #mark()}で記録された読み取りの状態を破棄する.
+	 * 以降、記録された位置より前の内容はブロック・バッファから破棄できるようになる。
+	 */
+	void unmark() {
+		pinned = -1;
+	}
+	
+	/**
+	 * ブロック・バッファとして使用している文字配列を返す.
+	 * 文字配列もしくは文字列で初期化された場合以外は、ブロック・バッファの内容は読み取りの進行にともない変更されるため{@code null}を返す。
+	 * 戻り値の配列の内容を変更してはならない。
+	 * @return 文字配列
+	 */
+	char[] array() {
+		return reader == null ? block : null;
+	}
+	
+	/**
+	 * 現在読み取り位置の{@link #array()}上の添字を返す.
+	 * @return 添字
+	 */
+	int arrayIndex() {
+		return lineStart + position;
+	}
+	
+	/**
+	 * 入力データの終端の{@link #array()}上の添字を返す.
+	 * @return 添字
+	 */
+	int arrayEnd() {
+		return blockEnd;
+	}
+	
+	/**
+	 * ブロック・バッファがバイト文字配列である場合のキャラクターセットを返す.
+	 * デコード済みの文字を読み取るインスタンスである場合は{@code null}を返す。
+	 * @return キャラクターセット
+	 * @see #fromFileBytes(File, Charset)
+	 */
+	Charset byteCharset() {
+		return byteCharset;
+	}
+	
+	/**
+	 * 入力データから読み取った文字列の内容を返す.
+	 * バイト文字配列を読み取るインスタンスの場合は文字列をデコードした結果を返す。
+	 * そうでない場合は引数をそのまま返す。
+	 * @param s 入力データから読み取った文字列
+	 * @return 文字列
+	 */
+	String decode(final String s) {
+		return byteCharset == null ? s : AsciiCompatibleBytes.decode(s, byteCharset);
+	}
+	
+	/**
+	 * {@link #array()}の一部を参照する文字シーケンスを返す.
+	 * バイト文字配列を読み取るインスタンスの場合、文字シーケンスの内容はそれが必要とされた時点でデコードされる。
+	 * @param offset 開始位置の{@link #array()}上の添字
+	 * @param length 文字数
+	 * @return 文字シーケンス
+	 */
+	CharSequence slice(final int offset, final int length) {
+		return byteCharset == null ? new CharArraySlice(block, offset, length)
+				: new DecodingCharArraySlice(block, offset, length, byteCharset);
+	}
+	
+	/**
+	 * 指定された文字数だけ読み取り位置を前進させる.
+	 * @param n 文字数
+	 * @throws InputExeption 入力データ読み取り中にエラーが発生した場合
+	 */
+	void skip(final int n) throws InputExeption {
+		for (int i = 0; i < n; i ++) {
+			next();
+		}
+	}
+	
+	/**
+	 * 現在の行のうち指定された位置以降の部分を文字列として返す.
+	 * @param from 行頭からの位置
+	 * @return 文字列
+	 */
+	private String lineString(final int from) {
+		final int start = lineStart + from;
+		return start >= lineEnd ? EMPTY : new String(block, start, lineEnd - start);
+	}
+	
+	private void loadLine() throws InputExeption {
+		// 現在位置を初期化
+		position = 0;
+		lineNumber += 1;
+		// 前の行の直後を新しい行の開始位置とする
+		lineStart = lineEnd;
+		// 繰り返し処理
+		int i = lineStart;
+		while (true) {
+			// ブロック・バッファ上の文字を使い切っているかどうか判定
+			if (i >= blockEnd) {
+				// 使い切っていれば次のブロックを読み取る
+				i -= lineStart;
+				if (!fillBlock()) {
+					// ストリームの終了
+					// 行が空ならEOFでもある
+					lineEnd = blockEnd;
+					eof = lineStart == lineEnd;
 					if (eof) {
 						current = NULL;
 					}
 					return;
 				}
-				
-				// 読み取った文字をバッファに格納
-				lineBuff.append((char) c0);
-				// 文字がLF・CRであるかどうか判定
-				if (c0 == LF) {
-					// LFであればただちに読み取りを完了
-					return;
-				} else if (c0 == CR) {
-					// CRである場合はまず現在位置にマークを設定
-					reader.mark(1);
-					// 次の文字を取得
-					final int c1 = reader.read();
-					// 文字のコード値を判定
-					if (c1 == -1) {
-						// 文字のコード値が−1ならストリームの終了
-						// ストリームを即座にクローズする
-						closed = true;
-						reader.close();
-					} else if (c1 == LF) {
-						// LFであればそれもバッファに格納
-						lineBuff.append((char) c1);
-					} else {
-						// そうでなければ読み取り位置を最前マークした位置に戻す
-						reader.reset();
+				i += lineStart;
+			}
+			// 文字がLF・CRであるかどうか判定
+			final char c0 = block[i ++];
+			if (c0 == LF) {
+				// LFであればただちに読み取りを完了
+				lineEnd = i;
+				return;
+			} else if (c0 == CR) {
+				// CRである場合は次の文字を確認する
+				if (i >= blockEnd) {
+					i -= lineStart;
+					if (!fillBlock()) {
+						// ストリームの終了
+						lineEnd = blockEnd;
+						return;
 					}
-					// 読み取りを完了
-					return;
+					i += lineStart;
 				}
+				// LFであればそれも行に含める
+				lineEnd = block[i] == LF ? i + 1 : i;
+				// 読み取りを完了
+				return;
+			}
+		}
+	}
+	
+	/**
+	 * 次のブロックを読み取りブロック・バッファに追加する.
+	 * ブロック・バッファ上の現在の行の内容はバッファの先頭に移動される。
+	 * ストリームの終端に到達した場合はストリームをクローズし{@code false}を返す。
+	 * @return 1文字以上読み取られた場合{@code true}
+	 * @throws InputExeption 入力データ読み取り中にエラーが発生した場合
+	 */
+	private boolean fillBlock() throws InputExeption {
+		if (closed) {
+			return false;
+		}
+		if (reader == null) {
+			// 文字配列で初期化された場合は読み取るべきストリームが存在しない
+			// ＊文字配列は呼び出し元と共有されている可能性があるので内容を変更しない
+			closed = true;
+			return false;
+		}
+		// 現在の行の内容をバッファの先頭に移動
+		// ＊mark()により固定された位置があればその位置以降の内容を移動する
+		final int keepFrom = pinned != -1 && pinned < lineStart ? pinned : lineStart;
+		if (keepFrom > 0) {
+			offsetBase += keepFrom;
+			System.arraycopy(block, keepFrom, block, 0, blockEnd - keepFrom);
+			lineStart -= keepFrom;
+			blockEnd -= keepFrom;
+			if (pinned != -1) {
+				pinned -= keepFrom;
+			}
+		}
+		// 行がバッファ全体を占めているならバッファを拡張
+		if (blockEnd == block.length) {
+			final char[] newBlock = new char[block.length * 2];
+			System.arraycopy(block, 0, newBlock, 0, blockEnd);
+			block = newBlock;
+		}
+		try {
+			final int len = reader.read(block, blockEnd, block.length - blockEnd);
+			// 文字数が-1であるかどうか判定
+			if (len == -1) {
+				// 文字数が−1ならストリームの終了
+				// ストリームを即座にクローズする
+				closed = true;
+				reader.close();
+				return false;
 			}
+			blockEnd += len;
+			return true;
 		} catch (IOException e0) {
 			// 遅延読み込みのためI/Oエラーが発生した場合は実行時例外でラップする
 			try {
@@ -19,7 +19,8 @@ public final class InputExeption extends Exception {
 	}
 	@Override
 	public String getMessage() {
-		return String.format("Error has occured while reading input string or stream."
-				+ (in == null ? "" : " (line: %s, column: %s)"), in.lineNumber(), in.columnNumber());
+		final String header = "Error has occured while reading input string or stream.";
+		return in == null ? header
+				: String.format(header + " (line: %s, column: %s)", in.lineNumber(), in.columnNumber());
 	}
 }
@@ -0,0 +1,138 @@
+package org.unclazz.jp1ajs2.unitdef.parser;
+
+import java.util.List;
+
+import org.unclazz.jp1ajs2.unitdef.Attributes;
+import org.unclazz.jp1ajs2.unitdef.Component;
+import org.unclazz.jp1ajs2.unitdef.FullQualifiedName;
+import org.unclazz.jp1ajs2.unitdef.Parameter;
+import org.unclazz.jp1ajs2.unitdef.Unit;
+import org.unclazz.jp1ajs2.unitdef.builder.Builders;
+import org.unclazz.jp1ajs2.unitdef.parameter.UnitType;
+import org.unclazz.jp1ajs2.unitdef.query.Query;
+
+/**
+ * 入力データ上の範囲だけを保持し、必要とされた時点ではじめてパースされるルート・ユニット.
+ * <p>完全名とユニット定義属性は初期化の時点で読み取られる。
+ * パラメータやサブユニットなどそれ以外の情報が最初に必要とされた時点で、
+ * 保持している範囲を{@link UnitParser#parseUnit(Input, FullQualifiedName)}によりパースする。
+ * パース結果のユニットはこのオブジェクトに保持され、以降の呼び出しではそれが使用される。</p>
+ * <p>このオブジェクトはスレッドセーフであり、複数のスレッドから同時にアクセスされた場合もパース処理は1度だけ行われる。</p>
+ */
+final class LazyUnit implements Unit {
+	private final UnitParser parser;
+	private final FullQualifiedName fqn;
+	private final Attributes attributes;
+	private final int offset;
+	private final int length;
+	private final int lineNumberOffset;
+	/**
+	 * ユニット定義を含む入力データ.
+	 * パース完了後は参照を解放する。
+	 */
+	private Input source;
+	private volatile Unit unit = null;
+
+	/**
+	 * コンストラクタ.
+	 * @param parser パーサー
+	 * @param source ユニット定義を含む入力データ（文字配列を保持するもの）
+	 * @param offset ユニット定義の開始位置の{@link Input#array()}上の添字
+	 * @param length ユニット定義の文字数
+	 * @param lineNumberOffset ユニット定義の開始位置より前にある行の数
+	 * @param attributes ユニット定義属性
+	 */
+	LazyUnit(final UnitParser parser, final Input source, final int offset, final int length,
+			final int lineNumberOffset, final Attributes attributes) {
+		this.parser = parser;
+		this.source = source;
+		this.offset = offset;
+		this.length = length;
+		this.lineNumberOffset = lineNumberOffset;
+		this.attributes = attributes;
+		this.fqn = Builders.fullQualifiedName().addFragment(attributes.getUnitName()).build();
+	}
+
+	/**
+	 * ユニット定義をパースした結果を返す.
+	 * @return ユニット
+	 * @throws IllegalArgumentException 構文エラーが検出された場合
+	 */
+	Unit materialize() {
+		Unit u = unit;
+		if (u == null) {
+			synchronized (this) {
+				u = unit;
+				if (u == null) {
+					try {
+						u = parser.parseUnit(source.region(offset, length, lineNumberOffset), null);
+					} catch (final ParseException e) {
+						throw new IllegalArgumentException(e);
+					} catch (final InputExeption e) {
+						throw new IllegalArgumentException(e);
+					}
+					unit = u;
+					source = null;
+				}
+			}
+		}
+		return u;
+	}
+
+	/**
+	 * パース処理が完了しているかどうかを判定する.
+	 * @return 完了している場合{@code true}
+	 */
+	boolean isMaterialized() {
+		return unit != null;
+	}
+
+	@Override
+	public FullQualifiedName getFullQualifiedName() {
+		return fqn;
+	}
+	@Override
+	public Attributes getAttributes() {
+		return attributes;
+	}
+	@Override
+	public String getName() {
+		return attributes.getUnitName();
+	}
+	@Override
+	public UnitType getType() {
+		return materialize().getType();
+	}
+	@Override
+	public CharSequence getComment() {
+		return materialize().getComment();
+	}
+	@Override
+	public List<Parameter> getParameters() {
+		return materialize().getParameters();
+	}
+	@Override
+	public <R> R query(final Query<Unit, R> q) {
+		return q.queryFrom(this);
+	}
+	@Override
+	public List<Unit> getSubUnits() {
+		return materialize().getSubUnits();
+	}
+	@Override
+	public Unit getSubUnit(final String name) {
+		return materialize().getSubUnit(name);
+	}
+	@Override
+	public CharSequence serialize() {
+		return materialize().serialize();
+	}
+	@Override
+	public boolean contentEquals(final CharSequence other) {
+		return materialize().contentEquals(other);
+	}
+	@Override
+	public boolean contentEquals(final Component other) {
+		return materialize().contentEquals(other);
+	}
+}
@@ -0,0 +1,106 @@
+package org.unclazz.jp1ajs2.unitdef.parser;
+
+import java.io.File;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.unclazz.jp1ajs2.unitdef.Attributes;
+import org.unclazz.jp1ajs2.unitdef.Unit;
+
+/**
+ * ルート・ユニットの範囲だけを記録し、各ユニットのパースを必要とされる時点まで遅延させるパーサー.
+ * <p>入力データをすべて読み取った後、{@link UnitBoundaryScanner}によりルート・ユニットの境界を検出し、
+ * ルート・ユニットごとにユニット定義属性のみを読み取ったプロキシを作成して返す。
+ * プロキシの完全名・ユニット定義属性・ユニット名は直ちに参照できる。
+ * パラメータやサブユニットなどそれ以外の情報が最初に必要とされた時点で、
+ * そのルート・ユニットの範囲だけが{@link UnitParser}によりパースされる。
+ * 多数のルート・ユニットのうち一部のみを参照する用途では、入力データ全体をパースする場合と比べて読み取りの所要時間が大幅に短縮される。</p>
+ * <p>パース結果のプロキシが1つでも参照されている限り入力データ全体の文字配列が保持される。
+ * プロキシの遅延パース時に構文エラーが検出された場合、そのプロキシのメソッドは{@link IllegalArgumentException}をスローする。
+ * 境界の検出に失敗した場合は{@link UnitParser}と同様に逐次パース処理を行い、構文エラーの報告内容も{@link UnitParser}と同じになる。</p>
+ * <p>パース・オプションのうち{@link UnitParseOptions#setFullQualifiedNamePrefix(String)}と
+ * {@link UnitParseOptions#setUnitTypes(java.util.Set)}はルート・ユニットそのものを読み飛ばし得るため、このパーサーでは使用できない。
+ * それ以外のオプションは遅延パースの際に適用される。</p>
+ */
+public final class LazyUnitParser extends ParserSupport<List<Unit>> {
+	private final UnitParser parser;
+	private final UnitBoundaryScanner scanner;
+
+	public LazyUnitParser() {
+		this(UnitParser.OPTIONS);
+	}
+
+	/**
+	 * コンストラクタ.
+	 * @param options パース・オプション
+	 * @throws IllegalArgumentException 完全名の接頭辞もしくはユニット種別による絞り込みが指定されている場合
+	 */
+	public LazyUnitParser(final UnitParseOptions options) {
+		super(options);
+		if (options.getFullQualifiedNamePrefix() != null || options.getUnitTypes() != null) {
+			throw new IllegalArgumentException("Unit filtering options cannot be used with lazy parsing.");
+		}
+		parser = new UnitParser(options);
+		scanner = new UnitBoundaryScanner(options);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>{@link UnitParseOptions#isByteLevelScanning()}が{@code true}の場合、
+	 * ファイルの内容はデコードされずにバイト・シーケンスのまま読み取られる。</p>
+	 */
+	@Override
+	protected Input createInput(final File file, final Charset charset) throws InputExeption {
+		return parser.createInput(file, charset);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>{@link UnitParseOptions#isByteLevelScanning()}が{@code true}の場合、
+	 * ストリームの内容はデコードされずにバイト・シーケンスのまま読み取られる。</p>
+	 */
+	@Override
+	protected Input createInput(final InputStream stream, final Charset charset) throws InputExeption {
+		return parser.createInput(stream, charset);
+	}
+
+	@Override
+	public ParseResult<List<Unit>> parse(final Input input) {
+		final Input in;
+		try {
+			// プロキシが範囲を参照できるよう入力データ全体を文字配列に読み取る
+			in = input.toArrayBacked();
+		} catch (final InputExeption e) {
+			return ParseResult.failure(e);
+		}
+		final int lineNumberOffset = Math.max(in.lineNumber() - 1, 0);
+		final char[] cs = in.array();
+		final int start = in.arrayIndex();
+
+		// ルート・ユニットの境界を検出する
+		final List<UnitBoundaryScanner.Range> ranges = in.reachedEOF() ? null
+				: scanner.scan(cs, start, in.arrayEnd() - start);
+		if (ranges == null) {
+			// 検出に失敗した場合は逐次処理する
+			return parser.parse(in);
+		}
+
+		// ルート・ユニットごとにユニット定義属性のみを読み取ってプロキシを作成する
+		final List<Unit> result = new ArrayList<Unit>(ranges.size());
+		try {
+			for (final UnitBoundaryScanner.Range r : ranges) {
+				final int length = r.getEnd() - r.getStart();
+				final int lineNumber = lineNumberOffset + r.getLineNumber() - 1;
+				final Attributes attrs = parser.parseAttributes(in.region(r.getStart(), length, lineNumber));
+				result.add(new LazyUnit(parser, in, r.getStart(), length, lineNumber, attrs));
+			}
+		} catch (final ParseException e) {
+			return ParseResult.failure(e);
+		} catch (final InputExeption e) {
+			return ParseResult.failure(e);
+		}
+		return ParseResult.successful(result);
+	}
+}
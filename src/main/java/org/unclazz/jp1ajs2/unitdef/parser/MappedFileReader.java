@@ -0,0 +1,171 @@
+package org.unclazz.jp1ajs2.unitdef.parser;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+
+/**
+ * ファイルをメモリにマップしてブロック単位でデコードするリーダー.
+ * <p>ファイルの内容は{@link FileChannel#map(java.nio.channels.FileChannel.MapMode, long, long)}により
+ * 最大{@link #WINDOW_SIZE}バイト（既定値）ずつのウィンドウとしてマップされ、
+ * 呼び出し元が指定した文字配列に対して直接デコードされる。
+ * ウィンドウの境界をまたぐマルチバイト文字は次のウィンドウの先頭に含められる。</p>
+ * <p>{@link java.io.InputStreamReader}と同様に、不正なバイト・シーケンスは置換文字に置き換えられる。
+ * 呼び出し元が指定した文字配列の空きがサロゲート・ペアを書き込むのに足りない場合は、
+ * 内部のバッファにデコードした上でその一部を返し、残りは次回の呼び出しで返す。</p>
+ */
+final class MappedFileReader extends Reader {
+	/**
+	 * 一度にマップするバイト数の上限.
+	 */
+	static final long WINDOW_SIZE = 64L * 1024 * 1024;
+	
+	private final FileChannel channel;
+	private final CharsetDecoder decoder;
+	private final long size;
+	private final long windowSize;
+	private MappedByteBuffer window;
+	private long windowStart = 0;
+	private boolean flushed = false;
+	private char[] lastArray;
+	private CharBuffer lastBuffer;
+	/**
+	 * 呼び出し元の文字配列に収まらなかった文字を格納するバッファ.
+	 * 読み取りモードで保持され、残りの文字がない場合は{@code null}。
+	 */
+	private CharBuffer spare;
+	
+	/**
+	 * コンストラクタ.
+	 * @param f ファイル
+	 * @param charset キャラクターセット
+	 * @throws IOException ファイルのオープンもしくはマップに失敗した場合
+	 */
+	MappedFileReader(final File f, final Charset charset) throws IOException {
+		this(f, charset, WINDOW_SIZE);
+	}
+	
+	/**
+	 * コンストラクタ.
+	 * @param f ファイル
+	 * @param charset キャラクターセット
+	 * @param windowSize 一度にマップするバイト数の上限
+	 * @throws IOException ファイルのオープンもしくはマップに失敗した場合
+	 */
+	MappedFileReader(final File f, final Charset charset, final long windowSize) throws IOException {
+		this.windowSize = windowSize;
+		channel = new FileInputStream(f).getChannel();
+		decoder = charset.newDecoder()
+				.onMalformedInput(CodingErrorAction.REPLACE)
+				.onUnmappableCharacter(CodingErrorAction.REPLACE);
+		try {
+			size = channel.size();
+			map(0);
+		} catch (final IOException e) {
+			channel.close();
+			throw e;
+		}
+	}
+	
+	@Override
+	public int read(final char[] cbuf, final int off, final int len) throws IOException {
+		if (len == 0) {
+			return 0;
+		}
+		if (spare == null) {
+			final int n = decode(wrap(cbuf, off, len));
+			if (n > 0) {
+				return n;
+			}
+			if (flushed) {
+				// デコーダのフラッシュまで完了していればストリームの終了
+				return -1;
+			}
+			// 出力先が狭すぎて1文字も書き込めなかった（サロゲート・ペアなど）
+			final CharBuffer buff = CharBuffer.allocate(
+					Math.max(16, (int) Math.ceil(decoder.maxCharsPerByte())));
+			decode(buff);
+			buff.flip();
+			spare = buff;
+		}
+		final int n = Math.min(len, spare.remaining());
+		spare.get(cbuf, off, n);
+		if (!spare.hasRemaining()) {
+			spare = null;
+		}
+		return n;
+	}
+	
+	/**
+	 * 出力先に1文字以上書き込むか、出力先が一杯になるか、デコーダのフラッシュが完了するまでデコードする.
+	 * @param out 出力先
+	 * @return 書き込まれた文字数
+	 * @throws IOException デコードもしくはマップに失敗した場合
+	 */
+	private int decode(final CharBuffer out) throws IOException {
+		final int start = out.position();
+		while (out.position() == start && !flushed) {
+			final boolean last = windowStart + window.limit() == size;
+			final CoderResult r = decoder.decode(window, out, last);
+			if (r.isError()) {
+				r.throwException();
+			}
+			if (r.isOverflow()) {
+				// 出力先が一杯になった
+				break;
+			}
+			if (last) {
+				// ファイル末尾までデコードしたのでデコーダをフラッシュする
+				if (decoder.flush(out).isOverflow()) {
+					break;
+				}
+				flushed = true;
+			} else {
+				// 未デコードのバイトを先頭に含む次のウィンドウをマップする
+				map(windowStart + window.position());
+			}
+		}
+		return out.position() - start;
+	}
+
+	@Override
+	public void close() throws IOException {
+		flushed = true;
+		window = null;
+		lastArray = null;
+		lastBuffer = null;
+		spare = null;
+		channel.close();
+	}
+	
+	private void map(final long start) throws IOException {
+		windowStart = start;
+		window = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(windowSize, size - start));
+	}
+	
+	/**
+	 * 文字配列をラップした{@link CharBuffer}を返す.
+	 * 同じ文字配列が続けて指定された場合は前回のインスタンスを再利用する。
+	 * @param cbuf 文字配列
+	 * @param off オフセット
+	 * @param len 長さ
+	 * @return {@link CharBuffer}
+	 */
+	private CharBuffer wrap(final char[] cbuf, final int off, final int len) {
+		if (cbuf != lastArray) {
+			lastArray = cbuf;
+			lastBuffer = CharBuffer.wrap(cbuf);
+		}
+		lastBuffer.limit(off + len);
+		lastBuffer.position(off);
+		return lastBuffer;
+	}
+}
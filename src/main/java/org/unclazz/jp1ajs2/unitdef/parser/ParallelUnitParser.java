@@ -0,0 +1,151 @@
+package org.unclazz.jp1ajs2.unitdef.parser;
+
+import java.nio.CharBuffer;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.unclazz.jp1ajs2.unitdef.Unit;
+
+/**
+ * ルート・ユニットごとに並列でパース処理を行うパーサー.
+ * <p>入力データをすべて読み取った後、{@link UnitBoundaryScanner}によりルート・ユニットの境界を検出し、
+ * 連続するいくつかのルート・ユニットをまとめたチャンクごとに{@link UnitParser}によるパース処理を行う。
+ * 各チャンクのパース処理は{@link ExecutorService}に投入され並列に実行される。
+ * パース結果のリストにおけるユニットの順序は入力データ上の順序と同じである。</p>
+ * <p>境界の検出に失敗した場合や、ルート・ユニットが1つしかない場合は{@link UnitParser}と同様に逐次パース処理を行う。
+ * この場合、構文エラーの報告内容は{@link UnitParser}と同じになる。</p>
+ */
+public final class ParallelUnitParser extends ParserSupport<List<Unit>> {
+	/**
+	 * チャンクに含める文字数の下限の既定値.
+	 */
+	static final int DEFAULT_MIN_CHUNK_SIZE = 65536;
+
+	private final ExecutorService executor;
+	private final int parallelism;
+	private final int minChunkSize;
+	private final UnitBoundaryScanner scanner = new UnitBoundaryScanner(UnitParser.OPTIONS);
+
+	/**
+	 * コンストラクタ.
+	 * パース処理のたびにランタイムが利用可能なプロセッサ数と同じ数のスレッドを持つスレッドプールを生成し、
+	 * パース処理の完了後にシャットダウンする。
+	 */
+	public ParallelUnitParser() {
+		this(null, Runtime.getRuntime().availableProcessors(), DEFAULT_MIN_CHUNK_SIZE);
+	}
+
+	/**
+	 * コンストラクタ.
+	 * パース処理には引数で指定されたエグゼキューターを使用する。
+	 * エグゼキューターのシャットダウンは呼び出し元の責任で行うこと。
+	 * @param executor エグゼキューター
+	 * @throws NullPointerException 引数の値が{@code null}である場合
+	 */
+	public ParallelUnitParser(final ExecutorService executor) {
+		this(executor, Runtime.getRuntime().availableProcessors(), DEFAULT_MIN_CHUNK_SIZE);
+		if (executor == null) {
+			throw new NullPointerException();
+		}
+	}
+
+	ParallelUnitParser(final ExecutorService executor, final int parallelism, final int minChunkSize) {
+		super(UnitParser.OPTIONS);
+		this.executor = executor;
+		this.parallelism = parallelism;
+		this.minChunkSize = minChunkSize;
+	}
+
+	@Override
+	public ParseResult<List<Unit>> parse(final Input in) {
+		final int lineNumberOffset = Math.max(in.lineNumber() - 1, 0);
+		final CharBuffer text;
+		try {
+			text = in.readToEnd();
+		} catch (final InputExeption e) {
+			return ParseResult.failure(e);
+		}
+		final char[] cs = text.array();
+		final int length = text.limit();
+
+		// ルート・ユニットの境界を検出する
+		final List<UnitBoundaryScanner.Range> ranges = scanner.scan(cs, 0, length);
+		if (ranges == null || ranges.size() < 2) {
+			// 検出に失敗した場合やルート・ユニットが1つしかない場合は逐次処理する
+			return parseChunk(cs, 0, length, lineNumberOffset);
+		}
+
+		// ルート・ユニットをチャンクにまとめてエグゼキューターに投入する
+		final ExecutorService ex = executor == null
+				? Executors.newFixedThreadPool(parallelism) : executor;
+		try {
+			final int chunkSize = Math.max(minChunkSize, length / (parallelism * 4));
+			final List<Future<ParseResult<List<Unit>>>> futures =
+					new ArrayList<Future<ParseResult<List<Unit>>>>();
+			// 各チャンクは次のチャンクの開始位置までの（ルート・ユニットの後ろの空白文字やコメントを含む）範囲とする
+			int i = 0;
+			while (i < ranges.size()) {
+				final UnitBoundaryScanner.Range first = ranges.get(i);
+				UnitBoundaryScanner.Range last = first;
+				for (i ++; i < ranges.size(); i ++) {
+					if (last.getEnd() - first.getStart() >= chunkSize) {
+						break;
+					}
+					last = ranges.get(i);
+				}
+				final int start = first == ranges.get(0) ? 0 : first.getStart();
+				final int end = i < ranges.size() ? ranges.get(i).getStart() : length;
+				final int lineNumber = start == 0 ? lineNumberOffset
+						: lineNumberOffset + first.getLineNumber() - 1;
+				futures.add(ex.submit(new Callable<ParseResult<List<Unit>>>() {
+					@Override
+					public ParseResult<List<Unit>> call() {
+						return parseChunk(cs, start, end - start, lineNumber);
+					}
+				}));
+			}
+
+			// 入力データ上の順序でパース結果を連結する
+			final List<Unit> result = new LinkedList<Unit>();
+			for (final Future<ParseResult<List<Unit>>> f : futures) {
+				final ParseResult<List<Unit>> r = f.get();
+				if (!r.isSuccessful()) {
+					cancelAll(futures);
+					return r;
+				}
+				result.addAll(r.get());
+			}
+			return ParseResult.successful(result);
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return ParseResult.failure(e);
+		} catch (final ExecutionException e) {
+			return ParseResult.failure(e.getCause());
+		} finally {
+			if (executor == null) {
+				ex.shutdownNow();
+			}
+		}
+	}
+
+	private static ParseResult<List<Unit>> parseChunk(final char[] cs,
+			final int offset, final int length, final int lineNumberOffset) {
+		try {
+			return new UnitParser().parse(Input.fromCharArray(cs, offset, length, lineNumberOffset));
+		} catch (final InputExeption e) {
+			return ParseResult.failure(e);
+		}
+	}
+
+	private static void cancelAll(final List<? extends Future<?>> futures) {
+		for (final Future<?> f : futures) {
+			f.cancel(true);
+		}
+	}
+}
@@ -30,42 +30,67 @@ public final class ParseException extends Exception {
 		return new ParseException(String.format(A1_EXPECTED_BUT_A2_FOUND, arg1, arg2), in);
 	}
 
-	private final Input in;
+	/**
+	 * エラー発生時の行数.
+	 * 入力データが読み取りを継続した場合もメッセージの内容が変わらないよう、初期化の時点の値を保持する。
+	 */
+	private final int lineNumber;
+	private final int columnNumber;
 	private final String message;
 	private final Throwable cause;
 
 	public ParseException(final String message, final Input in, final Throwable cause) {
 		super(message, cause);
-		this.in = in;
+		this.lineNumber = in == null ? -1 : in.lineNumber();
+		this.columnNumber = in == null ? -1 : in.columnNumber();
 		this.message = message;
 		this.cause = cause;
 	}
 
 	public ParseException(final String message, final Input in) {
 		super(message);
-		this.in = in;
+		this.lineNumber = in == null ? -1 : in.lineNumber();
+		this.columnNumber = in == null ? -1 : in.columnNumber();
 		this.message = message;
 		this.cause = null;
 	}
 
 	public ParseException(final Throwable cause, final Input in) {
 		super(cause);
-		this.in = in;
+		this.lineNumber = in == null ? -1 : in.lineNumber();
+		this.columnNumber = in == null ? -1 : in.columnNumber();
 		this.message = null;
 		this.cause = cause;
 	}
 
 	public ParseException(final Throwable cause) {
 		super(cause);
-		this.in = null;
+		this.lineNumber = -1;
+		this.columnNumber = -1;
 		this.message = null;
 		this.cause = cause;
 	}
 
+	/**
+	 * エラーが発生した位置の行数を返す.
+	 * @return 行数、位置が不明な場合は{@code -1}
+	 */
+	public int getLineNumber() {
+		return lineNumber;
+	}
+
+	/**
+	 * エラーが発生した位置のカラム数を返す.
+	 * @return カラム数、位置が不明な場合は{@code -1}
+	 */
+	public int getColumnNumber() {
+		return columnNumber;
+	}
+
 	@Override
 	public String getMessage() {
 		return MESSAGE_HEADER + 
-				(in == null ? "" : String.format(LINE_A1_COLUMN_A2, in.lineNumber(), in.columnNumber())) +
+				(lineNumber == -1 ? "" : String.format(LINE_A1_COLUMN_A2, lineNumber, columnNumber)) +
 				(message == null ? "" : ' ' + message) +
 				(cause == null ? "" : NEW_LINE + cause.getMessage());
 	}
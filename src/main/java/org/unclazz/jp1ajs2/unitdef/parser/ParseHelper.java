@@ -7,15 +7,17 @@ import org.unclazz.jp1ajs2.unitdef.util.StringUtils;
 
 /**
  * 各種トークンを読み取るためのヘルパー・メソッドを提供するオブジェクト.
+ * <p>このオブジェクトは構築後に変更される状態を持たない。
+ * 文字列の読み取りに使用するバッファはメソッド呼び出しごとに用意されるため、
+ * 同じインスタンスを複数のスレッドから同時に使用することができる。</p>
  */
 public final class ParseHelper {
 	
-	private static final Pattern numberPattern = Pattern.compile("^[+|\\-]?(\\d*\\.\\d+|\\d+\\.?)((e|E)[+|\\-]?\\d+)?");
+	private static final Pattern numberPattern = Pattern.compile("^[+\\-]?(\\d*\\.\\d+|\\d+\\.?)((e|E)[+\\-]?\\d+)?");
 	private static final char SP = ' ';
 	private static final char CR = '\r';
 	private static final char LF = '\n';
 	
-	private final StringBuilder buff = StringUtils.builder();
 	private final String lineCommentStart;
 	private final String blockCommentStart;
 	private final String blockCommentEnd;
@@ -23,6 +25,8 @@ public final class ParseHelper {
 	private final char escapePrefixInSingleQuotes;
 	private final char escapePrefixInBackQuotes;
 	private final boolean skipCommentWithWhitespace;
+	private final StructureScanner.Syntax syntax;
+	private final StructureScanner.Syntax valueSyntax;
 	
 	public ParseHelper() {
 		this(new ParseOptions());
@@ -36,6 +40,29 @@ public final class ParseHelper {
 		escapePrefixInSingleQuotes = options.getEscapePrefixInSingleQuotes();
 		escapePrefixInBackQuotes = options.getEscapePrefixInBackQuotes();
 		skipCommentWithWhitespace = options.isSkipCommentWithWhitespace();
+		syntax = new StructureScanner.Syntax(options);
+		valueSyntax = syntax.withoutComments();
+	}
+	
+	/**
+	 * 現在位置から入力データを走査するスキャナーを返す.
+	 * コメントの認識と二重引用符のエスケープ文字はこのオブジェクトのパース・オプションにしたがう。
+	 * @param in 入力データ
+	 * @param boundary 現在位置をトークンの区切りの位置とみなす場合{@code true}
+	 * @return スキャナー
+	 */
+	StructureScanner.OfInput scanner(final Input in, final boolean boundary) {
+		return new StructureScanner.OfInput(syntax, in, boundary);
+	}
+	
+	/**
+	 * 現在位置からパラメータ値を走査するスキャナーを返す.
+	 * パラメータ値の中にコメントは現れないため、このスキャナーはコメントを認識しない。
+	 * @param in 入力データ
+	 * @return スキャナー
+	 */
+	StructureScanner.OfInput valueScanner(final Input in) {
+		return new StructureScanner.OfInput(valueSyntax, in, false);
 	}
 	
 	/**
@@ -53,8 +80,7 @@ public final class ParseHelper {
 					if (in.current() <= SP) {
 						in.next();
 					} else {
-						final String rest = in.restOfLine();
-						if (rest.startsWith(lineCommentStart)) {
+						if (in.restStartsWith(lineCommentStart)) {
 							next(in, lineCommentStart.length());
 							while (in.unlessEOF()) {
 								final char c0 = in.current();
@@ -70,7 +96,7 @@ public final class ParseHelper {
 									break;
 								}
 							}
-						} else if (rest.startsWith(blockCommentStart)) {
+						} else if (in.restStartsWith(blockCommentStart)) {
 							next(in, blockCommentStart.length());
 							while (in.unlessEOF()) {
 								if (in.restStartsWith(blockCommentEnd)) {
@@ -171,6 +197,21 @@ public final class ParseHelper {
 		}
 	}
 	
+	/**
+	 * 現在位置からコメントが始まるかどうかを判定する.
+	 * {@link ParseOptions#skipCommentWithWhitespace}が{@code false}の場合は常に{@code false}を返す。
+	 * @param in 入力データ
+	 * @return コメントが始まる場合は{@code true}
+	 * @throws InputExeption 入力データの読み取り中にエラーが発生した場合
+	 */
+	boolean restStartsWithComment(final Input in) throws InputExeption {
+		if (!skipCommentWithWhitespace) {
+			return false;
+		}
+		return (lineCommentStart.length() > 0 && in.restStartsWith(lineCommentStart))
+				|| (blockCommentStart.length() > 0 && in.restStartsWith(blockCommentStart));
+	}
+	
 	/**
 	 * コメントをスキップする.
 	 * スキップされた文字がない場合でもエラーとはしない。
@@ -179,8 +220,7 @@ public final class ParseHelper {
 	 */
 	public void skipComment(final Input in) throws ParseException {
 		try {
-			final String rest = in.restOfLine();
-			if (rest.startsWith(lineCommentStart)) {
+			if (in.restStartsWith(lineCommentStart)) {
 				next(in, lineCommentStart.length());
 				while (in.unlessEOF()) {
 					final char c0 = in.current();
@@ -196,7 +236,7 @@ public final class ParseHelper {
 						break;
 					}
 				}
-			} else if (rest.startsWith(blockCommentStart)) {
+			} else if (in.restStartsWith(blockCommentStart)) {
 				next(in, blockCommentStart.length());
 				while (in.unlessEOF()) {
 					if (in.restStartsWith(blockCommentEnd)) {
@@ -242,7 +282,7 @@ public final class ParseHelper {
 	 */
 	public String parseRawString(final Input in) throws ParseException {
 		try {
-			buff.setLength(0);
+			final StringBuilder buff = StringUtils.builder();
 			while (in.unlessEOF()) {
 				final char c1 = in.current();
 				if (c1 <= SP) {
@@ -285,7 +325,7 @@ public final class ParseHelper {
 	 */
 	public String parseUntil(final Input in, final char c0) throws ParseException {
 		try {
-			buff.setLength(0);
+			final StringBuilder buff = StringUtils.builder();
 			while (in.unlessEOF()) {
 				final char current = in.current();
 				if (c0 == current) {
@@ -310,7 +350,7 @@ public final class ParseHelper {
 	 */
 	public String parseUntil(final Input in, final char c0, final char c1) throws ParseException {
 		try {
-			buff.setLength(0);
+			final StringBuilder buff = StringUtils.builder();
 			while (in.unlessEOF()) {
 				final char current = in.current();
 				if (c0 == current || c1 == current) {
@@ -336,7 +376,7 @@ public final class ParseHelper {
 	 */
 	public String parseUntil(final Input in, final char c0, final char c1, final char c2) throws ParseException {
 		try {
-			buff.setLength(0);
+			final StringBuilder buff = StringUtils.builder();
 			while (in.unlessEOF()) {
 				final char current = in.current();
 				if (c0 == current || c1 == current || c2 == current) {
@@ -360,7 +400,7 @@ public final class ParseHelper {
 	 */
 	public String parseAbc(final Input in) throws ParseException {
 		try {
-			buff.setLength(0);
+			final StringBuilder buff = StringUtils.builder();
 			while (in.unlessEOF()) {
 				final char c = in.current();
 				if (('A' <= c && c <= 'Z') || ('a' <= c && c <= 'z')) {
@@ -386,7 +426,7 @@ public final class ParseHelper {
 	 */
 	public String parseAbc123(final Input in) throws ParseException {
 		try {
-			buff.setLength(0);
+			final StringBuilder buff = StringUtils.builder();
 			while (in.unlessEOF()) {
 				final char c = in.current();
 				if (('A' <= c && c <= 'Z') || ('a' <= c && c <= 'z') || ('0' <= c && c <= '9')) {
@@ -412,7 +452,7 @@ public final class ParseHelper {
 	 */
 	public String parseAbc123_$(final Input in) throws ParseException {
 		try {
-			buff.setLength(0);
+			final StringBuilder buff = StringUtils.builder();
 			while (in.unlessEOF()) {
 				final char c = in.current();
 				if (('A' <= c && c <= 'Z') || ('a' <= c && c <= 'z') || ('0' <= c && c <= '9') 
@@ -444,7 +484,7 @@ public final class ParseHelper {
 			
 			final char escape = c0 == '"' ? escapePrefixInDoubleQuotes
 					: c0 == '\'' ? escapePrefixInSingleQuotes : escapePrefixInBackQuotes;
-			buff.setLength(0);
+			final StringBuilder buff = StringUtils.builder();
 	
 			if (c0 == escape) {
 				while (in.unlessEOF()) {
@@ -476,6 +516,25 @@ public final class ParseHelper {
 		}
 	}
 	
+	/**
+	 * 引用符で囲われた文字列を読み飛ばす.
+	 * 引用符とエスケープ文字の扱いは{@link #parseQuotedString(Input)}と同じだが、
+	 * 読み取った文字列を保持することはない。
+	 * @param in 入力データ
+	 * @throws ParseException 文字列の読み飛ばし中にエラーが発生した場合
+	 */
+	public void skipQuotedString(final Input in) throws ParseException {
+		final char c0 = in.current();
+		if (c0 != '"' && c0 != '\'' && c0 != '`') {
+			throw new ParseException("No quoted string found.", in);
+		}
+		final char escape = c0 == '"' ? escapePrefixInDoubleQuotes
+				: c0 == '\'' ? escapePrefixInSingleQuotes : escapePrefixInBackQuotes;
+		if (valueScanner(in).skipQuotedString(escape) != 0) {
+			throw new ParseException("Unclosed quoted string.", in);
+		}
+	}
+	
 	/**
 	 * 現在位置の文字が期待通りの文字かチェックする.
 	 * @param in 入力データ
@@ -515,8 +574,7 @@ public final class ParseHelper {
 	 * @throws ParseException 期待通りでなかった場合
 	 */
 	public void checkWord(final Input in, final String expected) throws ParseException {
-		final String rest = in.restOfLine();
-		if (!rest.startsWith(expected)) {
+		if (!in.restStartsWith(expected)) {
 			throw ParseException.arg1NotFound(in, expected);
 		}
 	}
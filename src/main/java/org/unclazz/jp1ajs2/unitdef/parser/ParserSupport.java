@@ -1,8 +1,6 @@
 package org.unclazz.jp1ajs2.unitdef.parser;
 
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
 import java.io.InputStream;
 import java.io.Reader;
 import java.nio.charset.Charset;
@@ -57,7 +55,7 @@ public abstract class ParserSupport<T> implements Parser<T> {
 	 */
 	public final ParseResult<T> parse(final InputStream stream, final Charset charset) {
 		try {
-			return parse(Input.fromStream(stream, charset));
+			return parse(createInput(stream, charset));
 		} catch (InputExeption e) {
 			return ParseResult.failure(e);
 		}
@@ -85,18 +83,42 @@ public abstract class ParserSupport<T> implements Parser<T> {
 	}
 	/**
 	 * ファイルを対象にしてパース処理を行う.
+	 * ファイルは{@link Input#fromFile(File, Charset)}によりメモリにマップされて読み取られる。
 	 * @param file パース対象のファイル
 	 * @param charset キャラクタセット
 	 * @return パース結果
 	 */
 	public final ParseResult<T> parse(final File file, final Charset charset) {
 		try {
-			return parse(new FileInputStream(file), charset);
-		} catch (FileNotFoundException e) {
+			return parse(createInput(file, charset));
+		} catch (InputExeption e) {
 			return ParseResult.failure(e);
 		}
 	}
 	
+	/**
+	 * ファイルを読み取る{@link Input}オブジェクトを生成する.
+	 * 既定の実装は{@link Input#fromFile(File, Charset)}を使用する。
+	 * @param file パース対象のファイル
+	 * @param charset キャラクタセット
+	 * @return {@link Input}オブジェクト
+	 * @throws InputExeption 初期化中にエラーが発生した場合
+	 */
+	protected Input createInput(final File file, final Charset charset) throws InputExeption {
+		return Input.fromFile(file, charset);
+	}
+	/**
+	 * ストリームを読み取る{@link Input}オブジェクトを生成する.
+	 * 既定の実装は{@link Input#fromStream(InputStream, Charset)}を使用する。
+	 * @param stream パース対象のストリーム
+	 * @param charset キャラクタセット
+	 * @return {@link Input}オブジェクト
+	 * @throws InputExeption 初期化中にエラーが発生した場合
+	 */
+	protected Input createInput(final InputStream stream, final Charset charset) throws InputExeption {
+		return Input.fromStream(stream, charset);
+	}
+	
 	/**
 	 * {@link Input}オブジェクトを使用してパース処理を行う.
 	 * この抽象クラスを継承・拡張する具象クラスはこのメソッドを実装する必要がある。
@@ -0,0 +1,363 @@
+package org.unclazz.jp1ajs2.unitdef.parser;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.unclazz.jp1ajs2.unitdef.Unit;
+
+/**
+ * 分割して届く入力データを受け取りながらユニット定義を読み取るプッシュ型のパーサー.
+ * <p>入力データは{@link #feed(ByteBuffer)}もしくは{@link #feed(CharBuffer)}により任意の大きさのチャンクとして渡す。
+ * パーサーはチャンクの間で読み取りの途中状態を保持し、ルート・ユニットの終了を示す<code>'}'</code>が届いた時点で
+ * そのユニット定義を{@link UnitParser}によりパースして、{@code feed}の戻り値として返す。
+ * すべてのチャンクを渡し終えたら{@link #finish()}を呼び出して入力データが完結していることを確認する。</p>
+ * <p>{@code feed}の呼び出しがブロックすることはない。
+ * 非同期I/Oの完了ハンドラーやパイプの中継処理などから、データを受け取るたびに呼び出すことができる。</p>
+ * <p>ルート・ユニットの境界は{@link UnitBoundaryScanner}と同じく{@link StructureScanner}により、
+ * 波カッコの対応と二重引用符で囲われた文字列、そしてトークンの区切りの位置にあるコメントのみを認識して検出する。
+ * チャンクの境界で中断した走査は次のチャンクを受け取った時点で同じスキャナーにより再開する。
+ * ユニット定義の外側に空白文字とコメント以外の文字が見つかった場合や、ルート・ユニットのパースに失敗した場合、
+ * パーサーは失敗の状態となり、以降の{@code feed}と{@link #finish()}は同じエラーを格納した失敗結果を返す。
+ * ただし同じチャンクの中でエラーの位置より前に完結したルート・ユニットがある場合、
+ * その{@code feed}はそれらのルート・ユニットを返し、失敗結果は次の呼び出しで返す。
+ * 構文エラーの報告内容は{@link UnitParser}と同じになる。</p>
+ * <p>このオブジェクトは読み取りの途中状態を保持するため、複数のスレッドから同時に使用することはできない。
+ * 異なるスレッドから順番に使用する場合は呼び出し元で同期を行うこと。</p>
+ */
+public final class PushUnitParser {
+	private static final int INITIAL_BUFFER_SIZE = 8192;
+
+	private final UnitParser parser;
+	private final boolean copyUnitText;
+	private final CharsetDecoder decoder;
+	private final StructureScanner.OfArray scanner;
+
+	/**
+	 * 未処理のバイト（マルチバイト文字の途中までのバイト）を格納するバッファ.
+	 */
+	private final ByteBuffer pendingBytes = ByteBuffer.allocate(16);
+	/**
+	 * 受け取った文字のうちルート・ユニットの境界の走査が完了していない部分を格納するバッファ.
+	 */
+	private char[] buff = new char[INITIAL_BUFFER_SIZE];
+	private int length = 0;
+	private int position = 0;
+	/**
+	 * バッファから取り除かれた文字の数.
+	 */
+	private long discarded = 0;
+	private int start = -1;
+	private int startLineNumber = 0;
+	/**
+	 * バッファ上の位置{@link #counted}の行数.
+	 */
+	private int lineNumber = 1;
+	/**
+	 * 行数を数え終えたバッファ上の位置.
+	 */
+	private int counted = 0;
+	private boolean afterCR = false;
+	private int rangeCount = 0;
+	private boolean finished = false;
+	private ParseResult<List<Unit>> failure = null;
+
+	/**
+	 * コンストラクタ.
+	 * {@link #feed(ByteBuffer)}で受け取ったバイトのデコードにはランタイムのデフォルトのキャラクターセットを使用する。
+	 */
+	public PushUnitParser() {
+		this(Charset.defaultCharset());
+	}
+
+	/**
+	 * コンストラクタ.
+	 * @param charset {@link #feed(ByteBuffer)}で受け取ったバイトのデコードに使用するキャラクターセット
+	 */
+	public PushUnitParser(final Charset charset) {
+		this(charset, UnitParser.OPTIONS);
+	}
+
+	/**
+	 * コンストラクタ.
+	 * パース・オプションのうち{@link UnitParseOptions#isByteLevelScanning()}は無視される。
+	 * @param charset {@link #feed(ByteBuffer)}で受け取ったバイトのデコードに使用するキャラクターセット
+	 * @param options パース・オプション
+	 */
+	public PushUnitParser(final Charset charset, final UnitParseOptions options) {
+		parser = new UnitParser(options);
+		// パース結果が入力データの文字配列を参照する場合はバッファの再利用に備えてユニット定義をコピーする
+		copyUnitText = options.isZeroCopyValues();
+		decoder = charset.newDecoder()
+				.onMalformedInput(CodingErrorAction.REPLACE)
+				.onUnmappableCharacter(CodingErrorAction.REPLACE);
+		scanner = new StructureScanner.OfArray(new StructureScanner.Syntax(options));
+	}
+
+	/**
+	 * バイトのチャンクを受け取る.
+	 * <p>チャンクの内容はすべて読み取られ、バッファの読み取り位置はリミットまで前進する。
+	 * チャンクの末尾にあるマルチバイト文字の途中までのバイトはパーサーの内部に保持され、
+	 * 次のチャンクの先頭のバイトと連結してデコードされる。
+	 * そのため呼び出し元は戻り値を受け取った後ただちにバッファを再利用してよい。</p>
+	 * @param chunk チャンク
+	 * @return このチャンクによって完結したルート・ユニットのリスト、もしくは失敗結果
+	 * @throws IllegalStateException {@link #finish()}の呼び出し後に呼び出された場合
+	 */
+	public ParseResult<List<Unit>> feed(final ByteBuffer chunk) {
+		checkNotFinished();
+		if (failure != null) {
+			return failure;
+		}
+		// 前回のチャンクの末尾に残ったバイトを1文字分デコードできるまで補う
+		while (pendingBytes.position() > 0 && chunk.hasRemaining()) {
+			pendingBytes.put(chunk.get());
+			pendingBytes.flip();
+			decode(pendingBytes, false);
+			pendingBytes.compact();
+		}
+		decode(chunk, false);
+		while (chunk.hasRemaining()) {
+			pendingBytes.put(chunk.get());
+		}
+		return scan(false);
+	}
+
+	/**
+	 * 文字のチャンクを受け取る.
+	 * チャンクの内容はすべて読み取られ、バッファの読み取り位置はリミットまで前進する。
+	 * @param chunk チャンク
+	 * @return このチャンクによって完結したルート・ユニットのリスト、もしくは失敗結果
+	 * @throws IllegalStateException {@link #finish()}の呼び出し後に呼び出された場合
+	 */
+	public ParseResult<List<Unit>> feed(final CharBuffer chunk) {
+		checkNotFinished();
+		if (failure != null) {
+			return failure;
+		}
+		final int len = chunk.remaining();
+		ensureCapacity(len);
+		chunk.get(buff, length, len);
+		length += len;
+		return scan(false);
+	}
+
+	/**
+	 * 入力データの終わりを通知する.
+	 * <p>受け取り済みのデータの末尾にあるルート・ユニットが完結している場合はそれを返す。
+	 * ルート・ユニットの定義が途中で終わっている場合や、
+	 * 入力データ全体を通じてユニット定義が1つも見つからなかった場合は失敗結果を返す。</p>
+	 * <p>このメソッドを呼び出した後このオブジェクトを再び使用することはできない。</p>
+	 * @return 最後のルート・ユニットのリスト、もしくは失敗結果
+	 * @throws IllegalStateException すでに呼び出されている場合
+	 */
+	public ParseResult<List<Unit>> finish() {
+		checkNotFinished();
+		finished = true;
+		if (failure != null) {
+			return failure;
+		}
+		pendingBytes.flip();
+		decode(pendingBytes, true);
+		flush();
+		final ParseResult<List<Unit>> r = scan(true);
+		if (failure != null) {
+			// 入力データの終わりでは完結したルート・ユニットよりもエラーの報告を優先する
+			return failure;
+		}
+		if (start != -1 || scanner.inQuotedString() || scanner.inBlockComment()) {
+			return fail(start == -1 ? position : start);
+		}
+		if (rangeCount == 0) {
+			// ユニット定義が見つからなかった場合の扱いはUnitParserにしたがう
+			return parse(position, length);
+		}
+		return r;
+	}
+
+	private void checkNotFinished() {
+		if (finished) {
+			throw new IllegalStateException("Parser already finished.");
+		}
+	}
+
+	private void decode(final ByteBuffer bytes, final boolean endOfInput) {
+		while (true) {
+			ensureCapacity((int) (bytes.remaining() * decoder.maxCharsPerByte()) + 1);
+			final CharBuffer out = CharBuffer.wrap(buff, length, buff.length - length);
+			final CoderResult r = decoder.decode(bytes, out, endOfInput);
+			length = out.position();
+			if (!r.isOverflow()) {
+				return;
+			}
+		}
+	}
+
+	private void flush() {
+		while (true) {
+			ensureCapacity(16);
+			final CharBuffer out = CharBuffer.wrap(buff, length, buff.length - length);
+			final CoderResult r = decoder.flush(out);
+			length = out.position();
+			if (!r.isOverflow()) {
+				return;
+			}
+		}
+	}
+
+	private void ensureCapacity(final int n) {
+		if (length + n > buff.length) {
+			final char[] newBuff = new char[Math.max(buff.length * 2, length + n)];
+			System.arraycopy(buff, 0, newBuff, 0, length);
+			buff = newBuff;
+		}
+	}
+
+	/**
+	 * 受け取り済みの文字を走査してルート・ユニットの境界を検出し、完結したルート・ユニットをパースして返す.
+	 * @param endOfInput 入力データの終わりに達している場合{@code true}
+	 * @return パース結果
+	 */
+	private ParseResult<List<Unit>> scan(final boolean endOfInput) {
+		List<Unit> units = Collections.emptyList();
+		scanner.reset(buff, position, length, endOfInput);
+		while (true) {
+			final int c = scanner.peek();
+			position = scanner.position();
+			if (c < 0) {
+				// 入力データの終わり、もしくはコメントの開始文字列などの判定に次のチャンクが必要
+				break;
+			}
+			if (c == '"' || c == '{' || c == ';') {
+				if (start == -1) {
+					return failAfter(units, fail(position));
+				}
+			} else if (c == '}') {
+				if (scanner.depth() == 0) {
+					return failAfter(units, fail(position));
+				}
+			} else if (start == -1) {
+				if (!scanner.isBoundary()) {
+					return failAfter(units, fail(position));
+				}
+				start = position;
+				countLines(start);
+				startLineNumber = lineNumber;
+			}
+			scanner.consume();
+			if (c == '}' && scanner.depth() == 0) {
+				final ParseResult<List<Unit>> r = parse(start, position + 1);
+				if (!r.isSuccessful()) {
+					return failAfter(units, r);
+				}
+				if (units.isEmpty()) {
+					units = new ArrayList<Unit>();
+				}
+				units.addAll(r.get());
+				rangeCount ++;
+				start = -1;
+			}
+		}
+		compact();
+		return ParseResult.successful(units);
+	}
+
+	/**
+	 * バッファ上の指定された位置まで行数を数える.
+	 * 行の区切りは{@link Input}と同じく{@code "\r\n"}、{@code '\r'}、{@code '\n'}のいずれかである。
+	 * @param upTo 位置
+	 */
+	private void countLines(final int upTo) {
+		for (; counted < upTo; counted ++) {
+			final char c = buff[counted];
+			if (c == '\r' || (c == '\n' && !afterCR)) {
+				lineNumber ++;
+			}
+			afterCR = c == '\r';
+		}
+	}
+
+	/**
+	 * 走査が完了した文字をバッファから取り除く.
+	 * パース中のルート・ユニットがある場合はその開始位置以降の文字を保持する。
+	 */
+	private void compact() {
+		final int keepFrom = start == -1 ? position : start;
+		if (keepFrom == 0) {
+			return;
+		}
+		countLines(keepFrom);
+		System.arraycopy(buff, keepFrom, buff, 0, length - keepFrom);
+		discarded += keepFrom;
+		length -= keepFrom;
+		position -= keepFrom;
+		counted -= keepFrom;
+		if (start != -1) {
+			start -= keepFrom;
+		}
+	}
+
+	/**
+	 * バッファ上の指定された範囲を{@link UnitParser}によりパースする.
+	 * @param from 開始位置
+	 * @param to 終了位置
+	 * @return パース結果
+	 */
+	private ParseResult<List<Unit>> parse(final int from, final int to) {
+		if (from != start) {
+			countLines(from);
+		}
+		final int lineNumberOffset = (from == start ? startLineNumber : lineNumber) - 1;
+		final Input in;
+		try {
+			if (copyUnitText) {
+				final char[] cs = new char[to - from];
+				System.arraycopy(buff, from, cs, 0, cs.length);
+				in = Input.fromCharArray(cs, 0, cs.length, lineNumberOffset, discarded + from);
+			} else {
+				in = Input.fromCharArray(buff, from, to - from, lineNumberOffset, discarded);
+			}
+		} catch (final InputExeption e) {
+			return failure(e);
+		}
+		final ParseResult<List<Unit>> r = parser.parse(in);
+		if (!r.isSuccessful()) {
+			failure = r;
+		}
+		return r;
+	}
+
+	/**
+	 * 指定された位置以降の受け取り済みの文字を{@link UnitParser}によりパースして失敗結果を返す.
+	 * {@link UnitParser}によるパースが成功した場合は構文エラーとする。
+	 * @param from 開始位置
+	 * @return 失敗結果
+	 */
+	private ParseResult<List<Unit>> fail(final int from) {
+		final ParseResult<List<Unit>> r = parse(from, length);
+		return r.isSuccessful() ? failure(new ParseException("Syntax error has occurred.", null)) : r;
+	}
+
+	/**
+	 * 走査中に失敗した場合の戻り値を決定する.
+	 * 失敗より前に完結したルート・ユニットがある場合はそれらを返す。
+	 * 失敗結果はすでにパーサーの状態として保持されているため、次の呼び出しで返される。
+	 * @param units 失敗より前に完結したルート・ユニットのリスト
+	 * @param r 失敗結果
+	 * @return パース結果
+	 */
+	private ParseResult<List<Unit>> failAfter(final List<Unit> units, final ParseResult<List<Unit>> r) {
+		return units.isEmpty() ? r : ParseResult.successful(units);
+	}
+
+	private ParseResult<List<Unit>> failure(final Throwable error) {
+		failure = ParseResult.failure(error);
+		return failure;
+	}
+}
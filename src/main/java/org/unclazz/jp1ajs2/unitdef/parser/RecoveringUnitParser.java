@@ -0,0 +1,310 @@
+package org.unclazz.jp1ajs2.unitdef.parser;
+
+import java.io.File;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+
+import org.unclazz.jp1ajs2.unitdef.Attributes;
+import org.unclazz.jp1ajs2.unitdef.FullQualifiedName;
+import org.unclazz.jp1ajs2.unitdef.Parameter;
+import org.unclazz.jp1ajs2.unitdef.Unit;
+import org.unclazz.jp1ajs2.unitdef.builder.Builders;
+
+/**
+ * 構文エラーから回復しながら入力データ全体を読み取り、すべての構文エラーを報告するパーサー.
+ * <p>{@link UnitParser}は最初の構文エラーで読み取りを終えるが、このパーサーは構文エラーを記録した上で
+ * 同じ深さにある次の{@code ';'}もしくは<code>'}'</code>まで読み飛ばして読み取りを再開する。
+ * パラメータの構文エラーであればそのパラメータのみが、ユニット定義属性の構文エラーであればそのユニット定義が読み飛ばされる。
+ * これにより入力データを1度読み取るだけでその中のすべての構文エラーを検出できる。</p>
+ * <p>パース結果の{@link UnitParseReport}には、配下のユニットを含めて構文エラーが検出されなかったルート・ユニットと、
+ * 検出されたすべての構文エラーが格納される。構文エラーの有無にかかわらずパース結果は成功となり、
+ * 入力データの読み取り中にI/Oエラーが発生した場合のみ失敗となる。</p>
+ * <p>読み飛ばしの際に認識されるのは波カッコの対応と二重引用符で囲われた文字列、トークンの区切りにあるコメントのみであるため、
+ * 閉じられていない引用符などにより1つの構文エラーが後続の構文エラーを誘発することがある。</p>
+ * <p>パラメータの先頭まで読み取り位置を戻せるよう、パラメータを読み取る間はその先頭以降の内容のみを保持する。
+ * 入力データ全体をメモリに読み取ることはないため、巨大なファイルやストリームも{@link UnitParser}と同程度のメモリで読み取れる。</p>
+ */
+public final class RecoveringUnitParser extends ParserSupport<UnitParseReport> {
+	private final UnitParser parser;
+
+	/**
+	 * コンストラクタ.
+	 * パース・オプションはデフォルトのものを使用する。
+	 */
+	public RecoveringUnitParser() {
+		this(UnitParser.OPTIONS);
+	}
+
+	/**
+	 * コンストラクタ.
+	 * @param options パース・オプション
+	 */
+	public RecoveringUnitParser(final UnitParseOptions options) {
+		super(options);
+		parser = new UnitParser(options);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>{@link UnitParseOptions#isByteLevelScanning()}が{@code true}の場合、
+	 * ファイルの内容はデコードされずにバイト・シーケンスのまま読み取られる。</p>
+	 */
+	@Override
+	protected Input createInput(final File file, final Charset charset) throws InputExeption {
+		return parser.createInput(file, charset);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>{@link UnitParseOptions#isByteLevelScanning()}が{@code true}の場合、
+	 * ストリームの内容はデコードされずにバイト・シーケンスのまま読み取られる。</p>
+	 */
+	@Override
+	protected Input createInput(final InputStream stream, final Charset charset) throws InputExeption {
+		return parser.createInput(stream, charset);
+	}
+
+	@Override
+	public ParseResult<UnitParseReport> parse(final Input in) {
+		try {
+			return ParseResult.successful(parseRecovering(in));
+		} catch (final ParseException e) {
+			return ParseResult.failure(e);
+		}
+	}
+
+	/**
+	 * 構文エラーから回復しながらユニット定義を読み取る.
+	 * <p>構文エラーが検出されるとそのエラーをリストに追加した上で、
+	 * 同じ深さにある次の{@code ';'}もしくは<code>'}'</code>まで読み飛ばして読み取りを再開する。
+	 * パラメータの読み取り中に検出されたエラーの場合はパラメータの先頭に戻ってから読み飛ばす。
+	 * エラーが検出されたユニットやその祖先のユニットはパース結果に含まれない。</p>
+	 * <p>パラメータの先頭に戻れるよう、パラメータを読み取る間は{@link Input#mark()}によりその先頭以降の内容を保持する。
+	 * 入力データ全体を文字配列に読み取ることはないため、ストリームから読み取る場合もメモリ使用量は{@link UnitParser#parse(Input)}と変わらない。</p>
+	 * @param in 入力データ
+	 * @return エラーなく読み取られたルート・ユニットと検出されたすべてのエラー
+	 * @throws ParseException 入力データの読み取り中にI/Oエラーが発生した場合
+	 */
+	private UnitParseReport parseRecovering(final Input in) throws ParseException {
+		final List<Unit> units = new LinkedList<Unit>();
+		final List<ParseException> errors = new ArrayList<ParseException>();
+		helper.skipWhitespace(in);
+		while (in.unlessEOF()) {
+			if (in.restStartsWith("unit")) {
+				final int errorCount = errors.size();
+				final Unit unit = parseUnitRecovering(in, null, errors);
+				// 配下にエラーが検出されたルート・ユニットは結果に含めない
+				if (unit != null && errors.size() == errorCount) {
+					units.add(unit);
+				}
+			} else {
+				errors.add(ParseException.arg1NotFound(in, "unit"));
+				if (resync(in) == '}') {
+					// 対応する'{'のない'}'を読み飛ばす
+					next(in);
+				}
+			}
+			helper.skipWhitespace(in);
+		}
+		if (units.isEmpty() && errors.isEmpty() && !parser.filtersUnits()) {
+			errors.add(new ParseException("Unit definition is not found.", in));
+		}
+		return new UnitParseReport(units, errors);
+	}
+	
+	/**
+	 * 構文エラーから回復しながらユニット定義を読み取る.
+	 * 検出された構文エラーはリストに追加され、このメソッドからはスローされない。
+	 * 読み取り完了後の現在位置はユニット定義を終える<code>'}'</code>の直後、
+	 * もしくは読み取りを再開できる位置となる。
+	 * @param in 入力データ
+	 * @param parent 上位ユニットの完全名
+	 * @param errors 構文エラーを追加するリスト
+	 * @return ユニット、構文エラーによりユニットを構築できなかった場合や読み取り対象外のユニットである場合は{@code null}
+	 * @throws ParseException 入力データの読み取り中にI/Oエラーが発生した場合
+	 */
+	private Unit parseUnitRecovering(final Input in, final FullQualifiedName parent,
+			final List<ParseException> errors) throws ParseException {
+		final long startOffset = in.offset();
+		final int startLineNumber = in.lineNumber();
+		
+		// ユニット定義属性と開始カッコを読み取る
+		final Attributes attrs;
+		final FullQualifiedName fqn;
+		try {
+			attrs = parser.parseAttributes(in);
+			fqn = (parent == null) 
+					? Builders.fullQualifiedName().addFragment(attrs.getUnitName()).build()
+					: parent.getSubUnitName(attrs.getUnitName());
+			in.next();
+			helper.skipWhitespace(in);
+			helper.check(in, '{');
+			in.next();
+		} catch (final ParseException e) {
+			errors.add(e);
+			skipBrokenUnit(in);
+			return null;
+		} catch (final InputExeption e) {
+			throw new ParseException(e, in);
+		} catch (final RuntimeException e) {
+			// ユニット名が空である場合など
+			errors.add(new ParseException(e, in));
+			skipBrokenUnit(in);
+			return null;
+		}
+		
+		// 読み取り対象外のユニットであれば読み飛ばす
+		if (!parser.isTargetUnit(fqn)) {
+			skipUnitBodyRecovering(in, errors);
+			return null;
+		}
+		
+		// パラメータを読み取る
+		final List<Parameter> params = new ArrayList<Parameter>();
+		final SourceMap.ParameterRanges paramRanges = parser.newParameterRanges();
+		helper.skipWhitespace(in);
+		while (in.unlessEOF() && in.current() != '}' && !in.restStartsWith("unit")) {
+			final long paramStartOffset = in.offset();
+			final int paramStartLineNumber = in.lineNumber();
+			final Input.Mark paramStart = in.mark();
+			try {
+				final Parameter p = parser.parseParam(in);
+				helper.check(in, ';');
+				if (p != null) {
+					params.add(p);
+					if (paramRanges != null) {
+						paramRanges.add(paramStartOffset, in.offset() + 1, paramStartLineNumber, in.lineNumber());
+					}
+				}
+				in.next();
+				if (p != null && !parser.isTargetUnitType(p)) {
+					skipUnitBodyRecovering(in, errors);
+					return null;
+				}
+			} catch (final ParseException e) {
+				errors.add(e);
+				// タプルの読み取りなどで';'より後ろまで読み進めている可能性があるためパラメータの先頭から読み飛ばす
+				in.reset(paramStart);
+				resync(in);
+			} catch (final InputExeption e) {
+				throw new ParseException(e, in);
+			} finally {
+				in.unmark();
+			}
+			helper.skipWhitespace(in);
+		}
+		
+		// サブユニットを読み取る
+		final List<Unit> subUnits = new ArrayList<Unit>();
+		while (in.unlessEOF() && in.current() != '}') {
+			if (in.restStartsWith("unit")) {
+				final Unit subUnit = parseUnitRecovering(in, fqn, errors);
+				if (subUnit != null) {
+					subUnits.add(subUnit);
+				}
+			} else {
+				errors.add(ParseException.arg1ExpectedButFoundArg2(in, '}', in.current()));
+				resync(in);
+			}
+			helper.skipWhitespace(in);
+		}
+		if (in.reachedEOF()) {
+			errors.add(ParseException.arg1NotFound(in, "}"));
+			return null;
+		}
+		
+		// ユニットを構築する
+		Unit unit = null;
+		try {
+			unit = Builders
+					.unit()
+					.setFullQualifiedName(fqn)
+					.setAttributes(attrs)
+					.addParameters(params)
+					.addSubUnits(subUnits)
+					.build();
+			parser.recordRange(in, fqn, startOffset, startLineNumber, paramRanges);
+		} catch (final IllegalArgumentException e) {
+			// tyパラメータが存在しない場合など
+			errors.add(new ParseException(e.getMessage(), in));
+		}
+		next(in);
+		return unit;
+	}
+	
+	/**
+	 * 構文エラーの発生後、読み取りを再開できる位置まで読み飛ばす.
+	 * 現在位置から波カッコの対応と二重引用符で囲われた文字列を認識しながら読み進め、
+	 * 現在位置と同じ深さにある{@code ';'}の直後、現在位置と同じ深さで始まる波カッコのブロックの直後、
+	 * もしくは現在位置と同じ深さにある<code>'}'</code>の上（上位のユニット定義を終えるもの）で停止する。
+	 * 走査には{@link StructureScanner}を使用するため、コメントはトークンの区切りの位置でのみ認識する。
+	 * @param in 入力データ
+	 * @return 停止した理由をあらわす文字（{@code ';'}、<code>'{'</code>、<code>'}'</code>）、EOFに到達した場合は{@code '\u0000'}
+	 * @throws ParseException 入力データの読み取り中にI/Oエラーが発生した場合
+	 */
+	private char resync(final Input in) throws ParseException {
+		// 構文エラーはトークンの途中で発生するため区切りの位置にはいないものとみなす
+		final StructureScanner.OfInput s = helper.scanner(in, false);
+		while (true) {
+			final int c = s.peek();
+			if (c == StructureScanner.EOF) {
+				// 閉じられていない引用符やコメントはEOFまで続くものとみなす
+				return '\u0000';
+			}
+			if (c == '}' && s.depth() == 0) {
+				return '}';
+			}
+			s.consume();
+			if (s.depth() == 0) {
+				if (c == '}') {
+					return '{';
+				} else if (c == ';') {
+					return ';';
+				}
+			}
+		}
+	}
+	
+	/**
+	 * ユニット定義属性もしくは開始カッコの読み取りに失敗したユニット定義を読み飛ばす.
+	 * @param in 入力データ
+	 * @throws ParseException 入力データの読み取り中にI/Oエラーが発生した場合
+	 */
+	private void skipBrokenUnit(final Input in) throws ParseException {
+		while (resync(in) == ';') {
+			// ユニット定義属性が終わったらユニット定義パラメータのブロックを読み飛ばす
+			helper.skipWhitespace(in);
+			if (in.current() != '{') {
+				return;
+			}
+		}
+	}
+	
+	/**
+	 * 構文エラーを記録しながら{@link UnitParser#skipUnitBody(ParseHelper, Input)}を行う.
+	 * @param in 入力データ
+	 * @param errors 構文エラーを追加するリスト
+	 * @throws ParseException 入力データの読み取り中にI/Oエラーが発生した場合
+	 */
+	private void skipUnitBodyRecovering(final Input in, final List<ParseException> errors) throws ParseException {
+		try {
+			UnitParser.skipUnitBody(helper, in);
+		} catch (final ParseException e) {
+			if (!in.reachedEOF()) {
+				throw e;
+			}
+			errors.add(e);
+		}
+	}
+	
+	private static void next(final Input in) throws ParseException {
+		try {
+			in.next();
+		} catch (final InputExeption e) {
+			throw new ParseException(e, in);
+		}
+	}
+}
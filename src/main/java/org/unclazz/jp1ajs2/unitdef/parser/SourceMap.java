@@ -0,0 +1,215 @@
+package org.unclazz.jp1ajs2.unitdef.parser;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.unclazz.jp1ajs2.unitdef.FullQualifiedName;
+
+/**
+ * パースしたユニット定義とパラメータが入力データ上で占める範囲をユニットの完全名をキーとして保持する索引.
+ * <p>{@link UnitParseOptions#setSourceMap(SourceMap)}で指定されたこのオブジェクトに対して、
+ * パーサーは読み取ったユニットごとにユニット定義の範囲とパラメータの範囲を記録する。
+ * 記録された範囲を使用することで、入力データ全体を再度パースすることなく
+ * 特定のユニット定義の位置を示したり、その部分だけを読み直したりすることができる。</p>
+ * <p>範囲の開始位置と終了位置は入力データの先頭からの文字単位の位置である。
+ * ただし{@link UnitParseOptions#setByteLevelScanning(boolean)}によりバイト・シーケンスのまま読み取った場合はバイト単位の位置となり、
+ * ファイル上の位置としてそのまま使用できる。
+ * 圧縮されたファイルを読み取った場合は展開後のデータ上の位置となる。</p>
+ * <p>このオブジェクトはスレッドセーフであり、複数のパーサーで共有することができる。
+ * 同じ完全名のユニットが複数回記録された場合は後に記録されたものが保持される。
+ * そのため複数の入力データを扱う場合は入力データごとにこのオブジェクトを用意することが望ましい。</p>
+ */
+public final class SourceMap {
+	/**
+	 * ユニットごとの記録.
+	 */
+	private static final class Entry {
+		private final SourceRange range;
+		private final ParameterRanges parameters;
+		private Entry(final SourceRange range, final ParameterRanges parameters) {
+			this.range = range;
+			this.parameters = parameters;
+		}
+	}
+
+	/**
+	 * ユニットに属するパラメータの範囲を記録するための可変長の配列.
+	 * パラメータごとに{@link SourceRange}を生成しないよう、範囲の値をプリミティブ型の配列に格納する。
+	 */
+	static final class ParameterRanges {
+		private long[] offsets = new long[16];
+		private int[] lineNumbers = new int[16];
+		private int size = 0;
+
+		/**
+		 * パラメータの範囲を追加する.
+		 * @param startOffset 開始位置
+		 * @param endOffset 終了位置
+		 * @param startLineNumber 開始位置の行数
+		 * @param endLineNumber 終了位置の行数
+		 */
+		void add(final long startOffset, final long endOffset,
+				final int startLineNumber, final int endLineNumber) {
+			final int i = size * 2;
+			if (i == offsets.length) {
+				final long[] newOffsets = new long[offsets.length * 2];
+				System.arraycopy(offsets, 0, newOffsets, 0, i);
+				offsets = newOffsets;
+				final int[] newLineNumbers = new int[lineNumbers.length * 2];
+				System.arraycopy(lineNumbers, 0, newLineNumbers, 0, i);
+				lineNumbers = newLineNumbers;
+			}
+			offsets[i] = startOffset;
+			offsets[i + 1] = endOffset;
+			lineNumbers[i] = startLineNumber;
+			lineNumbers[i + 1] = endLineNumber;
+			size ++;
+		}
+		private SourceRange get(final int index) {
+			final int i = index * 2;
+			return new SourceRange(offsets[i], offsets[i + 1], lineNumbers[i], lineNumbers[i + 1]);
+		}
+		/**
+		 * すべての範囲を指定された値だけ移動した新しいインスタンスを返す.
+		 * @param delta 位置に加算する値
+		 * @param lineDelta 行数に加算する値
+		 * @return 新しいインスタンス
+		 */
+		private ParameterRanges shift(final long delta, final int lineDelta) {
+			final ParameterRanges result = new ParameterRanges();
+			result.offsets = new long[offsets.length];
+			result.lineNumbers = new int[lineNumbers.length];
+			result.size = size;
+			for (int i = 0; i < size * 2; i ++) {
+				result.offsets[i] = offsets[i] + delta;
+				result.lineNumbers[i] = lineNumbers[i] + lineDelta;
+			}
+			return result;
+		}
+	}
+
+	private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<String, Entry>();
+
+	/**
+	 * ユニット定義の範囲とパラメータの範囲を記録する.
+	 * @param fqn ユニットの完全名
+	 * @param range ユニット定義の範囲
+	 * @param parameters パラメータの範囲
+	 */
+	void put(final FullQualifiedName fqn, final SourceRange range, final ParameterRanges parameters) {
+		entries.put(fqn.toString(), new Entry(range, parameters));
+	}
+
+	/**
+	 * 指定されたユニットとその配下のユニットの記録を削除する.
+	 * @param fqn ユニットの完全名
+	 */
+	void removeSubtree(final String fqn) {
+		final String prefix = fqn + "/";
+		for (final String key : entries.keySet()) {
+			if (key.equals(fqn) || key.startsWith(prefix)) {
+				entries.remove(key);
+			}
+		}
+	}
+
+	/**
+	 * 入力データの一部が編集されたことにともない、指定されたユニットとその配下のユニット以外の記録の範囲を移動する.
+	 * 編集箇所より後ろで始まる範囲は開始位置と終了位置の両方を、
+	 * 編集箇所を含む範囲（祖先にあたるユニットの範囲）は終了位置のみを移動する。
+	 * @param fqn 編集箇所を含むユニットの完全名（このユニットとその配下のユニットの記録は移動しない）
+	 * @param from 編集前の入力データにおける編集箇所を含むユニットの終了位置
+	 * @param delta 位置に加算する値
+	 * @param lineDelta 行数に加算する値
+	 */
+	void shift(final String fqn, final long from, final long delta, final int lineDelta) {
+		final String prefix = fqn + "/";
+		for (final Map.Entry<String, Entry> e : entries.entrySet()) {
+			final String key = e.getKey();
+			if (key.equals(fqn) || key.startsWith(prefix)) {
+				continue;
+			}
+			final SourceRange r = e.getValue().range;
+			if (r.getStartOffset() >= from) {
+				e.setValue(new Entry(new SourceRange(r.getStartOffset() + delta, r.getEndOffset() + delta,
+						r.getStartLineNumber() + lineDelta, r.getEndLineNumber() + lineDelta),
+						e.getValue().parameters.shift(delta, lineDelta)));
+			} else if (r.getEndOffset() >= from) {
+				// 祖先のユニットのパラメータはサブユニットより前に定義されているため移動しない
+				e.setValue(new Entry(new SourceRange(r.getStartOffset(), r.getEndOffset() + delta,
+						r.getStartLineNumber(), r.getEndLineNumber() + lineDelta),
+						e.getValue().parameters));
+			}
+		}
+	}
+
+	/**
+	 * すべての記録を削除する.
+	 */
+	public void clear() {
+		entries.clear();
+	}
+
+	/**
+	 * ユニット定義の範囲を返す.
+	 * @param fqn ユニットの完全名
+	 * @return ユニット定義の範囲、記録されていない場合は{@code null}
+	 */
+	public SourceRange getUnitRange(final FullQualifiedName fqn) {
+		return getUnitRange(fqn.toString());
+	}
+	/**
+	 * ユニット定義の範囲を返す.
+	 * @param fqn ユニットの完全名（例：{@code "/FOO/BAR"}）
+	 * @return ユニット定義の範囲、記録されていない場合は{@code null}
+	 */
+	public SourceRange getUnitRange(final String fqn) {
+		final Entry e = entries.get(fqn);
+		return e == null ? null : e.range;
+	}
+	/**
+	 * ユニットに属するパラメータの範囲を返す.
+	 * リストの要素の順序は{@link org.unclazz.jp1ajs2.unitdef.Unit#getParameters()}が返すパラメータの順序と一致する。
+	 * @param fqn ユニットの完全名
+	 * @return パラメータの範囲、記録されていない場合は空のリスト
+	 */
+	public List<SourceRange> getParameterRanges(final FullQualifiedName fqn) {
+		return getParameterRanges(fqn.toString());
+	}
+	/**
+	 * ユニットに属するパラメータの範囲を返す.
+	 * リストの要素の順序は{@link org.unclazz.jp1ajs2.unitdef.Unit#getParameters()}が返すパラメータの順序と一致する。
+	 * @param fqn ユニットの完全名（例：{@code "/FOO/BAR"}）
+	 * @return パラメータの範囲、記録されていない場合は空のリスト
+	 */
+	public List<SourceRange> getParameterRanges(final String fqn) {
+		final Entry e = entries.get(fqn);
+		if (e == null) {
+			return Collections.emptyList();
+		}
+		final List<SourceRange> result = new ArrayList<SourceRange>(e.parameters.size);
+		for (int i = 0; i < e.parameters.size; i ++) {
+			result.add(e.parameters.get(i));
+		}
+		return result;
+	}
+	/**
+	 * 範囲が記録されているユニットの完全名を返す.
+	 * @return 完全名の集合
+	 */
+	public Set<String> getFullQualifiedNames() {
+		return Collections.unmodifiableSet(entries.keySet());
+	}
+	/**
+	 * 範囲が記録されているユニットの数を返す.
+	 * @return ユニットの数
+	 */
+	public int size() {
+		return entries.size();
+	}
+}
@@ -0,0 +1,86 @@
+package org.unclazz.jp1ajs2.unitdef.parser;
+
+/**
+ * ユニット定義やパラメータが入力データ上で占める範囲.
+ * <p>開始位置と終了位置は入力データの先頭を{@code 0}とする{@link Input#offset()}の値である。
+ * ユニット定義の範囲は{@code "unit"}キーワードの先頭から対応する{@code '}'}の直後まで、
+ * パラメータの範囲はパラメータ名の先頭から定義を終える{@code ';'}の直後までとなる。</p>
+ */
+public final class SourceRange {
+	private final long startOffset;
+	private final long endOffset;
+	private final int startLineNumber;
+	private final int endLineNumber;
+
+	SourceRange(final long startOffset, final long endOffset,
+			final int startLineNumber, final int endLineNumber) {
+		this.startOffset = startOffset;
+		this.endOffset = endOffset;
+		this.startLineNumber = startLineNumber;
+		this.endLineNumber = endLineNumber;
+	}
+
+	/**
+	 * 開始位置を返す.
+	 * @return 範囲の先頭の文字の位置
+	 */
+	public long getStartOffset() {
+		return startOffset;
+	}
+	/**
+	 * 終了位置を返す.
+	 * @return 範囲の末尾の文字の直後の位置
+	 */
+	public long getEndOffset() {
+		return endOffset;
+	}
+	/**
+	 * 範囲の長さを返す.
+	 * @return 終了位置から開始位置を減じた値
+	 */
+	public long getLength() {
+		return endOffset - startOffset;
+	}
+	/**
+	 * 範囲の先頭の文字がある行の行数を返す.
+	 * @return 行数
+	 */
+	public int getStartLineNumber() {
+		return startLineNumber;
+	}
+	/**
+	 * 範囲の末尾の文字がある行の行数を返す.
+	 * @return 行数
+	 */
+	public int getEndLineNumber() {
+		return endLineNumber;
+	}
+
+	@Override
+	public int hashCode() {
+		final int prime = 31;
+		int result = 1;
+		result = prime * result + (int) (startOffset ^ (startOffset >>> 32));
+		result = prime * result + (int) (endOffset ^ (endOffset >>> 32));
+		result = prime * result + startLineNumber;
+		result = prime * result + endLineNumber;
+		return result;
+	}
+
+	@Override
+	public boolean equals(final Object obj) {
+		if (this == obj)
+			return true;
+		if (!(obj instanceof SourceRange))
+			return false;
+		final SourceRange other = (SourceRange) obj;
+		return startOffset == other.startOffset && endOffset == other.endOffset
+				&& startLineNumber == other.startLineNumber && endLineNumber == other.endLineNumber;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("SourceRange(offset=%d..%d, line=%d..%d)",
+				startOffset, endOffset, startLineNumber, endLineNumber);
+	}
+}
@@ -0,0 +1,410 @@
+package org.unclazz.jp1ajs2.unitdef.parser;
+
+/**
+ * 波カッコの対応と引用符で囲われた文字列、そしてトークンの区切りの位置にあるコメントを認識しながら
+ * ユニット定義を読み進めるスキャナー.
+ * <p>ユニット定義の範囲の検出や読み飛ばしのように、名前や値の内容を必要とせず構造だけを追跡する処理が使用する。
+ * {@link #peek()}は空白文字とコメント、引用符で囲われた文字列の内側を読み飛ばして次に構造上意味のある文字を返し、
+ * {@link #consume()}はその文字を読み進めて波カッコの深さとトークンの区切りの状態を更新する。
+ * 引用符で囲われた文字列の内側は開始の引用符を読み進めた後の{@link #peek()}で読み飛ばされる。</p>
+ * <p>コメントは{@link ParseHelper#skipWhitespace(Input)}がコメントを読み飛ばすのと同じ位置、
+ * すなわち走査の開始位置および<code>'{'</code>・<code>'}'</code>・<code>';'</code>の後の
+ * トークンの区切りの位置でのみ認識する。
+ * 行コメントは{@code '\r'}もしくは{@code '\n'}で終わるものとする。</p>
+ * <p>読み取りの途中状態（引用符やコメントの内側にいるかどうかなど）はこのオブジェクトが保持するため、
+ * 文字配列に対するスキャナーは入力データが分割して届く場合にも読み取りを中断・再開することができる。
+ * このオブジェクトを複数のスレッドから同時に使用することはできない。</p>
+ *
+ * @param <E> 入力データの読み取り中にスローされる例外の型
+ */
+abstract class StructureScanner<E extends Exception> {
+	/**
+	 * 入力データの終わりに達したことを示す値.
+	 */
+	static final int EOF = -1;
+	/**
+	 * 読み取りを続けるには次の入力データが必要であることを示す値.
+	 */
+	static final int NEED_MORE = -2;
+
+	private static final int NORMAL = 0;
+	private static final int QUOTED = 1;
+	private static final int LINE_COMMENT = 2;
+	private static final int BLOCK_COMMENT = 3;
+
+	/**
+	 * スキャナーが認識するコメントと引用符のエスケープ文字.
+	 * <p>{@link ParseOptions}から必要な値のみをコピーしたものであり、構築後に変更されない。</p>
+	 */
+	static final class Syntax {
+		private final String lineCommentStart;
+		private final String blockCommentStart;
+		private final String blockCommentEnd;
+		private final char escape;
+
+		/**
+		 * パース・オプションからインスタンスを生成する.
+		 * {@link ParseOptions#isSkipCommentWithWhitespace()}が{@code false}の場合はコメントを認識しない。
+		 * @param options パース・オプション
+		 */
+		Syntax(final ParseOptions options) {
+			this(options.isSkipCommentWithWhitespace(), options.getLineCommentStart(),
+					options.getBlockCommentStart(), options.getBlockCommentEnd(),
+					options.getEscapePrefixInDoubleQuotes());
+		}
+
+		private Syntax(final boolean comments, final String lineCommentStart,
+				final String blockCommentStart, final String blockCommentEnd, final char escape) {
+			this.lineCommentStart = comments ? lineCommentStart : "";
+			this.blockCommentStart = comments ? blockCommentStart : "";
+			this.blockCommentEnd = blockCommentEnd;
+			this.escape = escape;
+		}
+
+		/**
+		 * コメントを認識しないインスタンスを返す.
+		 * パラメータ値のようにコメントが現れない範囲の走査に使用する。
+		 * @return インスタンス
+		 */
+		Syntax withoutComments() {
+			return new Syntax(false, "", "", blockCommentEnd, escape);
+		}
+	}
+
+	private final Syntax syntax;
+	private int mode = NORMAL;
+	private char quote;
+	private char quoteEscape;
+	private boolean escaped = false;
+	private boolean boundary;
+	private int depth = 0;
+
+	/**
+	 * コンストラクタ.
+	 * @param syntax コメントと引用符のエスケープ文字
+	 * @param boundary 走査の開始位置をトークンの区切りの位置とみなす場合{@code true}
+	 */
+	StructureScanner(final Syntax syntax, final boolean boundary) {
+		this.syntax = syntax;
+		this.boundary = boundary;
+	}
+
+	/**
+	 * 現在位置の文字を返す.
+	 * @return 文字、もしくは{@link #EOF}か{@link #NEED_MORE}
+	 * @throws E 入力データの読み取り中にエラーが発生した場合
+	 */
+	abstract int current() throws E;
+
+	/**
+	 * 指定された文字数だけ読み取り位置を前進させる.
+	 * 呼び出し元は前進させる文字がすでに届いていることを確認していなければならない。
+	 * @param n 文字数
+	 * @throws E 入力データの読み取り中にエラーが発生した場合
+	 */
+	abstract void advance(int n) throws E;
+
+	/**
+	 * 現在位置に指定された文字列があるかどうかを判定する.
+	 * 空の文字列は一致しないものとする。
+	 * @param s 文字列
+	 * @return 一致する場合{@code 1}、一致しない場合{@code 0}、
+	 * 届いている文字がすべて一致するものの判定に必要な文字がまだ届いていない場合{@code -1}
+	 * @throws E 入力データの読み取り中にエラーが発生した場合
+	 */
+	abstract int startsWith(String s) throws E;
+
+	/**
+	 * 空白文字とコメント、引用符で囲われた文字列の内側を読み飛ばして、次に構造上意味のある文字を返す.
+	 * 返された文字は読み進められない。
+	 * @return 文字、もしくは{@link #EOF}か{@link #NEED_MORE}
+	 * @throws E 入力データの読み取り中にエラーが発生した場合
+	 */
+	final int peek() throws E {
+		while (true) {
+			if (mode == QUOTED) {
+				final int r = skipQuoted();
+				if (r != 0) {
+					return r;
+				}
+			} else if (mode == LINE_COMMENT) {
+				final int c = current();
+				if (c < 0) {
+					return c;
+				}
+				if (c == '\r' || c == '\n') {
+					mode = NORMAL;
+				}
+				advance(1);
+			} else if (mode == BLOCK_COMMENT) {
+				final int m = startsWith(syntax.blockCommentEnd);
+				if (m < 0) {
+					return NEED_MORE;
+				} else if (m > 0) {
+					advance(syntax.blockCommentEnd.length());
+					mode = NORMAL;
+				} else {
+					final int c = current();
+					if (c < 0) {
+						return c;
+					}
+					advance(1);
+				}
+			} else {
+				final int c = current();
+				if (c < 0) {
+					return c;
+				}
+				if (c <= ' ') {
+					// 空白文字はトークンの区切りかどうかに影響しない
+					advance(1);
+					continue;
+				}
+				if (boundary) {
+					final int m0 = startsWith(syntax.lineCommentStart);
+					final int m1 = m0 > 0 ? 0 : startsWith(syntax.blockCommentStart);
+					if (m0 < 0 || m1 < 0) {
+						// コメントの開始文字列かどうかは次の入力データを受け取るまで判断できない
+						return NEED_MORE;
+					} else if (m0 > 0) {
+						advance(syntax.lineCommentStart.length());
+						mode = LINE_COMMENT;
+						continue;
+					} else if (m1 > 0) {
+						advance(syntax.blockCommentStart.length());
+						mode = BLOCK_COMMENT;
+						continue;
+					}
+				}
+				return c;
+			}
+		}
+	}
+
+	/**
+	 * {@link #peek()}が返した文字を読み進め、波カッコの深さとトークンの区切りの状態を更新する.
+	 * 文字が二重引用符である場合は引用符で囲われた文字列の内側に入る。
+	 * @throws E 入力データの読み取り中にエラーが発生した場合
+	 */
+	final void consume() throws E {
+		final int c = current();
+		if (c == '"') {
+			beginQuoted((char) c, syntax.escape);
+			return;
+		}
+		advance(1);
+		if (c == '{') {
+			depth ++;
+			boundary = true;
+		} else if (c == '}') {
+			depth --;
+			boundary = true;
+		} else {
+			boundary = c == ';';
+		}
+	}
+
+	/**
+	 * 現在位置の1文字を、その種類にかかわらず読み進める.
+	 * 波カッコの深さとトークンの区切りの状態は変化しない。
+	 * @throws E 入力データの読み取り中にエラーが発生した場合
+	 */
+	final void skip() throws E {
+		advance(1);
+	}
+
+	/**
+	 * 現在位置から始まる引用符で囲われた文字列を読み飛ばす.
+	 * 現在位置の文字を開始の引用符とし、エスケープ文字の扱いは{@link ParseHelper#parseQuotedString(Input)}と同じである。
+	 * @param escape エスケープ文字
+	 * @return 終了の引用符まで読み飛ばした場合{@code 0}、そうでない場合{@link #EOF}か{@link #NEED_MORE}
+	 * @throws E 入力データの読み取り中にエラーが発生した場合
+	 */
+	final int skipQuotedString(final char escape) throws E {
+		beginQuoted((char) current(), escape);
+		return skipQuoted();
+	}
+
+	private void beginQuoted(final char q, final char escape) throws E {
+		advance(1);
+		mode = QUOTED;
+		quote = q;
+		quoteEscape = escape;
+		escaped = false;
+		boundary = false;
+	}
+
+	private int skipQuoted() throws E {
+		while (true) {
+			final int c = current();
+			if (c < 0) {
+				return c;
+			}
+			if (escaped) {
+				escaped = false;
+			} else if (c == quote) {
+				if (quoteEscape == quote) {
+					// 引用符を2つ重ねたものは引用符そのものをあらわす
+					final int m = startsWith(new String(new char[] {quote, quote}));
+					if (m < 0) {
+						return NEED_MORE;
+					} else if (m > 0) {
+						advance(2);
+						continue;
+					}
+				}
+				advance(1);
+				mode = NORMAL;
+				return 0;
+			} else if (c == quoteEscape) {
+				escaped = true;
+			}
+			advance(1);
+		}
+	}
+
+	/**
+	 * 波カッコの深さを返す.
+	 * 走査の開始位置を{@code 0}とし、<code>'{'</code>で1増え<code>'}'</code>で1減る。
+	 * @return 深さ
+	 */
+	final int depth() {
+		return depth;
+	}
+
+	/**
+	 * 現在位置がトークンの区切りの位置にあるかどうかを返す.
+	 * @return 区切りの位置にある場合{@code true}
+	 */
+	final boolean isBoundary() {
+		return boundary;
+	}
+
+	/**
+	 * 引用符で囲われた文字列の内側にいるかどうかを返す.
+	 * @return 内側にいる場合{@code true}
+	 */
+	final boolean inQuotedString() {
+		return mode == QUOTED;
+	}
+
+	/**
+	 * ブロックコメントの内側にいるかどうかを返す.
+	 * @return 内側にいる場合{@code true}
+	 */
+	final boolean inBlockComment() {
+		return mode == BLOCK_COMMENT;
+	}
+
+	/**
+	 * 文字配列を走査するスキャナー.
+	 * <p>走査範囲の終わりが入力データの終わりでない場合、
+	 * 判定に必要な文字が不足すると{@link #NEED_MORE}を返して走査を中断する。
+	 * 文字が追加されたら{@link #reset(char[], int, int, boolean)}で新しい範囲を設定して走査を再開する。</p>
+	 */
+	static final class OfArray extends StructureScanner<RuntimeException> {
+		private char[] cs;
+		private int position;
+		private int end;
+		private boolean endOfInput;
+
+		/**
+		 * コンストラクタ.
+		 * 走査の開始位置はトークンの区切りの位置とみなす。
+		 * @param syntax コメントと引用符のエスケープ文字
+		 */
+		OfArray(final Syntax syntax) {
+			super(syntax, true);
+		}
+
+		/**
+		 * 走査の範囲を設定する.
+		 * 引用符やコメントの内側にいるかどうかなど読み取りの途中状態は保持される。
+		 * @param cs 文字配列
+		 * @param position 走査を再開する位置
+		 * @param end 走査範囲の終了位置
+		 * @param endOfInput 走査範囲の終わりが入力データの終わりである場合{@code true}
+		 */
+		void reset(final char[] cs, final int position, final int end, final boolean endOfInput) {
+			this.cs = cs;
+			this.position = position;
+			this.end = end;
+			this.endOfInput = endOfInput;
+		}
+
+		/**
+		 * 現在位置を返す.
+		 * {@link #peek()}の直後であれば、返された文字の位置となる。
+		 * @return 現在位置
+		 */
+		int position() {
+			return position;
+		}
+
+		@Override
+		int current() {
+			return position < end ? cs[position] : endOfInput ? EOF : NEED_MORE;
+		}
+
+		@Override
+		void advance(final int n) {
+			position += n;
+		}
+
+		@Override
+		int startsWith(final String s) {
+			final int len = s.length();
+			if (len == 0) {
+				return 0;
+			}
+			final int available = Math.min(len, end - position);
+			for (int i = 0; i < available; i ++) {
+				if (cs[position + i] != s.charAt(i)) {
+					return 0;
+				}
+			}
+			return available == len ? 1 : endOfInput ? 0 : -1;
+		}
+	}
+
+	/**
+	 * {@link Input}を走査するスキャナー.
+	 * <p>走査にともない{@link Input}の読み取り位置が前進する。
+	 * {@link #NEED_MORE}を返すことはない。</p>
+	 */
+	static final class OfInput extends StructureScanner<ParseException> {
+		private final Input in;
+
+		/**
+		 * コンストラクタ.
+		 * @param syntax コメントと引用符のエスケープ文字
+		 * @param in 入力データ
+		 * @param boundary 現在位置をトークンの区切りの位置とみなす場合{@code true}
+		 */
+		OfInput(final Syntax syntax, final Input in, final boolean boundary) {
+			super(syntax, boundary);
+			this.in = in;
+		}
+
+		@Override
+		int current() {
+			return in.reachedEOF() ? EOF : in.current();
+		}
+
+		@Override
+		void advance(final int n) throws ParseException {
+			try {
+				for (int i = 0; i < n; i ++) {
+					in.next();
+				}
+			} catch (final InputExeption e) {
+				throw new ParseException(e, in);
+			}
+		}
+
+		@Override
+		int startsWith(final String s) {
+			return s.length() > 0 && in.restStartsWith(s) ? 1 : 0;
+		}
+	}
+}
@@ -5,11 +5,31 @@ import org.unclazz.jp1ajs2.unitdef.builder.Builders;
 import org.unclazz.jp1ajs2.unitdef.builder.TupleBuilder;
 import org.unclazz.jp1ajs2.unitdef.util.StringUtils;
 
+/**
+ * タプルを読み取るパーサー.
+ * <p>このオブジェクトは状態を持たないため、複数のスレッドから同時に使用することができる。</p>
+ */
 public final class TupleParser implements Parser<Tuple> {
+	private final boolean zeroCopyValues;
+	
+	public TupleParser() {
+		this(false);
+	}
+	
+	/**
+	 * コンストラクタ.
+	 * @param zeroCopyValues エントリの値を入力データの文字配列を参照する文字シーケンスとして保持する場合{@code true}
+	 * @see UnitParseOptions#setZeroCopyValues(boolean)
+	 */
+	TupleParser(final boolean zeroCopyValues) {
+		this.zeroCopyValues = zeroCopyValues;
+	}
+	
 	@Override
 	public ParseResult<Tuple> parse(Input in) {
 		try {
-			final Tuple t = parseTuple(in);
+			final Tuple s = zeroCopyValues ? parseTupleSlices(in) : null;
+			final Tuple t = s != null ? s : parseTuple(in);
 			return ParseResult.successful(t);
 		} catch (ParseException e) {
 			return ParseResult.failure(e);
@@ -42,9 +62,9 @@ public final class TupleParser implements Parser<Tuple> {
 					in.next();
 				}
 				if (hasKey) {
-					builder.add(sb0.toString(), sb1.toString());
+					builder.add(in.decode(sb0.toString()), in.decode(sb1.toString()));
 				} else {
-					builder.add(sb0.toString());
+					builder.add(in.decode(sb0.toString()));
 				}
 				if (in.current() == ')') {
 					break;
@@ -59,6 +79,68 @@ public final class TupleParser implements Parser<Tuple> {
 		}
 	}
 	
+	/**
+	 * タプルもどきのエントリのキーと値を入力データの文字配列を参照する文字シーケンスとして読み取る.
+	 * 入力データが文字配列を保持していない場合や、
+	 * エントリの表現が{@link #parseTuple(Input)}の結果と一致しない場合（{@code '='}を複数含む場合など）は
+	 * 読み取り位置を移動せずに{@code null}を返す。
+	 * @param in 入力データ
+	 * @return 読み取り結果
+	 * @throws ParseException 読み取り中にエラーが発生した場合
+	 */
+	private Tuple parseTupleSlices(final Input in) throws ParseException {
+		final char[] a = in.array();
+		if (a == null || in.current() != '(') {
+			return null;
+		}
+		final int start = in.arrayIndex();
+		final int end = in.arrayEnd();
+		final TupleBuilder builder = Builders.tuple();
+		int i = start + 1;
+		while (true) {
+			if (i >= end) {
+				return null;
+			}
+			if (a[i] == ')') {
+				break;
+			}
+			final int entryStart = i;
+			int eq = -1;
+			while (i < end && a[i] != ')' && a[i] != ',') {
+				if (a[i] == '=') {
+					if (eq != -1 || i + 1 >= end) {
+						return null;
+					}
+					final char c = a[i + 1];
+					if (c == ')' || c == ',' || c == '=') {
+						return null;
+					}
+					eq = i;
+				}
+				i ++;
+			}
+			if (i >= end) {
+				return null;
+			}
+			if (eq == -1) {
+				builder.add(in.slice(entryStart, i - entryStart));
+			} else {
+				builder.add(in.slice(entryStart, eq - entryStart),
+						in.slice(eq + 1, i - eq - 1));
+			}
+			if (a[i] == ')') {
+				break;
+			}
+			i ++;
+		}
+		try {
+			in.skip(i - start + 1);
+		} catch (InputExeption e) {
+			throw new ParseException(e, in);
+		}
+		return builder.build();
+	}
+	
 	private void check(final Input in, final char expected) throws ParseException {
 		final char actual = in.current();
 		if (actual != expected) {
@@ -0,0 +1,122 @@
+package org.unclazz.jp1ajs2.unitdef.parser;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * ユニット定義の文字配列を走査してルート・ユニットの境界を検出するオブジェクト.
+ * <p>走査には{@link StructureScanner}を使用し、波カッコの対応と二重引用符で囲われた文字列、
+ * そしてトークンの区切りの位置にあるコメントのみを認識する。
+ * 二重引用符の中のエスケープ文字とコメントの開始・終了文字列は{@link ParseOptions}にしたがう。</p>
+ */
+final class UnitBoundaryScanner {
+	/**
+	 * ルート・ユニットの文字配列上の範囲.
+	 */
+	static final class Range {
+		private final int start;
+		private final int end;
+		private int lineNumber;
+		Range(final int start, final int end) {
+			this.start = start;
+			this.end = end;
+		}
+		/**
+		 * 開始位置（{@code "unit"}の先頭の位置）を返す.
+		 * @return 開始位置
+		 */
+		int getStart() {
+			return start;
+		}
+		/**
+		 * 終了位置（<code>'}'</code>の直後の位置）を返す.
+		 * @return 終了位置
+		 */
+		int getEnd() {
+			return end;
+		}
+		/**
+		 * 開始位置の行数を返す.
+		 * @return 行数
+		 */
+		int getLineNumber() {
+			return lineNumber;
+		}
+	}
+	
+	private final StructureScanner.Syntax syntax;
+	
+	UnitBoundaryScanner(final ParseOptions options) {
+		syntax = new StructureScanner.Syntax(options);
+	}
+	
+	/**
+	 * 文字配列を走査してルート・ユニットの範囲のリストを返す.
+	 * 波カッコの対応がとれていない場合や、ユニット定義の外側に空白文字とコメント以外の文字がある場合、
+	 * ユニット定義が1つも見つからない場合は{@code null}を返す。
+	 * @param cs 文字配列
+	 * @param offset 走査を開始する位置
+	 * @param length 走査する文字数
+	 * @return 範囲のリスト
+	 */
+	List<Range> scan(final char[] cs, final int offset, final int length) {
+		final List<Range> ranges = new ArrayList<Range>();
+		final StructureScanner.OfArray s = new StructureScanner.OfArray(syntax);
+		s.reset(cs, offset, offset + length, true);
+		int start = -1;
+		while (true) {
+			final int c = s.peek();
+			if (c == StructureScanner.EOF) {
+				break;
+			}
+			final int i = s.position();
+			if (c == '"' || c == '{' || c == ';') {
+				if (start == -1) {
+					return null;
+				}
+			} else if (c == '}') {
+				if (s.depth() == 0) {
+					return null;
+				}
+			} else if (start == -1) {
+				if (!s.isBoundary()) {
+					return null;
+				}
+				start = i;
+			}
+			s.consume();
+			if (c == '}' && s.depth() == 0) {
+				ranges.add(new Range(start, i + 1));
+				start = -1;
+			}
+		}
+		// 閉じられていない引用符やブロックコメントは入力データの終わりまで続いている
+		if (s.inQuotedString() || s.inBlockComment()
+				|| s.depth() != 0 || start != -1 || ranges.isEmpty()) {
+			return null;
+		}
+		countLines(cs, offset, ranges);
+		return ranges;
+	}
+	
+	/**
+	 * 各範囲の開始位置の行数を設定する.
+	 * 行の区切りは{@link Input}と同じく{@code "\r\n"}、{@code '\r'}、{@code '\n'}のいずれかである。
+	 * @param cs 文字配列
+	 * @param offset 走査を開始した位置
+	 * @param ranges 範囲のリスト
+	 */
+	private void countLines(final char[] cs, final int offset, final List<Range> ranges) {
+		int line = 1;
+		int i = offset;
+		for (final Range r : ranges) {
+			for (; i < r.start; i ++) {
+				final char c = cs[i];
+				if (c == '\n' || (c == '\r' && (i + 1 >= cs.length || cs[i + 1] != '\n'))) {
+					line ++;
+				}
+			}
+			r.lineNumber = line;
+		}
+	}
+}
@@ -0,0 +1,217 @@
+package org.unclazz.jp1ajs2.unitdef.parser;
+
+import java.util.LinkedList;
+
+import org.unclazz.jp1ajs2.unitdef.Attributes;
+import org.unclazz.jp1ajs2.unitdef.FullQualifiedName;
+import org.unclazz.jp1ajs2.unitdef.Parameter;
+import org.unclazz.jp1ajs2.unitdef.builder.Builders;
+
+/**
+ * ユニット定義を先頭から順に読み取るためのカーソル.
+ * <p>{@link #next()}を呼び出すたびにユニット定義の開始・ユニット定義パラメータ・ユニット定義の終了の
+ * いずれかを読み取り、その種別を返す。読み取った情報には各種のgetterメソッドでアクセスできる。</p>
+ * <pre> UnitDefReader r = new UnitDefReader(Input.fromFile(f, charset));
+ * while (r.next() != EventType.END_OF_INPUT) {
+ *     if (r.getEventType() == EventType.START_UNIT &amp;&amp; ...) {
+ *         r.skipSubtree();
+ *     }
+ * }</pre>
+ * <p>{@link UnitParser}と異なり{@link org.unclazz.jp1ajs2.unitdef.Unit}のツリーを構築しない。
+ * また{@link #skipSubtree()}により不要なユニットを
+ * {@link Parameter}などのオブジェクトを生成することなく読み飛ばすことができる。</p>
+ * <p>このオブジェクトはスレッドセーフではない。</p>
+ */
+public final class UnitDefReader {
+	/**
+	 * {@link UnitDefReader#next()}が返すイベントの種別.
+	 */
+	public static enum EventType {
+		/**
+		 * ユニット定義の開始（{@code unit=...;{}）.
+		 */
+		START_UNIT,
+		/**
+		 * ユニット定義パラメータ（{@code xx=...;}）.
+		 */
+		PARAMETER,
+		/**
+		 * ユニット定義の終了（<code>}</code>）.
+		 */
+		END_UNIT,
+		/**
+		 * 入力データの終了.
+		 */
+		END_OF_INPUT;
+	}
+
+	private final Input in;
+	private final UnitParser unitParser = new UnitParser();
+	private final ParseHelper helper = unitParser.helper;
+	/**
+	 * 読み取り中のユニットとその祖先の完全名を格納するスタック.
+	 */
+	private final LinkedList<FullQualifiedName> stack = new LinkedList<FullQualifiedName>();
+
+	private EventType eventType = null;
+	private FullQualifiedName fqn = null;
+	private Attributes attributes = null;
+	private Parameter parameter = null;
+	private int depth = -1;
+
+	/**
+	 * コンストラクタ.
+	 * @param in 入力データ
+	 * @throws NullPointerException 引数の値が{@code null}である場合
+	 */
+	public UnitDefReader(final Input in) {
+		if (in == null) {
+			throw new NullPointerException();
+		}
+		this.in = in;
+	}
+
+	/**
+	 * 次のイベントを読み取りその種別を返す.
+	 * 入力データの終了に到達した後は常に{@link EventType#END_OF_INPUT}を返す。
+	 * @return イベントの種別
+	 * @throws ParseException 読み取り中にエラーが発生した場合
+	 */
+	public EventType next() throws ParseException {
+		if (eventType == EventType.END_OF_INPUT) {
+			return eventType;
+		}
+		attributes = null;
+		parameter = null;
+		try {
+			helper.skipWhitespace(in);
+			if (in.reachedEOF()) {
+				// EOFに到達した時点で閉じられていないユニット定義があれば構文エラー
+				if (!stack.isEmpty()) {
+					throw ParseException.arg1NotFound(in, "}");
+				}
+				fqn = null;
+				depth = -1;
+				return eventType = EventType.END_OF_INPUT;
+
+			} else if (in.restStartsWith("unit")) {
+				// "unit"で始まるならそれはユニット定義の開始
+				final Attributes attrs = unitParser.parseAttributes(in);
+				final FullQualifiedName newFqn = stack.isEmpty()
+						? Builders.fullQualifiedName().addFragment(attrs.getUnitName()).build()
+						: stack.getFirst().getSubUnitName(attrs.getUnitName());
+				in.next();
+				helper.skipWhitespace(in);
+
+				// ユニット定義パラメータの開始カッコを読み取る
+				helper.check(in, '{');
+				in.next();
+				helper.skipWhitespace(in);
+
+				// ユニット定義にはすくなくともtyパラメータは必要
+				if (in.current() == '}') {
+					throw new ParseException("parameter \"ty\" is not found", in);
+				}
+
+				stack.addFirst(newFqn);
+				fqn = newFqn;
+				attributes = attrs;
+				depth = stack.size() - 1;
+				return eventType = EventType.START_UNIT;
+
+			} else if (in.current() == '}') {
+				// '}'が登場したらそこでユニット定義は終わり
+				if (stack.isEmpty()) {
+					throw ParseException.syntaxError(in);
+				}
+				in.next();
+				fqn = stack.removeFirst();
+				depth = stack.size();
+				return eventType = EventType.END_UNIT;
+
+			} else {
+				// それ以外はユニット定義パラメータ
+				if (stack.isEmpty()) {
+					throw ParseException.arg1NotFound(in, "unit");
+				}
+				final Parameter p = unitParser.parseParam(in);
+				helper.check(in, ';');
+				in.next();
+				fqn = stack.getFirst();
+				parameter = p;
+				depth = stack.size() - 1;
+				return eventType = EventType.PARAMETER;
+			}
+		} catch (final InputExeption e) {
+			throw new ParseException(e, in);
+		}
+	}
+
+	/**
+	 * 直前に読み取ったユニット定義の開始に対応するユニット定義の終了まで読み飛ばす.
+	 * <p>読み飛ばしの間は波カッコの対応と二重引用符で囲われた文字列、そしてコメントのみを認識し、
+	 * {@link Parameter}や{@link org.unclazz.jp1ajs2.unitdef.Tuple}などのオブジェクトは生成しない。
+	 * 二重引用符で囲われた文字列の中のエスケープ文字{@code '#'}の扱いは
+	 * {@link ParseHelper#parseQuotedString(Input)}と同じである。</p>
+	 * <p>このメソッドの呼び出し後、カーソルは読み飛ばしたユニットの{@link EventType#END_UNIT}の位置にある。</p>
+	 * @throws ParseException 読み取り中にエラーが発生した場合
+	 * @throws IllegalStateException 直前のイベントが{@link EventType#START_UNIT}でない場合
+	 */
+	public void skipSubtree() throws ParseException {
+		if (eventType != EventType.START_UNIT) {
+			throw new IllegalStateException("current event is not " + EventType.START_UNIT);
+		}
+		UnitParser.skipUnitBody(helper, in);
+		attributes = null;
+		fqn = stack.removeFirst();
+		depth = stack.size();
+		eventType = EventType.END_UNIT;
+	}
+
+	/**
+	 * 現在のイベントの種別を返す.
+	 * まだ一度も{@link #next()}を呼び出していない場合は{@code null}を返す。
+	 * @return イベントの種別
+	 */
+	public EventType getEventType() {
+		return eventType;
+	}
+
+	/**
+	 * 現在のユニットの完全名を返す.
+	 * {@link EventType#PARAMETER}の場合はそのパラメータを保持するユニットの完全名を返す。
+	 * {@link EventType#END_OF_INPUT}の場合は{@code null}を返す。
+	 * @return ユニット完全名
+	 */
+	public FullQualifiedName getFullQualifiedName() {
+		return fqn;
+	}
+
+	/**
+	 * 現在のユニットのユニット属性パラメータを返す.
+	 * {@link EventType#START_UNIT}以外の場合は{@code null}を返す。
+	 * @return ユニット属性パラメータ
+	 */
+	public Attributes getAttributes() {
+		return attributes;
+	}
+
+	/**
+	 * 現在のユニット定義パラメータを返す.
+	 * {@link EventType#PARAMETER}以外の場合は{@code null}を返す。
+	 * @return ユニット定義パラメータ
+	 */
+	public Parameter getParameter() {
+		return parameter;
+	}
+
+	/**
+	 * 現在のユニットの深さを返す.
+	 * ルート・ユニットの深さは{@code 0}である。
+	 * {@link EventType#END_OF_INPUT}の場合は{@code -1}を返す。
+	 * @return 深さ
+	 */
+	public int getDepth() {
+		return depth;
+	}
+}
@@ -0,0 +1,36 @@
+package org.unclazz.jp1ajs2.unitdef.parser;
+
+import java.util.List;
+
+import org.unclazz.jp1ajs2.unitdef.Attributes;
+import org.unclazz.jp1ajs2.unitdef.FullQualifiedName;
+import org.unclazz.jp1ajs2.unitdef.ParameterValue;
+
+/**
+ * {@link UnitEventParser}がユニット定義を読み取るにつれて発生するイベントを受け取るハンドラー.
+ * <p>イベントはユニット定義ファイル上の出現順に通知される。
+ * あるユニットの{@link #startUnit(FullQualifiedName, Attributes)}と
+ * {@link #endUnit(FullQualifiedName)}の間に通知される{@link #parameter(String, List)}は
+ * そのユニット自身のユニット定義パラメータであり、
+ * 同じ区間に通知される{@link #startUnit(FullQualifiedName, Attributes)}は下位ユニットの開始である。</p>
+ * <p>ハンドラーのメソッドがスローした実行時例外はパース処理を中断し、呼び出し元にそのまま伝播する。</p>
+ */
+public interface UnitEventHandler {
+	/**
+	 * ユニット定義の開始（{@code unit=...;{}）を受け取る.
+	 * @param fqn ユニット完全名
+	 * @param attributes ユニット属性パラメータ
+	 */
+	void startUnit(FullQualifiedName fqn, Attributes attributes);
+	/**
+	 * ユニット定義パラメータ（{@code xx=...;}）を受け取る.
+	 * @param name ユニット定義パラメータ名
+	 * @param values ユニット定義パラメータ値のリスト
+	 */
+	void parameter(String name, List<ParameterValue> values);
+	/**
+	 * ユニット定義の終了（<code>}</code>）を受け取る.
+	 * @param fqn ユニット完全名
+	 */
+	void endUnit(FullQualifiedName fqn);
+}
@@ -0,0 +1,63 @@
+package org.unclazz.jp1ajs2.unitdef.parser;
+
+import org.unclazz.jp1ajs2.unitdef.Parameter;
+
+/**
+ * ユニット定義を読み取りながら{@link UnitEventHandler}にイベントを通知するパーサー.
+ * <p>{@link UnitParser}と異なり{@link org.unclazz.jp1ajs2.unitdef.Unit}のツリーを構築しない。
+ * 読み取りは{@link UnitDefReader}により行われ、
+ * パース処理中に保持されるのは読み取り中のユニットの祖先の完全名のみであるため、
+ * 入力データの大きさにかかわらずメモリ使用量はおおむね一定となる。</p>
+ * <p>パース結果として読み取ったユニットの数を返す。</p>
+ */
+public final class UnitEventParser extends ParserSupport<Integer> {
+	private final UnitEventHandler handler;
+	
+	/**
+	 * コンストラクタ.
+	 * @param handler イベント・ハンドラー
+	 * @throws NullPointerException 引数の値が{@code null}である場合
+	 */
+	public UnitEventParser(final UnitEventHandler handler) {
+		super(UnitParser.OPTIONS);
+		if (handler == null) {
+			throw new NullPointerException();
+		}
+		this.handler = handler;
+	}
+
+	@Override
+	public ParseResult<Integer> parse(final Input in) {
+		try {
+			final int count = parseUnits(in);
+			if (count == 0) {
+				return ParseResult.failure(new IllegalArgumentException("Unit definition is not found."));
+			}
+			return ParseResult.successful(count);
+		} catch (final ParseException e) {
+			return ParseResult.failure(e);
+		}
+	}
+	
+	private int parseUnits(final Input in) throws ParseException {
+		final UnitDefReader reader = new UnitDefReader(in);
+		int count = 0;
+		while (true) {
+			switch (reader.next()) {
+			case START_UNIT:
+				handler.startUnit(reader.getFullQualifiedName(), reader.getAttributes());
+				count ++;
+				break;
+			case PARAMETER:
+				final Parameter p = reader.getParameter();
+				handler.parameter(p.getName(), p.getValues());
+				break;
+			case END_UNIT:
+				handler.endUnit(reader.getFullQualifiedName());
+				break;
+			default:
+				return count;
+			}
+		}
+	}
+}
@@ -0,0 +1,192 @@
+package org.unclazz.jp1ajs2.unitdef.parser;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+
+import org.unclazz.jp1ajs2.unitdef.Unit;
+
+/**
+ * {@link UnitFileLoader}による読み取り結果を格納するオブジェクト.
+ * ファイルごとのパース結果と処理時間、およびそれらを集計した統計情報を提供する。
+ */
+public final class UnitFileLoadResult {
+	/**
+	 * ファイルごとの読み取り結果.
+	 */
+	public static final class FileResult {
+		private final File file;
+		private final long length;
+		private final ParseResult<List<Unit>> result;
+		private final long elapsedNanos;
+
+		FileResult(final File file, final long length,
+				final ParseResult<List<Unit>> result, final long elapsedNanos) {
+			this.file = file;
+			this.length = length;
+			this.result = result;
+			this.elapsedNanos = elapsedNanos;
+		}
+
+		/**
+		 * ファイルを返す.
+		 * @return ファイル
+		 */
+		public File getFile() {
+			return file;
+		}
+		/**
+		 * ファイルのサイズを返す.
+		 * @return バイト数
+		 */
+		public long getLength() {
+			return length;
+		}
+		/**
+		 * パース結果を返す.
+		 * @return パース結果
+		 */
+		public ParseResult<List<Unit>> getResult() {
+			return result;
+		}
+		/**
+		 * パース処理に要した時間を返す.
+		 * パース処理が開始される前に取りやめられた場合は{@code 0}を返す。
+		 * @return ナノ秒
+		 */
+		public long getElapsedNanos() {
+			return elapsedNanos;
+		}
+		@Override
+		public String toString() {
+			return String.format("%s (%d bytes, %d ms, %s)", file, length, elapsedNanos / 1000000,
+					result.isSuccessful() ? "successful" : "failure");
+		}
+	}
+
+	private final List<FileResult> fileResults;
+	private final long elapsedNanos;
+
+	UnitFileLoadResult(final List<FileResult> fileResults, final long elapsedNanos) {
+		this.fileResults = Collections.unmodifiableList(fileResults);
+		this.elapsedNanos = elapsedNanos;
+	}
+
+	/**
+	 * ファイルごとの読み取り結果のリストを返す.
+	 * @return 読み取り結果のリスト
+	 */
+	public List<FileResult> getFileResults() {
+		return fileResults;
+	}
+	/**
+	 * パースに成功したすべてのファイルのユニットを連結したリストを返す.
+	 * ユニットの順序は{@link #getFileResults()}のファイルの順序に従う。
+	 * @return ユニットのリスト
+	 */
+	public List<Unit> getUnits() {
+		final List<Unit> units = new LinkedList<Unit>();
+		for (final FileResult f : fileResults) {
+			if (f.result.isSuccessful()) {
+				units.addAll(f.result.get());
+			}
+		}
+		return units;
+	}
+	/**
+	 * パースに失敗したファイルの読み取り結果のリストを返す.
+	 * @return 読み取り結果のリスト
+	 */
+	public List<FileResult> getFailures() {
+		final List<FileResult> failures = new LinkedList<FileResult>();
+		for (final FileResult f : fileResults) {
+			if (!f.result.isSuccessful()) {
+				failures.add(f);
+			}
+		}
+		return failures;
+	}
+	/**
+	 * すべてのファイルのパースに成功したかどうかを返す.
+	 * @return 成功した場合{@code true}
+	 */
+	public boolean isSuccessful() {
+		for (final FileResult f : fileResults) {
+			if (!f.result.isSuccessful()) {
+				return false;
+			}
+		}
+		return true;
+	}
+	/**
+	 * パースに成功したファイルの数を返す.
+	 * @return ファイル数
+	 */
+	public int getSuccessCount() {
+		return fileResults.size() - getFailureCount();
+	}
+	/**
+	 * パースに失敗したファイルの数を返す.
+	 * @return ファイル数
+	 */
+	public int getFailureCount() {
+		int count = 0;
+		for (final FileResult f : fileResults) {
+			if (!f.result.isSuccessful()) {
+				count ++;
+			}
+		}
+		return count;
+	}
+	/**
+	 * すべてのファイルのサイズの合計を返す.
+	 * @return バイト数
+	 */
+	public long getTotalLength() {
+		long total = 0;
+		for (final FileResult f : fileResults) {
+			total += f.length;
+		}
+		return total;
+	}
+	/**
+	 * 読み取り処理全体の開始から終了までに要した時間を返す.
+	 * @return ナノ秒
+	 */
+	public long getElapsedNanos() {
+		return elapsedNanos;
+	}
+	/**
+	 * ファイルごとのパース処理に要した時間の合計を返す.
+	 * 並列に処理が行われるため通常は{@link #getElapsedNanos()}よりも大きな値となる。
+	 * @return ナノ秒
+	 */
+	public long getTotalParseNanos() {
+		long total = 0;
+		for (final FileResult f : fileResults) {
+			total += f.elapsedNanos;
+		}
+		return total;
+	}
+	/**
+	 * パース処理に最も長い時間を要したファイルの読み取り結果を返す.
+	 * ファイルが1つもない場合は{@code null}を返す。
+	 * @return 読み取り結果
+	 */
+	public FileResult getSlowest() {
+		FileResult slowest = null;
+		for (final FileResult f : fileResults) {
+			if (slowest == null || slowest.elapsedNanos < f.elapsedNanos) {
+				slowest = f;
+			}
+		}
+		return slowest;
+	}
+	@Override
+	public String toString() {
+		return String.format("%d files (%d successful, %d failure), %d bytes, %d ms elapsed, %d ms parsing",
+				fileResults.size(), getSuccessCount(), getFailureCount(), getTotalLength(),
+				elapsedNanos / 1000000, getTotalParseNanos() / 1000000);
+	}
+}
@@ -0,0 +1,354 @@
+package org.unclazz.jp1ajs2.unitdef.parser;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileFilter;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Pattern;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.unclazz.jp1ajs2.unitdef.Unit;
+
+/**
+ * 複数のユニット定義ファイルを並列に読み取るローダー.
+ * <p>ファイルごとのパース処理は{@link ExecutorService}に投入され並列に実行される。
+ * 処理時間の長いファイルが最後に残ることのないよう、ファイルはサイズの大きい順に投入される。
+ * ファイルごとのパース結果と処理時間は{@link UnitFileLoadResult}として返される。</p>
+ * <pre> UnitFileLoadResult r = new UnitFileLoader().load(dir, "*.txt", charset);
+ * for (UnitFileLoadResult.FileResult f : r.getFileResults()) {
+ *     if (!f.getResult().isSuccessful()) { ... }
+ * }</pre>
+ * <p>このオブジェクトはスレッドセーフである。</p>
+ */
+public final class UnitFileLoader {
+	/**
+	 * 読み取り対象のファイルとそのサイズ.
+	 * ソートの途中でファイルのサイズが変化しても比較結果が矛盾しないよう、サイズは一度だけ取得して保持する。
+	 */
+	private static final class FileJob {
+		private final File file;
+		private final long length;
+		private Future<UnitFileLoadResult.FileResult> future;
+		private FileJob(final File file) {
+			this.file = file;
+			this.length = file.length();
+		}
+	}
+	private static final Comparator<FileJob> largerFirst = new Comparator<FileJob>() {
+		@Override
+		public int compare(final FileJob o1, final FileJob o2) {
+			final long l1 = o1.length;
+			final long l2 = o2.length;
+			return l1 > l2 ? -1 : (l1 < l2 ? 1 : 0);
+		}
+	};
+	private static final Comparator<ZipEntry> largerEntryFirst = new Comparator<ZipEntry>() {
+		@Override
+		public int compare(final ZipEntry o1, final ZipEntry o2) {
+			final long l1 = o1.getSize();
+			final long l2 = o2.getSize();
+			return l1 > l2 ? -1 : (l1 < l2 ? 1 : 0);
+		}
+	};
+	private static final Comparator<File> byName = new Comparator<File>() {
+		@Override
+		public int compare(final File o1, final File o2) {
+			return o1.getName().compareTo(o2.getName());
+		}
+	};
+
+	private final ExecutorService executor;
+	private final int parallelism;
+	private final UnitParser parser = new UnitParser();
+
+	/**
+	 * コンストラクタ.
+	 * 読み取り処理のたびにランタイムが利用可能なプロセッサ数と同じ数のスレッドを持つスレッドプールを生成し、
+	 * 読み取り処理の完了後にシャットダウンする。
+	 */
+	public UnitFileLoader() {
+		this(Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * コンストラクタ.
+	 * 読み取り処理のたびに引数で指定された数のスレッドを持つスレッドプールを生成し、
+	 * 読み取り処理の完了後にシャットダウンする。
+	 * @param parallelism スレッド数
+	 * @throws IllegalArgumentException 引数の値が{@code 0}以下である場合
+	 */
+	public UnitFileLoader(final int parallelism) {
+		if (parallelism <= 0) {
+			throw new IllegalArgumentException("parallelism must be greater than 0.");
+		}
+		this.executor = null;
+		this.parallelism = parallelism;
+	}
+
+	/**
+	 * コンストラクタ.
+	 * 読み取り処理には引数で指定されたエグゼキューターを使用する。
+	 * エグゼキューターのシャットダウンは呼び出し元の責任で行うこと。
+	 * @param executor エグゼキューター
+	 * @throws NullPointerException 引数の値が{@code null}である場合
+	 */
+	public UnitFileLoader(final ExecutorService executor) {
+		if (executor == null) {
+			throw new NullPointerException();
+		}
+		this.executor = executor;
+		this.parallelism = 0;
+	}
+
+	/**
+	 * ディレクトリ直下のすべてのファイルを読み取る.
+	 * サブディレクトリの中のファイルは対象としない。
+	 * 結果に格納されるファイルの順序はファイル名の昇順である。
+	 * @param dir ディレクトリ
+	 * @param charset キャラクターセット
+	 * @return 読み取り結果
+	 * @throws IllegalArgumentException 引数で指定されたファイルがディレクトリでない場合
+	 */
+	public UnitFileLoadResult load(final File dir, final Charset charset) {
+		return load(listFiles(dir, null), charset);
+	}
+
+	/**
+	 * ディレクトリ直下のファイルのうちファイル名がパターンにマッチするものを読み取る.
+	 * <p>パターンの中の{@code '*'}は0文字以上の任意の文字列に、
+	 * {@code '?'}は任意の1文字にマッチする。それ以外の文字はその文字自身にマッチする。
+	 * サブディレクトリの中のファイルは対象としない。
+	 * 結果に格納されるファイルの順序はファイル名の昇順である。</p>
+	 * @param dir ディレクトリ
+	 * @param glob ファイル名のパターン（例：{@code "*.txt"}）
+	 * @param charset キャラクターセット
+	 * @return 読み取り結果
+	 * @throws IllegalArgumentException 引数で指定されたファイルがディレクトリでない場合
+	 */
+	public UnitFileLoadResult load(final File dir, final String glob, final Charset charset) {
+		return load(listFiles(dir, globToPattern(glob)), charset);
+	}
+
+	/**
+	 * 引数で指定されたファイルを読み取る.
+	 * 結果に格納されるファイルの順序は引数で指定された順序と同じである。
+	 * @param files ファイルのリスト
+	 * @param charset キャラクターセット
+	 * @return 読み取り結果
+	 */
+	public UnitFileLoadResult load(final List<File> files, final Charset charset) {
+		if (files == null || charset == null) {
+			throw new NullPointerException();
+		}
+		final long started = System.nanoTime();
+
+		// サイズの大きいファイルから順にエグゼキューターに投入する
+		final Map<File, FileJob> jobs = new HashMap<File, FileJob>();
+		for (final File f : files) {
+			if (!jobs.containsKey(f)) {
+				jobs.put(f, new FileJob(f));
+			}
+		}
+		final List<FileJob> schedule = new ArrayList<FileJob>(jobs.values());
+		Collections.sort(schedule, largerFirst);
+
+		final ExecutorService ex = executor == null
+				? Executors.newFixedThreadPool(parallelism) : executor;
+		final List<UnitFileLoadResult.FileResult> results =
+				new ArrayList<UnitFileLoadResult.FileResult>(files.size());
+		try {
+			for (final FileJob job : schedule) {
+				job.future = ex.submit(new Callable<UnitFileLoadResult.FileResult>() {
+					@Override
+					public UnitFileLoadResult.FileResult call() {
+						return loadFile(job.file, job.length, charset);
+					}
+				});
+			}
+
+			// 結果は引数で指定された順序で格納する
+			for (final File f : files) {
+				final FileJob job = jobs.get(f);
+				results.add(waitFor(job.future, f, job.length));
+			}
+		} finally {
+			if (executor == null) {
+				ex.shutdownNow();
+			}
+		}
+		return new UnitFileLoadResult(results, System.nanoTime() - started);
+	}
+
+	private UnitFileLoadResult.FileResult loadFile(final File f, final long length, final Charset charset) {
+		final long started = System.nanoTime();
+		ParseResult<List<Unit>> r;
+		try {
+			r = parser.parse(f, charset);
+		} catch (final RuntimeException e) {
+			r = ParseResult.failure(e);
+		}
+		return new UnitFileLoadResult.FileResult(f, length, r, System.nanoTime() - started);
+	}
+
+	/**
+	 * zipアーカイブに含まれるすべてのエントリを読み取る.
+	 * <p>エントリごとのパース処理は{@link #load(List, Charset)}と同様に並列に実行される。
+	 * ディレクトリのエントリは対象としない。
+	 * 結果に格納されるエントリの順序はアーカイブ内の順序と同じである。
+	 * {@link UnitFileLoadResult.FileResult#getFile()}はアーカイブのファイルを親とし、
+	 * エントリ名をパスとする{@link File}を返す。
+	 * {@link UnitFileLoadResult.FileResult#getLength()}は展開後のサイズを返す。</p>
+	 * <p>アーカイブ全体を1つの入力データとして逐次読み取る場合は{@link UnitParser#parse(File, Charset)}を使用する。</p>
+	 * @param zip zipアーカイブのファイル
+	 * @param charset キャラクターセット
+	 * @return 読み取り結果
+	 * @throws IllegalArgumentException 引数で指定されたファイルをzipアーカイブとして開くことができない場合
+	 */
+	public UnitFileLoadResult loadZip(final File zip, final Charset charset) {
+		if (zip == null || charset == null) {
+			throw new NullPointerException();
+		}
+		final long started = System.nanoTime();
+		final ZipFile zipFile;
+		try {
+			zipFile = new ZipFile(zip);
+		} catch (final IOException e) {
+			throw new IllegalArgumentException(String.format("Cannot open %s.", zip), e);
+		}
+
+		final List<ZipEntry> entries = new ArrayList<ZipEntry>();
+		final Enumeration<? extends ZipEntry> en = zipFile.entries();
+		while (en.hasMoreElements()) {
+			final ZipEntry e = en.nextElement();
+			if (!e.isDirectory()) {
+				entries.add(e);
+			}
+		}
+		// サイズの大きいエントリから順にエグゼキューターに投入する
+		final List<ZipEntry> schedule = new ArrayList<ZipEntry>(entries);
+		Collections.sort(schedule, largerEntryFirst);
+
+		final ExecutorService ex = executor == null
+				? Executors.newFixedThreadPool(parallelism) : executor;
+		final List<UnitFileLoadResult.FileResult> results =
+				new ArrayList<UnitFileLoadResult.FileResult>(entries.size());
+		try {
+			final Map<ZipEntry, Future<UnitFileLoadResult.FileResult>> futures =
+					new IdentityHashMap<ZipEntry, Future<UnitFileLoadResult.FileResult>>();
+			for (final ZipEntry e : schedule) {
+				futures.put(e, ex.submit(new Callable<UnitFileLoadResult.FileResult>() {
+					@Override
+					public UnitFileLoadResult.FileResult call() {
+						return loadEntry(zipFile, zip, e, charset);
+					}
+				}));
+			}
+
+			// 結果はアーカイブ内の順序で格納する
+			for (final ZipEntry e : entries) {
+				results.add(waitFor(futures.get(e), new File(zip, e.getName()), e.getSize()));
+			}
+		} finally {
+			if (executor == null) {
+				ex.shutdownNow();
+			}
+			try {
+				zipFile.close();
+			} catch (final IOException e) {
+				// 読み取りは完了しているためクローズ時のエラーは無視する
+			}
+		}
+		return new UnitFileLoadResult(results, System.nanoTime() - started);
+	}
+
+	private UnitFileLoadResult.FileResult loadEntry(final ZipFile zipFile, final File zip,
+			final ZipEntry e, final Charset charset) {
+		final long started = System.nanoTime();
+		ParseResult<List<Unit>> r;
+		try {
+			r = parser.parse(new BufferedInputStream(zipFile.getInputStream(e),
+					CompressedFiles.BUFFER_SIZE), charset);
+		} catch (final IOException e0) {
+			r = ParseResult.failure(e0);
+		} catch (final RuntimeException e0) {
+			r = ParseResult.failure(e0);
+		}
+		return new UnitFileLoadResult.FileResult(new File(zip, e.getName()), e.getSize(), r,
+				System.nanoTime() - started);
+	}
+
+	private static UnitFileLoadResult.FileResult waitFor(
+			final Future<UnitFileLoadResult.FileResult> future, final File f, final long length) {
+		try {
+			return future.get();
+		} catch (final InterruptedException e) {
+			// 割り込みが発生した場合は以降のファイルの読み取りを取りやめる
+			Thread.currentThread().interrupt();
+			future.cancel(true);
+			return new UnitFileLoadResult.FileResult(f, length,
+					ParseResult.<List<Unit>>failure(e), 0);
+		} catch (final ExecutionException e) {
+			return new UnitFileLoadResult.FileResult(f, length,
+					ParseResult.<List<Unit>>failure(e.getCause()), 0);
+		}
+	}
+
+	private static List<File> listFiles(final File dir, final Pattern pattern) {
+		if (!dir.isDirectory()) {
+			throw new IllegalArgumentException(String.format("%s is not a directory.", dir));
+		}
+		final File[] files = dir.listFiles(new FileFilter() {
+			@Override
+			public boolean accept(final File f) {
+				return f.isFile() && (pattern == null || pattern.matcher(f.getName()).matches());
+			}
+		});
+		if (files == null) {
+			throw new IllegalArgumentException(String.format("Cannot list files in %s.", dir));
+		}
+		Arrays.sort(files, byName);
+		return Arrays.asList(files);
+	}
+
+	/**
+	 * ファイル名のパターンを正規表現に変換する.
+	 * @param glob ファイル名のパターン
+	 * @return 正規表現
+	 */
+	static Pattern globToPattern(final String glob) {
+		final StringBuilder sb = new StringBuilder();
+		final StringBuilder literal = new StringBuilder();
+		for (int i = 0; i < glob.length(); i ++) {
+			final char c = glob.charAt(i);
+			if (c == '*' || c == '?') {
+				if (literal.length() > 0) {
+					sb.append(Pattern.quote(literal.toString()));
+					literal.setLength(0);
+				}
+				sb.append(c == '*' ? ".*" : ".");
+			} else {
+				literal.append(c);
+			}
+		}
+		if (literal.length() > 0) {
+			sb.append(Pattern.quote(literal.toString()));
+		}
+		return Pattern.compile(sb.toString(), Pattern.DOTALL);
+	}
+}
@@ -0,0 +1,210 @@
+package org.unclazz.jp1ajs2.unitdef.parser;
+
+import java.util.Set;
+
+import org.unclazz.jp1ajs2.unitdef.parameter.UnitType;
+import org.unclazz.jp1ajs2.unitdef.util.StringPool;
+
+/**
+ * {@link UnitParser}のためのパース・オプション.
+ * <p>二重引用符で囲われた文字列のエスケープ文字の初期値は{@code '#'}である。</p>
+ * <p>{@link UnitParser}はコンストラクタ引数として渡されたこのオブジェクトの値をコピーして使用する。
+ * そのためパーサーの初期化後にこのオブジェクトの値を変更してもパーサーの動作には影響しない。</p>
+ */
+public class UnitParseOptions extends ParseOptions {
+	/**
+	 * パラメータ値を入力データの文字配列を参照する文字シーケンスとして保持するかどうか.
+	 */
+	private boolean zeroCopyValues = false;
+	/**
+	 * ファイルやストリームの内容をデコードせずにバイト・シーケンスのまま読み取るかどうか.
+	 */
+	private boolean byteLevelScanning = false;
+	/**
+	 * パラメータ名とパラメータ値の集約に使用する文字列プール.
+	 */
+	private StringPool stringPool = null;
+	/**
+	 * 読み取り対象とするユニットの完全名の接頭辞.
+	 */
+	private String fullQualifiedNamePrefix = null;
+	/**
+	 * 読み取り対象とするユニットのユニット種別.
+	 */
+	private Set<UnitType> unitTypes = null;
+	/**
+	 * 読み取り対象とするパラメータの名前.
+	 */
+	private Set<String> parameterNames = null;
+	/**
+	 * ユニット定義とパラメータの入力データ上の範囲を記録する索引.
+	 */
+	private SourceMap sourceMap = null;
+
+	public UnitParseOptions() {
+		setEscapePrefixInDoubleQuotes('#');
+	}
+
+	/**
+	 * パラメータ値を入力データの文字配列を参照する文字シーケンスとして保持するかどうかを返す.
+	 * @return 保持する場合{@code true}
+	 * @see #setZeroCopyValues(boolean)
+	 */
+	public boolean isZeroCopyValues() {
+		return zeroCopyValues;
+	}
+	/**
+	 * パラメータ値を入力データの文字配列を参照する文字シーケンスとして保持するかどうかを設定する.
+	 * <p>{@code true}を指定した場合、パーサーは入力データ全体を1つの文字配列に読み取った上でパース処理を行う。
+	 * 文字列・引用符で囲われた文字列・タプルもどきのエントリの値は、その文字配列の一部を参照する文字シーケンスとなり、
+	 * {@link org.unclazz.jp1ajs2.unitdef.ParameterValue#getStringValue()}などにより
+	 * 文字列が必要とされた時点ではじめて文字列が生成される。
+	 * これにより多数のユニット定義を読み取る際のヒープ使用量とGCの負荷が軽減される。</p>
+	 * <p>ただしパース結果のユニットが1つでも参照されている限り入力データ全体の文字配列が保持されることに注意。
+	 * またエスケープ文字を含む値など、入力データ上の表現と値の内容が一致しない場合は従来通り文字列が生成される。</p>
+	 * @param zeroCopyValues 保持する場合{@code true}
+	 */
+	public void setZeroCopyValues(boolean zeroCopyValues) {
+		this.zeroCopyValues = zeroCopyValues;
+	}
+	/**
+	 * ファイルやストリームの内容をデコードせずにバイト・シーケンスのまま読み取るかどうかを返す.
+	 * @return 読み取る場合{@code true}
+	 * @see #setByteLevelScanning(boolean)
+	 */
+	public boolean isByteLevelScanning() {
+		return byteLevelScanning;
+	}
+	/**
+	 * ファイルやストリームの内容をデコードせずにバイト・シーケンスのまま読み取るかどうかを設定する.
+	 * <p>{@code true}を指定した場合、パーサーは{@link ParserSupport#parse(java.io.File, java.nio.charset.Charset)}や
+	 * {@link ParserSupport#parse(java.io.InputStream, java.nio.charset.Charset)}で指定された入力データを
+	 * デコードせずにバイト・シーケンスのまま読み取り、ユニット定義の構文をバイト単位で解析する。
+	 * ユニット名とパラメータ名は読み取りの時点でデコードされるが、ASCII文字のみで構成される場合はデコードを行わない。
+	 * パラメータ値とタプルもどきのエントリは{@link #setZeroCopyValues(boolean)}の設定にかかわらず
+	 * 入力データを参照する文字シーケンスとなり、値が必要とされた時点ではじめてデコードされる。
+	 * ただしエスケープ文字を含む値など入力データ上の表現と値の内容が一致しないものは、読み取りの時点でデコードされる。
+	 * これにより{@code cm}パラメータのコメントなどマルチバイト文字を多く含むユニット定義の読み取りが軽量化される。</p>
+	 * <p>この設定が有効となるキャラクターセットはUS-ASCII、ISO-8859-1、UTF-8、EUC-JP、Shift_JISおよびWindows-31Jである。
+	 * それ以外のキャラクターセットが指定された場合、入力データは従来通りデコードされた上で読み取られる。
+	 * また{@link Input}オブジェクトを直接指定してパースを行う場合この設定は無視される。</p>
+	 * <p><strong>メモリ使用量についての注意：</strong>
+	 * この設定はブロック単位の読み取りを行わず、入力データ全体の各バイトを1つの{@code char}に拡張した配列を作成する。
+	 * そのためパースの間、入力データのバイト数のおよそ2倍のヒープが使用される
+	 * （ストリームから読み取る場合はさらに入力データ全体のバイト配列が一時的に作成される）。
+	 * この配列は値を参照する文字シーケンスから参照されるため、
+	 * パース結果のユニットが1つでも参照されている限り解放されない。
+	 * デコードした上でブロック単位で読み取る既定の方法と比べ所要時間は短くなるが、
+	 * 巨大なユニット定義ファイルを読み取る場合はヒープの大きさに注意すること。</p>
+	 * <p>バイト・シーケンスのまま読み取る場合、パース・エラーのメッセージに含まれるカラム数はバイト単位となる。</p>
+	 * @param byteLevelScanning 読み取る場合{@code true}
+	 */
+	public void setByteLevelScanning(boolean byteLevelScanning) {
+		this.byteLevelScanning = byteLevelScanning;
+	}
+	/**
+	 * パラメータ名とパラメータ値の集約に使用する文字列プールを返す.
+	 * @return 文字列プール
+	 * @see #setStringPool(StringPool)
+	 */
+	public StringPool getStringPool() {
+		return stringPool;
+	}
+	/**
+	 * パラメータ名とパラメータ値の集約に使用する文字列プールを設定する.
+	 * <p>文字列プールが設定された場合、パーサーはパラメータ名と
+	 * 文字列・引用符で囲われた文字列のパラメータ値のうち文字列プールの長さの上限以下のものを
+	 * 文字列プールに格納された文字列で置き換える。
+	 * 文字列プールはスレッドセーフであるため、複数のパーサーで1つの文字列プールを共有することができる。</p>
+	 * <p>初期値は{@code null}であり、この場合は文字列の集約を行わない。</p>
+	 * @param stringPool 文字列プール
+	 */
+	public void setStringPool(StringPool stringPool) {
+		this.stringPool = stringPool;
+	}
+	/**
+	 * 読み取り対象とするユニットの完全名の接頭辞を返す.
+	 * @return 完全名の接頭辞
+	 * @see #setFullQualifiedNamePrefix(String)
+	 */
+	public String getFullQualifiedNamePrefix() {
+		return fullQualifiedNamePrefix;
+	}
+	/**
+	 * 読み取り対象とするユニットの完全名の接頭辞を設定する.
+	 * <p>接頭辞が設定された場合、パーサーは完全名が接頭辞で示されるユニットとその配下のユニット、
+	 * そしてそれらの祖先にあたるユニットのみを読み取る。
+	 * 例えば{@code "/PROD/BATCH_A"}が指定された場合、{@code /PROD}と{@code /PROD/BATCH_A}、
+	 * そして{@code /PROD/BATCH_A/JOB1}などは読み取られるが、{@code /PROD/BATCH_B}やその配下のユニットは読み取られない。
+	 * 接頭辞の比較はユニット名の単位で行われるため、{@code /PROD/BATCH_AA}も読み取られない。</p>
+	 * <p>読み取り対象外のユニットの定義は波カッコの対応と二重引用符で囲われた文字列のみを認識して読み飛ばされ、
+	 * そのユニットやパラメータのオブジェクトは生成されない。</p>
+	 * <p>初期値は{@code null}であり、この場合は完全名による絞り込みを行わない。</p>
+	 * @param fullQualifiedNamePrefix 完全名の接頭辞
+	 */
+	public void setFullQualifiedNamePrefix(String fullQualifiedNamePrefix) {
+		this.fullQualifiedNamePrefix = fullQualifiedNamePrefix;
+	}
+	/**
+	 * 読み取り対象とするユニットのユニット種別を返す.
+	 * @return ユニット種別
+	 * @see #setUnitTypes(Set)
+	 */
+	public Set<UnitType> getUnitTypes() {
+		return unitTypes;
+	}
+	/**
+	 * 読み取り対象とするユニットのユニット種別を設定する.
+	 * <p>ユニット種別が設定された場合、パーサーはユニット種別（{@code ty}パラメータ）が
+	 * 指定されたユニット種別のいずれかであるユニットのみを読み取る。
+	 * それ以外のユニットは{@code ty}パラメータが読み取られた時点で配下のユニットとともに読み飛ばされる。
+	 * そのため配下のユニットを読み取るには祖先にあたるユニットのユニット種別も指定する必要がある。
+	 * 例えばジョブネットとそれに含まれるUNIXジョブを読み取るには
+	 * {@link UnitType#JOBNET}と{@link UnitType#UNIX_JOB}の両方を指定する。</p>
+	 * <p>初期値は{@code null}であり、この場合はユニット種別による絞り込みを行わない。</p>
+	 * @param unitTypes ユニット種別
+	 */
+	public void setUnitTypes(Set<UnitType> unitTypes) {
+		this.unitTypes = unitTypes;
+	}
+	/**
+	 * 読み取り対象とするパラメータの名前を返す.
+	 * @return パラメータの名前
+	 * @see #setParameterNames(Set)
+	 */
+	public Set<String> getParameterNames() {
+		return parameterNames;
+	}
+	/**
+	 * 読み取り対象とするパラメータの名前を設定する.
+	 * <p>パラメータの名前が設定された場合、パーサーは指定された名前のパラメータのみを読み取る。
+	 * それ以外のパラメータは区切り文字と引用符のみを認識して読み飛ばされ、
+	 * そのパラメータやパラメータ値のオブジェクトは生成されない。
+	 * ただしユニットの構築に必要な{@code ty}パラメータは指定の有無にかかわらず常に読み取られる。</p>
+	 * <p>初期値は{@code null}であり、この場合はすべてのパラメータを読み取る。</p>
+	 * @param parameterNames パラメータの名前
+	 */
+	public void setParameterNames(Set<String> parameterNames) {
+		this.parameterNames = parameterNames;
+	}
+	/**
+	 * ユニット定義とパラメータの入力データ上の範囲を記録する索引を返す.
+	 * @return 索引
+	 * @see #setSourceMap(SourceMap)
+	 */
+	public SourceMap getSourceMap() {
+		return sourceMap;
+	}
+	/**
+	 * ユニット定義とパラメータの入力データ上の範囲を記録する索引を設定する.
+	 * <p>索引が設定された場合、パーサーは読み取ったユニットごとに
+	 * ユニット定義の開始・終了位置と行数、およびそのユニットに属するパラメータの開始・終了位置と行数を
+	 * ユニットの完全名をキーとして索引に記録する。
+	 * 読み取り対象外として読み飛ばされたユニットやパラメータの範囲は記録されない。</p>
+	 * <p>初期値は{@code null}であり、この場合は範囲の記録を行わない。</p>
+	 * @param sourceMap 索引
+	 */
+	public void setSourceMap(SourceMap sourceMap) {
+		this.sourceMap = sourceMap;
+	}
+}
@@ -0,0 +1,50 @@
+package org.unclazz.jp1ajs2.unitdef.parser;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.unclazz.jp1ajs2.unitdef.Unit;
+
+/**
+ * {@link RecoveringUnitParser}による読み取り結果を格納するオブジェクト.
+ * エラーなく読み取られたルート・ユニットと、読み取り中に検出されたすべての構文エラーを提供する。
+ */
+public final class UnitParseReport {
+	private final List<Unit> units;
+	private final List<ParseException> errors;
+
+	UnitParseReport(final List<Unit> units, final List<ParseException> errors) {
+		this.units = Collections.unmodifiableList(units);
+		this.errors = Collections.unmodifiableList(errors);
+	}
+
+	/**
+	 * エラーなく読み取られたルート・ユニットのリストを返す.
+	 * 配下のユニットを含めて構文エラーが1つも検出されなかったルート・ユニットのみが含まれる。
+	 * ユニットの順序は入力データ上の順序と同じである。
+	 * @return ユニットのリスト
+	 */
+	public List<Unit> getUnits() {
+		return units;
+	}
+	/**
+	 * 検出された構文エラーのリストを返す.
+	 * エラーの順序は入力データ上の順序と同じである。
+	 * エラーの位置は{@link ParseException#getLineNumber()}と{@link ParseException#getColumnNumber()}により取得できる。
+	 * @return 構文エラーのリスト
+	 */
+	public List<ParseException> getErrors() {
+		return errors;
+	}
+	/**
+	 * 構文エラーが検出されたかどうかを返す.
+	 * @return 検出された場合{@code true}
+	 */
+	public boolean hasErrors() {
+		return !errors.isEmpty();
+	}
+	@Override
+	public String toString() {
+		return String.format("UnitParseReport(units=%d, errors=%d)", units.size(), errors.size());
+	}
+}
@@ -1,242 +1,772 @@
-package org.unclazz.jp1ajs2.unitdef.parser;
-
-import java.util.Arrays;
-import java.util.LinkedList;
-import java.util.List;
-
-import org.unclazz.jp1ajs2.unitdef.Parameter;
-import org.unclazz.jp1ajs2.unitdef.ParameterValue;
-import org.unclazz.jp1ajs2.unitdef.Attributes;
-import org.unclazz.jp1ajs2.unitdef.FullQualifiedName;
-import org.unclazz.jp1ajs2.unitdef.Tuple;
-import org.unclazz.jp1ajs2.unitdef.Unit;
-import org.unclazz.jp1ajs2.unitdef.builder.Builders;
-import org.unclazz.jp1ajs2.unitdef.util.StringUtils;
-
-public final class UnitParser extends ParserSupport<List<Unit>> {
-	private static final ParseOptions ParseOptions = new ParseOptions();
-	private static final TupleParser tupleParser = new TupleParser();
-	static {
-		ParseOptions.setEscapePrefixInDoubleQuotes('#');
-	}
-	
-	public UnitParser() {
-		super(ParseOptions);
-	}
-	
-	public ParseResult<List<Unit>> parse(final Input in) {
-		final List<Unit> ret = new LinkedList<Unit>();
-		while (!in.reachedEOF()) {
-			try {
-				helper.skipWhitespace(in);
-				ret.add(parseUnit(in, null));
-				helper.skipWhitespace(in);
-			} catch (final ParseException e) {
-				return ParseResult.failure(e);
-			}
-		}
-		if (ret.isEmpty()) {
-			return ParseResult.failure(new IllegalArgumentException("Unit definition is not found."));
-		}
-		return ParseResult.successful(ret);
-	}
-	
-	Unit parseUnit(final Input in, final FullQualifiedName parent) throws ParseException {
-		try {
-			// ユニット定義の開始キーワードを読み取る
-			helper.skipWhitespace(in);
-			helper.skipWord(in, "unit");
-	
-			// ユニット定義属性その他の初期値を作成
-			final List<String> attrList = Arrays.asList("", "", "", "");
-			final List<Parameter> params = new LinkedList<Parameter>();
-	
-			// ユニット定義属性を読み取る
-			// 属性は最大で4つ、カンマ区切りで指定される
-			for (int i = 0; i < 4; i++) {
-				in.next();
-				attrList.set(i, parseAttr(in));
-				
-				// 現在文字をチェック
-				if (in.current() == ';') {
-					// ';'である場合、ユニット属性パラメータは終わり
-					break;
-				}
-			}
-			final Attributes attrs = Builders
-					.attributes()
-					.setName(attrList.get(0))
-					.setPermissionMode(Builders.permissionMode(attrList.get(1)))
-					.setJP1UserName(attrList.get(2))
-					.setResourceGroupName(attrList.get(3))
-					.build();
-			
-			final FullQualifiedName fqn = (parent == null) 
-					? Builders.fullQualifiedName().addFragment(attrs.getUnitName()).build()
-					: parent.getSubUnitName(attrs.getUnitName());
-	
-			// 属性の定義は「；」で終わる
-			helper.check(in, ';');
-	
-			in.next();
-			helper.skipWhitespace(in);
-	
-			// ユニット定義パラメータの開始カッコを読み取る
-			helper.check(in, '{');
-			in.next();
-			
-			// 空白をスキップ
-			helper.skipWhitespace(in);
-	
-			// '}'が登場したらそこでユニット定義は終わり
-			if (in.current() == '}') {
-				// しかしユニット定義にはすくなくともtyパラメータは必要
-				throw new IllegalArgumentException("parameter \"ty\" is not found");
-			}
-	
-			// サブユニットを格納するリストを初期化
-			final List<Unit> subUnits = new LinkedList<Unit>();
-			
-			// "unit"で始まらないならそれはパラメータ
-			if(! in.restStartsWith("unit")){
-				while (in.unlessEOF()) {
-					// パラメータを読み取る
-					params.add(parseParam(in));
-					// パラメータ読み取り後にもかかわらず現在文字が';'でないなら構文エラー
-					helper.check(in, ';');
-					in.next();
-					helper.skipWhitespace(in);
-					
-					// '}'が登場したらそこでユニット定義は終わり
-					if (in.current() == '}') {
-						in.next();
-						return Builders
-								.unit()
-								.setFullQualifiedName(fqn)
-								.setAttributes(attrs)
-								.addParameters(params)
-								.build();
-						
-					/// "unit"と続くならパラメータの定義は終わりサブユニットの定義に移る
-					}else if(in.restStartsWith("unit")){
-						break;
-					}
-				}
-			}
-			
-			// "unit"で始まるならそれはサブユニット
-			while (in.restStartsWith("unit")) {
-				subUnits.add(parseUnit(in, fqn));
-				helper.skipWhitespace(in);
-			}
-			
-			helper.check(in, '}');
-			in.next();
-			return Builders
-					.unit()
-					.setFullQualifiedName(fqn)
-					.setAttributes(attrs)
-					.addParameters(params)
-					.addSubUnits(subUnits)
-					.build();
-		} catch (InputExeption e) {
-			throw new ParseException(e, in);
-		}
-	}
-
-	Parameter parseParam(final Input in) throws ParseException {
-		try {
-			// '='より以前のパラメータ名の部分を取得する
-			final String name = helper.parseUntil(in, '=');
-			// パラメータ名が存在しない場合は構文エラー
-			if (name.length() == 0) {
-				throw ParseException.syntaxError(in);
-			}
-			// パラメータ値を一時的に格納するリストを初期化
-			final List<ParameterValue> values = new LinkedList<ParameterValue>();
-			// パラメータの終端文字';'が登場するまで繰り返し
-			while (in.current() != ';') {
-				// '='や','を読み飛ばして前進
-				in.next();
-				// パラメータ値を読み取っていったんリストに格納
-				values.add(parseParamValue(in));
-				// パラメータ値読取り後にもかかわらず現在文字が区切り文字以外であれば構文エラー
-				if (in.current() != ',' && in.current() != ';') {
-					throw ParseException.syntaxError(in);
-				}
-			}
-			// 読取った結果を使ってパラメータを初期化して返す
-			return Builders
-					.parameter()
-					.setName(name)
-					.addValues(values)
-					.build();
-		} catch (InputExeption e) {
-			throw new ParseException(e, in);
-		}
-	}
-	
-	ParameterValue parseParamValue(final Input in) throws ParseException {
-		switch (in.current()) {
-		case '(':
-			final Tuple t = parseTuple(in);
-			return Builders.tupleParameterValue(t);
-		case '"':
-			final String q = helper.parseQuotedString(in);
-			return Builders.quotedStringParameterValue(q);
-		default:
-			final String s = parseRawString(in);
-			return Builders.rawStringParameterValue(s);
-		}
-	}
-
-	String parseRawString(final Input in) throws ParseException {
-		try {
-			final StringBuilder sb = StringUtils.builder();
-			while (in.unlessEOF()) {
-				final char c = in.current();
-				if (c == ',' || c == ';') {
-					break;
-				} else if (c == '"') {
-					final String quoted = helper.parseQuotedString(in);
-					sb.append('"').append(quoted.replaceAll("#", "##").replaceAll("\"", "#\"")).append('"');
-				} else {
-					sb.append(c);
-					in.next();
-				}
-			}
-			return sb.toString();
-		} catch (InputExeption e) {
-			throw new ParseException(e, in);
-		}
-	}
-	
-	Tuple parseTuple(final Input in) throws ParseException {
-		final ParseResult<Tuple> r = tupleParser.parse(in);
-		if (r.isSuccessful()) {
-			return r.get();
-		} else {
-			if (r.getError() instanceof ParseException) {
-				throw (ParseException)r.getError();
-			}
-			throw new ParseException(r.getError());
-		}
-	}
-	
-	String parseAttr(final Input in) throws ParseException {
-		try {
-			final StringBuilder sb = StringUtils.builder();
-			while(in.unlessEOF()) {
-				final char c = in.current();
-				if(c == ',' || c == ';') {
-					return sb.length() == 0 ? null : sb.toString();
-				}
-				sb.append(c);
-				in.next();
-			}
-			throw ParseException.syntaxError(in);
-		} catch (InputExeption e) {
-			throw new ParseException(e, in);
-		}
-	}
-}
+package org.unclazz.jp1ajs2.unitdef.parser;
+
+import java.io.File;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.LinkedList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.unclazz.jp1ajs2.unitdef.Parameter;
+import org.unclazz.jp1ajs2.unitdef.ParameterValue;
+import org.unclazz.jp1ajs2.unitdef.Attributes;
+import org.unclazz.jp1ajs2.unitdef.FullQualifiedName;
+import org.unclazz.jp1ajs2.unitdef.Tuple;
+import org.unclazz.jp1ajs2.unitdef.Unit;
+import org.unclazz.jp1ajs2.unitdef.builder.Builders;
+import org.unclazz.jp1ajs2.unitdef.parameter.UnitType;
+import org.unclazz.jp1ajs2.unitdef.util.StringPool;
+import org.unclazz.jp1ajs2.unitdef.util.StringUtils;
+
+/**
+ * ユニット定義を読み取って{@link Unit}のリストを返すパーサー.
+ * <p>このオブジェクトはパース処理の途中状態をフィールドに保持しない。
+ * 途中状態はすべて{@link Input}とメソッドのローカル変数に保持されるため、
+ * 同じインスタンスを複数のスレッドから同時に使用することができる。</p>
+ */
+public final class UnitParser extends ParserSupport<List<Unit>> {
+	/**
+	 * ユニット定義ファイルのためのパース・オプション.
+	 * 二重引用符で囲われた文字列のエスケープ文字として{@code '#'}を使用する。
+	 */
+	static final UnitParseOptions OPTIONS = new UnitParseOptions();
+	private static final TupleParser tupleParser = new TupleParser();
+	private static final TupleParser zeroCopyTupleParser = new TupleParser(true);
+	
+	private final boolean zeroCopyValues;
+	private final boolean byteLevelScanning;
+	private final char escapePrefixInDoubleQuotes;
+	private final StringPool stringPool;
+	private final String[] fqnPrefix;
+	private final EnumSet<UnitType> unitTypes;
+	private final String[] parameterNames;
+	private final SourceMap sourceMap;
+	
+	public UnitParser() {
+		this(OPTIONS);
+	}
+	
+	/**
+	 * コンストラクタ.
+	 * @param options パース・オプション
+	 */
+	public UnitParser(final UnitParseOptions options) {
+		super(options);
+		zeroCopyValues = options.isZeroCopyValues();
+		byteLevelScanning = options.isByteLevelScanning();
+		escapePrefixInDoubleQuotes = options.getEscapePrefixInDoubleQuotes();
+		stringPool = options.getStringPool();
+		sourceMap = options.getSourceMap();
+		fqnPrefix = splitFullQualifiedName(options.getFullQualifiedNamePrefix());
+		unitTypes = options.getUnitTypes() == null ? null
+				: options.getUnitTypes().isEmpty() ? EnumSet.noneOf(UnitType.class)
+				: EnumSet.copyOf(options.getUnitTypes());
+		if (options.getParameterNames() == null) {
+			parameterNames = null;
+		} else {
+			// ユニットの構築に必要なtyパラメータは常に読み取り対象とする
+			final Set<String> names = new LinkedHashSet<String>();
+			names.add("ty");
+			names.addAll(options.getParameterNames());
+			parameterNames = names.toArray(new String[names.size()]);
+		}
+	}
+	
+	private static String[] splitFullQualifiedName(final String fqn) {
+		if (fqn == null) {
+			return null;
+		}
+		final List<String> fragments = new LinkedList<String>();
+		for (final String f : fqn.split("/")) {
+			if (f.length() > 0) {
+				fragments.add(f);
+			}
+		}
+		return fragments.toArray(new String[fragments.size()]);
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * <p>{@link UnitParseOptions#isByteLevelScanning()}が{@code true}の場合、
+	 * ファイルの内容はデコードされずにバイト・シーケンスのまま読み取られる。</p>
+	 */
+	@Override
+	protected Input createInput(final File file, final Charset charset) throws InputExeption {
+		return byteLevelScanning ? Input.fromFileBytes(file, charset) : super.createInput(file, charset);
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * <p>{@link UnitParseOptions#isByteLevelScanning()}が{@code true}の場合、
+	 * ストリームの内容はデコードされずにバイト・シーケンスのまま読み取られる。</p>
+	 */
+	@Override
+	protected Input createInput(final InputStream stream, final Charset charset) throws InputExeption {
+		return byteLevelScanning ? Input.fromStreamBytes(stream, charset) : super.createInput(stream, charset);
+	}
+	
+	public ParseResult<List<Unit>> parse(final Input input) {
+		final Input in;
+		try {
+			// パラメータ値に入力データの文字配列を参照させる場合は入力データ全体を文字配列に読み取る
+			in = zeroCopyValues ? input.toArrayBacked() : input;
+		} catch (final InputExeption e) {
+			return ParseResult.failure(e);
+		}
+		final List<Unit> ret = new LinkedList<Unit>();
+		while (!in.reachedEOF()) {
+			try {
+				helper.skipWhitespace(in);
+				final Unit unit = parseUnit(in, null);
+				if (unit != null) {
+					ret.add(unit);
+				}
+				helper.skipWhitespace(in);
+			} catch (final ParseException e) {
+				return ParseResult.failure(e);
+			}
+		}
+		if (ret.isEmpty() && !filtersUnits()) {
+			return ParseResult.failure(new IllegalArgumentException("Unit definition is not found."));
+		}
+		return ParseResult.successful(ret);
+	}
+	
+	/**
+	 * 入力データの一部が編集された後のユニット定義を、編集箇所を含むユニットのみを読み直すことで読み取る.
+	 * <p>このメソッドは{@link UnitParseOptions#setSourceMap(SourceMap)}で指定された索引に記録された範囲を使用して、
+	 * 編集箇所を含むもっとも内側のユニットを特定する。そしてそのユニットの範囲だけを編集後の入力データから読み直し、
+	 * ルート・ユニットからそのユニットに至るまでの祖先のユニットのみを再構築する。
+	 * 編集箇所を含まないユニットは前回のパース結果のインスタンスがそのまま共有される。
+	 * 索引に記録された範囲も編集後の入力データに合わせて更新されるため、このメソッドを繰り返し呼び出すことができる。</p>
+	 * <p>編集箇所はユニット定義の範囲の内側、すなわち{@code "unit"}キーワードの先頭の文字より後ろで、
+	 * ユニット定義を終える<code>'}'</code>より前になければならない。
+	 * 編集箇所を含むユニットが見つからない場合や、読み直した結果ユニット定義の範囲が変化した場合は、
+	 * 索引の記録を消去した上で入力データ全体をパースする。</p>
+	 * <p>このメソッドの呼び出しは、索引を共有する他のパース処理と同時に行ってはならない。</p>
+	 * @param units 前回のパース結果（このパーサーにより編集前の入力データをパースしたもの）
+	 * @param text 編集後の入力データ
+	 * @param offset 編集箇所の開始位置
+	 * @param removedLength 編集により取り除かれた文字数
+	 * @param insertedLength 編集により挿入された文字数
+	 * @return パース結果
+	 * @throws IllegalStateException 索引が設定されていない場合
+	 */
+	public ParseResult<List<Unit>> reparse(final List<Unit> units, final CharSequence text,
+			final int offset, final int removedLength, final int insertedLength) {
+		if (sourceMap == null) {
+			throw new IllegalStateException("Source map is not specified.");
+		}
+		return new UnitReparser(this, sourceMap).reparse(units, text, offset, removedLength, insertedLength);
+	}
+	
+	/**
+	 * ユニット定義を読み取る.
+	 * 読み取り対象とするユニットの完全名やユニット種別が指定されており、
+	 * 読み取ったユニットがその対象外である場合は、ユニット定義の終わりまで読み飛ばした上で{@code null}を返す。
+	 * @param in 入力データ
+	 * @param parent 上位ユニットの完全名
+	 * @return ユニット
+	 * @throws ParseException 読み取り中にエラーが発生した場合
+	 */
+	Unit parseUnit(final Input in, final FullQualifiedName parent) throws ParseException {
+		try {
+			// ユニット定義の開始位置を記録する
+			final long startOffset = in.offset();
+			final int startLineNumber = in.lineNumber();
+			// ユニット定義属性を読み取る
+			final Attributes attrs = parseAttributes(in);
+			final List<Parameter> params = new ArrayList<Parameter>();
+			
+			final FullQualifiedName fqn = (parent == null) 
+					? Builders.fullQualifiedName().addFragment(attrs.getUnitName()).build()
+					: parent.getSubUnitName(attrs.getUnitName());
+	
+			in.next();
+			helper.skipWhitespace(in);
+	
+			// ユニット定義パラメータの開始カッコを読み取る
+			helper.check(in, '{');
+			in.next();
+			
+			// 読み取り対象外のユニットであれば読み飛ばす
+			if (!isTargetUnit(fqn)) {
+				skipUnitBody(helper, in);
+				return null;
+			}
+			
+			// 空白をスキップ
+			helper.skipWhitespace(in);
+	
+			// '}'が登場したらそこでユニット定義は終わり
+			if (in.current() == '}') {
+				// しかしユニット定義にはすくなくともtyパラメータは必要
+				throw new IllegalArgumentException("parameter \"ty\" is not found");
+			}
+	
+			// サブユニットを格納するリストを初期化
+			final List<Unit> subUnits = new ArrayList<Unit>();
+			// パラメータの範囲を格納する配列を初期化
+			final SourceMap.ParameterRanges paramRanges = newParameterRanges();
+			
+			// "unit"で始まらないならそれはパラメータ
+			if(! in.restStartsWith("unit")){
+				while (in.unlessEOF()) {
+					// パラメータを読み取る
+					final long paramStartOffset = in.offset();
+					final int paramStartLineNumber = in.lineNumber();
+					final Parameter p = parseParam(in);
+					if (p != null) {
+						params.add(p);
+					}
+					// パラメータ読み取り後にもかかわらず現在文字が';'でないなら構文エラー
+					helper.check(in, ';');
+					if (paramRanges != null && p != null) {
+						paramRanges.add(paramStartOffset, in.offset() + 1, paramStartLineNumber, in.lineNumber());
+					}
+					in.next();
+					// 読み取り対象外のユニット種別であれば読み飛ばす
+					if (p != null && !isTargetUnitType(p)) {
+						skipUnitBody(helper, in);
+						return null;
+					}
+					helper.skipWhitespace(in);
+					
+					// '}'が登場したらそこでユニット定義は終わり
+					if (in.current() == '}') {
+						recordRange(in, fqn, startOffset, startLineNumber, paramRanges);
+						in.next();
+						return Builders
+								.unit()
+								.setFullQualifiedName(fqn)
+								.setAttributes(attrs)
+								.addParameters(params)
+								.build();
+						
+					/// "unit"と続くならパラメータの定義は終わりサブユニットの定義に移る
+					}else if(in.restStartsWith("unit")){
+						break;
+					}
+				}
+			}
+			
+			// "unit"で始まるならそれはサブユニット
+			while (in.restStartsWith("unit")) {
+				final Unit subUnit = parseUnit(in, fqn);
+				if (subUnit != null) {
+					subUnits.add(subUnit);
+				}
+				helper.skipWhitespace(in);
+			}
+			
+			helper.check(in, '}');
+			recordRange(in, fqn, startOffset, startLineNumber, paramRanges);
+			in.next();
+			return Builders
+					.unit()
+					.setFullQualifiedName(fqn)
+					.setAttributes(attrs)
+					.addParameters(params)
+					.addSubUnits(subUnits)
+					.build();
+		} catch (InputExeption e) {
+			throw new ParseException(e, in);
+		}
+	}
+
+	/**
+	 * 索引が設定されている場合、ユニット定義の範囲を索引に記録する.
+	 * 現在文字はユニット定義を終える{@code '}'}であることが前提である。
+	 * @param in 入力データ
+	 * @param fqn ユニットの完全名
+	 * @param startOffset ユニット定義の開始位置
+	 * @param startLineNumber ユニット定義の開始位置の行数
+	 * @param paramRanges パラメータの範囲
+	 */
+	void recordRange(final Input in, final FullQualifiedName fqn, final long startOffset,
+			final int startLineNumber, final SourceMap.ParameterRanges paramRanges) {
+		if (sourceMap != null) {
+			sourceMap.put(fqn, new SourceRange(startOffset, in.offset() + 1,
+					startLineNumber, in.lineNumber()), paramRanges);
+		}
+	}
+	
+	/**
+	 * 索引が設定されている場合、パラメータの範囲を格納するオブジェクトを生成する.
+	 * @return パラメータの範囲を格納するオブジェクト、索引が設定されていない場合は{@code null}
+	 */
+	SourceMap.ParameterRanges newParameterRanges() {
+		return sourceMap == null ? null : new SourceMap.ParameterRanges();
+	}
+	
+	/**
+	 * 読み取り対象とするユニットの完全名もしくはユニット種別が指定されているかどうかを判定する.
+	 * @return 指定されている場合{@code true}
+	 */
+	boolean filtersUnits() {
+		return fqnPrefix != null || unitTypes != null;
+	}
+	
+	/**
+	 * 完全名が示すユニットが読み取り対象であるかどうかを判定する.
+	 * @param fqn 完全名
+	 * @return 読み取り対象の完全名が指定されていないか、完全名がその接頭辞と一致する場合{@code true}
+	 */
+	boolean isTargetUnit(final FullQualifiedName fqn) {
+		return fqnPrefix == null || matchesPrefix(fqn);
+	}
+	
+	/**
+	 * パラメータが読み取り対象外のユニット種別を示すものでないかどうかを判定する.
+	 * @param p パラメータ
+	 * @return 読み取り対象のユニット種別が指定されていないか、{@link #matchesUnitType(Parameter)}が{@code true}を返す場合{@code true}
+	 */
+	boolean isTargetUnitType(final Parameter p) {
+		return unitTypes == null || matchesUnitType(p);
+	}
+	
+	/**
+	 * 完全名が読み取り対象の完全名の接頭辞と一致するかどうかを判定する.
+	 * 完全名が接頭辞で示されるユニットの祖先・子孫にあたる場合も一致するものとする。
+	 * @param fqn 完全名
+	 * @return 一致する場合{@code true}
+	 */
+	private boolean matchesPrefix(final FullQualifiedName fqn) {
+		final List<CharSequence> fragments = fqn.getFragments();
+		final int len = Math.min(fragments.size(), fqnPrefix.length);
+		for (int i = 0; i < len; i ++) {
+			if (!StringUtils.contentsAreEqual(fragments.get(i), fqnPrefix[i])) {
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	/**
+	 * パラメータが{@code ty}でないか、読み取り対象のユニット種別を示すものであるかどうかを判定する.
+	 * @param p パラメータ
+	 * @return {@code ty}でないか読み取り対象のユニット種別を示す場合{@code true}
+	 */
+	private boolean matchesUnitType(final Parameter p) {
+		if (!p.getName().equals("ty")) {
+			return true;
+		}
+		final UnitType t = UnitType.valueOfCode(p.getValues().get(0).getStringValue());
+		return t != null && unitTypes.contains(t);
+	}
+	
+	/**
+	 * ユニット定義の開始キーワードとユニット定義属性を読み取る.
+	 * 読み取り完了後の現在文字は属性の定義を終える{@code ';'}となる。
+	 * @param in 入力データ
+	 * @return ユニット定義属性
+	 * @throws ParseException 読み取り中にエラーが発生した場合
+	 */
+	Attributes parseAttributes(final Input in) throws ParseException {
+		try {
+			// ユニット定義の開始キーワードを読み取る
+			helper.skipWhitespace(in);
+			helper.skipWord(in, "unit");
+	
+			// ユニット定義属性の初期値を作成
+			final List<String> attrList = Arrays.asList("", "", "", "");
+	
+			// ユニット定義属性を読み取る
+			// 属性は最大で4つ、カンマ区切りで指定される
+			for (int i = 0; i < 4; i++) {
+				in.next();
+				attrList.set(i, parseAttr(in));
+				
+				// 現在文字をチェック
+				if (in.current() == ';') {
+					// ';'である場合、ユニット属性パラメータは終わり
+					break;
+				}
+			}
+			
+			// 属性の定義は「；」で終わる
+			helper.check(in, ';');
+			
+			return Builders
+					.attributes()
+					.setName(attrList.get(0))
+					.setPermissionMode(Builders.permissionMode(attrList.get(1)))
+					.setJP1UserName(attrList.get(2))
+					.setResourceGroupName(attrList.get(3))
+					.build();
+		} catch (InputExeption e) {
+			throw new ParseException(e, in);
+		}
+	}
+
+	/**
+	 * ユニット定義パラメータを読み取る.
+	 * 読み取り対象とするパラメータの名前が指定されており、
+	 * 読み取ったパラメータがその対象外である場合は、パラメータ値を読み飛ばした上で{@code null}を返す。
+	 * 読み取り完了後の現在文字はパラメータの定義を終える{@code ';'}となる。
+	 * @param in 入力データ
+	 * @return パラメータ
+	 * @throws ParseException 読み取り中にエラーが発生した場合
+	 */
+	Parameter parseParam(final Input in) throws ParseException {
+		try {
+			// '='より以前のパラメータ名の部分を取得する
+			final String name;
+			final int nameLength = parameterNames == null ? -1 : paramNameLength(in);
+			if (nameLength > 0) {
+				// 読み取り対象のパラメータの名前と直接比較することで文字列の生成を避ける
+				name = keptParamName(in, nameLength);
+				in.skip(nameLength);
+			} else {
+				final String n = intern(in.decode(helper.parseUntil(in, '=')));
+				name = parameterNames == null || n.length() == 0 ? n : keptParamName(n);
+				// パラメータ名が存在しない場合は構文エラー
+				if (n.length() == 0) {
+					throw ParseException.syntaxError(in);
+				}
+			}
+			// 読み取り対象外のパラメータであればパラメータ値を読み飛ばす
+			if (name == null) {
+				skipParamValues(in);
+				return null;
+			}
+			// パラメータ値を一時的に格納するリストを初期化
+			final List<ParameterValue> values = new ArrayList<ParameterValue>();
+			// パラメータの終端文字';'が登場するまで繰り返し
+			while (in.current() != ';') {
+				// '='や','を読み飛ばして前進
+				in.next();
+				// パラメータ値を読み取っていったんリストに格納
+				values.add(parseParamValue(in));
+				// パラメータ値読取り後にもかかわらず現在文字が区切り文字以外であれば構文エラー
+				if (in.current() != ',' && in.current() != ';') {
+					throw ParseException.syntaxError(in);
+				}
+			}
+			// 読取った結果を使ってパラメータを初期化して返す
+			return Builders
+					.parameter()
+					.setName(name)
+					.addValues(values)
+					.build();
+		} catch (InputExeption e) {
+			throw new ParseException(e, in);
+		}
+	}
+	
+	/**
+	 * 現在の行の中で現在位置から{@code '='}の直前までの文字数を返す.
+	 * 現在の行の中に{@code '='}が存在しない場合は{@code -1}を返す。
+	 * @param in 入力データ
+	 * @return 文字数
+	 */
+	private int paramNameLength(final Input in) {
+		for (int i = 0; i < in.restLength(); i ++) {
+			if (in.peek(i) == '=') {
+				return i;
+			}
+		}
+		return -1;
+	}
+	
+	/**
+	 * 現在位置から始まる指定された長さの文字列が読み取り対象のパラメータの名前であればその名前を返す.
+	 * @param in 入力データ
+	 * @param length 文字数
+	 * @return 読み取り対象のパラメータの名前、対象外である場合は{@code null}
+	 */
+	private String keptParamName(final Input in, final int length) {
+		for (final String n : parameterNames) {
+			if (n.length() == length && in.matchesAt(0, n)) {
+				return n;
+			}
+		}
+		return null;
+	}
+	
+	/**
+	 * 文字列が読み取り対象のパラメータの名前であればその名前を返す.
+	 * @param name 文字列
+	 * @return 読み取り対象のパラメータの名前、対象外である場合は{@code null}
+	 */
+	private String keptParamName(final String name) {
+		for (final String n : parameterNames) {
+			if (n.equals(name)) {
+				return n;
+			}
+		}
+		return null;
+	}
+	
+	/**
+	 * パラメータ値をパラメータの定義を終える{@code ';'}の直前まで読み飛ばす.
+	 * 構文の検査は{@link #parseParam(Input)}と同じように行われる。
+	 * 引用符で囲われた文字列はコメントを認識しない{@link StructureScanner}により読み飛ばす。
+	 * @param in 入力データ
+	 * @throws ParseException 読み飛ばし中にエラーが発生した場合
+	 */
+	private void skipParamValues(final Input in) throws ParseException {
+		final StructureScanner.OfInput s = helper.valueScanner(in);
+		while (in.current() != ';') {
+			// '='や','を読み飛ばして前進
+			s.skip();
+			final char c0 = in.current();
+			if (c0 == '(') {
+				skipTuple(in, s);
+			} else if (c0 == '"') {
+				helper.skipQuotedString(in);
+			} else {
+				int c = s.peek();
+				while (c != StructureScanner.EOF && c != ',' && c != ';') {
+					s.consume();
+					c = s.peek();
+				}
+				if (s.inQuotedString()) {
+					throw new ParseException("Unclosed quoted string.", in);
+				}
+			}
+			if (in.current() != ',' && in.current() != ';') {
+				throw ParseException.syntaxError(in);
+			}
+		}
+	}
+	
+	/**
+	 * タプルもどきを読み飛ばす.
+	 * {@link TupleParser}と同様に{@code '='}の直後の文字はエントリの値の一部とみなす。
+	 * @param in 入力データ
+	 * @param s 入力データを走査するスキャナー
+	 * @throws ParseException 読み飛ばし中にエラーが発生した場合
+	 */
+	private void skipTuple(final Input in, final StructureScanner.OfInput s) throws ParseException {
+		s.consume();
+		while (true) {
+			final int c = s.peek();
+			if (c == StructureScanner.EOF) {
+				throw ParseException.arg1ExpectedButFoundArg2(in, ')', in.current());
+			}
+			s.consume();
+			if (c == ')') {
+				return;
+			} else if (c == '=') {
+				s.skip();
+			}
+		}
+	}
+	
+	ParameterValue parseParamValue(final Input in) throws ParseException {
+		switch (in.current()) {
+		case '(':
+			final Tuple t = parseTuple(in);
+			return Builders.tupleParameterValue(t);
+		case '"':
+			final CharSequence q = zeroCopy(in) ? parseQuotedStringSlice(in) : null;
+			return Builders.quotedStringParameterValue(intern(q != null ? q
+					: in.decode(helper.parseQuotedString(in))));
+		default:
+			final CharSequence s = zeroCopy(in) ? parseRawStringSlice(in) : null;
+			return Builders.rawStringParameterValue(intern(s != null ? s : in.decode(parseRawString(in))));
+		}
+	}
+	
+	/**
+	 * パラメータ値を入力データの文字配列を参照する文字シーケンスとして読み取るかどうかを判定する.
+	 * 入力データがバイト文字配列である場合は値のデコードを遅延させるため常にそのように読み取る。
+	 * @param in 入力データ
+	 * @return 文字シーケンスとして読み取る場合{@code true}
+	 */
+	private boolean zeroCopy(final Input in) {
+		return zeroCopyValues || in.byteCharset() != null;
+	}
+	
+	/**
+	 * 文字列プールが設定されている場合、文字シーケンスを文字列プールに格納された文字列で置き換える.
+	 * 文字列プールの長さの上限を超える文字シーケンスはそのまま返す。
+	 * @param s 文字シーケンス
+	 * @return 文字シーケンス
+	 */
+	private CharSequence intern(final CharSequence s) {
+		return stringPool == null || s.length() > stringPool.getMaxLength() ? s : stringPool.intern(s);
+	}
+	
+	/**
+	 * 文字列プールが設定されている場合、文字列を文字列プールに格納された文字列で置き換える.
+	 * @param s 文字列
+	 * @return 文字列
+	 */
+	private String intern(final String s) {
+		return stringPool == null ? s : stringPool.intern(s);
+	}
+	
+	/**
+	 * 引用符で囲われた文字列を入力データの文字配列を参照する文字シーケンスとして読み取る.
+	 * 入力データが文字配列を保持していない場合や文字列にエスケープ文字が含まれる場合は
+	 * 読み取り位置を移動せずに{@code null}を返す。
+	 * @param in 入力データ
+	 * @return 読み取り結果
+	 * @throws ParseException 読み取り中にエラーが発生した場合
+	 */
+	CharSequence parseQuotedStringSlice(final Input in) throws ParseException {
+		final char[] a = in.array();
+		if (a == null) {
+			return null;
+		}
+		final int start = in.arrayIndex();
+		final int end = in.arrayEnd();
+		for (int i = start + 1; i < end; i ++) {
+			final char c = a[i];
+			if (c == '"') {
+				if (escapePrefixInDoubleQuotes == '"' && i + 1 < end && a[i + 1] == '"') {
+					return null;
+				}
+				try {
+					in.skip(i - start + 1);
+				} catch (final InputExeption e) {
+					throw new ParseException(e, in);
+				}
+				return in.slice(start + 1, i - start - 1);
+			} else if (c == escapePrefixInDoubleQuotes) {
+				return null;
+			}
+		}
+		return null;
+	}
+	
+	/**
+	 * 文字列を入力データの文字配列を参照する文字シーケンスとして読み取る.
+	 * 入力データが文字配列を保持していない場合や、
+	 * 文字列の中の引用符で囲われた部分の表現が{@link #parseRawString(Input)}の結果と一致しない場合は
+	 * 読み取り位置を移動せずに{@code null}を返す。
+	 * @param in 入力データ
+	 * @return 読み取り結果
+	 * @throws ParseException 読み取り中にエラーが発生した場合
+	 */
+	CharSequence parseRawStringSlice(final Input in) throws ParseException {
+		final char[] a = in.array();
+		if (a == null) {
+			return null;
+		}
+		final int start = in.arrayIndex();
+		final int end = in.arrayEnd();
+		int i = start;
+		while (i < end) {
+			final char c = a[i];
+			if (c == ',' || c == ';') {
+				break;
+			} else if (c == '"') {
+				// parseRawString(Input)は引用符で囲われた部分を'#'でエスケープし直すため
+				// エスケープされた文字が'#'と'"'だけであれば入力データ上の表現と一致する
+				i ++;
+				while (true) {
+					if (i >= end) {
+						return null;
+					}
+					final char c1 = a[i];
+					if (c1 == '"') {
+						if (escapePrefixInDoubleQuotes == '"') {
+							return null;
+						}
+						i ++;
+						break;
+					} else if (c1 == escapePrefixInDoubleQuotes) {
+						if (c1 != '#' || i + 1 >= end || (a[i + 1] != '#' && a[i + 1] != '"')) {
+							return null;
+						}
+						i += 2;
+					} else {
+						i ++;
+					}
+				}
+			} else {
+				i ++;
+			}
+		}
+		try {
+			in.skip(i - start);
+		} catch (final InputExeption e) {
+			throw new ParseException(e, in);
+		}
+		return in.slice(start, i - start);
+	}
+
+	String parseRawString(final Input in) throws ParseException {
+		try {
+			final StringBuilder sb = StringUtils.builder();
+			while (in.unlessEOF()) {
+				final char c = in.current();
+				if (c == ',' || c == ';') {
+					break;
+				} else if (c == '"') {
+					final String quoted = helper.parseQuotedString(in);
+					sb.append('"').append(quoted.replaceAll("#", "##").replaceAll("\"", "#\"")).append('"');
+				} else {
+					sb.append(c);
+					in.next();
+				}
+			}
+			return sb.toString();
+		} catch (InputExeption e) {
+			throw new ParseException(e, in);
+		}
+	}
+	
+	Tuple parseTuple(final Input in) throws ParseException {
+		final ParseResult<Tuple> r = (zeroCopy(in) ? zeroCopyTupleParser : tupleParser).parse(in);
+		if (r.isSuccessful()) {
+			return r.get();
+		} else {
+			if (r.getError() instanceof ParseException) {
+				throw (ParseException)r.getError();
+			}
+			throw new ParseException(r.getError());
+		}
+	}
+	
+	String parseAttr(final Input in) throws ParseException {
+		try {
+			final StringBuilder sb = StringUtils.builder();
+			while(in.unlessEOF()) {
+				final char c = in.current();
+				if(c == ',' || c == ';') {
+					return sb.length() == 0 ? null : in.decode(sb.toString());
+				}
+				sb.append(c);
+				in.next();
+			}
+			throw ParseException.syntaxError(in);
+		} catch (InputExeption e) {
+			throw new ParseException(e, in);
+		}
+	}
+	
+	/**
+	 * 現在位置から対応する<code>'}'</code>までを読み飛ばす.
+	 * 現在位置はユニット定義パラメータの開始カッコの直後にあることが前提である。
+	 * 読み取り完了後の現在位置は<code>'}'</code>の直後となる。
+	 * <p>走査には{@link UnitBoundaryScanner}と同じく{@link StructureScanner}を使用するため、
+	 * コメントは<code>'{'</code>・<code>'}'</code>・<code>';'</code>の後のトークンの区切りの位置でのみ認識する。</p>
+	 * @param helper ヘルパー
+	 * @param in 入力データ
+	 * @throws ParseException 読み取り中にエラーが発生した場合
+	 */
+	static void skipUnitBody(final ParseHelper helper, final Input in) throws ParseException {
+		final StructureScanner.OfInput s = helper.scanner(in, true);
+		while (true) {
+			final int c = s.peek();
+			if (c == StructureScanner.EOF) {
+				if (s.inQuotedString()) {
+					throw new ParseException("Unclosed quoted string.", in);
+				}
+				throw ParseException.arg1NotFound(in, "}");
+			}
+			s.consume();
+			if (c == '}' && s.depth() < 0) {
+				return;
+			}
+		}
+	}
+}
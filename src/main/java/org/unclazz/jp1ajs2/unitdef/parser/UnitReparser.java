@@ -0,0 +1,138 @@
+package org.unclazz.jp1ajs2.unitdef.parser;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.unclazz.jp1ajs2.unitdef.FullQualifiedName;
+import org.unclazz.jp1ajs2.unitdef.Unit;
+import org.unclazz.jp1ajs2.unitdef.builder.Builders;
+
+/**
+ * 入力データの一部が編集された後のユニット定義を、編集箇所を含むユニットのみを読み直すことで読み取る.
+ * <p>{@link UnitParser#reparse(List, CharSequence, int, int, int)}の実装である。
+ * ユニット定義の読み取りそのものは{@link UnitParser}に委譲し、
+ * このクラスは{@link SourceMap}による編集箇所の特定と祖先のユニットの再構築のみを行う。</p>
+ */
+final class UnitReparser {
+	private final UnitParser parser;
+	private final SourceMap sourceMap;
+	
+	/**
+	 * コンストラクタ.
+	 * @param parser ユニット定義を読み取るパーサー
+	 * @param sourceMap パーサーのパース・オプションに設定された索引
+	 */
+	UnitReparser(final UnitParser parser, final SourceMap sourceMap) {
+		this.parser = parser;
+		this.sourceMap = sourceMap;
+	}
+	
+	/**
+	 * 入力データの一部が編集された後のユニット定義を、編集箇所を含むユニットのみを読み直すことで読み取る.
+	 * @param units 前回のパース結果
+	 * @param text 編集後の入力データ
+	 * @param offset 編集箇所の開始位置
+	 * @param removedLength 編集により取り除かれた文字数
+	 * @param insertedLength 編集により挿入された文字数
+	 * @return パース結果
+	 * @see UnitParser#reparse(List, CharSequence, int, int, int)
+	 */
+	ParseResult<List<Unit>> reparse(final List<Unit> units, final CharSequence text,
+			final int offset, final int removedLength, final int insertedLength) {
+		// 編集箇所を含むもっとも内側のユニットとその祖先を特定する
+		final List<Unit> path = new ArrayList<Unit>();
+		List<Unit> candidates = units;
+		SourceRange range = null;
+		while (true) {
+			Unit found = null;
+			for (final Unit u : candidates) {
+				final SourceRange r = sourceMap.getUnitRange(u.getFullQualifiedName());
+				if (r != null && r.getStartOffset() < offset && offset + removedLength < r.getEndOffset()) {
+					found = u;
+					range = r;
+					break;
+				}
+			}
+			if (found == null) {
+				break;
+			}
+			path.add(found);
+			candidates = found.getSubUnits();
+		}
+		if (path.isEmpty()) {
+			return parseAll(text);
+		}
+		
+		// 編集箇所を含むユニットの範囲だけを読み直す
+		final Unit target = path.get(path.size() - 1);
+		final FullQualifiedName parent = path.size() == 1 ? null : path.get(path.size() - 2).getFullQualifiedName();
+		final long delta = insertedLength - removedLength;
+		final int start = (int) range.getStartOffset();
+		final int end = (int) (range.getEndOffset() + delta);
+		if (end > text.length()) {
+			return parseAll(text);
+		}
+		final char[] cs = new char[end - start];
+		for (int i = 0; i < cs.length; i ++) {
+			cs[i] = text.charAt(start + i);
+		}
+		sourceMap.removeSubtree(target.getFullQualifiedName().toString());
+		final Unit unit;
+		try {
+			final Input in = Input.fromCharArray(cs, 0, cs.length, range.getStartLineNumber() - 1, start);
+			unit = parser.parseUnit(in, parent);
+			// ユニット定義が同じ位置で終わっていなければ範囲が変化している
+			if (unit == null || !in.reachedEOF()) {
+				return parseAll(text);
+			}
+		} catch (final ParseException e) {
+			return parseAll(text);
+		} catch (final InputExeption e) {
+			return parseAll(text);
+		}
+		
+		// 索引に記録された他のユニットの範囲を移動する
+		final SourceRange newRange = sourceMap.getUnitRange(unit.getFullQualifiedName());
+		sourceMap.shift(unit.getFullQualifiedName().toString(), range.getEndOffset(), delta,
+				newRange.getEndLineNumber() - range.getEndLineNumber());
+		
+		// 祖先のユニットを再構築する
+		Unit replacement = unit;
+		for (int i = path.size() - 2; i >= 0; i --) {
+			replacement = replaceSubUnit(path.get(i), path.get(i + 1), replacement);
+		}
+		final List<Unit> result = new ArrayList<Unit>(units);
+		result.set(result.indexOf(path.get(0)), replacement);
+		return ParseResult.successful(result);
+	}
+	
+	/**
+	 * 索引の記録を消去した上で入力データ全体をパースする.
+	 * @param text 入力データ
+	 * @return パース結果
+	 */
+	private ParseResult<List<Unit>> parseAll(final CharSequence text) {
+		sourceMap.clear();
+		return parser.parse(text);
+	}
+	
+	/**
+	 * サブユニットの1つを置き換えたユニットを生成する.
+	 * パラメータと置き換え対象以外のサブユニットは元のユニットのインスタンスがそのまま共有される。
+	 * @param unit 元のユニット
+	 * @param oldSubUnit 置き換え対象のサブユニット
+	 * @param newSubUnit 新しいサブユニット
+	 * @return ユニット
+	 */
+	private static Unit replaceSubUnit(final Unit unit, final Unit oldSubUnit, final Unit newSubUnit) {
+		final List<Unit> subUnits = new ArrayList<Unit>(unit.getSubUnits());
+		subUnits.set(subUnits.indexOf(oldSubUnit), newSubUnit);
+		return Builders
+				.unit()
+				.setFullQualifiedName(unit.getFullQualifiedName())
+				.setAttributes(unit.getAttributes())
+				.addParameters(unit.getParameters())
+				.addSubUnits(subUnits)
+				.build();
+	}
+}
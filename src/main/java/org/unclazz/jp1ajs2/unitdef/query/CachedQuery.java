@@ -20,10 +20,21 @@ public final class CachedQuery<T, U> implements Query<T, U> {
 		return new CachedQuery<T, U>(q);
 	}
 	
-	private T lastTarget = null;
-	private boolean done = false;
-	private Query<T, U> baseQuery = null;
-	private U cachedResult = null;
+	/**
+	 * 直前の問合せ対象と問合せ結果の組.
+	 * 複数のスレッドから同時に問合せが行われても対象と結果の組み合わせが崩れないよう1つのオブジェクトとして保持する。
+	 */
+	private static final class Entry<T, U> {
+		private final T target;
+		private final U result;
+		private Entry(final T target, final U result) {
+			this.target = target;
+			this.result = result;
+		}
+	}
+	
+	private final Query<T, U> baseQuery;
+	private volatile Entry<T, U> last = null;
 	
 	private CachedQuery(final Query<T, U> q) {
 		assertNotNull(q, "argument must not be null.");
@@ -36,15 +47,15 @@ public final class CachedQuery<T, U> implements Query<T, U> {
 		assertNotNull(t, "argument must not be null.");
 		
 		// 問合せ済み かつ 直前の問合せ対象と同じオブジェクト参照であるかチェック
-		if (done && lastTarget == t) {
+		final Entry<T, U> e = last;
+		if (e != null && e.target == t) {
 			// 条件に適合する場合はキャッシュ済みの結果を返す
-			return cachedResult;
+			return e.result;
 		}
 		
 		// 問合せ済みでない もしくは 新規の問合せ対象である場合は問合せを実施
-		cachedResult = baseQuery.queryFrom(t);
-		done = true;
-		baseQuery = null;
-		return cachedResult;
+		final U result = baseQuery.queryFrom(t);
+		last = new Entry<T, U>(t, result);
+		return result;
 	}
 }
@@ -7,6 +7,7 @@ import java.util.regex.Pattern;
 
 import org.unclazz.jp1ajs2.unitdef.Parameter;
 import org.unclazz.jp1ajs2.unitdef.Unit;
+import org.unclazz.jp1ajs2.unitdef.builder.ParameterLookup;
 import org.unclazz.jp1ajs2.unitdef.util.ChunkLazyIterable;
 import org.unclazz.jp1ajs2.unitdef.util.LazyIterable;
 import org.unclazz.jp1ajs2.unitdef.util.Predicate;
@@ -23,32 +24,43 @@ implements ParameterIterableQuery {
 		private final Query<Unit,Iterable<Unit>> baseQuery;
 		private final List<Predicate<Parameter>> preds;
 		private final WhenThenList whenThenList;
+		private final String indexedName;
 		public QueryFactory(Query<Unit,Iterable<Unit>> baseQuery,
-				List<Predicate<Parameter>> preds, WhenThenList whenThenList) {
+				List<Predicate<Parameter>> preds, WhenThenList whenThenList,
+				String indexedName) {
 			this.baseQuery = baseQuery;
 			this.preds = preds;
 			this.whenThenList = whenThenList;
+			this.indexedName = indexedName;
 		}
 		@Override
 		public ParameterIterableQuery apply(WhenThenList normalize) {
 			final WhenThenList n = whenThenList == null ? normalize : whenThenList.concat(normalize);
-			return new DefaultParameterIterableQuery(baseQuery, preds, n);
+			return new DefaultParameterIterableQuery(baseQuery, preds, n, indexedName);
 		}
 	}
 
 	private final Query<Unit,Iterable<Unit>> baseQuery;
 	private final List<Predicate<Parameter>> preds;
 	private final WhenThenList whenThenList;
+	/**
+	 * {@link ParameterLookup#getParameters(Unit, String)}によりパラメータを取得する際のパラメータ名.
+	 * {@link #nameEquals(String)}で最初に指定された名前であり、未指定の場合は{@code null}。
+	 * 名前による絞り込みのための述語は{@link #preds}にも含まれている。
+	 */
+	private final String indexedName;
 	
 	DefaultParameterIterableQuery(final Query<Unit,Iterable<Unit>> q,
 			final List<Predicate<Parameter>> preds,
-			final WhenThenList whenThenList) {
+			final WhenThenList whenThenList,
+			final String indexedName) {
 		this.baseQuery = q;
 		this.preds = preds;
 		this.whenThenList = whenThenList;
+		this.indexedName = indexedName;
 	}
 	DefaultParameterIterableQuery(final Query<Unit,Iterable<Unit>> q) {
-		this(q, Collections.<Predicate<Parameter>>emptyList(), null);
+		this(q, Collections.<Predicate<Parameter>>emptyList(), null, null);
 	}
 
 	@Override
@@ -59,7 +71,10 @@ implements ParameterIterableQuery {
 				new ChunkYieldCallable<Unit, Parameter>(){
 			@Override
 			public ChunkYield<Parameter> yield(Unit item, int index) {
-				return ChunkYield.yieldReturn(item.getParameters());
+				// 条件付き変更はパラメータ名を変えないため
+				// 変更の適用に先立って名前で絞り込んでも結果は変わらない
+				return ChunkYield.yieldReturn(indexedName == null
+						? item.getParameters() : ParameterLookup.getParameters(item, indexedName));
 			}
 		});
 		// LazyIterableを用いてパラメータのそれぞれにPredicateで判断を加えつつ
@@ -93,17 +108,24 @@ implements ParameterIterableQuery {
 		final LinkedList<Predicate<Parameter>> newPreds = new LinkedList<Predicate<Parameter>>();
 		newPreds.addAll(this.preds);
 		newPreds.addLast(pred);
-		return new DefaultParameterIterableQuery(this.baseQuery, newPreds, whenThenList);
+		return new DefaultParameterIterableQuery(this.baseQuery, newPreds, whenThenList, indexedName);
 	}
 	@Override
 	public ParameterIterableQuery nameEquals(final String n) {
-		return and(new Predicate<Parameter>() {
+		final Predicate<Parameter> pred = new Predicate<Parameter>() {
 			private final String n1 = n;
 			@Override
 			public boolean test(final Parameter t) {
 				return t.getName().equals(n1);
 			}
-		});
+		};
+		if (indexedName != null || n == null) {
+			return and(pred);
+		}
+		final LinkedList<Predicate<Parameter>> newPreds = new LinkedList<Predicate<Parameter>>();
+		newPreds.addAll(this.preds);
+		newPreds.addLast(pred);
+		return new DefaultParameterIterableQuery(this.baseQuery, newPreds, whenThenList, n);
 	}
 	@Override
 	public ParameterIterableQuery nameStartsWith(final String n) {
@@ -161,13 +183,13 @@ implements ParameterIterableQuery {
 	@Override
 	public WhenValueAtNClause<ParameterIterableQuery> whenValueAt(int i) {
 		final QueryFactory factory =
-				new QueryFactory(baseQuery, preds, whenThenList);
+				new QueryFactory(baseQuery, preds, whenThenList, indexedName);
 		return new DefaultWhenValueAtNClause<ParameterIterableQuery>(factory, i);
 	}
 	@Override
 	public WhenValueCountNClause<ParameterIterableQuery> whenValueCount(int c) {
 		final QueryFactory factory =
-				new QueryFactory(baseQuery, preds, whenThenList);
+				new QueryFactory(baseQuery, preds, whenThenList, indexedName);
 		return new DefaultWhenValueCountNClause<ParameterIterableQuery>(factory, c);
 	}
 }
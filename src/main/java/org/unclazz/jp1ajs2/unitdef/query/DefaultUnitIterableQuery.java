@@ -15,6 +15,7 @@ import org.unclazz.jp1ajs2.unitdef.ParameterValueType;
 import org.unclazz.jp1ajs2.unitdef.Tuple;
 import org.unclazz.jp1ajs2.unitdef.Unit;
 import org.unclazz.jp1ajs2.unitdef.Tuple.Entry;
+import org.unclazz.jp1ajs2.unitdef.builder.ParameterLookup;
 import org.unclazz.jp1ajs2.unitdef.parameter.UnitType;
 import org.unclazz.jp1ajs2.unitdef.util.StringUtils;
 import org.unclazz.jp1ajs2.unitdef.util.LazyIterable;
@@ -268,13 +269,10 @@ implements UnitIterableQuery.HasParameterValueAtN {
 		return new DefaultUnitIterableQuery(srcQuery, newPreds);
 	}
 	private Iterable<String> fetchParameterValues(final Unit u) {
-		return LazyIterable.forEach(u.getParameters(), 
+		return LazyIterable.forEach(ParameterLookup.getParameters(u, parameterName), 
 				new YieldCallable<Parameter,String>(){
 			@Override
 			public Yield<String> yield(final Parameter item, final int index) {
-				if (!item.getName().equals(parameterName)) {
-					return Yield.yieldVoid();
-				}
 				if (!(item.getValues().size() > valueIndex)) {
 					return Yield.yieldVoid();
 				}
@@ -296,8 +294,8 @@ implements UnitIterableQuery.HasParameterValueAtN {
 		return createQueryWithNewPredicate(new Predicate<Unit>() {
 			@Override
 			public boolean test(Unit t) {
-				for (final Parameter p : t.getParameters()) {
-					if (p.getName().equals(parameterName) && p.getValues().size() > valueIndex) {
+				for (final Parameter p : ParameterLookup.getParameters(t, parameterName)) {
+					if (p.getValues().size() > valueIndex) {
 						return true;
 					}
 				}
@@ -419,13 +417,10 @@ implements UnitIterableQuery.HasParameterValueAtNIsTuple {
 	}
 	
 	private Iterable<Tuple> fetchTuples(final Unit u) {
-		return LazyIterable.forEach(u.getParameters(), 
+		return LazyIterable.forEach(ParameterLookup.getParameters(u, parameterName), 
 				new YieldCallable<Parameter,Tuple>(){
 			@Override
 			public Yield<Tuple> yield(final Parameter item, final int index) {
-				if (!item.getName().equals(parameterName)) {
-					return Yield.yieldVoid();
-				}
 				if (!(item.getValues().size() > valueIndex)) {
 					return Yield.yieldVoid();
 				}
@@ -3,6 +3,7 @@ package org.unclazz.jp1ajs2.unitdef.query;
 import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.NoSuchElementException;
 
 import org.unclazz.jp1ajs2.unitdef.ParameterValue;
 import org.unclazz.jp1ajs2.unitdef.ParameterValueType;
@@ -42,6 +43,35 @@ final class InternalQueries {
 		}
 	}
 	
+	/**
+	 * ユニット名を指定して子ユニットを問合せるクエリ.
+	 * <p>{@link Unit#getSubUnit(String)}に問合せを委譲する。
+	 * 該当するユニットが存在しない場合は{@link NoSuchElementException}をスローする。</p>
+	 */
+	static final class SubUnitByName implements OneQuery<Unit, Unit> {
+		private final String name;
+		
+		SubUnitByName(final String name) {
+			assertNotNull(name, "argument must not be null.");
+			assertFalse(name.isEmpty(), "argument must not be empty.");
+			this.name = name;
+		}
+		
+		@Override
+		public Unit queryFrom(final Unit t) {
+			assertNotNull(t, "argument must not be null.");
+			final Unit s = t.getSubUnit(name);
+			if (s == null) {
+				throw new NoSuchElementException();
+			}
+			return s;
+		}
+		@Override
+		public Query<Unit, Unit> cached() {
+			return CachedQuery.wrap(this);
+		}
+	}
+	
 	/**
 	 * ベースとなるクエリをラップし問合せに際して型変換と追加のフィルタリングを行うクエリ.
 	 *
@@ -69,12 +69,13 @@ public final class Queries {
 	}
 	/**
 	 * ユニットに対してその子ユニット（直接の下位ユニット）を問合せるクエリを返す.
-	 * <p>{@code children().nameEquals(String).one()}と同義。</p>
+	 * <p>{@code children().nameEquals(String).one()}と同義。
+	 * ただし子ユニットの走査は行わず{@link Unit#getSubUnit(String)}によりユニットを取得する。</p>
 	 * @param name ユニット名
 	 * @return クエリ
 	 */
 	public static OneQuery<Unit, Unit> children(final String name) {
-		return children().nameEquals(name).one();
+		return new SubUnitByName(name);
 	}
 	/**
 	 * ユニットに対してその子孫ユニット（直接・間接の下位ユニット）を問合せるクエリを返す.
@@ -0,0 +1,184 @@
+package org.unclazz.jp1ajs2.unitdef.util;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 内容の等しい文字列を1つのインスタンスに集約するための文字列プール.
+ * <p>ユニット定義パラメータの名前（{@code ty}、{@code el}など）や値（{@code n}、{@code j}、{@code 0}など）は
+ * 大量のユニットの間で同じ内容のものが繰り返し現れる。これらをプールに格納された文字列で置き換えることで、
+ * パース結果が保持するヒープの量を削減できる。</p>
+ * <p>プールに格納される文字列の数と長さには上限がある。
+ * 上限を超える場合、{@link #intern(CharSequence)}はプールに格納されていない新しい文字列を返す。
+ * プールに格納された文字列がプールから取り除かれることはない。</p>
+ * <p>このオブジェクトはスレッドセーフであり、ロックを使用せずに複数のスレッドから同時に使用できる。
+ * 複数のスレッドが同時に同じ内容の文字列を格納しようとした場合、一方のスレッドはもう一方のスレッドが格納した文字列を返す。</p>
+ */
+public final class StringPool {
+	/**
+	 * プールに格納される文字列の数の上限の既定値.
+	 */
+	public static final int DEFAULT_MAX_SIZE = 4096;
+	/**
+	 * プールに格納される文字列の長さの上限の既定値.
+	 */
+	public static final int DEFAULT_MAX_LENGTH = 32;
+	/**
+	 * 文字列の格納位置を探索する回数の上限.
+	 */
+	private static final int MAX_PROBES = 16;
+	/**
+	 * 文字列1つが占めるヒープの大きさの見積もりに使用する固定部分のバイト数.
+	 * {@code String}と{@code char[]}のオブジェクト・ヘッダーとフィールドの合計のおおよその値である。
+	 */
+	private static final int STRING_OVERHEAD_BYTES = 40;
+
+	private final AtomicReferenceArray<String> table;
+	private final int mask;
+	private final int maxSize;
+	private final int maxLength;
+	private final AtomicInteger size = new AtomicInteger();
+	private final AtomicLong hitCount = new AtomicLong();
+	private final AtomicLong savedBytes = new AtomicLong();
+
+	/**
+	 * コンストラクタ.
+	 * 文字列の数と長さの上限には既定値が使用される。
+	 */
+	public StringPool() {
+		this(DEFAULT_MAX_SIZE, DEFAULT_MAX_LENGTH);
+	}
+
+	/**
+	 * コンストラクタ.
+	 * @param maxSize プールに格納される文字列の数の上限
+	 * @param maxLength プールに格納される文字列の長さの上限
+	 * @throws IllegalArgumentException 引数の値が{@code 0}以下である場合
+	 */
+	public StringPool(final int maxSize, final int maxLength) {
+		if (maxSize <= 0 || maxLength <= 0) {
+			throw new IllegalArgumentException("maxSize and maxLength must be greater than 0.");
+		}
+		// 探索の衝突を減らすためテーブルの大きさは上限の2倍以上の2のべき乗とする
+		int capacity = 1;
+		while (capacity < maxSize * 2) {
+			capacity <<= 1;
+		}
+		this.table = new AtomicReferenceArray<String>(capacity);
+		this.mask = capacity - 1;
+		this.maxSize = maxSize;
+		this.maxLength = maxLength;
+	}
+
+	/**
+	 * 引数で指定された文字シーケンスと内容の等しい文字列を返す.
+	 * <p>同じ内容の文字列がすでにプールに格納されている場合はその文字列を返す。
+	 * そうでない場合は新しい文字列を生成し、上限を超えない限りそれをプールに格納した上で返す。
+	 * プールの探索にあたって一時的な文字列が生成されることはない。</p>
+	 * @param s 文字シーケンス
+	 * @return 文字列
+	 */
+	public String intern(final CharSequence s) {
+		final int len = s.length();
+		if (len > maxLength) {
+			return s.toString();
+		}
+		final int hash = hash(s, len);
+		int i = hash & mask;
+		for (int probe = 0; probe < MAX_PROBES; probe ++) {
+			final String pooled = table.get(i);
+			if (pooled == null) {
+				if (size.get() >= maxSize) {
+					return s.toString();
+				}
+				final String str = s.toString();
+				if (table.compareAndSet(i, null, str)) {
+					size.incrementAndGet();
+					return str;
+				}
+				// 他のスレッドが先に格納した場合は同じ位置を再度確認する
+				final String other = table.get(i);
+				if (contentEquals(other, s, len)) {
+					countHit(len);
+					return other;
+				}
+			} else if (contentEquals(pooled, s, len)) {
+				countHit(len);
+				return pooled;
+			}
+			i = (i + 1) & mask;
+		}
+		return s.toString();
+	}
+
+	/**
+	 * プールに格納される文字列の長さの上限を返す.
+	 * @return 文字数
+	 */
+	public int getMaxLength() {
+		return maxLength;
+	}
+
+	/**
+	 * プールに格納されている文字列の数を返す.
+	 * @return 文字列の数
+	 */
+	public int size() {
+		return size.get();
+	}
+
+	/**
+	 * {@link #intern(CharSequence)}がプールに格納済みの文字列を返した回数を返す.
+	 * @return 回数
+	 */
+	public long getHitCount() {
+		return hitCount.get();
+	}
+
+	/**
+	 * プールに格納済みの文字列を返したことにより生成されずに済んだ文字列のヒープ使用量の見積もりを返す.
+	 * 見積もりは文字列1つあたり{@code 40 + 2 * 文字数}バイトとして計算される。
+	 * 実際の値はVMの実装やオプションによって異なる。
+	 * @return バイト数
+	 */
+	public long getSavedBytes() {
+		return savedBytes.get();
+	}
+
+	@Override
+	public String toString() {
+		return String.format("StringPool(size=%d, hits=%d, savedBytes=%d)",
+				size(), getHitCount(), getSavedBytes());
+	}
+
+	private void countHit(final int len) {
+		hitCount.incrementAndGet();
+		savedBytes.addAndGet(STRING_OVERHEAD_BYTES + 2 * len);
+	}
+
+	private static int hash(final CharSequence s, final int len) {
+		int h = 0;
+		for (int i = 0; i < len; i ++) {
+			h = 31 * h + s.charAt(i);
+		}
+		// 連番のような似た文字列のハッシュ値が連続してしまわないよう攪拌する
+		h ^= h >>> 16;
+		h *= 0x85ebca6b;
+		h ^= h >>> 13;
+		h *= 0xc2b2ae35;
+		return h ^ (h >>> 16);
+	}
+
+	private static boolean contentEquals(final String pooled, final CharSequence s, final int len) {
+		if (pooled.length() != len) {
+			return false;
+		}
+		for (int i = 0; i < len; i ++) {
+			if (pooled.charAt(i) != s.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
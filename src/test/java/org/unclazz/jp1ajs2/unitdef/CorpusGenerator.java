@@ -0,0 +1,341 @@
+package org.unclazz.jp1ajs2.unitdef;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.zip.GZIPOutputStream;
+
+import org.unclazz.jp1ajs2.unitdef.builder.Builders;
+import org.unclazz.jp1ajs2.unitdef.builder.ParameterBuilder;
+import org.unclazz.jp1ajs2.unitdef.builder.UnitBuilder;
+import org.unclazz.jp1ajs2.unitdef.util.Formatter;
+import org.unclazz.jp1ajs2.unitdef.util.Formatters;
+
+/**
+ * 負荷試験やスケーリングの試験のための合成されたユニット定義を生成するオブジェクト.
+ * <p>ルート・ジョブネットごとに、指定された深さまでジョブネットを入れ子にし、末端にジョブを配置したツリーを生成する。
+ * 各ジョブネットは1から指定されたファンアウトまでの数のサブユニットを持ち、
+ * {@code ty}・{@code el}・{@code ar}・{@code sd}・{@code st}・{@code cy}・{@code cm}パラメータを、
+ * 各ジョブは{@code ty}・{@code sc}・{@code cm}パラメータを持つ。
+ * コメントには日本語の文が使用される。</p>
+ * <p>生成される内容は乱数のシードとルート・ジョブネットの添字だけで決まる。
+ * 同じシードと設定からは常に同じユニット定義が生成され、任意のルート・ジョブネットを単独で再生成することもできる。
+ * {@link #writeTo(OutputStream, Charset, long)}はルート・ジョブネットを1つずつ生成しては書き出すため、
+ * 1GBのような巨大なユニット定義もメモリ上にすべてを保持することなく生成できる。</p>
+ * <p>{@link #main(String[])}によりコマンドラインからファイルを生成することもできる。</p>
+ */
+public final class CorpusGenerator {
+	private static final String[] COMMENT_SUBJECTS = {
+		"売上データ", "在庫情報", "顧客マスタ", "受注明細", "会計仕訳", "給与計算", "請求書", "出荷指示"
+	};
+	private static final String[] COMMENT_ACTIONS = {
+		"を集計してマスタに反映する", "を抽出して外部システムに送信する", "をバックアップする",
+		"の整合性を検証する", "を前日分と突き合わせる", "を帳票として出力する"
+	};
+	private static final String[] COMMENT_SUFFIXES = {
+		"ジョブネット", "日次処理", "月次処理", "夜間バッチ"
+	};
+	private static final String[] SCRIPT_DIRS = {
+		"/opt/batch/daily", "/opt/batch/monthly", "/opt/batch/common", "/home/jp1/scripts"
+	};
+	private static final String[] CYCLE_UNITS = {"y", "m", "w", "d"};
+	private static final long ROOT_SEED_MULTIPLIER = 0x9E3779B97F4A7C15L;
+
+	private final long seed;
+	private int depth = 3;
+	private int fanOut = 8;
+	private Formatter formatter = Formatters.DEFAULT;
+
+	/**
+	 * コンストラクタ.
+	 * @param seed 乱数のシード
+	 */
+	public CorpusGenerator(final long seed) {
+		this.seed = seed;
+	}
+
+	/**
+	 * ジョブネットの入れ子の深さを返す.
+	 * @return 深さ
+	 */
+	public int getDepth() {
+		return depth;
+	}
+	/**
+	 * ジョブネットの入れ子の深さを設定する.
+	 * ルート・ジョブネットを1として数え、この深さのジョブネットの配下にはジョブのみが配置される。
+	 * デフォルトは{@code 3}である。
+	 * @param depth 深さ
+	 * @return このオブジェクト
+	 * @throws IllegalArgumentException 引数が{@code 1}未満の場合
+	 */
+	public CorpusGenerator setDepth(final int depth) {
+		if (depth < 1) {
+			throw new IllegalArgumentException("depth must be greater than 0.");
+		}
+		this.depth = depth;
+		return this;
+	}
+	/**
+	 * ジョブネットあたりのサブユニットの数の上限を返す.
+	 * @return 上限
+	 */
+	public int getFanOut() {
+		return fanOut;
+	}
+	/**
+	 * ジョブネットあたりのサブユニットの数の上限を設定する.
+	 * 各ジョブネットのサブユニットの数は{@code 1}からこの値までの範囲で決まる。
+	 * デフォルトは{@code 8}である。
+	 * @param fanOut 上限
+	 * @return このオブジェクト
+	 * @throws IllegalArgumentException 引数が{@code 1}未満の場合
+	 */
+	public CorpusGenerator setFanOut(final int fanOut) {
+		if (fanOut < 1) {
+			throw new IllegalArgumentException("fan-out must be greater than 0.");
+		}
+		this.fanOut = fanOut;
+		return this;
+	}
+	/**
+	 * 書き出しに使用するフォーマッターを設定する.
+	 * デフォルトは{@link Formatters#DEFAULT}である。
+	 * @param formatter フォーマッター
+	 * @return このオブジェクト
+	 */
+	public CorpusGenerator setFormatter(final Formatter formatter) {
+		if (formatter == null) {
+			throw new NullPointerException();
+		}
+		this.formatter = formatter;
+		return this;
+	}
+
+	/**
+	 * ルート・ジョブネットを生成する.
+	 * @param index ルート・ジョブネットの添字
+	 * @return ルート・ジョブネット
+	 */
+	public Unit generateRoot(final int index) {
+		final Random random = new Random(mix(seed + index * ROOT_SEED_MULTIPLIER));
+		final String name = String.format("R%07d", index);
+		return jobnet(random, Builders.fullQualifiedName().addFragment(name).build(), 1);
+	}
+
+	/**
+	 * 先頭から指定された数のルート・ジョブネットを生成する.
+	 * @param roots ルート・ジョブネットの数
+	 * @return ルート・ジョブネットのリスト
+	 */
+	public List<Unit> generate(final int roots) {
+		final List<Unit> result = new ArrayList<Unit>(roots);
+		for (int i = 0; i < roots; i ++) {
+			result.add(generateRoot(i));
+		}
+		return result;
+	}
+
+	/**
+	 * 書き出したバイト数が指定された値に達するまでルート・ジョブネットを生成して出力ストリームに書き出す.
+	 * 最後に書き出したルート・ジョブネットの分だけ書き出したバイト数は指定された値を超える。
+	 * @param out 出力ストリーム
+	 * @param charset キャラクターセット
+	 * @param targetBytes 書き出すバイト数の目安
+	 * @return 書き出したルート・ジョブネットの数
+	 * @throws IOException I/Oエラーが発生した場合
+	 */
+	public int writeTo(final OutputStream out, final Charset charset, final long targetBytes) throws IOException {
+		final CountingOutputStream counter = new CountingOutputStream(out);
+		int roots = 0;
+		while (counter.count < targetBytes) {
+			formatter.format(generateRoot(roots ++), counter, charset);
+		}
+		counter.flush();
+		return roots;
+	}
+
+	/**
+	 * 近い値のシードから相関のない乱数列が得られるようシードのビットを撹拌する（SplitMix64の終段）.
+	 * @param z シード
+	 * @return 撹拌したシード
+	 */
+	private static long mix(long z) {
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+
+	private Unit jobnet(final Random random, final FullQualifiedName fqn, final int level) {
+		final UnitBuilder builder = unit(fqn).addParameter(raw("ty", "n"));
+
+		// サブユニットとそれらの配置を表すel・arパラメータ
+		final int children = 1 + random.nextInt(fanOut);
+		final List<Unit> subUnits = new ArrayList<Unit>(children);
+		final List<ParameterBuilder> arrows = new ArrayList<ParameterBuilder>();
+		for (int i = 0; i < children; i ++) {
+			final boolean isJobnet = level < depth && (i == 0 || random.nextInt(3) == 0);
+			final String name = String.format(isJobnet ? "N%03d" : "J%03d", i);
+			final Unit u = isJobnet ? jobnet(random, fqn.getSubUnitName(name), level + 1)
+					: job(random, fqn.getSubUnitName(name));
+			subUnits.add(u);
+			builder.addParameter(raw("el", name, isJobnet ? "n" : u.getType().getName(),
+					String.format("+%d +%d", 80 + 160 * (i % 6), 48 + 96 * (i / 6))));
+			if (i > 0) {
+				final String prev = subUnits.get(i - 1).getName();
+				arrows.add(Builders.parameter().setName("ar").addTuple(random.nextInt(5) == 0
+						? Builders.tuple().add("f", prev).add("t", name).add("con").build()
+						: Builders.tuple().add("f", prev).add("t", name).build()));
+			}
+		}
+		for (final ParameterBuilder ar : arrows) {
+			builder.addParameter(ar.build());
+		}
+
+		// スケジュール（未定義の場合はルール番号0の1つのみ）
+		final int rules = random.nextInt(3);
+		if (rules == 0 && random.nextBoolean()) {
+			builder.addParameter(raw("sd", "0", "ud"));
+		}
+		for (int n = 1; n <= rules; n ++) {
+			builder.addParameter(raw("sd", Integer.toString(n), startDate(random)));
+			builder.addParameter(raw("st", Integer.toString(n),
+					String.format("%s%d:%02d", random.nextBoolean() ? "+" : "", random.nextInt(24), random.nextInt(60))));
+			if (random.nextBoolean()) {
+				builder.addParameter(Builders.parameter().setName("cy").addRawCharSequence(Integer.toString(n))
+						.addTuple(Builders.tuple().add(Integer.toString(1 + random.nextInt(12)))
+								.add(CYCLE_UNITS[random.nextInt(CYCLE_UNITS.length)]).build()).build());
+			}
+		}
+		builder.addParameter(quoted("cm", comment(random)));
+		return builder.addSubUnits(subUnits).build();
+	}
+
+	private Unit job(final Random random, final FullQualifiedName fqn) {
+		final boolean unix = random.nextInt(4) != 0;
+		final UnitBuilder builder = unit(fqn).addParameter(raw("ty", unix ? "j" : "pj"));
+		final String dir = SCRIPT_DIRS[random.nextInt(SCRIPT_DIRS.length)];
+		builder.addParameter(quoted("sc", unix ? dir + "/job" + random.nextInt(1000) + ".sh"
+				: "C:\\batch\\job" + random.nextInt(1000) + ".bat"));
+		if (random.nextBoolean()) {
+			builder.addParameter(quoted("cm", comment(random)));
+		}
+		return builder.build();
+	}
+
+	private static UnitBuilder unit(final FullQualifiedName fqn) {
+		return Builders.unit().setFullQualifiedName(fqn)
+				.setAttributes(Builders.attributes().setName(fqn.getUnitName())
+						.setPermissionMode(Builders.permissionMode(null)).setJP1UserName("jp1admin").build());
+	}
+
+	private static String startDate(final Random random) {
+		switch (random.nextInt(4)) {
+		case 0:
+			return "en";
+		case 1:
+			return String.format("%d/%02d/%02d", 2016 + random.nextInt(10), 1 + random.nextInt(12), 1 + random.nextInt(28));
+		case 2:
+			return String.format("%02d/*%d", 1 + random.nextInt(12), 1 + random.nextInt(20));
+		default:
+			return String.format("%02d/+%d", 1 + random.nextInt(12), 1 + random.nextInt(28));
+		}
+	}
+
+	private static String comment(final Random random) {
+		return COMMENT_SUBJECTS[random.nextInt(COMMENT_SUBJECTS.length)]
+				+ COMMENT_ACTIONS[random.nextInt(COMMENT_ACTIONS.length)]
+				+ COMMENT_SUFFIXES[random.nextInt(COMMENT_SUFFIXES.length)];
+	}
+
+	private static Parameter raw(final String name, final String... values) {
+		final ParameterBuilder builder = Builders.parameter().setName(name);
+		for (final String v : values) {
+			builder.addRawCharSequence(v);
+		}
+		return builder.build();
+	}
+
+	private static Parameter quoted(final String name, final String value) {
+		return Builders.parameter().setName(name).addQuoted(value).build();
+	}
+
+	/**
+	 * 書き出されたバイト数を数える出力ストリーム.
+	 */
+	private static final class CountingOutputStream extends OutputStream {
+		private final OutputStream out;
+		private long count;
+		private CountingOutputStream(final OutputStream out) {
+			this.out = out;
+		}
+		@Override
+		public void write(final int b) throws IOException {
+			out.write(b);
+			count ++;
+		}
+		@Override
+		public void write(final byte[] b, final int off, final int len) throws IOException {
+			out.write(b, off, len);
+			count += len;
+		}
+		@Override
+		public void flush() throws IOException {
+			out.flush();
+		}
+	}
+
+	/**
+	 * 合成されたユニット定義をファイルに書き出す.
+	 * <pre>使用法: CorpusGenerator &lt;出力ファイル&gt; &lt;サイズ&gt; [シード] [深さ] [ファンアウト] [キャラクターセット]
+	 * サイズ: バイト数（例：{@code 1048576}）もしくは単位付きの値（例：{@code 1MB}、{@code 500MB}、{@code 1GB}）
+	 * 出力ファイルの名前が{@code .gz}で終わる場合はgzip形式で圧縮して書き出す。</pre>
+	 * @param args コマンドライン引数
+	 * @throws IOException I/Oエラーが発生した場合
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length < 2) {
+			System.err.println("usage: CorpusGenerator <output> <size> [seed] [depth] [fan-out] [charset]");
+			System.exit(1);
+		}
+		final File file = new File(args[0]);
+		final long size = parseSize(args[1]);
+		final long seed = args.length > 2 ? Long.parseLong(args[2]) : 0L;
+		final CorpusGenerator generator = new CorpusGenerator(seed);
+		if (args.length > 3) {
+			generator.setDepth(Integer.parseInt(args[3]));
+		}
+		if (args.length > 4) {
+			generator.setFanOut(Integer.parseInt(args[4]));
+		}
+		final Charset charset = Charset.forName(args.length > 5 ? args[5] : "UTF-8");
+
+		final long t0 = System.nanoTime();
+		final int roots;
+		OutputStream out = new BufferedOutputStream(new FileOutputStream(file), 65536);
+		try {
+			if (file.getName().endsWith(".gz")) {
+				out = new GZIPOutputStream(out, 65536);
+			}
+			roots = generator.writeTo(out, charset, size);
+		} finally {
+			out.close();
+		}
+		System.out.printf("%s: %,d root units, %,d bytes, %,d ms%n", file, roots, file.length(),
+				(System.nanoTime() - t0) / 1000000);
+	}
+
+	static long parseSize(final String s) {
+		final String u = s.trim().toUpperCase(Locale.ENGLISH);
+		final long unit = u.endsWith("GB") ? 1L << 30 : u.endsWith("MB") ? 1L << 20 : u.endsWith("KB") ? 1L << 10 : 1L;
+		final String digits = unit == 1L ? u : u.substring(0, u.length() - 2);
+		return Long.parseLong(digits.trim()) * unit;
+	}
+}
@@ -0,0 +1,114 @@
+package org.unclazz.jp1ajs2.unitdef;
+
+import static org.junit.Assert.*;
+import static org.hamcrest.CoreMatchers.*;
+import static org.unclazz.jp1ajs2.unitdef.query.Queries.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.List;
+
+import org.junit.Test;
+import org.unclazz.jp1ajs2.unitdef.parameter.ExecutionCycle;
+import org.unclazz.jp1ajs2.unitdef.parameter.StartDate;
+import org.unclazz.jp1ajs2.unitdef.parameter.StartTime;
+import org.unclazz.jp1ajs2.unitdef.parameter.UnitType;
+import org.unclazz.jp1ajs2.unitdef.parser.UnitParser;
+
+public class CorpusGeneratorTest {
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	private static String serialize(final List<Unit> units) {
+		final StringBuilder sb = new StringBuilder();
+		for (final Unit u : units) {
+			sb.append(u.serialize());
+		}
+		return sb.toString();
+	}
+
+	private static int depth(final Unit u) {
+		int max = 0;
+		for (final Unit s : u.getSubUnits()) {
+			if (s.getType() == UnitType.JOBNET) {
+				max = Math.max(max, depth(s));
+			}
+		}
+		return max + 1;
+	}
+
+	@Test
+	public void generate_whenSeedIsSame_returnsSameUnits() {
+		final String s0 = serialize(new CorpusGenerator(42).generate(5));
+		final String s1 = serialize(new CorpusGenerator(42).generate(5));
+		final String s2 = serialize(new CorpusGenerator(43).generate(5));
+
+		assertThat(s0, is(s1));
+		assertThat(s0, not(s2));
+	}
+
+	@Test
+	public void generateRoot_returnsSameUnitAsGenerate() {
+		final CorpusGenerator g = new CorpusGenerator(7);
+		final List<Unit> units = g.generate(4);
+
+		assertThat(g.generateRoot(3).serialize().toString(), is(units.get(3).serialize().toString()));
+		assertThat(units.get(3).getName(), is("R0000003"));
+	}
+
+	@Test
+	public void generate_respectsDepthAndFanOut() {
+		final List<Unit> units = new CorpusGenerator(1).setDepth(4).setFanOut(3).generate(20);
+
+		int maxDepth = 0;
+		for (final Unit root : units) {
+			maxDepth = Math.max(maxDepth, depth(root));
+			for (final Unit u : root.query(itSelfAndDescendants())) {
+				assertTrue(u.getSubUnits().size() <= 3);
+				if (u.getType() == UnitType.JOBNET) {
+					assertFalse(u.getSubUnits().isEmpty());
+				}
+			}
+		}
+		assertThat(maxDepth, is(4));
+	}
+
+	@Test
+	public void writeTo_writesParsableUnitsUntilTargetSize() throws IOException {
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		final int roots = new CorpusGenerator(0).writeTo(out, UTF8, 1 << 20);
+		final String s = new String(out.toByteArray(), UTF8);
+
+		assertTrue(out.size() >= 1 << 20);
+		final List<Unit> units = new UnitParser().parse(s).get();
+		assertThat(units.size(), is(roots));
+		assertThat(serialize(units), is(serialize(new CorpusGenerator(0).generate(roots))));
+
+		// 型付きのパラメータとして解釈できること
+		int schedules = 0;
+		for (final Unit root : units) {
+			for (final Unit u : root.query(itSelfAndDescendants())) {
+				for (final StartDate sd : u.query(sd())) {
+					assertNotNull(sd.getDesignationMethod());
+					schedules ++;
+				}
+				for (final StartTime st : u.query(st())) {
+					assertNotNull(st.getTime());
+				}
+				for (final ExecutionCycle cy : u.query(cy())) {
+					assertNotNull(cy.getCycleUnit());
+				}
+				assertThat(u.query(el().list()).size(), is(u.getType() == UnitType.JOBNET ? u.getSubUnits().size() : 0));
+				u.query(ar().list());
+			}
+		}
+		assertTrue(schedules > 0);
+	}
+
+	@Test
+	public void parseSize_acceptsUnits() {
+		assertThat(CorpusGenerator.parseSize("1024"), is(1024L));
+		assertThat(CorpusGenerator.parseSize("1MB"), is(1L << 20));
+		assertThat(CorpusGenerator.parseSize("1gb"), is(1L << 30));
+	}
+}
@@ -0,0 +1,228 @@
+package org.unclazz.jp1ajs2.unitdef.builder;
+
+import static org.junit.Assert.*;
+import static org.hamcrest.CoreMatchers.*;
+import static org.unclazz.jp1ajs2.unitdef.builder.Builders.*;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+import org.unclazz.jp1ajs2.unitdef.Parameter;
+import org.unclazz.jp1ajs2.unitdef.Unit;
+
+public class DefaultUnitTest {
+	
+	private static Unit unit(final String name, final String type) {
+		return Builders.unit()
+				.setFullQualifiedName(name)
+				.setAttributes(attributes().setName(name).build())
+				.addParameter(parameter().setName("ty").addRawCharSequence(type).build())
+				.build();
+	}
+	
+	private static Unit jobnet(final int children) {
+		final UnitBuilder b = Builders.unit()
+				.setFullQualifiedName("NET")
+				.setAttributes(attributes().setName("NET").build())
+				.addParameter(parameter().setName("ty").addRawCharSequence("n").build());
+		for (int i = 0; i < children; i ++) {
+			b.addSubUnit(unit("JOB" + i, "j"));
+		}
+		return b.build();
+	}
+	
+	@Test
+	public void getSubUnit_whenSubUnitsAreFewerThanThreshold_returnsSubUnit() {
+		// Arrange
+		final Unit u = jobnet(DefaultUnit.SUB_UNIT_INDEX_THRESHOLD - 1);
+		
+		// Act
+		final Unit r = u.getSubUnit("JOB3");
+		
+		// Assert
+		assertThat(r, sameInstance(u.getSubUnits().get(3)));
+		assertNull(u.getSubUnit("JOB999"));
+	}
+	
+	@Test
+	public void getSubUnit_whenSubUnitsAreMoreThanThreshold_returnsSubUnit() {
+		// Arrange
+		final Unit u = jobnet(2000);
+		
+		// Act
+		// Assert
+		for (int i = 0; i < 2000; i ++) {
+			assertThat(u.getSubUnit("JOB" + i), sameInstance(u.getSubUnits().get(i)));
+		}
+		assertNull(u.getSubUnit("JOB2000"));
+	}
+	
+	@Test
+	public void getSubUnit_whenNamesAreDuplicated_returnsFirstOne() {
+		// Arrange
+		final List<Unit> subUnits = new ArrayList<Unit>();
+		for (int i = 0; i < DefaultUnit.SUB_UNIT_INDEX_THRESHOLD; i ++) {
+			subUnits.add(unit("JOB" + i, "j"));
+		}
+		subUnits.add(unit("JOB0", "pj"));
+		final Unit u = Builders.unit()
+				.setFullQualifiedName("NET")
+				.setAttributes(attributes().setName("NET").build())
+				.addParameter(parameter().setName("ty").addRawCharSequence("n").build())
+				.addSubUnits(subUnits)
+				.build();
+		
+		// Act
+		final Unit r = u.getSubUnit("JOB0");
+		
+		// Assert
+		assertThat(r, sameInstance(subUnits.get(0)));
+	}
+	
+	@Test
+	public void getSubUnit_whenCalledConcurrently_returnsSameSubUnits() throws Exception {
+		// Arrange
+		final Unit u = jobnet(500);
+		final ExecutorService executor = Executors.newFixedThreadPool(4);
+		final List<Future<Integer>> futures = new ArrayList<Future<Integer>>();
+		
+		// Act
+		try {
+			for (int t = 0; t < 4; t ++) {
+				futures.add(executor.submit(new Callable<Integer>() {
+					@Override
+					public Integer call() {
+						int found = 0;
+						for (int i = 0; i < 500; i ++) {
+							if (u.getSubUnit("JOB" + i) == u.getSubUnits().get(i)) {
+								found ++;
+							}
+						}
+						return found;
+					}
+				}));
+			}
+			
+			// Assert
+			for (final Future<Integer> f : futures) {
+				assertThat(f.get(), is(500));
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+	
+	private static Unit jobWithParameters(final String... names) {
+		final UnitBuilder b = Builders.unit()
+				.setFullQualifiedName("JOB")
+				.setAttributes(attributes().setName("JOB").build())
+				.addParameter(parameter().setName("ty").addRawCharSequence("j").build());
+		for (int i = 0; i < names.length; i ++) {
+			b.addParameter(parameter().setName(names[i]).addRawCharSequence(Integer.toString(i)).build());
+		}
+		return b.build();
+	}
+	
+	private static List<String> names(final List<Parameter> ps) {
+		final List<String> r = new ArrayList<String>();
+		for (final Parameter p : ps) {
+			r.add(p.getName() + "=" + p.getValues().get(0));
+		}
+		return r;
+	}
+	
+	@Test
+	public void getParameters_whenParametersAreFewerThanThreshold_returnsParametersInOrder() {
+		// Arrange
+		final Unit u = jobWithParameters("sc", "el", "el", "cm");
+		
+		// Act
+		// Assert
+		assertThat(names(ParameterLookup.getParameters(u, "el")), equalTo(Arrays.asList("el=1", "el=2")));
+		assertThat(names(ParameterLookup.getParameters(u, "sc")), equalTo(Arrays.asList("sc=0")));
+		assertTrue(ParameterLookup.getParameters(u, "sd").isEmpty());
+	}
+	
+	@Test
+	public void getParameters_whenParametersAreMoreThanThreshold_returnsParametersInOrder() {
+		// Arrange
+		final String[] ps = new String[300];
+		for (int i = 0; i < ps.length; i ++) {
+			ps[i] = i % 3 == 0 ? "el" : i % 3 == 1 ? "ar" : "p" + i;
+		}
+		final Unit u = jobWithParameters(ps);
+		
+		// Act
+		final List<Parameter> el = ParameterLookup.getParameters(u, "el");
+		
+		// Assert
+		assertThat(el.size(), equalTo(100));
+		for (int i = 0; i < el.size(); i ++) {
+			assertThat(el.get(i).getValues().get(0).getStringValue(), equalTo(Integer.toString(i * 3)));
+		}
+		assertThat(ParameterLookup.getParameters(u, "ar").size(), equalTo(100));
+		assertThat(names(ParameterLookup.getParameters(u, "p2")), equalTo(Arrays.asList("p2=2")));
+		assertThat(ParameterLookup.getParameters(u, "ty").size(), equalTo(1));
+		assertTrue(ParameterLookup.getParameters(u, "sd").isEmpty());
+	}
+	
+	@Test(expected = UnsupportedOperationException.class)
+	public void getParameters_returnsUnmodifiableList() {
+		final Unit u = jobWithParameters("el", "el", "el", "el", "el", "el", "el", "el");
+		ParameterLookup.getParameters(u, "el").clear();
+	}
+	
+	@Test
+	public void getParameters_whenParameterListIsNotBuiltByLibrary_scansParameters() {
+		// Arrange
+		final Unit source = jobWithParameters("sc", "el", "el", "cm");
+		final Unit u = delegatingTo(new ArrayList<Parameter>(source.getParameters()));
+		
+		// Act
+		// Assert
+		assertThat(names(ParameterLookup.getParameters(u, "el")), equalTo(Arrays.asList("el=1", "el=2")));
+		assertThat(names(ParameterLookup.getParameters(u, "sc")), equalTo(Arrays.asList("sc=0")));
+		assertTrue(ParameterLookup.getParameters(u, "sd").isEmpty());
+	}
+	
+	@Test
+	public void getParameters_whenUnitIsNotDefaultUnitButReturnsBuiltList_usesIndex() {
+		// Arrange
+		final Unit source = jobWithParameters("el", "el", "el", "el", "el", "el", "el", "el");
+		// 遅延評価されるユニットのように実体化したユニットのリストをそのまま返す実装を模す
+		final Unit u = delegatingTo(source.getParameters());
+		
+		// Act
+		final List<Parameter> first = ParameterLookup.getParameters(u, "el");
+		final List<Parameter> second = ParameterLookup.getParameters(u, "el");
+		
+		// Assert
+		assertThat(first.size(), equalTo(8));
+		// 索引が使用されていれば同じリストのインスタンスが返される
+		assertSame(first, second);
+		assertSame(first, ParameterLookup.getParameters(source, "el"));
+	}
+	
+	private static Unit delegatingTo(final List<Parameter> parameters) {
+		// ライブラリ外部のUnit実装を模してgetParameters()のみを提供するプロキシを用意する
+		return (Unit) Proxy.newProxyInstance(Unit.class.getClassLoader(),
+				new Class<?>[] {Unit.class}, new InvocationHandler() {
+			@Override
+			public Object invoke(final Object proxy, final Method method, final Object[] args) {
+				if (method.getName().equals("getParameters")) {
+					return parameters;
+				}
+				throw new UnsupportedOperationException();
+			}
+		});
+	}
+}
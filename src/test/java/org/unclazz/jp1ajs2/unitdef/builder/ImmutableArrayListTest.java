@@ -0,0 +1,52 @@
+package org.unclazz.jp1ajs2.unitdef.builder;
+
+import static org.junit.Assert.*;
+import static org.hamcrest.CoreMatchers.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.RandomAccess;
+
+import org.junit.Test;
+
+public class ImmutableArrayListTest {
+
+	@Test
+	public void copyOf_returnsListWithSameElements() {
+		// Arrange
+		final List<String> src = new ArrayList<String>(Arrays.asList("a", "b", "c"));
+		
+		// Act
+		final List<String> r = ImmutableArrayList.copyOf(src);
+		src.set(0, "x");
+		
+		// Assert
+		assertThat(r, equalTo(Arrays.asList("a", "b", "c")));
+		assertThat(r.get(2), equalTo("c"));
+		assertTrue(r instanceof RandomAccess);
+	}
+	
+	@Test
+	public void copyOf_whenArgIsEmpty_returnsEmptyList() {
+		// Act
+		final List<String> r = ImmutableArrayList.copyOf(Collections.<String>emptyList());
+		
+		// Assert
+		assertTrue(r.isEmpty());
+	}
+	
+	@Test(expected = UnsupportedOperationException.class)
+	public void add_throwsException() {
+		ImmutableArrayList.copyOf(Arrays.asList("a")).add("b");
+	}
+	
+	@Test(expected = UnsupportedOperationException.class)
+	public void iteratorRemove_throwsException() {
+		final Iterator<String> iter = ImmutableArrayList.copyOf(Arrays.asList("a")).iterator();
+		iter.next();
+		iter.remove();
+	}
+}
@@ -74,4 +74,14 @@ public class TupleBuilderTest {
 		// Assert
 		assertThat(t.toString(), equalTo("(foo=bar)"));
 	}
+	
+	@Test
+	public void add_keepsStringSignaturesForCompiledCallers() throws NoSuchMethodException {
+		// Act
+		// Assert
+		assertNotNull(TupleBuilder.class.getMethod("add", String.class));
+		assertNotNull(TupleBuilder.class.getMethod("add", String.class, String.class));
+		assertThat(Builders.tuple().add((CharSequence) new StringBuilder("foo"))
+				.add("bar", "baz").build().toString(), equalTo("(foo,bar=baz)"));
+	}
 }
@@ -191,4 +191,21 @@ public class UnitBuilderTest {
 		// Assert
 		assertThat(r.getName(), equalTo("FOO"));
 	}
+	
+	@Test
+	public void build_whenBuilderIsModifiedAfterBuild_returnsUnchangedInstance() {
+		// Arrange
+		final UnitBuilder b = unit()
+		.setFullQualifiedName("FOO")
+		.setAttributes(attributes().setName("FOO").build())
+		.addParameter(parameter().setName("ty").addRawCharSequence("g").build());
+		final Unit r = b.build();
+		
+		// Act
+		b.addParameter(parameter().setName("cm").addRawCharSequence("comment").build());
+		
+		// Assert
+		assertThat(r.getParameters().size(), equalTo(1));
+		assertThat(b.build().getParameters().size(), equalTo(2));
+	}
 }
@@ -4,6 +4,14 @@ package org.unclazz.jp1ajs2.unitdef.parser;
 import static org.hamcrest.CoreMatchers.is;
 import static org.junit.Assert.*;
 
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.nio.charset.Charset;
+
 import org.junit.Test;
 import org.unclazz.jp1ajs2.unitdef.parser.Input;
 import org.unclazz.jp1ajs2.unitdef.parser.InputExeption;
@@ -492,5 +500,226 @@ public class InputTest {
 		assertThat(p4.next(), is('\u0000'));
 		assertThat(p4.reachedEOF(), is(true));
 	}
-
+	
+	@Test
+	public void peek_returnsCharacterAheadInCurrentLine() throws InputExeption {
+		final Input p = Input.fromCharSequence("abc\r\n123");
+		p.next(); // 'b'
+		assertThat(p.peek(0), is('b'));
+		assertThat(p.peek(1), is('c'));
+		assertThat(p.peek(3), is('\n'));
+		assertThat(p.peek(4), is('\u0000'));
+		assertThat(p.peek(-1), is('\u0000'));
+		assertThat(p.current(), is('b'));
+		assertThat(p.columnNumber(), is(2));
+	}
+	
+	@Test
+	public void matchesAt_comparesWithoutMovingPosition() throws InputExeption {
+		final Input p = Input.fromCharSequence("unit=A,,,;\r\nunit=B");
+		assertTrue(p.matchesAt(0, "unit"));
+		assertTrue(p.matchesAt(5, "A,,,;"));
+		assertTrue(p.restStartsWith("unit="));
+		assertFalse(p.matchesAt(1, "unit"));
+		assertFalse(p.matchesAt(10, "\r\nunit"));
+		assertThat(p.restLength(), is(12));
+		assertThat(p.current(), is('u'));
+		assertThat(p.columnNumber(), is(1));
+	}
+	
+	@Test
+	public void matchesAt_atEof_returnsFalse() throws InputExeption {
+		final Input p = Input.fromCharSequence("abc");
+		p.next();
+		p.next();
+		p.next();
+		assertTrue(p.reachedEOF());
+		assertFalse(p.matchesAt(0, ""));
+		assertFalse(p.restStartsWith("abc"));
+		assertThat(p.peek(0), is('\u0000'));
+		assertThat(p.restLength(), is(0));
+	}
+	
+	@Test
+	public void fromFile_readsSameCharactersAsFromStream() throws InputExeption, IOException {
+		final Charset cs = Charset.forName("Shift_JIS");
+		final String text = "unit=AAA,,,;\r\n{\r\n\tty=g;\r\n\tcm=\"これはコメントです。\";\r\n}\r\nabc\rdef\nxyz";
+		final File f = createTempFile(text, cs);
+		try {
+			final Input p0 = Input.fromStream(new ByteArrayInputStream(text.getBytes(cs)), cs);
+			final Input p1 = Input.fromFile(f, cs);
+			assertSameSequence(p0, p1);
+		} finally {
+			f.delete();
+		}
+	}
+	
+	@Test
+	public void fromFile_decodesMultiByteCharactersAcrossWindows() throws InputExeption, IOException {
+		final Charset cs = Charset.forName("UTF-8");
+		final StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < 100; i ++) {
+			sb.append("あいうえお").append(i).append("\r\n");
+		}
+		final String text = sb.toString();
+		final File f = createTempFile(text, cs);
+		try {
+			final Input p0 = Input.fromCharSequence(text);
+			final Input p1 = Input.fromReader(new MappedFileReader(f, cs, 7));
+			assertSameSequence(p0, p1);
+		} finally {
+			f.delete();
+		}
+	}
+	
+	@Test
+	public void fromFile_whenSurrogatePairFollowsFullBlock_readsAllCharacters() throws InputExeption, IOException {
+		// ブロック・バッファの最後の1文字分の空きにサロゲート・ペアが続く
+		final Charset cs = Charset.forName("UTF-8");
+		final StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < 65535; i ++) {
+			sb.append('a');
+		}
+		final String text = sb.append("\uD83D\uDE00tail\n").toString();
+		final File f = createTempFile(text, cs);
+		try {
+			final Input p = Input.fromFile(f, cs);
+			final StringBuilder actual = new StringBuilder();
+			while (p.unlessEOF()) {
+				actual.append(p.current());
+				p.next();
+			}
+			assertThat(actual.toString(), is(text));
+		} finally {
+			f.delete();
+		}
+	}
+	
+	@Test
+	public void read_whenOnlyOneCharacterFits_returnsSurrogatePairInTwoCalls() throws IOException {
+		final Charset cs = Charset.forName("UTF-8");
+		final File f = createTempFile("\uD83D\uDE00a", cs);
+		try {
+			final MappedFileReader r = new MappedFileReader(f, cs);
+			final char[] cs0 = new char[1];
+			assertThat(r.read(cs0, 0, 1), is(1));
+			assertThat(cs0[0], is('\uD83D'));
+			assertThat(r.read(cs0, 0, 1), is(1));
+			assertThat(cs0[0], is('\uDE00'));
+			assertThat(r.read(cs0, 0, 1), is(1));
+			assertThat(cs0[0], is('a'));
+			assertThat(r.read(cs0, 0, 1), is(-1));
+			r.close();
+		} finally {
+			f.delete();
+		}
+	}
+	
+	@Test
+	public void fromFile_withEmptyFile_testReachedEof() throws InputExeption, IOException {
+		final File f = createTempFile("", Charset.defaultCharset());
+		try {
+			final Input p = Input.fromFile(f);
+			assertTrue(p.reachedEOF());
+			assertThat(p.lineNumber(), is(1));
+		} finally {
+			f.delete();
+		}
+	}
+	
+	@Test
+	public void offset_returnsPositionFromStartOfInput() throws InputExeption {
+		final Input p = Input.fromCharSequence("ab\r\ncd");
+		for (int i = 0; i < 6; i ++) {
+			assertThat(p.offset(), is((long) i));
+			p.next();
+		}
+		assertTrue(p.reachedEOF());
+		assertThat(p.offset(), is(6L));
+	}
+	
+	@Test
+	public void offset_whenBlockBufferIsShifted_returnsPositionFromStartOfInput() throws InputExeption {
+		final StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < 3000; i ++) {
+			sb.append("line").append(i).append("\r\n");
+		}
+		final String text = sb.toString();
+		assertSameSequence(Input.fromCharSequence(text), Input.fromReader(new StringReader(text)));
+	}
+	
+	@Test
+	public void offset_afterToArrayBacked_continuesFromOriginalPosition() throws InputExeption {
+		final Input p0 = Input.fromReader(new StringReader("abc\r\ndef"));
+		p0.next();
+		p0.next();
+		final Input p1 = p0.toArrayBacked();
+		assertThat(p1.offset(), is(2L));
+		assertThat(p1.current(), is('c'));
+		p1.next();
+		assertThat(p1.offset(), is(3L));
+	}
+	
+	@Test
+	public void reset_whenBlockBufferIsShifted_returnsToMarkedPosition() throws InputExeption {
+		final StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < 3000; i ++) {
+			sb.append("line").append(i).append("\r\n");
+		}
+		final Input p = Input.fromReader(new StringReader(sb.toString()));
+		while (p.lineNumber() < 1000) {
+			p.next();
+		}
+		p.next();
+		final Input.Mark m = p.mark();
+		final long offset = p.offset();
+		while (p.lineNumber() < 2500) {
+			p.next();
+		}
+		p.reset(m);
+		assertThat(p.offset(), is(offset));
+		assertThat(p.lineNumber(), is(1000));
+		assertThat(p.columnNumber(), is(2));
+		assertThat(p.restOfLine(), is("ine999\r\n"));
+		p.unmark();
+		final Input expected = Input.fromCharSequence(sb);
+		while (expected.offset() < offset) {
+			expected.next();
+		}
+		assertSameSequence(expected, p);
+	}
+	
+	@Test(expected = IllegalStateException.class)
+	public void reset_afterUnmark_throwsException() throws InputExeption {
+		final Input p = Input.fromReader(new StringReader("abc"));
+		final Input.Mark m = p.mark();
+		p.unmark();
+		p.reset(m);
+	}
+	
+	private static File createTempFile(final String text, final Charset cs) throws IOException {
+		final File f = File.createTempFile("unitdef", ".txt");
+		final OutputStream out = new FileOutputStream(f);
+		try {
+			out.write(text.getBytes(cs));
+		} finally {
+			out.close();
+		}
+		return f;
+	}
+	
+	private static void assertSameSequence(final Input expected, final Input actual) throws InputExeption {
+		while (expected.unlessEOF()) {
+			assertThat(actual.current(), is(expected.current()));
+			assertThat(actual.lineNumber(), is(expected.lineNumber()));
+			assertThat(actual.columnNumber(), is(expected.columnNumber()));
+			assertThat(actual.offset(), is(expected.offset()));
+			assertThat(actual.line(), is(expected.line()));
+			expected.next();
+			actual.next();
+		}
+		assertTrue(actual.reachedEOF());
+		assertThat(actual.lineNumber(), is(expected.lineNumber()));
+		assertThat(actual.offset(), is(expected.offset()));
+	}
 }
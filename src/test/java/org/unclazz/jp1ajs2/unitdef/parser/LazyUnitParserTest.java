@@ -0,0 +1,184 @@
+package org.unclazz.jp1ajs2.unitdef.parser;
+
+import static org.junit.Assert.*;
+import static org.hamcrest.CoreMatchers.*;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.EnumSet;
+import java.util.List;
+
+import org.junit.Test;
+import org.unclazz.jp1ajs2.unitdef.Parameter;
+import org.unclazz.jp1ajs2.unitdef.Unit;
+import org.unclazz.jp1ajs2.unitdef.Units;
+import org.unclazz.jp1ajs2.unitdef.builder.ParameterLookup;
+import org.unclazz.jp1ajs2.unitdef.parameter.UnitType;
+
+public class LazyUnitParserTest {
+
+	private static String rootUnits(final int count) {
+		final StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < count; i ++) {
+			sb.append("/* root unit ").append(i).append(" { */\r\n")
+			.append("unit=ROOT").append(i).append(",,jp1admin,;\r\n")
+			.append("{\r\n")
+			.append("\tty=g;\r\n")
+			.append("\tcm=\"括弧 } と #\" を含むコメント\";\r\n")
+			.append("\tunit=JOB").append(i).append(",,,;\r\n")
+			.append("\t{\r\n")
+			.append("\t\tty=j;\r\n")
+			.append("\t\tsc=\"/path/to/{script}.sh\";\r\n")
+			.append("\t}\r\n")
+			.append("}\r\n")
+			.append("// end of root unit ").append(i).append(" }\r\n");
+		}
+		return sb.toString();
+	}
+
+	private static File createTempFile(final String text, final Charset cs) throws IOException {
+		final File f = File.createTempFile("unitdef", ".txt");
+		final OutputStream out = new FileOutputStream(f);
+		try {
+			out.write(text.getBytes(cs));
+		} finally {
+			out.close();
+		}
+		return f;
+	}
+
+	@Test
+	public void parse_returnsProxiesWithSameContentsAsUnitParser() {
+		final String s = rootUnits(10);
+		final List<Unit> expected = new UnitParser().parse(s).get();
+		final List<Unit> actual = new LazyUnitParser().parse(s).get();
+
+		assertThat(actual.size(), is(10));
+		for (int i = 0; i < expected.size(); i ++) {
+			final Unit u = actual.get(i);
+			assertThat(u, instanceOf(LazyUnit.class));
+			assertThat(u.getName(), is("ROOT" + i));
+			assertThat(u.getAttributes().getJP1UserName(), is("jp1admin"));
+			assertThat(u.getFullQualifiedName(), is(expected.get(i).getFullQualifiedName()));
+			assertThat(u.serialize().toString(), is(expected.get(i).serialize().toString()));
+		}
+	}
+
+	@Test
+	public void parse_defersParsingUntilParametersAreAccessed() {
+		final List<Unit> units = new LazyUnitParser().parse(rootUnits(3)).get();
+		final LazyUnit u0 = (LazyUnit) units.get(0);
+		final LazyUnit u1 = (LazyUnit) units.get(1);
+
+		assertThat(u1.getName(), is("ROOT1"));
+		assertFalse(u0.isMaterialized());
+		assertFalse(u1.isMaterialized());
+
+		assertThat(u1.getType(), is(UnitType.JOB_GROUP));
+		assertThat(u1.getSubUnits().get(0).getName(), is("JOB1"));
+		assertFalse(u0.isMaterialized());
+		assertTrue(u1.isMaterialized());
+		assertTrue(u1.getSubUnits() == u1.getSubUnits());
+	}
+
+	@Test
+	public void parse_parameterLookupOnProxyUsesIndexOfMaterializedUnit() {
+		final String s = "unit=A,,,;{ty=g;el=a,g,+0 +0;el=b,g,+0 +0;el=c,g,+0 +0;"
+				+ "el=d,g,+0 +0;cm=\"x\";sd=en;st=00:00;fd=10;}\r\n";
+		final Unit u = new LazyUnitParser().parse(s).get().get(0);
+		final Unit m = ((LazyUnit) u).materialize();
+
+		final List<Parameter> el = ParameterLookup.getParameters(u, "el");
+		assertThat(el.size(), is(4));
+		// 索引が使用されていれば実体化したユニットと同じリストのインスタンスが返される
+		assertTrue(el == ParameterLookup.getParameters(u, "el"));
+		assertTrue(el == ParameterLookup.getParameters(m, "el"));
+	}
+
+	@Test
+	public void parse_whenBodyOfUnitHasSyntaxError_throwsExceptionOnAccess() {
+		final String s = "unit=A,,,;{ty=g;}\r\nunit=B,,,;\r\n{ty=g;xx=(a,b;}\r\n";
+		final List<Unit> units = new LazyUnitParser().parse(s).get();
+
+		assertThat(units.get(1).getName(), is("B"));
+		assertThat(units.get(0).getType(), is(UnitType.JOB_GROUP));
+		try {
+			units.get(1).getParameters();
+			fail();
+		} catch (final IllegalArgumentException e) {
+			assertThat(e.getCause(), instanceOf(ParseException.class));
+			assertThat(e.getCause().getMessage(), containsString("line 3"));
+		}
+	}
+
+	@Test
+	public void parse_whenBoundaryIsBroken_returnsSameErrorAsUnitParser() {
+		final String s = "unit=A,,,;{ty=g;}\r\n}";
+		final ParseResult<List<Unit>> r = new LazyUnitParser().parse(s);
+
+		assertFalse(r.isSuccessful());
+		assertThat(r.getError().getMessage(), is(new UnitParser().parse(s).getError().getMessage()));
+	}
+
+	@Test
+	public void parse_whenSourceMapIsSpecified_recordsRangesOnAccess() {
+		final String s = rootUnits(2);
+		final SourceMap map = new SourceMap();
+		final UnitParseOptions opts = new UnitParseOptions();
+		opts.setSourceMap(map);
+		final List<Unit> units = new LazyUnitParser(opts).parse(s).get();
+		assertThat(map.size(), is(0));
+
+		units.get(1).getSubUnits();
+
+		final SourceRange r = map.getUnitRange("/ROOT1");
+		assertThat(s.substring((int) r.getStartOffset(), (int) r.getEndOffset()), startsWith("unit=ROOT1,"));
+		assertThat(r.getStartLineNumber(), is(14));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void constructor_whenUnitTypesAreSpecified_throwsException() {
+		final UnitParseOptions opts = new UnitParseOptions();
+		opts.setUnitTypes(EnumSet.of(UnitType.JOBNET));
+		new LazyUnitParser(opts);
+	}
+
+	@Test
+	public void Units_lazyFromFile_returnsSameUnitsAsFromFile() throws IOException {
+		final String s = rootUnits(5);
+		final Charset sjis = Charset.forName("Shift_JIS");
+		final File f = createTempFile(s, sjis);
+		try {
+			final List<Unit> expected = Units.fromFile(f, sjis);
+			final List<Unit> actual = Units.lazyFromFile(f, sjis);
+			assertThat(actual.size(), is(5));
+			assertThat(actual.get(4).getComment().toString(), is("括弧 } と \" を含むコメント"));
+			for (int i = 0; i < expected.size(); i ++) {
+				assertThat(actual.get(i).serialize().toString(), is(expected.get(i).serialize().toString()));
+			}
+		} finally {
+			f.delete();
+		}
+	}
+
+	@Test
+	public void parse_whenByteLevelScanningIsSpecified_returnsSameUnits() throws IOException {
+		final String s = rootUnits(3);
+		final Charset sjis = Charset.forName("Shift_JIS");
+		final File f = createTempFile(s, sjis);
+		final UnitParseOptions opts = new UnitParseOptions();
+		opts.setByteLevelScanning(true);
+		try {
+			final List<Unit> expected = new UnitParser().parse(f, sjis).get();
+			final List<Unit> actual = new LazyUnitParser(opts).parse(f, sjis).get();
+			for (int i = 0; i < expected.size(); i ++) {
+				assertThat(actual.get(i).serialize().toString(), is(expected.get(i).serialize().toString()));
+			}
+		} finally {
+			f.delete();
+		}
+	}
+}
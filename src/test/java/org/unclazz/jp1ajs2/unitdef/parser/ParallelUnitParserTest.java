@@ -0,0 +1,76 @@
+package org.unclazz.jp1ajs2.unitdef.parser;
+
+import static org.junit.Assert.*;
+import static org.hamcrest.CoreMatchers.*;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.Test;
+import org.unclazz.jp1ajs2.unitdef.Unit;
+
+public class ParallelUnitParserTest {
+
+	private static String rootUnits(final int count) {
+		final StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < count; i ++) {
+			sb.append("/* root unit ").append(i).append(" { */\r\n")
+			.append("unit=ROOT").append(i).append(",,,;\r\n")
+			.append("{\r\n")
+			.append("\tty=g;\r\n")
+			.append("\tcm=\"括弧 } と #\" を含むコメント\";\r\n")
+			.append("\tunit=JOB").append(i).append(",,,;\r\n")
+			.append("\t{\r\n")
+			.append("\t\tty=j;\r\n")
+			.append("\t\tsc=\"/path/to/{script}.sh\";\r\n")
+			.append("\t}\r\n")
+			.append("}\r\n")
+			.append("// end of root unit ").append(i).append(" }\r\n");
+		}
+		return sb.toString();
+	}
+
+	@Test
+	public void parse_returnsSameUnitsAsUnitParserInSourceOrder() {
+		final String s = rootUnits(100);
+		final List<Unit> expected = new UnitParser().parse(s).get();
+		final ParseResult<List<Unit>> actual = new ParallelUnitParser(null, 4, 1).parse(s);
+		assertTrue(actual.isSuccessful());
+		assertThat(actual.get().size(), is(100));
+		for (int i = 0; i < expected.size(); i ++) {
+			assertThat(actual.get().get(i).getName(), is("ROOT" + i));
+			assertThat(actual.get().get(i).serialize().toString(),
+					is(expected.get(i).serialize().toString()));
+		}
+	}
+
+	@Test
+	public void parse_usesGivenExecutor() {
+		final ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			final ParseResult<List<Unit>> r = new ParallelUnitParser(executor).parse(rootUnits(10));
+			assertTrue(r.isSuccessful());
+			assertThat(r.get().size(), is(10));
+			assertFalse(executor.isShutdown());
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void parse_reportsSameErrorAsUnitParser() {
+		final String s = rootUnits(3) + "unit=BAD,,,;\r\n{\r\n\tty=g;\r\n\txx=(a,b;\r\n}\r\n";
+		final ParseResult<List<Unit>> r = new ParallelUnitParser(null, 4, 1).parse(s);
+		assertFalse(r.isSuccessful());
+		assertThat(r.getError(), instanceOf(ParseException.class));
+		assertThat(r.getError().getMessage(), is(new UnitParser().parse(s).getError().getMessage()));
+	}
+
+	@Test
+	public void parse_fallsBackToSequentialParseIfBoundariesAreNotFound() {
+		final ParseResult<List<Unit>> r = new ParallelUnitParser(null, 4, 1)
+				.parse("unit=A,,,;{ty=g;}unit=B,,,;{ty=g;");
+		assertFalse(r.isSuccessful());
+	}
+}
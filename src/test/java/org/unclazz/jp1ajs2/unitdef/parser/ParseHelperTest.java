@@ -370,6 +370,18 @@ public class ParseHelperTest {
 		
 	}
 	
+	@Test
+	public void parseNumberTest10() throws InputExeption, ParseException {
+		final Input i0 = Input.fromCharSequence("|123 ghi");
+		try {
+			p0.parseNumber(i0);
+			fail();
+		} catch (final ParseException e) {
+			// OK.
+		}
+		assertThat(i0.columnNumber(), is(1));
+	}
+	
 	@Test
 	public void skipCommentTest00() throws InputExeption, ParseException {
 		final Input i0 = Input.fromCharSequence("123.e-10f ghi");
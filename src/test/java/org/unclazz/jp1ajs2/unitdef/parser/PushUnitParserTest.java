@@ -0,0 +1,263 @@
+package org.unclazz.jp1ajs2.unitdef.parser;
+
+import static org.junit.Assert.*;
+import static org.hamcrest.CoreMatchers.*;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+import org.unclazz.jp1ajs2.unitdef.Unit;
+
+public class PushUnitParserTest {
+
+	/**
+	 * 受け取ったバイトをASCII文字としてデコードするものの、すべての文字を{@code flush}まで出力しないキャラクターセット.
+	 */
+	private static final class DeferringCharset extends Charset {
+		DeferringCharset() {
+			super("X-DEFERRING-TEST", null);
+		}
+		@Override
+		public boolean contains(final Charset cs) {
+			return false;
+		}
+		@Override
+		public CharsetDecoder newDecoder() {
+			return new CharsetDecoder(this, 1, 1) {
+				private final StringBuilder deferred = new StringBuilder();
+				@Override
+				protected CoderResult decodeLoop(final ByteBuffer in, final CharBuffer out) {
+					while (in.hasRemaining()) {
+						deferred.append((char) in.get());
+					}
+					return CoderResult.UNDERFLOW;
+				}
+				@Override
+				protected CoderResult implFlush(final CharBuffer out) {
+					final int n = Math.min(out.remaining(), deferred.length());
+					out.append(deferred, 0, n);
+					deferred.delete(0, n);
+					return deferred.length() == 0 ? CoderResult.UNDERFLOW : CoderResult.OVERFLOW;
+				}
+				@Override
+				protected void implReset() {
+					deferred.setLength(0);
+				}
+			};
+		}
+		@Override
+		public CharsetEncoder newEncoder() {
+			throw new UnsupportedOperationException();
+		}
+	}
+
+	private static String rootUnits(final int count) {
+		final StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < count; i ++) {
+			sb.append("/* root unit ").append(i).append(" { */\r\n")
+			.append("unit=ROOT").append(i).append(",,,;\r\n")
+			.append("{\r\n")
+			.append("\tty=g;\r\n")
+			.append("\tcm=\"括弧 } と #\" を含むコメント\";\r\n")
+			.append("\tunit=JOB").append(i).append(",,,;\r\n")
+			.append("\t{\r\n")
+			.append("\t\tty=j;\r\n")
+			.append("\t\tsc=\"/path/to/{script}.sh\";\r\n")
+			.append("\t}\r\n")
+			.append("}\r\n")
+			.append("// end of root unit ").append(i).append(" }\r\n");
+		}
+		return sb.toString();
+	}
+
+	private static String serialize(final List<Unit> units) {
+		final StringBuilder sb = new StringBuilder();
+		for (final Unit u : units) {
+			sb.append(u.serialize());
+		}
+		return sb.toString();
+	}
+
+	private static List<Unit> feedBytes(final PushUnitParser parser, final byte[] bytes, final int chunkSize) {
+		final List<Unit> units = new ArrayList<Unit>();
+		final ByteBuffer chunk = ByteBuffer.allocate(chunkSize);
+		for (int i = 0; i < bytes.length; i += chunkSize) {
+			chunk.clear();
+			chunk.put(bytes, i, Math.min(chunkSize, bytes.length - i));
+			chunk.flip();
+			final ParseResult<List<Unit>> r = parser.feed(chunk);
+			assertTrue(r.isSuccessful());
+			assertFalse(chunk.hasRemaining());
+			units.addAll(r.get());
+		}
+		final ParseResult<List<Unit>> r = parser.finish();
+		assertTrue(r.isSuccessful());
+		units.addAll(r.get());
+		return units;
+	}
+
+	@Test
+	public void feed_whenBytesAreSplitAtAnyPosition_returnsSameUnitsAsUnitParser() {
+		final String s = rootUnits(3);
+		final String expected = serialize(new UnitParser().parse(s).get());
+		for (final String cs : new String[]{"UTF-8", "Shift_JIS"}) {
+			final Charset charset = Charset.forName(cs);
+			final byte[] bytes = s.getBytes(charset);
+			for (final int chunkSize : new int[]{1, 2, 3, 5, 7, 64, bytes.length}) {
+				final List<Unit> units = feedBytes(new PushUnitParser(charset), bytes, chunkSize);
+				assertThat(cs + "/" + chunkSize, serialize(units), is(expected));
+			}
+		}
+	}
+
+	@Test
+	public void feed_whenSourceMapIsSpecified_recordsSameRangesAsUnitParser() {
+		final String s = rootUnits(3);
+		final UnitParseOptions opts = new UnitParseOptions();
+		final SourceMap expected = new SourceMap();
+		opts.setSourceMap(expected);
+		new UnitParser(opts).parse(s);
+		final SourceMap actual = new SourceMap();
+		opts.setSourceMap(actual);
+		final Charset charset = Charset.forName("UTF-8");
+		feedBytes(new PushUnitParser(charset, opts), s.getBytes(charset), 5);
+		
+		assertThat(actual.size(), is(6));
+		for (final String fqn : expected.getFullQualifiedNames()) {
+			assertThat(fqn, actual.getUnitRange(fqn), is(expected.getUnitRange(fqn)));
+			assertThat(fqn, actual.getParameterRanges(fqn), is(expected.getParameterRanges(fqn)));
+		}
+	}
+	
+	@Test
+	public void feed_whenClosingBraceArrives_returnsCompletedRootUnit() {
+		final PushUnitParser parser = new PushUnitParser();
+
+		final ParseResult<List<Unit>> r0 = parser.feed(CharBuffer.wrap("unit=A,,,;{ty=g;unit=B,,,;{ty=j;}"));
+		final ParseResult<List<Unit>> r1 = parser.feed(CharBuffer.wrap("\r\n}\r\nunit=C,,,;{ty"));
+		final ParseResult<List<Unit>> r2 = parser.feed(CharBuffer.wrap("=n;}"));
+		final ParseResult<List<Unit>> r3 = parser.finish();
+
+		assertThat(r0.get().size(), is(0));
+		assertThat(r1.get().size(), is(1));
+		assertThat(r1.get().get(0).getName(), is("A"));
+		assertThat(r1.get().get(0).getSubUnits().get(0).getName(), is("B"));
+		assertThat(r2.get().size(), is(1));
+		assertThat(r2.get().get(0).getName(), is("C"));
+		assertThat(r3.get().size(), is(0));
+	}
+
+	@Test
+	public void feed_whenZeroCopyValuesIsSpecified_doesNotShareBufferWithUnits() {
+		final UnitParseOptions opts = new UnitParseOptions();
+		opts.setZeroCopyValues(true);
+		final PushUnitParser parser = new PushUnitParser(Charset.forName("UTF-8"), opts);
+
+		final Unit a = parser.feed(CharBuffer.wrap("unit=A,,,;{ty=g;cm=\"aaaa\";}")).get().get(0);
+		parser.feed(CharBuffer.wrap("unit=B,,,;{ty=g;cm=\"bbbb\";}"));
+
+		assertThat(a.getParameters().get(1).getValues().get(0).getStringValue(), is("aaaa"));
+	}
+
+	@Test
+	public void feed_whenSyntaxErrorIsFound_returnsSameErrorAsUnitParser() {
+		final String s = "unit=A,,,;{ty=g;}\r\nunit=B,,,;\r\n{ty=g;xx=(a,b;}";
+		final String expected = new UnitParser().parse(s).getError().getMessage();
+		final PushUnitParser parser = new PushUnitParser();
+
+		final ParseResult<List<Unit>> r0 = parser.feed(CharBuffer.wrap(s));
+		final ParseResult<List<Unit>> r1 = parser.feed(CharBuffer.wrap("unit=C,,,;{ty=g;}"));
+		final ParseResult<List<Unit>> r2 = parser.finish();
+
+		// エラーより前に完結したルート・ユニットはそのチャンクの結果として返される
+		assertTrue(r0.isSuccessful());
+		assertThat(r0.get().size(), is(1));
+		assertThat(r0.get().get(0).getName(), is("A"));
+		assertFalse(r1.isSuccessful());
+		assertThat(r1.getError().getMessage(), is(expected));
+		assertTrue(r2 == r1);
+	}
+
+	@Test
+	public void feed_whenSyntaxErrorIsFoundAtFirstRootUnit_returnsFailure() {
+		final String s = "unit=B,,,;\r\n{ty=g;xx=(a,b;}";
+		final String expected = new UnitParser().parse(s).getError().getMessage();
+		final PushUnitParser parser = new PushUnitParser();
+
+		final ParseResult<List<Unit>> r0 = parser.feed(CharBuffer.wrap(s));
+		final ParseResult<List<Unit>> r1 = parser.feed(CharBuffer.wrap("unit=D,,,;{ty=g;}"));
+
+		assertFalse(r0.isSuccessful());
+		assertThat(r0.getError().getMessage(), is(expected));
+		assertTrue(r1 == r0);
+	}
+
+	@Test
+	public void feed_whenTextIsOutsideOfUnit_returnsFailure() {
+		final PushUnitParser parser = new PushUnitParser();
+
+		final ParseResult<List<Unit>> r0 = parser.feed(CharBuffer.wrap("unit=A,,,;{ty=g;}\r\n}"));
+		final ParseResult<List<Unit>> r1 = parser.finish();
+
+		assertTrue(r0.isSuccessful());
+		assertThat(r0.get().size(), is(1));
+		assertFalse(r1.isSuccessful());
+		assertThat(r1.getError(), instanceOf(ParseException.class));
+	}
+
+	@Test
+	public void finish_whenDecoderFlushesCharacters_parsesFlushedCharacters() {
+		// デコーダーがflushで出力する文字数をパーサーの予備の容量よりも大きくする
+		final StringBuilder sb = new StringBuilder("unit=A,,,;{ty=g;");
+		for (int i = 0; i < 10; i ++) {
+			sb.append("unit=JOB").append(i).append(",,,;{ty=j;sc=\"/path/to/{script}.sh\";}");
+		}
+		final String s = sb.append("}").toString();
+		final PushUnitParser parser = new PushUnitParser(new DeferringCharset());
+
+		final ParseResult<List<Unit>> r0 = parser.feed(ByteBuffer.wrap(s.getBytes(Charset.forName("US-ASCII"))));
+		final ParseResult<List<Unit>> r1 = parser.finish();
+
+		assertTrue(r0.isSuccessful());
+		assertTrue(r0.get().isEmpty());
+		assertTrue(r1.isSuccessful());
+		assertThat(serialize(r1.get()), is(serialize(new UnitParser().parse(s).get())));
+	}
+
+	@Test
+	public void finish_whenRootUnitIsIncomplete_returnsFailure() {
+		final PushUnitParser parser = new PushUnitParser();
+		parser.feed(CharBuffer.wrap("unit=A,,,;{ty=g;}\r\nunit=B,,,;{ty=g;"));
+
+		final ParseResult<List<Unit>> r = parser.finish();
+
+		assertFalse(r.isSuccessful());
+		assertThat(r.getError().getMessage(), containsString("line 2"));
+	}
+
+	@Test
+	public void finish_whenNoUnitIsFound_returnsFailure() {
+		final PushUnitParser parser = new PushUnitParser();
+		parser.feed(CharBuffer.wrap("  // comment only\r\n"));
+
+		final ParseResult<List<Unit>> r = parser.finish();
+
+		assertFalse(r.isSuccessful());
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void feed_whenAlreadyFinished_throwsException() {
+		final PushUnitParser parser = new PushUnitParser();
+		parser.feed(CharBuffer.wrap("unit=A,,,;{ty=g;}"));
+		parser.finish();
+
+		parser.feed(CharBuffer.wrap("unit=B,,,;{ty=g;}"));
+	}
+}
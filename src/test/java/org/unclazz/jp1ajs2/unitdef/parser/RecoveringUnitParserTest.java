@@ -0,0 +1,149 @@
+package org.unclazz.jp1ajs2.unitdef.parser;
+
+import static org.junit.Assert.*;
+import static org.hamcrest.CoreMatchers.*;
+
+import java.io.StringReader;
+import java.util.List;
+
+import org.junit.Test;
+import org.unclazz.jp1ajs2.unitdef.Unit;
+
+public class RecoveringUnitParserTest {
+
+	private static String serialize(final List<Unit> units) {
+		final StringBuilder sb = new StringBuilder();
+		for (final Unit u : units) {
+			sb.append(u.serialize());
+		}
+		return sb.toString();
+	}
+
+	private static UnitParseReport parse(final String s) {
+		final ParseResult<UnitParseReport> r = new RecoveringUnitParser().parse(s);
+		assertTrue(r.isSuccessful());
+		return r.get();
+	}
+
+	@Test
+	public void parse_whenInputHasNoError_returnsSameUnitsAsUnitParser() {
+		final String s = "unit=A,,,;\r\n{\r\n\tty=g;\r\n\tcm=\"コメント\";\r\n"
+				+ "\tunit=B,,,;{ty=j;sc=\"/path/to/{b}.sh\";}\r\n}\r\n"
+				+ "// comment }\r\nunit=C,,,;{ty=n;el=B,j,+80+48;}\r\n";
+
+		final UnitParseReport report = parse(s);
+
+		assertFalse(report.hasErrors());
+		assertThat(serialize(report.getUnits()), is(serialize(new UnitParser().parse(s).get())));
+	}
+
+	@Test
+	public void parse_reportsAllErrorsAndReturnsUnitsWithoutErrors() {
+		final String s = "unit=A,,,;\r\n{\r\n\tty=g;\r\n\t=(a,b);\r\n\tcm=\"a\";\r\n}\r\n"
+				+ "unit=B,,,;\r\n{\r\n\tty=g;\r\n}\r\n"
+				+ "unit=C,,,;\r\n{\r\n\tty=n;\r\n\tunit=C1,,,;{ty=j;=a;}\r\n\tunit=C2,,,;{ty=j;}\r\n}\r\n"
+				+ "unit=D,,,;\r\n{\r\n\tty=g;\r\n}\r\n";
+
+		final UnitParseReport report = parse(s);
+
+		assertThat(report.getErrors().size(), is(2));
+		assertThat(report.getErrors().get(0).getMessage(),
+				is(new UnitParser().parse(s).getError().getMessage()));
+		assertThat(report.getErrors().get(0).getLineNumber(), is(4));
+		assertThat(report.getErrors().get(1).getLineNumber(), is(14));
+		assertThat(report.getErrors().get(1).getColumnNumber() > 0, is(true));
+		assertThat(report.getUnits().size(), is(2));
+		assertThat(report.getUnits().get(0).getName(), is("B"));
+		assertThat(report.getUnits().get(1).getName(), is("D"));
+	}
+
+	@Test
+	public void parse_whenSkippedBlockHasComment_ignoresBracesInComment() {
+		final String s = "unit=A,,,;{ty=g;unit=B,x,y,z,w;{ty=j; /* } */ cm=\"a\";}unit=C,,,;{ty=j;}}\r\n"
+				+ "unit=D,,,;{ty=g;}";
+
+		final UnitParseReport report = parse(s);
+
+		assertThat(report.getErrors().size(), is(1));
+		assertThat(report.getUnits().size(), is(1));
+		assertThat(report.getUnits().get(0).getName(), is("D"));
+	}
+
+	@Test
+	public void parse_whenTupleIsNotClosed_resumesAfterThatParameter() {
+		final String s = "unit=A,,,;{ty=g;xx=(a,b;cm=\"a\";}\r\nunit=B,,,;{ty=g;}";
+
+		final UnitParseReport report = parse(s);
+
+		assertThat(report.getErrors().size(), is(1));
+		assertThat(report.getErrors().get(0).getMessage(),
+				is(new UnitParser().parse(s).getError().getMessage()));
+		assertThat(report.getUnits().size(), is(1));
+		assertThat(report.getUnits().get(0).getName(), is("B"));
+	}
+
+	@Test
+	public void parse_whenBrokenParameterSpansBlocksOfReader_returnsSameReportAsString() {
+		final StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < 500; i ++) {
+			sb.append("unit=N").append(i).append(",,,;\r\n{\r\n\tty=g;\r\n");
+			if (i % 7 == 0) {
+				// 閉じられていないタプルにより後続の行まで読み進めてからパラメータの先頭に戻る
+				sb.append("\txx=(a,b;\r\n\tcm=\"").append(i).append("\";\r\n\tel=J,j,+80+48;\r\n");
+			}
+			sb.append("}\r\n");
+		}
+		final String s = sb.toString();
+
+		final UnitParseReport expected = parse(s);
+		final ParseResult<UnitParseReport> r = new RecoveringUnitParser().parse(new StringReader(s));
+
+		assertTrue(r.isSuccessful());
+		assertThat(r.get().getErrors().size(), is(expected.getErrors().size()));
+		for (int i = 0; i < expected.getErrors().size(); i ++) {
+			assertThat(r.get().getErrors().get(i).getMessage(), is(expected.getErrors().get(i).getMessage()));
+		}
+		assertThat(serialize(r.get().getUnits()), is(serialize(expected.getUnits())));
+	}
+
+	@Test
+	public void parse_whenAttributesAreBroken_skipsOnlyThatUnit() {
+		final String s = "unit=A,,,;{ty=n;unit=,,,;{ty=j;}unit=A2,,,;{ty=j;}}\r\nunit=B,,,;{ty=g;}";
+
+		final UnitParseReport report = parse(s);
+
+		assertThat(report.getErrors().size(), is(1));
+		assertThat(report.getUnits().size(), is(1));
+		assertThat(report.getUnits().get(0).getName(), is("B"));
+	}
+
+	@Test
+	public void parse_whenUnmatchedBraceIsFound_resumesAfterIt() {
+		final String s = "unit=A,,,;{ty=g;}\r\n}\r\nunit=B,,,;{ty=g;}";
+
+		final UnitParseReport report = parse(s);
+
+		assertThat(report.getErrors().size(), is(1));
+		assertThat(report.getErrors().get(0).getLineNumber(), is(2));
+		assertThat(report.getUnits().size(), is(2));
+	}
+
+	@Test
+	public void parse_whenTyIsMissingOrBraceIsNotClosed_reportsErrors() {
+		final String s = "unit=A,,,;{cm=\"a\";}\r\nunit=B,,,;{ty=g;unit=B1,,,;{ty=j;";
+
+		final UnitParseReport report = parse(s);
+
+		assertThat(report.getErrors().size(), is(3));
+		assertThat(report.getErrors().get(0).getMessage(), containsString("\"ty\""));
+		assertThat(report.getUnits().size(), is(0));
+	}
+
+	@Test
+	public void parse_whenNoUnitIsFound_reportsError() {
+		final UnitParseReport report = parse("  // comment only\r\n");
+
+		assertThat(report.getErrors().size(), is(1));
+		assertThat(report.getUnits().size(), is(0));
+	}
+}
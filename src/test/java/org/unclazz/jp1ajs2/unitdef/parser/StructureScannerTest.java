@@ -0,0 +1,89 @@
+package org.unclazz.jp1ajs2.unitdef.parser;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class StructureScannerTest {
+
+	private static final StructureScanner.Syntax syntax = new StructureScanner.Syntax(new ParseOptions());
+
+	private static StructureScanner.OfArray scanner(final String s) {
+		final StructureScanner.OfArray r = new StructureScanner.OfArray(syntax);
+		r.reset(s.toCharArray(), 0, s.length(), true);
+		return r;
+	}
+
+	private static String structure(final StructureScanner.OfArray s) {
+		final StringBuilder sb = new StringBuilder();
+		int c;
+		while ((c = s.peek()) >= 0) {
+			sb.append((char) c);
+			s.consume();
+		}
+		return sb.toString();
+	}
+
+	@Test
+	public void peek_skipsCommentsOnlyAtBoundaries() {
+		final StructureScanner.OfArray s = scanner("/* a; */ {x=/y;// }\r\n}");
+		assertThat(structure(s), is("{x=/y;}"));
+		assertThat(s.depth(), is(0));
+	}
+
+	@Test
+	public void peek_skipsQuotedStringWithEscape() {
+		final StructureScanner.OfArray s = scanner("{a=\"}\\\"{\";}");
+		assertThat(structure(s), is("{a=\";}"));
+		assertThat(s.inQuotedString(), is(false));
+		assertThat(s.depth(), is(0));
+	}
+
+	@Test
+	public void peek_skipsDoubledQuotesWhenEscapeIsQuote() {
+		final ParseOptions o = new ParseOptions();
+		o.setEscapePrefixInDoubleQuotes('"');
+		final String src = "a=\"x\"\"}\";}";
+		final StructureScanner.OfArray s = new StructureScanner.OfArray(new StructureScanner.Syntax(o));
+		s.reset(src.toCharArray(), 0, src.length(), true);
+		assertThat(structure(s), is("a=\";}"));
+		assertThat(s.depth(), is(-1));
+	}
+
+	@Test
+	public void peek_ignoresCommentsWhenSkipCommentWithWhitespaceIsFalse() {
+		final ParseOptions o = new ParseOptions();
+		o.setSkipCommentWithWhitespace(false);
+		final String src = "/*}*/";
+		final StructureScanner.OfArray s = new StructureScanner.OfArray(new StructureScanner.Syntax(o));
+		s.reset(src.toCharArray(), 0, src.length(), true);
+		assertThat(structure(s), is("/*}*/"));
+	}
+
+	@Test
+	public void peek_returnsNeedMoreAndResumesAfterReset() {
+		final char[] cs = "{/* } */\"}\"}".toCharArray();
+		final StructureScanner.OfArray s = new StructureScanner.OfArray(syntax);
+		s.reset(cs, 0, 2, false);
+		assertThat(s.peek(), is((int) '{'));
+		s.consume();
+		// "/"だけではコメントの開始文字列かどうか判断できない
+		assertThat(s.peek(), is(StructureScanner.NEED_MORE));
+		assertThat(s.position(), is(1));
+		s.reset(cs, s.position(), 6, false);
+		assertThat(s.peek(), is(StructureScanner.NEED_MORE));
+		assertThat(s.inBlockComment(), is(true));
+		s.reset(cs, s.position(), cs.length, true);
+		assertThat(structure(s), is("\"}"));
+		assertThat(s.depth(), is(0));
+		assertThat(s.peek(), is(StructureScanner.EOF));
+	}
+
+	@Test
+	public void skipQuotedString_reportsUnclosedQuotedString() {
+		final StructureScanner.OfArray s = scanner("\"abc");
+		assertThat(s.skipQuotedString('\\'), is(StructureScanner.EOF));
+		assertThat(s.inQuotedString(), is(true));
+	}
+}
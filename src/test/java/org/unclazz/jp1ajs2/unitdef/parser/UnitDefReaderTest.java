@@ -0,0 +1,113 @@
+package org.unclazz.jp1ajs2.unitdef.parser;
+
+import static org.junit.Assert.*;
+import static org.unclazz.jp1ajs2.unitdef.TestUtils.*;
+import static org.hamcrest.CoreMatchers.*;
+
+import org.junit.Test;
+import org.unclazz.jp1ajs2.unitdef.parser.UnitDefReader.EventType;
+
+public class UnitDefReaderTest {
+
+	@Test
+	public void next_returnsEventsInSourceOrder() throws InputExeption, ParseException {
+		final UnitDefReader r = new UnitDefReader(Input.fromCharSequence(nestedUnitDefString1));
+		assertNull(r.getEventType());
+
+		assertThat(r.next(), is(EventType.START_UNIT));
+		assertThat(r.getFullQualifiedName().toString(), is("/XXXX0000"));
+		assertThat(r.getAttributes().getJP1UserName(), is("BBBBB"));
+		assertThat(r.getDepth(), is(0));
+
+		assertThat(r.next(), is(EventType.PARAMETER));
+		assertThat(r.getParameter().getName(), is("ty"));
+		assertThat(r.getFullQualifiedName().toString(), is("/XXXX0000"));
+		assertNull(r.getAttributes());
+
+		int params = 1;
+		while (r.next() == EventType.PARAMETER) {
+			params ++;
+		}
+		assertThat(params, is(9));
+		assertThat(r.getEventType(), is(EventType.START_UNIT));
+		assertThat(r.getFullQualifiedName().toString(), is("/XXXX0000/XXXX0001"));
+		assertThat(r.getDepth(), is(1));
+
+		assertThat(r.next(), is(EventType.PARAMETER));
+		assertThat(r.next(), is(EventType.PARAMETER));
+		assertThat(r.getParameter().getValues().get(0).getStringValue(), is("これはコメントです。"));
+		assertThat(r.next(), is(EventType.END_UNIT));
+		assertThat(r.getFullQualifiedName().toString(), is("/XXXX0000/XXXX0001"));
+		assertThat(r.getDepth(), is(1));
+
+		assertThat(r.next(), is(EventType.START_UNIT));
+		assertThat(r.next(), is(EventType.PARAMETER));
+		assertThat(r.next(), is(EventType.PARAMETER));
+		assertThat(r.next(), is(EventType.END_UNIT));
+		assertThat(r.next(), is(EventType.END_UNIT));
+		assertThat(r.getFullQualifiedName().toString(), is("/XXXX0000"));
+		assertThat(r.getDepth(), is(0));
+
+		assertThat(r.next(), is(EventType.END_OF_INPUT));
+		assertThat(r.next(), is(EventType.END_OF_INPUT));
+		assertNull(r.getFullQualifiedName());
+	}
+
+	@Test
+	public void skipSubtree_skipsToEndOfCurrentUnit() throws InputExeption, ParseException {
+		final UnitDefReader r = new UnitDefReader(Input.fromCharSequence(jobnetUnitDefString2));
+		int starts = 0;
+		while (r.next() != EventType.END_OF_INPUT) {
+			if (r.getEventType() == EventType.START_UNIT) {
+				starts ++;
+				if (r.getFullQualifiedName().toString().equals("/XXXX0000/XXXX0001")) {
+					r.skipSubtree();
+					assertThat(r.getEventType(), is(EventType.END_UNIT));
+					assertThat(r.getFullQualifiedName().toString(), is("/XXXX0000/XXXX0001"));
+					assertThat(r.getDepth(), is(1));
+				}
+			}
+		}
+		assertThat(starts, is(5));
+	}
+
+	@Test
+	public void skipSubtree_ignoresBracesInQuotedString() throws InputExeption, ParseException {
+		final UnitDefReader r = new UnitDefReader(Input.fromCharSequence(
+				"unit=A,,,;{ty=g;unit=B,,,;{ty=j;sc=\"}#\"}{\";cm=\"{\";}unit=C,,,;{ty=j;}}"));
+		assertThat(r.next(), is(EventType.START_UNIT));
+		assertThat(r.next(), is(EventType.PARAMETER));
+		assertThat(r.next(), is(EventType.START_UNIT));
+		r.skipSubtree();
+		assertThat(r.next(), is(EventType.START_UNIT));
+		assertThat(r.getFullQualifiedName().toString(), is("/A/C"));
+	}
+
+	@Test
+	public void skipSubtree_ignoresBracesAndQuotesInComment() throws InputExeption, ParseException {
+		final UnitDefReader r = new UnitDefReader(Input.fromCharSequence(
+				"unit=A,,,;{ty=g;unit=B,,,;{ty=j; /* } \" */ sc=\"/*\";}unit=C,,,;{ty=j;}}"));
+		assertThat(r.next(), is(EventType.START_UNIT));
+		assertThat(r.next(), is(EventType.PARAMETER));
+		assertThat(r.next(), is(EventType.START_UNIT));
+		r.skipSubtree();
+		assertThat(r.next(), is(EventType.START_UNIT));
+		assertThat(r.getFullQualifiedName().toString(), is("/A/C"));
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void skipSubtree_throwsExceptionIfCurrentEventIsNotStartUnit() throws InputExeption, ParseException {
+		final UnitDefReader r = new UnitDefReader(Input.fromCharSequence(minimalUnitDefString1));
+		r.next();
+		r.next();
+		r.skipSubtree();
+	}
+
+	@Test(expected = ParseException.class)
+	public void next_throwsExceptionIfUnitIsNotClosed() throws InputExeption, ParseException {
+		final UnitDefReader r = new UnitDefReader(Input.fromCharSequence("unit=A,,,;{ty=g;"));
+		while (r.next() != EventType.END_OF_INPUT) {
+			// Do nothing.
+		}
+	}
+}
@@ -0,0 +1,97 @@
+package org.unclazz.jp1ajs2.unitdef.parser;
+
+import static org.junit.Assert.*;
+import static org.unclazz.jp1ajs2.unitdef.TestUtils.*;
+import static org.hamcrest.CoreMatchers.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+import org.unclazz.jp1ajs2.unitdef.Attributes;
+import org.unclazz.jp1ajs2.unitdef.FullQualifiedName;
+import org.unclazz.jp1ajs2.unitdef.ParameterValue;
+import org.unclazz.jp1ajs2.unitdef.Unit;
+import org.unclazz.jp1ajs2.unitdef.Units;
+
+public class UnitEventParserTest {
+
+	private static final class RecordingHandler implements UnitEventHandler {
+		private final List<String> events = new ArrayList<String>();
+		@Override
+		public void startUnit(FullQualifiedName fqn, Attributes attributes) {
+			events.add("start " + fqn + " " + attributes.getPermissionMode());
+		}
+		@Override
+		public void parameter(String name, List<ParameterValue> values) {
+			final StringBuilder sb = new StringBuilder("param ").append(name).append('=');
+			for (final ParameterValue v : values) {
+				sb.append('[').append(v.getStringValue()).append(']');
+			}
+			events.add(sb.toString());
+		}
+		@Override
+		public void endUnit(FullQualifiedName fqn) {
+			events.add("end " + fqn);
+		}
+	}
+
+	@Test
+	public void parse_notifiesEventsInSourceOrder() {
+		final RecordingHandler h = new RecordingHandler();
+		final ParseResult<Integer> r = new UnitEventParser(h).parse(nestedUnitDefString1);
+		assertTrue(r.isSuccessful());
+		assertThat(r.get(), is(3));
+		assertThat(h.events.get(0), is("start /XXXX0000 0000"));
+		assertThat(h.events.get(1), is("param ty=[g]"));
+		assertThat(h.events.get(6), is("param cm=[これはコメントです。]"));
+		assertThat(h.events.get(7), is("param xx=[ABCDEF][ABC123][HAS SPACE][QUOTED STRING][123456][2013/01/01][00:00][()]"));
+		assertThat(h.events.subList(10, h.events.size()), is(Arrays.asList(
+				"start /XXXX0000/XXXX0001 0001",
+				"param ty=[g]",
+				"param cm=[これはコメントです。]",
+				"end /XXXX0000/XXXX0001",
+				"start /XXXX0000/XXXX0002 0002",
+				"param ty=[g]",
+				"param cm=[これはコメントです。]",
+				"end /XXXX0000/XXXX0002",
+				"end /XXXX0000")));
+	}
+
+	@Test
+	public void parse_notifiesSameParametersAsUnitParser() {
+		final RecordingHandler h = new RecordingHandler();
+		Units.fromCharSequence(jobnetUnitDefString2, h);
+		int params = 0;
+		for (final String e : h.events) {
+			if (e.startsWith("param ")) {
+				params ++;
+			}
+		}
+		assertThat(params, is(countParameters(jobnetUnitDef2())));
+	}
+	
+	private static int countParameters(final Unit unit) {
+		int count = unit.getParameters().size();
+		for (final Unit sub : unit.getSubUnits()) {
+			count += countParameters(sub);
+		}
+		return count;
+	}
+
+	@Test
+	public void parse_returnsFailureIfUnitIsNotClosed() {
+		final ParseResult<Integer> r = new UnitEventParser(new RecordingHandler())
+				.parse("unit=XXXX0000,,,;\r\n{\r\n\tty=g;\r\n");
+		assertFalse(r.isSuccessful());
+		assertThat(r.getError(), instanceOf(ParseException.class));
+	}
+
+	@Test
+	public void parse_returnsFailureIfParameterTyIsNotFound() {
+		final ParseResult<Integer> r = new UnitEventParser(new RecordingHandler())
+				.parse("unit=XXXX0000,,,;\r\n{\r\n}\r\n");
+		assertFalse(r.isSuccessful());
+	}
+}
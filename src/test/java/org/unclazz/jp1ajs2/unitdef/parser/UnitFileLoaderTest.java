@@ -0,0 +1,198 @@
+package org.unclazz.jp1ajs2.unitdef.parser;
+
+import static org.junit.Assert.*;
+import static org.unclazz.jp1ajs2.unitdef.TestUtils.*;
+import static org.hamcrest.CoreMatchers.*;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.unclazz.jp1ajs2.unitdef.Unit;
+import org.unclazz.jp1ajs2.unitdef.Units;
+
+public class UnitFileLoaderTest {
+	private static final Charset cs = Charset.forName("Windows-31J");
+	private File dir;
+
+	@Before
+	public void setUp() throws IOException {
+		dir = File.createTempFile("unitdef", "");
+		dir.delete();
+		dir.mkdir();
+		write("a.txt", minimalUnitDefString1);
+		write("b.txt", jobnetUnitDefString2);
+		write("c.txt", nestedUnitDefString1);
+		write("d.bak", minimalUnitDefString2);
+	}
+
+	@After
+	public void tearDown() {
+		for (final File f : dir.listFiles()) {
+			f.delete();
+		}
+		dir.delete();
+	}
+
+	private void write(final String name, final String text) throws IOException {
+		final OutputStream out = new FileOutputStream(new File(dir, name));
+		try {
+			out.write(text.getBytes(cs));
+		} finally {
+			out.close();
+		}
+	}
+
+	private File writeGzip(final String name, final String text) throws IOException {
+		final File f = new File(dir, name);
+		final OutputStream out = new GZIPOutputStream(new FileOutputStream(f));
+		try {
+			out.write(text.getBytes(cs));
+		} finally {
+			out.close();
+		}
+		return f;
+	}
+
+	private File writeZip(final String name, final String... entryNamesAndTexts) throws IOException {
+		final File f = new File(dir, name);
+		final ZipOutputStream out = new ZipOutputStream(new FileOutputStream(f));
+		try {
+			for (int i = 0; i < entryNamesAndTexts.length; i += 2) {
+				out.putNextEntry(new ZipEntry(entryNamesAndTexts[i]));
+				if (entryNamesAndTexts[i + 1] != null) {
+					out.write(entryNamesAndTexts[i + 1].getBytes(cs));
+				}
+				out.closeEntry();
+			}
+		} finally {
+			out.close();
+		}
+		return f;
+	}
+
+	@Test
+	public void load_parsesAllFilesInNameOrder() {
+		final UnitFileLoadResult r = new UnitFileLoader(2).load(dir, cs);
+		assertTrue(r.isSuccessful());
+		assertThat(r.getFileResults().size(), is(4));
+		assertThat(r.getFileResults().get(1).getFile().getName(), is("b.txt"));
+		assertThat(r.getFileResults().get(1).getLength(), is(new File(dir, "b.txt").length()));
+		assertThat(r.getSuccessCount(), is(4));
+		assertThat(r.getFailureCount(), is(0));
+		assertThat(r.getUnits().size(), is(4));
+		assertThat(r.getUnits().get(1).serialize().toString(), is(jobnetUnitDef2().serialize().toString()));
+		assertThat(r.getTotalParseNanos() > 0, is(true));
+	}
+
+	@Test
+	public void load_filtersFilesByGlob() {
+		final UnitFileLoadResult r = new UnitFileLoader(2).load(dir, "?.txt", cs);
+		assertThat(r.getFileResults().size(), is(3));
+		assertThat(r.getFileResults().get(2).getFile().getName(), is("c.txt"));
+	}
+
+	@Test
+	public void load_reportsFailurePerFile() throws IOException {
+		write("b.txt", "unit=XXXX0000,,,;\r\n{\r\n\tty=g;\r\n");
+		final ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			final UnitFileLoadResult r = new UnitFileLoader(executor).load(dir, "*.txt", cs);
+			assertFalse(r.isSuccessful());
+			assertThat(r.getFailureCount(), is(1));
+			assertThat(r.getFailures().get(0).getFile().getName(), is("b.txt"));
+			assertThat(r.getFailures().get(0).getResult().getError(), instanceOf(ParseException.class));
+			assertThat(r.getUnits().size(), is(2));
+			assertFalse(executor.isShutdown());
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void load_keepsOrderOfGivenFiles() {
+		final List<File> files = Arrays.asList(new File(dir, "c.txt"), new File(dir, "a.txt"));
+		final UnitFileLoadResult r = new UnitFileLoader(2).load(files, cs);
+		assertThat(r.getFileResults().get(0).getFile(), is(files.get(0)));
+		assertThat(r.getUnits().get(1).getName(), is(minimalUnitDef1().getName()));
+	}
+
+	@Test
+	public void globToPattern_quotesLiteralCharacters() {
+		assertTrue(UnitFileLoader.globToPattern("*.txt").matcher("a.txt").matches());
+		assertFalse(UnitFileLoader.globToPattern("*.txt").matcher("atxt").matches());
+		assertTrue(UnitFileLoader.globToPattern("job??(1).*").matcher("job01(1).def").matches());
+	}
+
+	@Test
+	public void Units_fromDirectory_returnsAllUnits() {
+		final List<Unit> units = Units.fromDirectory(dir, cs);
+		assertThat(units.size(), is(4));
+	}
+
+	@Test
+	public void Units_fromFile_readsGzipFile() throws IOException {
+		final File f = writeGzip("b.dat", jobnetUnitDefString2);
+		final List<Unit> units = Units.fromFile(f, cs);
+		assertThat(units.size(), is(1));
+		assertThat(units.get(0).serialize().toString(), is(jobnetUnitDef2().serialize().toString()));
+	}
+
+	@Test
+	public void Units_fromFile_readsAllEntriesOfZipFile() throws IOException {
+		// 行コメントで終わるエントリの直後のエントリも読み取られる
+		final File f = writeZip("ab.dat", "dir/", null,
+				"dir/a.txt", minimalUnitDefString1 + "// end of a",
+				"b.txt", jobnetUnitDefString2);
+		final List<Unit> units = Units.fromFile(f, cs);
+		assertThat(units.size(), is(2));
+		assertThat(units.get(1).serialize().toString(), is(jobnetUnitDef2().serialize().toString()));
+
+		final UnitParseOptions opts = new UnitParseOptions();
+		opts.setByteLevelScanning(true);
+		final ParseResult<List<Unit>> r = new UnitParser(opts).parse(f, cs);
+		assertThat(r.get().size(), is(2));
+		assertThat(r.get().get(1).serialize().toString(), is(jobnetUnitDef2().serialize().toString()));
+	}
+
+	@Test
+	public void loadZip_parsesEntriesInArchiveOrder() throws IOException {
+		final File f = writeZip("all.zip", "x/", null,
+				"x/c.txt", nestedUnitDefString1,
+				"x/a.txt", minimalUnitDefString1,
+				"x/b.txt", "unit=XXXX0000,,,;\r\n{\r\n\tty=g;\r\n");
+		final UnitFileLoadResult r = new UnitFileLoader(2).loadZip(f, cs);
+		assertThat(r.getFileResults().size(), is(3));
+		assertThat(r.getFileResults().get(0).getFile(), is(new File(f, "x/c.txt")));
+		assertThat(r.getFileResults().get(0).getLength(), is((long) nestedUnitDefString1.getBytes(cs).length));
+		assertThat(r.getFileResults().get(1).getResult().get().get(0).getName(), is(minimalUnitDef1().getName()));
+		assertThat(r.getFailureCount(), is(1));
+		assertThat(r.getFailures().get(0).getFile().getName(), is("b.txt"));
+		assertThat(r.getUnits().size(), is(2));
+	}
+
+	@Test
+	public void Units_fromZipEntries_returnsAllUnits() throws IOException {
+		final File f = writeZip("all.zip", "a.txt", minimalUnitDefString1, "b.txt", jobnetUnitDefString2);
+		final List<Unit> units = Units.fromZipEntries(f, cs);
+		assertThat(units.size(), is(2));
+		assertThat(units.get(0).getName(), is(minimalUnitDef1().getName()));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void loadZip_whenFileIsNotZip_throwsException() {
+		new UnitFileLoader(2).loadZip(new File(dir, "a.txt"), cs);
+	}
+}
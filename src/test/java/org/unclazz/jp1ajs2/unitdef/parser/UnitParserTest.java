@@ -4,7 +4,20 @@ import static org.junit.Assert.*;
 import static org.unclazz.jp1ajs2.unitdef.TestUtils.*;
 import static org.hamcrest.CoreMatchers.*;
 
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.StringReader;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.HashSet;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.junit.Test;
 import org.unclazz.jp1ajs2.unitdef.Attributes;
@@ -12,8 +25,10 @@ import org.unclazz.jp1ajs2.unitdef.Parameter;
 import org.unclazz.jp1ajs2.unitdef.parameter.UnitType;
 import org.unclazz.jp1ajs2.unitdef.Tuple;
 import org.unclazz.jp1ajs2.unitdef.Unit;
+import org.unclazz.jp1ajs2.unitdef.Units;
 import org.unclazz.jp1ajs2.unitdef.parser.UnitParser;
 import org.unclazz.jp1ajs2.unitdef.query.Queries;
+import org.unclazz.jp1ajs2.unitdef.util.StringPool;
 
 public class UnitParserTest {
 
@@ -165,4 +180,364 @@ public class UnitParserTest {
 		assertThat(r1.get().size(), is(2));
 	}
 
+	@Test
+	public void parseは複数のスレッドから同時に呼び出されても同じ結果を返す() throws Exception {
+		final String[] inputs = {jobnetUnitDefString2, nestedUnitDefString1, simpleUnitDefString1};
+		final String[] expected = new String[inputs.length];
+		for (int i = 0; i < inputs.length; i ++) {
+			expected[i] = serialize(createParser().parse(inputs[i]).get());
+		}
+		
+		final int threads = 8;
+		final UnitParser shared = createParser();
+		final CountDownLatch start = new CountDownLatch(1);
+		final ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			final List<Future<Integer>> futures = new ArrayList<Future<Integer>>();
+			for (int t = 0; t < threads; t ++) {
+				final int offset = t;
+				futures.add(executor.submit(new Callable<Integer>() {
+					@Override
+					public Integer call() throws Exception {
+						start.await();
+						int mismatches = 0;
+						for (int i = 0; i < 300; i ++) {
+							final int k = (i + offset) % inputs.length;
+							// 共有インスタンスとUnitsの静的メソッドを交互に使用する
+							final List<Unit> units = i % 2 == 0
+									? shared.parse(inputs[k]).get()
+									: Units.fromCharSequence(inputs[k]);
+							if (!serialize(units).equals(expected[k])) {
+								mismatches ++;
+							}
+						}
+						return mismatches;
+					}
+				}));
+			}
+			start.countDown();
+			for (final Future<Integer> f : futures) {
+				assertThat(f.get(), is(0));
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+	
+	@Test
+	public void parseはzeroCopyValuesが指定された場合も同じ結果を返す() throws Exception {
+		final UnitParseOptions opts = new UnitParseOptions();
+		opts.setZeroCopyValues(true);
+		final UnitParser zeroCopy = new UnitParser(opts);
+		final String[] inputs = {jobnetUnitDefString2, nestedUnitDefString1, simpleUnitDefString1,
+				"unit=A,,,;{ty=g;cm=\"a#\"b##c\";sc=\"esc#xs\";xx=a\"q#\"x\"b,(k=v,w),(a==b),(a=,b),();"
+				+ "yy=(\r\n  x=1,\r\n  y=2);zz=\"\",,\"#\"\";}"};
+		for (final String s : inputs) {
+			assertThat(serialize(zeroCopy.parse(s).get()), is(serialize(createParser().parse(s).get())));
+			assertThat(serialize(zeroCopy.parse(new StringReader(s)).get()),
+					is(serialize(createParser().parse(s).get())));
+		}
+		
+		final Unit u = zeroCopy.parse(inputs[3]).get().get(0);
+		final Tuple t = u.getParameters().get(3).getValues().get(1).getTuple();
+		assertThat(t.get("k"), instanceOf(CharArraySlice.class));
+		assertThat(t.get("k").toString(), is("v"));
+		assertThat(t.get(1).toString(), is("w"));
+		assertThat(u.getParameters().get(2).getValues().get(0).getStringValue(), is("escxs"));
+		
+		final String bad = "unit=A,,,;{ty=g;xx=(a,b;}";
+		assertThat(zeroCopy.parse(bad).getError().getMessage(),
+				is(createParser().parse(bad).getError().getMessage()));
+	}
+	
+	@Test
+	public void parseはstringPoolが指定された場合パラメータ名と値を集約する() {
+		final StringPool pool = new StringPool();
+		final UnitParseOptions opts = new UnitParseOptions();
+		opts.setStringPool(pool);
+		final List<Unit> units = new UnitParser(opts).parse(jobnetUnitDefString2).get();
+		assertThat(serialize(units), is(serialize(createParser().parse(jobnetUnitDefString2).get())));
+		
+		final Unit u0 = units.get(0).getSubUnits().get(0);
+		final Unit u1 = units.get(0).getSubUnits().get(1);
+		assertTrue(u0.getParameters().get(0).getName() == u1.getParameters().get(0).getName());
+		assertTrue(u0.getParameters().get(0).getValues().get(0).getStringValue()
+				== u1.getParameters().get(0).getValues().get(0).getStringValue());
+		assertThat(pool.getHitCount() > 0, is(true));
+	}
+	
+	@Test
+	public void parseはfullQualifiedNamePrefixが指定された場合その祖先と子孫のユニットのみを返す() {
+		final UnitParseOptions opts = new UnitParseOptions();
+		opts.setFullQualifiedNamePrefix("/XXXX0000/XXXX0002");
+		final List<Unit> units = new UnitParser(opts).parse(jobnetUnitDefString2).get();
+		assertThat(units.size(), is(1));
+		assertThat(units.get(0).getParameters().size(), is(9));
+		assertThat(units.get(0).getSubUnits().size(), is(1));
+		final Unit u = units.get(0).getSubUnits().get(0);
+		assertThat(u.getFullQualifiedName().toString(), is("/XXXX0000/XXXX0002"));
+		assertThat(u.serialize().toString(),
+				is(jobnetUnitDef2().getSubUnits().get(1).serialize().toString()));
+		
+		opts.setFullQualifiedNamePrefix("/XXXX0000/XXXX00");
+		assertThat(new UnitParser(opts).parse(jobnetUnitDefString2).get().get(0).getSubUnits().size(), is(0));
+		
+		opts.setFullQualifiedNamePrefix("/YYYY0000");
+		final ParseResult<List<Unit>> r = new UnitParser(opts).parse(jobnetUnitDefString2);
+		assertTrue(r.isSuccessful());
+		assertThat(r.get().size(), is(0));
+	}
+	
+	@Test
+	public void parseはfullQualifiedNamePrefixの対象外のユニットを引用符の中の波カッコを無視して読み飛ばす() {
+		final UnitParseOptions opts = new UnitParseOptions();
+		opts.setFullQualifiedNamePrefix("/R/B/");
+		final List<Unit> units = new UnitParser(opts).parse(
+				"unit=R,,,;{ty=g;unit=A,,,;{ty=j;cm=\"}#\"{\";unit=A1,,,;{ty=j;}}unit=B,,,;{ty=j;}}").get();
+		assertThat(units.get(0).getSubUnits().size(), is(1));
+		assertThat(units.get(0).getSubUnits().get(0).getName(), is("B"));
+	}
+	
+	@Test
+	public void parseは対象外のユニットをコメントの中の波カッコと引用符を無視して読み飛ばす() {
+		final String s = "unit=A,,,;{ty=g;\n unit=B,,,;{ty=n; /* } \" */ cm=\"x\";\n"
+				+ " // } \"\r\n ty=n;}\n unit=C,,,;{ty=n;}}";
+		assertThat(new UnitParser().parse(s).get().get(0).getSubUnits().size(), is(2));
+		
+		final UnitParseOptions opts0 = new UnitParseOptions();
+		opts0.setFullQualifiedNamePrefix("/A/C");
+		final List<Unit> units0 = new UnitParser(opts0).parse(s).get();
+		assertThat(units0.get(0).getSubUnits().size(), is(1));
+		assertThat(units0.get(0).getSubUnits().get(0).getName(), is("C"));
+		
+		final UnitParseOptions opts1 = new UnitParseOptions();
+		opts1.setUnitTypes(EnumSet.of(UnitType.JOB_GROUP));
+		final List<Unit> units1 = new UnitParser(opts1).parse(s).get();
+		assertThat(units1.get(0).getSubUnits().size(), is(0));
+	}
+	
+	@Test
+	public void parseはunitTypesが指定された場合そのユニット種別のユニットのみを返す() {
+		final UnitParseOptions opts = new UnitParseOptions();
+		opts.setUnitTypes(EnumSet.of(UnitType.JOBNET));
+		final List<Unit> units = new UnitParser(opts).parse(jobnetUnitDefString2).get();
+		final Unit root = units.get(0);
+		assertThat(root.getSubUnits().size(), is(2));
+		assertThat(root.getSubUnits().get(0).getSubUnits().size(), is(0));
+		assertThat(root.getSubUnits().get(1).getSubUnits().size(), is(0));
+		assertThat(root.getSubUnits().get(1).getParameters().size(),
+				is(jobnetUnitDef2().getSubUnits().get(1).getParameters().size()));
+		
+		opts.setUnitTypes(EnumSet.of(UnitType.JOB_GROUP));
+		assertThat(new UnitParser(opts).parse(jobnetUnitDefString2).get().size(), is(0));
+	}
+	
+	@Test
+	public void parseはparameterNamesが指定された場合そのパラメータとtyパラメータのみを返す() {
+		final UnitParseOptions opts = new UnitParseOptions();
+		opts.setParameterNames(new HashSet<String>(Arrays.asList("el", "cm")));
+		final String s = "unit=A,,,;{cm=\"a;b#\"c\";xx=(k=v;w),\"q;\",r\"s;\";"
+				+ "ty=g;\r\nyy\r\n=1,2;el=B,j,+1 +2;zz=(a=));\r\n}";
+		final List<Unit> units = new UnitParser(opts).parse(s).get();
+		final Unit full = createParser().parse(s).get().get(0);
+		final Unit u = units.get(0);
+		assertThat(u.getParameters().size(), is(3));
+		assertThat(u.getParameters().get(0).serialize().toString(), is(full.getParameters().get(0).serialize().toString()));
+		assertThat(u.getParameters().get(1).getName(), is("ty"));
+		assertThat(u.getParameters().get(2).serialize().toString(), is(full.getParameters().get(4).serialize().toString()));
+		
+		final List<Unit> jobnet = new UnitParser(opts).parse(jobnetUnitDefString2).get();
+		assertThat(jobnet.get(0).getParameters().size(), is(4));
+		assertThat(jobnet.get(0).getSubUnits().get(0).getParameters().size(), is(2));
+		
+		final String bad = "unit=A,,,;{ty=g;xx=(a,b;}";
+		assertThat(new UnitParser(opts).parse(bad).getError().getMessage(),
+				is(createParser().parse(bad).getError().getMessage()));
+	}
+	
+	@Test
+	public void parseはbyteLevelScanningが指定された場合も同じ結果を返す() {
+		final UnitParseOptions opts = new UnitParseOptions();
+		opts.setByteLevelScanning(true);
+		final UnitParser bytes = new UnitParser(opts);
+		final File f = new File("src/test/resources/0001.txt");
+		final Charset sjis = Charset.forName("Shift_JIS");
+		
+		final List<Unit> units = bytes.parse(f, sjis).get();
+		assertThat(serialize(units), is(serialize(createParser().parse(f, sjis).get())));
+		assertThat(units.get(0).getParameters().get(1).getValues().get(0).getStringValue(),
+				is("ユニット0001 ジョブグループ"));
+		final Tuple t = units.get(0).getSubUnits().get(0).getParameters().get(6).getValues().get(0).getTuple();
+		assertThat(t.get("f"), instanceOf(DecodingCharArraySlice.class));
+		assertThat(t.get("f").toString(), is("0004"));
+	}
+	
+	@Test
+	public void parseはbyteLevelScanningが指定された場合もマルチバイト文字を正しく読み取る() {
+		final UnitParseOptions opts = new UnitParseOptions();
+		opts.setByteLevelScanning(true);
+		final UnitParser bytes = new UnitParser(opts);
+		// Shift_JISの「ソ」「表」「×」「マ」「ボ」の2バイト目はそれぞれ'\\'、'\\'、'~'、'}'、'{'と同じ値となる
+		final String s = "unit=ソ表,,,;\r\n{\r\n\tty=n;\r\n\tcm=\"ソ表#\"×\";\r\n"
+				+ "\tsz=12×8;\r\n\tar=(f=ソ,t=表);\r\n\txx=ソ\"表\"マ,(ボ);\r\n"
+				+ "\tunit=別,,,;{ty=j;te=マ;cm=ボボ;}\r\n"
+				+ "\tunit=子ソ,,,;{ty=j;sc=\"/path/表.sh\";}\r\n}\r\n";
+		final String expected = serialize(createParser().parse(s).get());
+		for (final String cs : new String[]{"Shift_JIS", "windows-31j", "EUC-JP", "UTF-8", "UTF-16"}) {
+			final Charset charset = Charset.forName(cs);
+			final ParseResult<List<Unit>> r = bytes.parse(new ByteArrayInputStream(s.getBytes(charset)), charset);
+			assertThat(cs, serialize(r.get()), is(expected));
+			assertThat(cs, r.get().get(0).getAttributes().getUnitName(), is("ソ表"));
+			assertThat(cs, r.get().get(0).getSubUnits().get(1).getFullQualifiedName().toString(), is("/ソ表/子ソ"));
+		}
+		
+		// 読み飛ばされるユニットの中の2バイト目が'}'と同じ値の文字をユニット定義の終わりと誤認しない
+		opts.setFullQualifiedNamePrefix("/ソ表/子ソ");
+		final Charset sjis = Charset.forName("Shift_JIS");
+		final List<Unit> filtered = new UnitParser(opts).parse(new ByteArrayInputStream(s.getBytes(sjis)), sjis).get();
+		assertThat(filtered.get(0).getSubUnits().size(), is(1));
+		assertThat(filtered.get(0).getSubUnits().get(0).getName(), is("子ソ"));
+	}
+	
+	@Test
+	public void parseはsourceMapが指定された場合ユニットとパラメータの範囲を記録する() {
+		final SourceMap map = new SourceMap();
+		final UnitParseOptions opts = new UnitParseOptions();
+		opts.setSourceMap(map);
+		final List<Unit> units = new UnitParser(opts).parse(nestedUnitDefString1).get();
+		
+		assertThat(map.size(), is(3));
+		final SourceRange root = map.getUnitRange(units.get(0).getFullQualifiedName());
+		assertThat(root.getStartOffset(), is(0L));
+		assertThat(root.getEndOffset(), is((long) nestedUnitDefString1.length() - 2));
+		assertThat(root.getStartLineNumber(), is(1));
+		assertThat(root.getEndLineNumber(), is(15));
+		
+		final SourceRange sub = map.getUnitRange("/XXXX0000/XXXX0002");
+		final String subText = nestedUnitDefString1.substring(
+				(int) sub.getStartOffset(), (int) sub.getEndOffset());
+		assertThat(subText, startsWith("unit=XXXX0002,"));
+		assertThat(subText, endsWith("}"));
+		assertThat(sub.getStartLineNumber(), is(10));
+		assertThat(sub.getEndLineNumber(), is(14));
+		// 記録された範囲だけを読み直すと同じユニットが得られる
+		assertThat(createParser().parse(subText).get().get(0).getParameters().toString(),
+				is(units.get(0).getSubUnits().get(1).getParameters().toString()));
+		
+		final List<SourceRange> params = map.getParameterRanges("/XXXX0000/XXXX0002");
+		assertThat(params.size(), is(2));
+		assertThat(nestedUnitDefString1.substring((int) params.get(0).getStartOffset(),
+				(int) params.get(0).getEndOffset()), is("ty=g;"));
+		assertThat(nestedUnitDefString1.substring((int) params.get(1).getStartOffset(),
+				(int) params.get(1).getEndOffset()), is("cm=\"これはコメントです。\";"));
+		assertThat(params.get(1).getStartLineNumber(), is(13));
+		
+		assertNull(map.getUnitRange("/XXXX0000/XXXX9999"));
+		assertTrue(map.getParameterRanges("/XXXX0000/XXXX9999").isEmpty());
+	}
+	
+	@Test
+	public void parseはbyteLevelScanningとsourceMapが指定された場合バイト単位の範囲を記録する() {
+		final SourceMap map = new SourceMap();
+		final UnitParseOptions opts = new UnitParseOptions();
+		opts.setSourceMap(map);
+		opts.setByteLevelScanning(true);
+		final Charset sjis = Charset.forName("Shift_JIS");
+		final byte[] bytes = nestedUnitDefString1.getBytes(sjis);
+		new UnitParser(opts).parse(new ByteArrayInputStream(bytes), sjis).get();
+		
+		final SourceRange sub = map.getUnitRange("/XXXX0000/XXXX0002");
+		final String subText = new String(bytes, (int) sub.getStartOffset(), (int) sub.getLength(), sjis);
+		assertThat(subText, startsWith("unit=XXXX0002,"));
+		assertThat(subText, endsWith("}"));
+		assertThat(sub.getEndOffset(), is((long) bytes.length - 2 - 3));
+	}
+	
+	@Test
+	public void reparseは編集箇所を含むユニットのみを読み直し他のユニットを共有する() {
+		final String before = "unit=ROOT,,,;\r\n{\r\n\tty=g;\r\n"
+				+ "\tunit=NET1,,,;\r\n\t{\r\n\t\tty=n;\r\n"
+				+ "\t\tunit=JOB1,,,;\r\n\t\t{\r\n\t\t\tty=j;\r\n\t\t\tsc=\"/path/to/a.sh\";\r\n\t\t}\r\n"
+				+ "\t\tunit=JOB2,,,;\r\n\t\t{\r\n\t\t\tty=j;\r\n\t\t}\r\n"
+				+ "\t}\r\n"
+				+ "\tunit=NET2,,,;\r\n\t{\r\n\t\tty=n;\r\n\t\tcm=\"後続\";\r\n\t}\r\n"
+				+ "}\r\n"
+				+ "unit=OTHER,,,;{ty=g;}\r\n";
+		final SourceMap map = new SourceMap();
+		final UnitParseOptions opts = new UnitParseOptions();
+		opts.setSourceMap(map);
+		final UnitParser parser = new UnitParser(opts);
+		final List<Unit> units0 = parser.parse(before).get();
+		
+		// JOB1のscパラメータの値を書き換え、改行を含むパラメータを追加する
+		final String oldValue = "a.sh\";";
+		final String newValue = "script_b.sh\";\r\n\t\t\tprm=\"-x\";";
+		final int offset = before.indexOf(oldValue);
+		final String after = before.substring(0, offset) + newValue + before.substring(offset + oldValue.length());
+		final List<Unit> units1 = parser.reparse(units0, after, offset, oldValue.length(), newValue.length()).get();
+		
+		final Unit root0 = units0.get(0);
+		final Unit root1 = units1.get(0);
+		assertThat(serialize(units1), is(serialize(createParser().parse(after).get())));
+		assertTrue(root1 != root0);
+		assertTrue(root1.getParameters().get(0) == root0.getParameters().get(0));
+		assertTrue(root1.getSubUnits().get(0) != root0.getSubUnits().get(0));
+		assertTrue(root1.getSubUnits().get(1) == root0.getSubUnits().get(1));
+		assertTrue(root1.getSubUnits().get(0).getSubUnits().get(1) == root0.getSubUnits().get(0).getSubUnits().get(1));
+		assertTrue(units1.get(1) == units0.get(1));
+		
+		// 索引は編集後の入力データをパースし直した場合と同じ内容となる
+		final SourceMap expected = new SourceMap();
+		final UnitParseOptions opts2 = new UnitParseOptions();
+		opts2.setSourceMap(expected);
+		new UnitParser(opts2).parse(after);
+		assertThat(map.getFullQualifiedNames(), is(expected.getFullQualifiedNames()));
+		for (final String fqn : expected.getFullQualifiedNames()) {
+			assertThat(fqn, map.getUnitRange(fqn), is(expected.getUnitRange(fqn)));
+			assertThat(fqn, map.getParameterRanges(fqn), is(expected.getParameterRanges(fqn)));
+		}
+		
+		// 続けて別の箇所を編集できる
+		final int offset2 = after.indexOf("後続");
+		final String after2 = after.substring(0, offset2) + "後" + after.substring(offset2 + 2);
+		final List<Unit> units2 = parser.reparse(units1, after2, offset2, 2, 1).get();
+		assertThat(serialize(units2), is(serialize(createParser().parse(after2).get())));
+		assertTrue(units2.get(0).getSubUnits().get(0) == units1.get(0).getSubUnits().get(0));
+		assertThat(map.getUnitRange("/OTHER"), is(notNullValue()));
+		assertThat(after2.substring((int) map.getUnitRange("/OTHER").getStartOffset()), startsWith("unit=OTHER"));
+	}
+	
+	@Test
+	public void reparseはユニット定義の範囲が変化した場合全体をパースし直す() {
+		final String before = "unit=A,,,;{ty=g;unit=B,,,;{ty=j;}}\r\nunit=C,,,;{ty=g;}";
+		final SourceMap map = new SourceMap();
+		final UnitParseOptions opts = new UnitParseOptions();
+		opts.setSourceMap(map);
+		final UnitParser parser = new UnitParser(opts);
+		final List<Unit> units0 = parser.parse(before).get();
+		
+		// Bの定義の中に'}'を挿入するとBはその位置で終わる
+		final int offset = before.indexOf("ty=j;") + 5;
+		final String after = before.substring(0, offset) + "}unit=D,,,;{ty=j;" + before.substring(offset);
+		final ParseResult<List<Unit>> r = parser.reparse(units0, after, offset, 0, 17);
+		
+		assertThat(serialize(r.get()), is(serialize(createParser().parse(after).get())));
+		assertThat(r.get().get(0).getSubUnits().size(), is(2));
+		assertThat(map.getUnitRange("/A/D"), is(notNullValue()));
+	}
+	
+	@Test(expected = IllegalStateException.class)
+	public void reparseはsourceMapが指定されていない場合例外をスローする() {
+		final List<Unit> units = createParser().parse(simpleUnitDefString1).get();
+		createParser().reparse(units, simpleUnitDefString1, 20, 0, 0);
+	}
+	
+	private static String serialize(final List<Unit> units) {
+		final StringBuilder sb = new StringBuilder();
+		for (final Unit u : units) {
+			sb.append(u.serialize());
+		}
+		return sb.toString();
+	}
+
 }
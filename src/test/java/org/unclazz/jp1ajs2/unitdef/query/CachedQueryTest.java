@@ -0,0 +1,56 @@
+package org.unclazz.jp1ajs2.unitdef.query;
+
+import static org.junit.Assert.*;
+
+import static org.hamcrest.CoreMatchers.*;
+
+import org.junit.Test;
+import org.unclazz.jp1ajs2.unitdef.Unit;
+import org.unclazz.jp1ajs2.unitdef.Units;
+
+public class CachedQueryTest {
+	
+	private Unit makeJobnet(int children) {
+		final StringBuilder sb = new StringBuilder("unit=NET,,,;{ty=n;");
+		for (int i = 0; i < children; i ++) {
+			sb.append("unit=JOB").append(i).append(",,,;{ty=j;}");
+		}
+		return Units.fromCharSequence(sb.append('}')).get(0);
+	}
+	
+	@Test
+	public void queryFrom_whenQueriedRepeatedly_returnsResultOfEachTarget() {
+		// Arrange
+		final Unit u0 = makeJobnet(1);
+		final Unit u1 = makeJobnet(2);
+		final int[] count = {0};
+		final Query<Unit, Integer> q = CachedQuery.wrap(new Query<Unit, Integer>() {
+			@Override
+			public Integer queryFrom(final Unit t) {
+				count[0] ++;
+				return t.getSubUnits().size();
+			}
+		});
+		
+		// Act
+		// Assert
+		assertThat(q.queryFrom(u0), equalTo(1));
+		assertThat(q.queryFrom(u0), equalTo(1));
+		assertThat(count[0], equalTo(1));
+		assertThat(q.queryFrom(u1), equalTo(2));
+		assertThat(q.queryFrom(u0), equalTo(1));
+		assertThat(count[0], equalTo(3));
+	}
+	
+	@Test
+	public void queryFrom_whenUnitTypeIsQueriedTwice_returnsCachedResult() {
+		// Arrange
+		final Unit u = makeJobnet(1);
+		
+		// Act
+		// Assert
+		assertThat(u.getType(), sameInstance(u.getType()));
+		assertThat(u.getComment(), equalTo(u.getComment()));
+		assertThat(u.getSubUnits().get(0).getType(), sameInstance(u.getSubUnits().get(0).getType()));
+	}
+}
@@ -0,0 +1,80 @@
+package org.unclazz.jp1ajs2.unitdef.query;
+
+import static org.junit.Assert.*;
+
+import static org.hamcrest.CoreMatchers.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import org.junit.Test;
+import org.unclazz.jp1ajs2.unitdef.Parameter;
+import org.unclazz.jp1ajs2.unitdef.ParameterValue;
+import org.unclazz.jp1ajs2.unitdef.Unit;
+import org.unclazz.jp1ajs2.unitdef.Units;
+
+public class QueriesTest {
+	
+	private Unit makeJobnet(int children) {
+		final StringBuilder sb = new StringBuilder("unit=NET,,,;{ty=n;");
+		for (int i = 0; i < children; i ++) {
+			sb.append("unit=JOB").append(i).append(",,,;{ty=j;}");
+		}
+		return Units.fromCharSequence(sb.append('}')).get(0);
+	}
+	
+	@Test
+	public void children_whenNameIsSpecified_returnsSameUnitAsNameEquals() {
+		// Arrange
+		final Unit u0 = makeJobnet(3);
+		final Unit u1 = makeJobnet(100);
+		
+		// Act
+		// Assert
+		assertThat(u0.query(Queries.children("JOB2")),
+				sameInstance(u0.query(Queries.children().nameEquals("JOB2").one())));
+		assertThat(u1.query(Queries.children("JOB99")),
+				sameInstance(u1.query(Queries.children().nameEquals("JOB99").one())));
+	}
+	
+	@Test(expected = NoSuchElementException.class)
+	public void children_whenNameIsSpecifiedAndUnitIsNotFound_throwsException() {
+		makeJobnet(100).query(Queries.children("JOB100"));
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void children_whenNameIsEmpty_throwsException() {
+		Queries.children("");
+	}
+	
+	@Test
+	public void parameters_whenNameIsSpecified_returnsSameParametersAsPredicate() {
+		// Arrange
+		final StringBuilder sb = new StringBuilder("unit=NET,,,;{ty=n;");
+		for (int i = 0; i < 20; i ++) {
+			sb.append("el=JOB").append(i).append(",j,+80+48;cm=c").append(i).append(';');
+		}
+		final Unit u = Units.fromCharSequence(sb.append('}')).get(0);
+		final List<Parameter> expected = new ArrayList<Parameter>();
+		for (final Parameter p : u.getParameters()) {
+			if (p.getName().equals("el")) {
+				expected.add(p);
+			}
+		}
+		
+		// Act
+		final List<Parameter> r0 = u.query(Queries.parameters("el").list());
+		final List<Parameter> r2 = u.query(Queries.parameters().nameEquals("el").nameEquals("cm").list());
+		final List<ParameterValue> r3 = u.query(Queries.parameters("el")
+				.whenValueAt(1).contentEquals("j").thenReplace(1, "pj").theirValues(1).list());
+		
+		// Assert
+		assertThat(r0, equalTo(expected));
+		assertThat(r0.size(), equalTo(20));
+		assertTrue(r2.isEmpty());
+		assertThat(r3.size(), equalTo(20));
+		assertThat(r3.get(19).getStringValue(), equalTo("pj"));
+		assertThat(u.query(Queries.el().list()).size(), equalTo(20));
+	}
+}
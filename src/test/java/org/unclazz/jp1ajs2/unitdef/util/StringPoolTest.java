@@ -0,0 +1,107 @@
+package org.unclazz.jp1ajs2.unitdef.util;
+
+import static org.junit.Assert.*;
+import static org.hamcrest.CoreMatchers.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+public class StringPoolTest {
+
+	@Test
+	public void intern_whenSameContentIsPooled_returnsPooledInstance() {
+		// Arrange
+		final StringPool pool = new StringPool();
+		final String s0 = pool.intern(new StringBuilder("ty"));
+
+		// Act
+		final String s1 = pool.intern(new StringBuilder("ty"));
+
+		// Assert
+		assertThat(s1, is("ty"));
+		assertTrue(s0 == s1);
+		assertThat(pool.size(), is(1));
+		assertThat(pool.getHitCount(), is(1L));
+		assertThat(pool.getSavedBytes(), is(44L));
+	}
+
+	@Test
+	public void intern_whenLengthExceedsMaxLength_returnsNewInstance() {
+		// Arrange
+		final StringPool pool = new StringPool(10, 3);
+
+		// Act
+		final String s0 = pool.intern("abcd");
+		final String s1 = pool.intern(new StringBuilder("abcd"));
+
+		// Assert
+		assertThat(s1, is("abcd"));
+		assertFalse(s0 == s1);
+		assertThat(pool.size(), is(0));
+	}
+
+	@Test
+	public void intern_whenSizeReachesMaxSize_returnsNewInstance() {
+		// Arrange
+		final StringPool pool = new StringPool(2, 10);
+		pool.intern("a");
+		pool.intern("b");
+
+		// Act
+		final String s0 = pool.intern(new StringBuilder("c"));
+		final String s1 = pool.intern(new StringBuilder("c"));
+
+		// Assert
+		assertThat(s0, is("c"));
+		assertFalse(s0 == s1);
+		assertThat(pool.size(), is(2));
+		assertTrue(pool.intern(new StringBuilder("a")) == pool.intern(new StringBuilder("a")));
+	}
+
+	@Test
+	public void intern_whenCalledConcurrently_returnsSameInstanceForSameContent() throws Exception {
+		// Arrange
+		final StringPool pool = new StringPool();
+		final int threads = 8;
+		final CountDownLatch start = new CountDownLatch(1);
+		final ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			final List<Future<String[]>> futures = new ArrayList<Future<String[]>>();
+			for (int t = 0; t < threads; t ++) {
+				futures.add(executor.submit(new Callable<String[]>() {
+					@Override
+					public String[] call() throws Exception {
+						start.await();
+						final String[] r = new String[1000];
+						for (int i = 0; i < r.length; i ++) {
+							r[i] = pool.intern(new StringBuilder().append("v").append(i));
+						}
+						return r;
+					}
+				}));
+			}
+
+			// Act
+			start.countDown();
+			final String[] expected = futures.get(0).get();
+
+			// Assert
+			for (final Future<String[]> f : futures) {
+				final String[] actual = f.get();
+				for (int i = 0; i < actual.length; i ++) {
+					assertTrue(expected[i] == actual[i]);
+				}
+			}
+			assertThat(pool.size(), is(1000));
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+}
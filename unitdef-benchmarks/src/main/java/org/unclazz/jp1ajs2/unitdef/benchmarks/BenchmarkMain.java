@@ -0,0 +1,33 @@
+package org.unclazz.jp1ajs2.unitdef.benchmarks;
+
+import java.util.Arrays;
+
+import org.openjdk.jmh.Main;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * ベンチマークを実行するエントリー・ポイント.
+ * <p>コマンドライン引数はJMHのものと同じである。
+ * 引数で{@code -prof}が指定されなかった場合は{@link GCProfiler}を有効にして実行し、
+ * 所要時間とともに割当てバイト数とGCの回数を出力する。
+ * 以降の最適化の効果はこの出力を基準として比較する。</p>
+ * <pre>java -jar target/benchmarks.jar                 # すべてのベンチマーク
+ * java -jar target/benchmarks.jar ParseBenchmark  # 正規表現に一致するベンチマーク
+ * java -jar target/benchmarks.jar -p corpus=SMALL # パラメータの指定</pre>
+ */
+public final class BenchmarkMain {
+	private BenchmarkMain() {}
+
+	public static void main(String[] args) throws Exception {
+		final CommandLineOptions cmd = new CommandLineOptions(args);
+		if (cmd.shouldHelp() || cmd.shouldList() || cmd.shouldListProfilers()
+				|| cmd.shouldListResultFormats() || Arrays.asList(args).contains("-prof")) {
+			Main.main(args);
+			return;
+		}
+		new Runner(new OptionsBuilder().parent(cmd).addProfiler(GCProfiler.class).build()).run();
+	}
+}
@@ -0,0 +1,69 @@
+package org.unclazz.jp1ajs2.unitdef.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.unclazz.jp1ajs2.unitdef.Unit;
+import org.unclazz.jp1ajs2.unitdef.parser.UnitParseOptions;
+import org.unclazz.jp1ajs2.unitdef.parser.UnitParser;
+
+/**
+ * {@link UnitParseOptions#setByteLevelScanning(boolean)}の有無によるファイルの読み取りの所要時間を計測するベンチマーク.
+ * <p>日本語のコメントを含むユニット定義を{@code charset}でエンコードした一時ファイルを作成し、
+ * {@code byteLevel}が{@code false}の場合はデコードした上で、{@code true}の場合はバイト・シーケンスのまま読み取る。</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ByteLevelScanningBenchmark {
+	@Param({"MEDIUM", "HUGE"})
+	public Corpus corpus;
+
+	@Param({"Shift_JIS", "UTF-8"})
+	public String charset;
+
+	@Param({"false", "true"})
+	public boolean byteLevel;
+
+	private File file;
+	private Charset cs;
+	private UnitParser parser;
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		cs = Charset.forName(charset);
+		file = corpus.writeTempFile(cs);
+		final UnitParseOptions options = new UnitParseOptions();
+		options.setByteLevelScanning(byteLevel);
+		parser = new UnitParser(options);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		file.delete();
+	}
+
+	@Benchmark
+	public List<Unit> parse() {
+		return parser.parse(file, cs).get();
+	}
+}
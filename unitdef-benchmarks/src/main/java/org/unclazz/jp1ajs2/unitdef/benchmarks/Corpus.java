@@ -0,0 +1,124 @@
+package org.unclazz.jp1ajs2.unitdef.benchmarks;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+
+/**
+ * ベンチマークで使用する合成されたユニット定義.
+ * <p>1つのルート・ジョブネットの配下に指定された数のジョブネットを持ち、
+ * 各ジョブネットが開始日・コメントと5つのジョブを持つユニット定義を生成する。
+ * 同じ大きさを指定すれば常に同じ内容が生成される。</p>
+ */
+public enum Corpus {
+	/**
+	 * 小さなユニット定義（ジョブネット10個）.
+	 */
+	SMALL(10),
+	/**
+	 * 中程度のユニット定義（ジョブネット1,000個）.
+	 */
+	MEDIUM(1000),
+	/**
+	 * 巨大なユニット定義（ジョブネット50,000個）.
+	 */
+	HUGE(50000);
+
+	static final Charset CHARSET = Charset.forName("UTF-8");
+	static final int JOBS_PER_JOBNET = 5;
+
+	private final int jobnets;
+
+	private Corpus(final int jobnets) {
+		this.jobnets = jobnets;
+	}
+
+	/**
+	 * ユニット定義を生成する.
+	 * @return ユニット定義
+	 */
+	public String generate() {
+		return generate(jobnets);
+	}
+
+	/**
+	 * 指定された数のジョブネットを持つユニット定義を生成する.
+	 * ユニットの数はルート・ジョブネットを含め{@code 1 + jobnets * (1 + JOBS_PER_JOBNET)}となる。
+	 * @param jobnets ジョブネットの数
+	 * @return ユニット定義
+	 */
+	static String generate(final int jobnets) {
+		final StringBuilder sb = new StringBuilder();
+		sb.append("unit=ROOT,,jp1admin,;\r\n{\r\n\tty=n;\r\n\tcm=\"ベンチマーク用のルート・ジョブネット\";\r\n");
+		for (int i = 0; i < jobnets; i ++) {
+			sb.append("\tunit=NET").append(i).append(",,jp1admin,;\r\n\t{\r\n")
+			.append("\t\tty=n;\r\n")
+			.append("\t\tsd=").append(startDate(i)).append(";\r\n")
+			.append("\t\tcm=\"日次バッチ").append(i).append("\";\r\n");
+			for (int j = 0; j < JOBS_PER_JOBNET; j ++) {
+				sb.append("\t\tunit=JOB").append(j).append(",,,;\r\n\t\t{\r\n")
+				.append("\t\t\tty=").append(j % 2 == 0 ? "j" : "pj").append(";\r\n")
+				.append("\t\t\tsc=\"/opt/batch/").append(j % 3 == 0 ? "daily" : "monthly")
+				.append("/job").append(j).append(".sh\";\r\n")
+				.append("\t\t\tprm=\"--net=").append(i).append("\";\r\n")
+				.append("\t\t\tjd=cod;\r\n")
+				.append("\t\t}\r\n");
+			}
+			sb.append("\t}\r\n");
+		}
+		return sb.append("}\r\n").toString();
+	}
+
+	/**
+	 * ユニット定義を一時ファイルに書き出す.
+	 * @return 一時ファイル
+	 * @throws IOException I/Oエラーが発生した場合
+	 */
+	public File writeTempFile() throws IOException {
+		return writeTempFile(CHARSET);
+	}
+
+	/**
+	 * ユニット定義を指定された文字セットで一時ファイルに書き出す.
+	 * @param charset 文字セット
+	 * @return 一時ファイル
+	 * @throws IOException I/Oエラーが発生した場合
+	 */
+	public File writeTempFile(final Charset charset) throws IOException {
+		return writeTempFile(name().toLowerCase(), generate(), charset);
+	}
+
+	/**
+	 * 文字列を指定された文字セットで一時ファイルに書き出す.
+	 * @param prefix 一時ファイル名の接頭辞
+	 * @param source 文字列
+	 * @param charset 文字セット
+	 * @return 一時ファイル
+	 * @throws IOException I/Oエラーが発生した場合
+	 */
+	static File writeTempFile(final String prefix, final String source,
+			final Charset charset) throws IOException {
+		final File f = File.createTempFile("unitdef-" + prefix, ".txt");
+		f.deleteOnExit();
+		final OutputStream out = new FileOutputStream(f);
+		try {
+			out.write(source.getBytes(charset));
+		} finally {
+			out.close();
+		}
+		return f;
+	}
+
+	private static String startDate(final int i) {
+		switch (i % 3) {
+		case 0:
+			return "0,ud";
+		case 1:
+			return "en";
+		default:
+			return "2, 2016/02/" + (10 + i % 19);
+		}
+	}
+}
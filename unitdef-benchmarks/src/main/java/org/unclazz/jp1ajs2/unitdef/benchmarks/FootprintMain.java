@@ -0,0 +1,81 @@
+package org.unclazz.jp1ajs2.unitdef.benchmarks;
+
+import java.util.List;
+
+import org.unclazz.jp1ajs2.unitdef.Unit;
+import org.unclazz.jp1ajs2.unitdef.Units;
+import org.unclazz.jp1ajs2.unitdef.parser.UnitParseOptions;
+import org.unclazz.jp1ajs2.unitdef.parser.UnitParser;
+import org.unclazz.jp1ajs2.unitdef.util.StringPool;
+
+/**
+ * パースされたユニット定義が保持するヒープの大きさを計測するエントリー・ポイント.
+ * <p>{@link Corpus}と同じ形式のユニット定義を指定された数のユニットについて生成・パースし、
+ * GCの後にもなお到達可能なヒープの大きさを総計およびユニット1つあたりのバイト数として出力する。
+ * JMHは保持されたヒープの大きさを計測しないためベンチマークとは別に実行する。</p>
+ * <pre>java -Xmx3g -cp target/benchmarks.jar org.unclazz.jp1ajs2.unitdef.benchmarks.FootprintMain [units] [pool]</pre>
+ * <p>ユニット数の既定値は1,000,000である。
+ * 2番目の引数に{@code pool}を指定した場合は{@link StringPool}を使用してパースし、
+ * あわせて{@link StringPool#getSavedBytes()}による削減量の見積もりも出力する。
+ * モデルが要素を保持するリストを{@code LinkedList}からちょうどの長さの配列に置き換えた前後の計測結果は次のとおり
+ * （JDK 11、64ビット、圧縮参照有効、999,997ユニット）。</p>
+ * <table summary="計測結果">
+ * <tr><th></th><th>総計</th><th>ユニットあたり</th></tr>
+ * <tr><td>変更前（{@code LinkedList}）</td><td>1,417,186,600 バイト</td><td>1,417.2 バイト</td></tr>
+ * <tr><td>変更後（ちょうどの長さの配列）</td><td>1,109,855,448 バイト</td><td>1,109.9 バイト（-21.7%）</td></tr>
+ * </table>
+ */
+public final class FootprintMain {
+	private FootprintMain() {}
+
+	public static void main(String[] args) throws InterruptedException {
+		final int units = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+		final int jobnets = units / (1 + Corpus.JOBS_PER_JOBNET);
+		final StringPool pool = args.length > 1 && args[1].equals("pool") ? new StringPool() : null;
+
+		final long base = usedHeap();
+		String source = Corpus.generate(jobnets);
+		final List<Unit> result;
+		if (pool == null) {
+			result = Units.fromCharSequence(source);
+		} else {
+			final UnitParseOptions options = new UnitParseOptions();
+			options.setStringPool(pool);
+			result = new UnitParser(options).parse(source).get();
+		}
+		source = null;
+		final long retained = usedHeap() - base;
+
+		final int count = 1 + jobnets * (1 + Corpus.JOBS_PER_JOBNET);
+		printfln("units:    %,d", count);
+		printfln("retained: %,d bytes", retained);
+		printfln("per unit: %,.1f bytes", (double) retained / count);
+		if (pool != null) {
+			printfln("pool:     %,d bytes saved (estimated, %s)", pool.getSavedBytes(), pool);
+		}
+		// 計測が終わるまで結果が回収されないようにする
+		if (result.get(0).getSubUnits().size() != jobnets) {
+			throw new IllegalStateException();
+		}
+	}
+
+	private static long usedHeap() throws InterruptedException {
+		final Runtime rt = Runtime.getRuntime();
+		long used = Long.MAX_VALUE;
+		// 値が減らなくなるまでGCを繰り返す
+		for (int i = 0; i < 10; i ++) {
+			System.gc();
+			Thread.sleep(100);
+			final long u = rt.totalMemory() - rt.freeMemory();
+			if (u >= used) {
+				break;
+			}
+			used = u;
+		}
+		return used;
+	}
+
+	private static void printfln(final String format, final Object... args) {
+		System.out.printf(format + System.getProperty("line.separator"), args);
+	}
+}
@@ -0,0 +1,71 @@
+package org.unclazz.jp1ajs2.unitdef.benchmarks;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.unclazz.jp1ajs2.unitdef.Unit;
+import org.unclazz.jp1ajs2.unitdef.Units;
+import org.unclazz.jp1ajs2.unitdef.util.Formatters;
+
+/**
+ * {@link Formatters#DEFAULT}によるユニット定義の文字列化の所要時間を計測するベンチマーク.
+ * <p>文字シーケンスを生成する場合と出力ストリームに書き出す場合のそれぞれについて計測する。
+ * 出力ストリームは書き出されたバイト数を数えるだけで内容を保持しない。</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FormatBenchmark {
+	/**
+	 * 書き出されたバイト数を数えるだけの出力ストリーム.
+	 */
+	private static final class CountingOutputStream extends OutputStream {
+		private long count;
+		@Override
+		public void write(final int b) {
+			count ++;
+		}
+		@Override
+		public void write(final byte[] b, final int off, final int len) {
+			count += len;
+		}
+	}
+
+	@Param({"SMALL", "MEDIUM", "HUGE"})
+	public Corpus corpus;
+
+	private Unit root;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		root = Units.fromCharSequence(corpus.generate()).get(0);
+	}
+
+	@Benchmark
+	public CharSequence formatToCharSequence() {
+		return Formatters.DEFAULT.format(root);
+	}
+
+	@Benchmark
+	public long formatToOutputStream() throws IOException {
+		final CountingOutputStream out = new CountingOutputStream();
+		Formatters.DEFAULT.format(root, out, Corpus.CHARSET);
+		return out.count;
+	}
+}
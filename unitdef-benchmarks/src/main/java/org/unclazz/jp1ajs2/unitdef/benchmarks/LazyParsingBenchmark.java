@@ -0,0 +1,84 @@
+package org.unclazz.jp1ajs2.unitdef.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.unclazz.jp1ajs2.unitdef.Unit;
+import org.unclazz.jp1ajs2.unitdef.Units;
+
+/**
+ * {@link Units#lazyFromFile(File, java.nio.charset.Charset)}による読み取りの所要時間を計測するベンチマーク.
+ * <p>多数のルート・ジョブネットを含むユニット定義の一時ファイルを作成し、
+ * {@link Units#fromFile(File, java.nio.charset.Charset)}ですべてをパースする場合と、
+ * 遅延して読み取った上で等間隔に選んだ{@value #OPENED}個のルート・ジョブネットのみのサブユニットを参照する場合とを比較する。</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LazyParsingBenchmark {
+	static final int OPENED = 5;
+
+	@Param({"1000", "20000"})
+	public int roots;
+
+	private File file;
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		file = Corpus.writeTempFile("roots", generate(roots), Corpus.CHARSET);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		file.delete();
+	}
+
+	@Benchmark
+	public List<Unit> fromFile() {
+		return Units.fromFile(file, Corpus.CHARSET);
+	}
+
+	@Benchmark
+	public int lazyFromFile() {
+		final List<Unit> units = Units.lazyFromFile(file, Corpus.CHARSET);
+		int n = 0;
+		for (int i = 0; i < OPENED; i ++) {
+			n += units.get(i * (roots / OPENED)).getSubUnits().size();
+		}
+		return n;
+	}
+
+	private static String generate(final int roots) {
+		final StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < roots; i ++) {
+			sb.append("unit=NET").append(i).append(",,jp1admin,;\r\n{\r\n\tty=n;\r\n")
+			.append("\tcm=\"日次バッチ").append(i).append("\";\r\n");
+			for (int j = 0; j < Corpus.JOBS_PER_JOBNET; j ++) {
+				sb.append("\tunit=JOB").append(j).append(",,,;\r\n\t{\r\n")
+				.append("\t\tty=j;\r\n")
+				.append("\t\tsc=\"/path/to/script").append(j).append(".sh\";\r\n")
+				.append("\t}\r\n");
+			}
+			sb.append("}\r\n");
+		}
+		return sb.toString();
+	}
+}
@@ -0,0 +1,74 @@
+package org.unclazz.jp1ajs2.unitdef.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.unclazz.jp1ajs2.unitdef.parser.Input;
+import org.unclazz.jp1ajs2.unitdef.parser.InputExeption;
+
+/**
+ * {@link Input}の先読み処理の所要時間とメモリ割当て量を計測するベンチマーク.
+ * <p>ユニット定義のすべての位置で、部分文字列を生成する先読み（{@code restOfLine().startsWith(...)}）と
+ * 部分文字列を生成しない先読み（{@link Input#restStartsWith(String)}）とを行う。
+ * 割当てバイト数は{@link BenchmarkMain}が有効にするGCプロファイラの{@code gc.alloc.rate.norm}で比較する。</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LookaheadBenchmark {
+	private static final String[] WORDS = {"//", "/*", "unit"};
+
+	@Param({"SMALL", "MEDIUM"})
+	public Corpus corpus;
+
+	private String source;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		source = corpus.generate();
+	}
+
+	@Benchmark
+	public int restOfLine() throws InputExeption {
+		final Input in = Input.fromCharSequence(source);
+		int hits = 0;
+		while (in.unlessEOF()) {
+			for (final String w : WORDS) {
+				if (in.restOfLine().startsWith(w)) {
+					hits ++;
+				}
+			}
+			in.next();
+		}
+		return hits;
+	}
+
+	@Benchmark
+	public int restStartsWith() throws InputExeption {
+		final Input in = Input.fromCharSequence(source);
+		int hits = 0;
+		while (in.unlessEOF()) {
+			for (final String w : WORDS) {
+				if (in.restStartsWith(w)) {
+					hits ++;
+				}
+			}
+			in.next();
+		}
+		return hits;
+	}
+}
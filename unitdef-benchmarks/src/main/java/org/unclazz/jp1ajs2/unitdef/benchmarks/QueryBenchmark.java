@@ -0,0 +1,104 @@
+package org.unclazz.jp1ajs2.unitdef.benchmarks;
+
+import static org.unclazz.jp1ajs2.unitdef.query.Queries.children;
+import static org.unclazz.jp1ajs2.unitdef.query.Queries.descendants;
+import static org.unclazz.jp1ajs2.unitdef.query.Queries.sd;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.unclazz.jp1ajs2.unitdef.Unit;
+import org.unclazz.jp1ajs2.unitdef.Units;
+import org.unclazz.jp1ajs2.unitdef.parameter.StartDate;
+import org.unclazz.jp1ajs2.unitdef.parameter.UnitType;
+import org.unclazz.jp1ajs2.unitdef.query.Queries;
+
+/**
+ * {@link Queries}による問合せの所要時間を計測するベンチマーク.
+ * <p>問合せの結果はすべて列挙し、列挙した要素の数を返す。
+ * ユニット名による子ユニットの取得は、ルート・ジョブネットの子ユニットから等間隔に選んだ
+ * {@value #LOOKUPS}個の名前について行う。</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QueryBenchmark {
+	static final int LOOKUPS = 100;
+
+	@Param({"SMALL", "MEDIUM", "HUGE"})
+	public Corpus corpus;
+
+	private Unit root;
+	private String[] names;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		root = Units.fromCharSequence(corpus.generate()).get(0);
+		final List<Unit> children = root.getSubUnits();
+		names = new String[LOOKUPS];
+		for (int i = 0; i < LOOKUPS; i ++) {
+			names[i] = children.get(i * children.size() / LOOKUPS).getName();
+		}
+	}
+
+	@Benchmark
+	public int childrenByName() {
+		int n = 0;
+		for (final String name : names) {
+			if (root.query(children(name)) != null) {
+				n ++;
+			}
+		}
+		return n;
+	}
+
+	@Benchmark
+	public int descendantsTypeIs() {
+		int n = 0;
+		for (final Unit u : root.query(descendants().typeIs(UnitType.PC_JOB))) {
+			if (u != null) {
+				n ++;
+			}
+		}
+		return n;
+	}
+
+	@Benchmark
+	public int hasParameterContains() {
+		int n = 0;
+		for (final Unit u : root.query(descendants().hasParameter("sc").contains("daily"))) {
+			if (u != null) {
+				n ++;
+			}
+		}
+		return n;
+	}
+
+	@Benchmark
+	public int startDates() {
+		int n = 0;
+		for (final Iterable<StartDate> sds : root.query(descendants().query(sd()))) {
+			for (final StartDate sd : sds) {
+				if (sd.getDesignationMethod() != null) {
+					n ++;
+				}
+			}
+		}
+		return n;
+	}
+}